@@ -0,0 +1,91 @@
+package de.charite.compbio.jannovar.benchmarks;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import de.charite.compbio.jannovar.vardbs.base.AbstractDBAnnotationDriver;
+import de.charite.compbio.jannovar.vardbs.base.DBAnnotationOptions;
+import de.charite.compbio.jannovar.vardbs.base.JannovarVarDBException;
+import de.charite.compbio.jannovar.vardbs.exac.ExacAnnotationDriver;
+import htsjdk.variant.variantcontext.VariantContext;
+
+/**
+ * Benchmark for {@link AbstractDBAnnotationDriver#annotateVariantContext(VariantContext)}, using a synthetic
+ * ExAC-style database VCF file.
+ *
+ * Half of the annotated variants are present in the database, the other half are random.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class DBAnnotationDriverBenchmark {
+
+	/** directory with the generated files */
+	private Path tmpDir;
+
+	/** the driver to benchmark */
+	private ExacAnnotationDriver driver;
+
+	/** variants to annotate */
+	private VariantContext[] variants;
+
+	/** index of the next variant to annotate */
+	private int next = 0;
+
+	@Setup
+	public void setUp() throws IOException, JannovarVarDBException {
+		SyntheticData data = new SyntheticData(42, 10_000_000, 0);
+		tmpDir = Files.createTempDirectory("jannovar-benchmark");
+		final File fastaFile = new File(tmpDir.toFile(), "ref.fa");
+		final File vcfFile = new File(tmpDir.toFile(), "exac.vcf.gz");
+		data.writeFasta(fastaFile);
+		final List<VariantContext> dbVariants = data.randomVariants(100_000);
+		data.writeExacVCF(vcfFile, dbVariants);
+
+		driver = new ExacAnnotationDriver(vcfFile.getPath(), fastaFile.getPath(), DBAnnotationOptions.createDefaults());
+
+		ArrayList<VariantContext> lst = new ArrayList<>();
+		for (int i = 0; i < dbVariants.size(); i += 20)
+			lst.add(dbVariants.get(i));
+		lst.addAll(data.randomVariants(lst.size()));
+		lst.sort(Comparator.comparingInt(VariantContext::getStart));
+		variants = lst.toArray(new VariantContext[0]);
+	}
+
+	@TearDown
+	public void tearDown() throws IOException {
+		try (Stream<Path> paths = Files.walk(tmpDir)) {
+			paths.sorted(Comparator.reverseOrder()).forEach(p -> p.toFile().delete());
+		}
+	}
+
+	@Benchmark
+	public VariantContext annotateVariantContext() {
+		final VariantContext vc = variants[next];
+		next = (next + 1) % variants.length;
+		return driver.annotateVariantContext(vc);
+	}
+
+}
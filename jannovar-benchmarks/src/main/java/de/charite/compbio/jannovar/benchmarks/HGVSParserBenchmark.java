@@ -0,0 +1,52 @@
+package de.charite.compbio.jannovar.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import de.charite.compbio.jannovar.hgvs.HGVSVariant;
+import de.charite.compbio.jannovar.hgvs.parser.HGVSParser;
+
+/**
+ * Benchmark for {@link HGVSParser#parseHGVSString(String)}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class HGVSParserBenchmark {
+
+	/** the parser to benchmark */
+	private HGVSParser parser;
+
+	/** HGVS strings to parse */
+	private String[] inputs;
+
+	/** index of the next string to parse */
+	private int next = 0;
+
+	@Setup
+	public void setUp() {
+		parser = new HGVSParser();
+		inputs = new SyntheticData(42, 1_000_000, 500).randomHGVSStrings(10_000).toArray(new String[0]);
+	}
+
+	@Benchmark
+	public HGVSVariant parseHGVSString() {
+		final String input = inputs[next];
+		next = (next + 1) % inputs.length;
+		return parser.parseHGVSString(input);
+	}
+
+}
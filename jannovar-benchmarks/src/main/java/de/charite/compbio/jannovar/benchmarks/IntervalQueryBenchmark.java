@@ -0,0 +1,124 @@
+package de.charite.compbio.jannovar.benchmarks;
+
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import de.charite.compbio.jannovar.impl.intervals.IntervalArray;
+import de.charite.compbio.jannovar.impl.intervals.IntervalIndex;
+import de.charite.compbio.jannovar.impl.intervals.IntervalSweep;
+import de.charite.compbio.jannovar.impl.intervals.MutableQueryResult;
+import de.charite.compbio.jannovar.reference.TranscriptIntervalEndExtractor;
+import de.charite.compbio.jannovar.reference.TranscriptModel;
+
+/**
+ * Benchmark for point and interval queries to {@link IntervalArray} and {@link IntervalIndex}, and for sorted
+ * queries through {@link IntervalSweep}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class IntervalQueryBenchmark {
+
+	/** number of query positions */
+	private static final int NUM_QUERIES = 100_000;
+
+	/** the interval array to query */
+	private IntervalArray<TranscriptModel> array;
+
+	/** the interval index to query */
+	private IntervalIndex<TranscriptModel> index;
+
+	/** reused result for {@link #index} */
+	private final MutableQueryResult<TranscriptModel> result = new MutableQueryResult<>();
+
+	/** sweep over {@link #index} for {@link #sortedPoints} */
+	private IntervalSweep<TranscriptModel> sweep;
+
+	/** query positions */
+	private int[] points;
+
+	/** {@link #points}, sorted */
+	private int[] sortedPoints;
+
+	/** index of the next query position */
+	private int next = 0;
+
+	@Setup
+	public void setUp() {
+		SyntheticData data = new SyntheticData(42, 10_000_000, 5_000);
+		array = new IntervalArray<>(data.getTranscripts(), new TranscriptIntervalEndExtractor());
+		index = new IntervalIndex<>(array);
+
+		Random rnd = new Random(42);
+		points = new int[NUM_QUERIES];
+		for (int i = 0; i < NUM_QUERIES; ++i)
+			points[i] = rnd.nextInt(10_000_000);
+		sortedPoints = points.clone();
+		Arrays.sort(sortedPoints);
+		sweep = new IntervalSweep<>(index);
+	}
+
+	/** @return next query position */
+	private int nextPoint() {
+		final int point = points[next];
+		next = (next + 1) % NUM_QUERIES;
+		return point;
+	}
+
+	@Benchmark
+	public Object intervalArrayPoint() {
+		return array.findOverlappingWithPoint(nextPoint());
+	}
+
+	@Benchmark
+	public Object intervalArrayInterval() {
+		final int point = nextPoint();
+		return array.findOverlappingWithInterval(point, point + 10);
+	}
+
+	@Benchmark
+	public Object intervalIndexPoint() {
+		index.findOverlappingWithPoint(nextPoint(), result);
+		return result;
+	}
+
+	@Benchmark
+	public Object intervalIndexInterval() {
+		final int point = nextPoint();
+		index.findOverlappingWithInterval(point, point + 10, result);
+		return result;
+	}
+
+	/** Sorted queries to {@link #index}, for comparison with {@link #intervalSweepInterval} */
+	@Benchmark
+	public Object intervalIndexSortedInterval() {
+		final int point = sortedPoints[next];
+		next = (next + 1) % NUM_QUERIES;
+		index.findOverlappingWithInterval(point, point + 10, result);
+		return result;
+	}
+
+	@Benchmark
+	public Object intervalSweepInterval() {
+		final int point = sortedPoints[next];
+		next = (next + 1) % NUM_QUERIES;
+		sweep.findOverlappingWithInterval(point, point + 10, result);
+		return result;
+	}
+
+}
@@ -0,0 +1,66 @@
+package de.charite.compbio.jannovar.benchmarks;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import de.charite.compbio.jannovar.data.JannovarData;
+import de.charite.compbio.jannovar.data.JannovarDataFormat;
+import de.charite.compbio.jannovar.data.JannovarDataSerializer;
+import de.charite.compbio.jannovar.data.SerializationException;
+
+/**
+ * Benchmark for {@link JannovarDataSerializer#load()} in both {@link JannovarDataFormat}s.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(1)
+public class JannovarDataSerializerBenchmark {
+
+	/** format of the file to load */
+	@Param({ "LEGACY", "MAPPED" })
+	public JannovarDataFormat format;
+
+	/** the database file to load */
+	private File file;
+
+	@Setup
+	public void setUp() throws IOException, SerializationException {
+		SyntheticData data = new SyntheticData(42, 10_000_000, 5_000);
+		file = File.createTempFile("jannovar-benchmark", ".ser");
+		new JannovarDataSerializer(file.getPath()).save(data.buildJannovarData(), format);
+	}
+
+	@TearDown
+	public void tearDown() throws IOException {
+		Files.deleteIfExists(file.toPath());
+	}
+
+	@Benchmark
+	public JannovarData load() throws SerializationException {
+		return new JannovarDataSerializer(file.getPath()).load();
+	}
+
+	@Benchmark
+	public Object loadAllChromosomes() throws SerializationException {
+		return new JannovarDataSerializer(file.getPath()).load().getChromosomes();
+	}
+
+}
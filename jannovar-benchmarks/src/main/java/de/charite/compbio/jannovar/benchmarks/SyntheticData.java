@@ -0,0 +1,316 @@
+package de.charite.compbio.jannovar.benchmarks;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import com.google.common.collect.ImmutableList;
+
+import de.charite.compbio.jannovar.data.JannovarData;
+import de.charite.compbio.jannovar.data.ReferenceDictionary;
+import de.charite.compbio.jannovar.data.ReferenceDictionaryBuilder;
+import de.charite.compbio.jannovar.reference.GenomeInterval;
+import de.charite.compbio.jannovar.reference.Strand;
+import de.charite.compbio.jannovar.reference.TranscriptModel;
+import de.charite.compbio.jannovar.reference.TranscriptModelBuilder;
+import htsjdk.samtools.SAMSequenceDictionary;
+import htsjdk.samtools.SAMSequenceRecord;
+import htsjdk.variant.variantcontext.Allele;
+import htsjdk.variant.variantcontext.VariantContext;
+import htsjdk.variant.variantcontext.VariantContextBuilder;
+import htsjdk.variant.variantcontext.writer.Options;
+import htsjdk.variant.variantcontext.writer.VariantContextWriter;
+import htsjdk.variant.variantcontext.writer.VariantContextWriterBuilder;
+import htsjdk.variant.vcf.VCFHeader;
+import htsjdk.variant.vcf.VCFHeaderLineCount;
+import htsjdk.variant.vcf.VCFHeaderLineType;
+import htsjdk.variant.vcf.VCFInfoHeaderLine;
+
+/**
+ * Deterministic generator of synthetic genomes, transcripts, and variants for the benchmarks.
+ *
+ * A random genome sequence with one contig is generated first. Transcripts are placed at random positions, with random
+ * exon structure, and carry the sequence of their exons (reverse-complemented on the reverse strand). Variants are
+ * placed uniformly on the contig and use the genome sequence as their reference allele, so they hit exons, introns, and
+ * intergenic regions in realistic proportions.
+ */
+public final class SyntheticData {
+
+	/** name of the only contig */
+	public static final String CONTIG = "1";
+
+	/** population names used in ExAC-style VCF files */
+	private static final String[] EXAC_POPULATIONS = { "AFR", "AMR", "EAS", "FIN", "NFE", "OTH", "SAS" };
+
+	/** nucleotides to draw from */
+	private static final char[] NUCLEOTIDES = { 'A', 'C', 'G', 'T' };
+
+	/** random number generator, seeded for reproducibility */
+	private final Random rnd;
+
+	/** the genome sequence */
+	private final String genome;
+
+	/** the reference dictionary */
+	private final ReferenceDictionary refDict;
+
+	/** the generated transcripts */
+	private final ImmutableList<TranscriptModel> transcripts;
+
+	/**
+	 * Generate synthetic genome and transcripts.
+	 *
+	 * @param seed
+	 *            seed for the random number generator
+	 * @param contigLength
+	 *            length of the contig to generate
+	 * @param numTranscripts
+	 *            number of transcripts to place on the contig
+	 */
+	public SyntheticData(long seed, int contigLength, int numTranscripts) {
+		this.rnd = new Random(seed);
+		this.genome = randomSequence(contigLength);
+
+		ReferenceDictionaryBuilder builder = new ReferenceDictionaryBuilder();
+		builder.putContigID(CONTIG, 1);
+		builder.putContigID("chr" + CONTIG, 1);
+		builder.putContigName(1, CONTIG);
+		builder.putContigLength(1, contigLength);
+		this.refDict = builder.build();
+
+		ImmutableList.Builder<TranscriptModel> tms = new ImmutableList.Builder<TranscriptModel>();
+		for (int i = 0; i < numTranscripts; ++i)
+			tms.add(randomTranscript(i));
+		this.transcripts = tms.build();
+	}
+
+	/** @return the genome sequence */
+	public String getGenome() {
+		return genome;
+	}
+
+	/** @return the {@link ReferenceDictionary} */
+	public ReferenceDictionary getRefDict() {
+		return refDict;
+	}
+
+	/** @return the generated {@link TranscriptModel}s */
+	public ImmutableList<TranscriptModel> getTranscripts() {
+		return transcripts;
+	}
+
+	/** @return {@link JannovarData} with the generated transcripts */
+	public JannovarData buildJannovarData() {
+		return new JannovarData(refDict, transcripts);
+	}
+
+	/**
+	 * Generate random variants, sorted by position.
+	 *
+	 * Roughly 80% of the variants are SNVs, the rest are split evenly between deletions and insertions of up to 10 bp.
+	 *
+	 * @param count
+	 *            number of variants to generate
+	 * @return list of generated {@link VariantContext}s, sorted by position
+	 */
+	public List<VariantContext> randomVariants(int count) {
+		ArrayList<Integer> positions = new ArrayList<>();
+		for (int i = 0; i < count; ++i)
+			positions.add(1 + rnd.nextInt(genome.length() - 20));
+		Collections.sort(positions);
+
+		ArrayList<VariantContext> result = new ArrayList<>();
+		for (int pos : positions) {
+			final int kind = rnd.nextInt(10);
+			final String ref;
+			final String alt;
+			if (kind < 8) { // SNV
+				ref = genome.substring(pos - 1, pos);
+				char c;
+				do {
+					c = NUCLEOTIDES[rnd.nextInt(4)];
+				} while (c == ref.charAt(0));
+				alt = String.valueOf(c);
+			} else if (kind == 8) { // deletion
+				ref = genome.substring(pos - 1, pos + 1 + rnd.nextInt(10));
+				alt = ref.substring(0, 1);
+			} else { // insertion
+				ref = genome.substring(pos - 1, pos);
+				alt = ref + randomSequence(1 + rnd.nextInt(10));
+			}
+			result.add(new VariantContextBuilder("synthetic", CONTIG, pos, pos + ref.length() - 1,
+					ImmutableList.of(Allele.create(ref, true), Allele.create(alt))).make());
+		}
+		return result;
+	}
+
+	/**
+	 * Generate HGVS descriptions of random changes on the generated transcripts.
+	 *
+	 * @param count
+	 *            number of descriptions to generate
+	 * @return list of HGVS strings with substitutions, deletions, insertions, and protein changes
+	 */
+	public List<String> randomHGVSStrings(int count) {
+		final String[] aas = { "Ala", "Arg", "Asn", "Asp", "Cys", "Gln", "Glu", "Gly", "His", "Ile", "Leu", "Lys",
+				"Met", "Phe", "Pro", "Ser", "Thr", "Trp", "Tyr", "Val" };
+		ArrayList<String> result = new ArrayList<>();
+		for (int i = 0; i < count; ++i) {
+			final String accession = transcripts.get(rnd.nextInt(transcripts.size())).getAccession();
+			final int pos = 1 + rnd.nextInt(1000);
+			switch (rnd.nextInt(4)) {
+			case 0:
+				result.add(accession + ":c." + pos + "A>G");
+				break;
+			case 1:
+				result.add(accession + ":c." + pos + "_" + (pos + 2) + "del");
+				break;
+			case 2:
+				result.add(accession + ":c." + pos + "_" + (pos + 1) + "ins" + randomSequence(3));
+				break;
+			default:
+				result.add(accession + ":p." + aas[rnd.nextInt(aas.length)] + pos + aas[rnd.nextInt(aas.length)]);
+				break;
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * Write the genome sequence as FAI-indexed FASTA file.
+	 *
+	 * @param file
+	 *            path to the FASTA file, the index is written to the same path with suffix <code>.fai</code>
+	 * @throws IOException
+	 *             on problems writing the files
+	 */
+	public void writeFasta(File file) throws IOException {
+		final int lineLength = 60;
+		final String header = ">" + CONTIG + "\n";
+		try (PrintWriter out = new PrintWriter(
+				new OutputStreamWriter(new FileOutputStream(file), StandardCharsets.US_ASCII))) {
+			out.print(header);
+			for (int i = 0; i < genome.length(); i += lineLength) {
+				out.print(genome.substring(i, Math.min(genome.length(), i + lineLength)));
+				out.print('\n');
+			}
+		}
+		try (PrintWriter out = new PrintWriter(new OutputStreamWriter(
+				new FileOutputStream(file.getPath() + ".fai"), StandardCharsets.US_ASCII))) {
+			out.print(CONTIG + "\t" + genome.length() + "\t" + header.length() + "\t" + lineLength + "\t"
+					+ (lineLength + 1) + "\n");
+		}
+	}
+
+	/**
+	 * Write variants as bgzip-compressed and tabix-indexed VCF file with ExAC-style per-population allele counts.
+	 *
+	 * @param file
+	 *            path to the VCF file, must end in <code>.vcf.gz</code>
+	 * @param variants
+	 *            sorted list of variants to write
+	 */
+	public void writeExacVCF(File file, List<VariantContext> variants) {
+		SAMSequenceDictionary seqDict = new SAMSequenceDictionary(
+				ImmutableList.of(new SAMSequenceRecord(CONTIG, genome.length())));
+		VCFHeader header = new VCFHeader();
+		header.setSequenceDictionary(seqDict);
+		for (String pop : EXAC_POPULATIONS) {
+			header.addMetaDataLine(new VCFInfoHeaderLine("AC_" + pop, VCFHeaderLineCount.A, VCFHeaderLineType.Integer,
+					"Allele count in " + pop));
+			header.addMetaDataLine(new VCFInfoHeaderLine("AN_" + pop, 1, VCFHeaderLineType.Integer,
+					"Total number of alleles in " + pop));
+			header.addMetaDataLine(new VCFInfoHeaderLine("Het_" + pop, VCFHeaderLineCount.A,
+					VCFHeaderLineType.Integer, "Heterozygous count in " + pop));
+			header.addMetaDataLine(new VCFInfoHeaderLine("Hom_" + pop, VCFHeaderLineCount.A,
+					VCFHeaderLineType.Integer, "Homozygous count in " + pop));
+			header.addMetaDataLine(new VCFInfoHeaderLine("Hemi_" + pop, VCFHeaderLineCount.A,
+					VCFHeaderLineType.Integer, "Hemizygous count in " + pop));
+		}
+
+		try (VariantContextWriter writer = new VariantContextWriterBuilder().setOutputFile(file)
+				.setReferenceDictionary(seqDict).setOption(Options.INDEX_ON_THE_FLY).build()) {
+			writer.writeHeader(header);
+			for (VariantContext vc : variants) {
+				VariantContextBuilder builder = new VariantContextBuilder(vc);
+				for (String pop : EXAC_POPULATIONS) {
+					final int an = 1000 + rnd.nextInt(10000);
+					final int ac = rnd.nextInt(an / 2);
+					builder.attribute("AC_" + pop, ac).attribute("AN_" + pop, an).attribute("Het_" + pop, ac / 2)
+							.attribute("Hom_" + pop, ac / 4).attribute("Hemi_" + pop, 0);
+				}
+				writer.add(builder.make());
+			}
+		}
+	}
+
+	/** @return transcript with random exon structure, sequence matches {@link #genome} */
+	private TranscriptModel randomTranscript(int idx) {
+		final int numExons = 1 + rnd.nextInt(10);
+		final int[] exonLengths = new int[numExons];
+		final int[] intronLengths = new int[numExons];
+		int span = 0;
+		for (int i = 0; i < numExons; ++i) {
+			exonLengths[i] = 100 + rnd.nextInt(200);
+			intronLengths[i] = (i + 1 < numExons) ? 200 + rnd.nextInt(2000) : 0;
+			span += exonLengths[i] + intronLengths[i];
+		}
+		final int txBegin = rnd.nextInt(genome.length() - span);
+		final Strand strand = rnd.nextBoolean() ? Strand.FWD : Strand.REV;
+
+		TranscriptModelBuilder builder = new TranscriptModelBuilder();
+		builder.setStrand(strand);
+		builder.setAccession(String.format("NM_%06d.1", idx + 1));
+		builder.setGeneSymbol(String.format("GENE%d", idx + 1));
+		builder.setGeneID(String.format("ENTREZ%d", idx + 1));
+		builder.setTXRegion(new GenomeInterval(refDict, Strand.FWD, 1, txBegin, txBegin + span));
+		StringBuilder seq = new StringBuilder();
+		int pos = txBegin;
+		for (int i = 0; i < numExons; ++i) {
+			builder.addExonRegion(new GenomeInterval(refDict, Strand.FWD, 1, pos, pos + exonLengths[i]));
+			seq.append(genome, pos, pos + exonLengths[i]);
+			pos += exonLengths[i] + intronLengths[i];
+		}
+		builder.setCDSRegion(new GenomeInterval(refDict, Strand.FWD, 1, txBegin + 10, txBegin + span - 10));
+		builder.setSequence(strand == Strand.FWD ? seq.toString() : reverseComplement(seq));
+		return builder.build();
+	}
+
+	/** @return random nucleotide sequence of the given length */
+	private String randomSequence(int length) {
+		char[] buf = new char[length];
+		for (int i = 0; i < length; ++i)
+			buf[i] = NUCLEOTIDES[rnd.nextInt(4)];
+		return new String(buf);
+	}
+
+	/** @return reverse complement of <code>seq</code> */
+	private static String reverseComplement(CharSequence seq) {
+		StringBuilder result = new StringBuilder(seq.length());
+		for (int i = seq.length() - 1; i >= 0; --i) {
+			switch (seq.charAt(i)) {
+			case 'A':
+				result.append('T');
+				break;
+			case 'C':
+				result.append('G');
+				break;
+			case 'G':
+				result.append('C');
+				break;
+			default:
+				result.append('A');
+				break;
+			}
+		}
+		return result.toString();
+	}
+
+}
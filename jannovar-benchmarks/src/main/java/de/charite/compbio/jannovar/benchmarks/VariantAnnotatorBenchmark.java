@@ -0,0 +1,94 @@
+package de.charite.compbio.jannovar.benchmarks;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import de.charite.compbio.jannovar.annotation.AnnotationException;
+import de.charite.compbio.jannovar.annotation.VariantAnnotations;
+import de.charite.compbio.jannovar.annotation.VariantAnnotator;
+import de.charite.compbio.jannovar.annotation.builders.AnnotationBuilderOptions;
+import de.charite.compbio.jannovar.reference.GenomePosition;
+import de.charite.compbio.jannovar.reference.GenomeVariant;
+import de.charite.compbio.jannovar.reference.PositionType;
+import de.charite.compbio.jannovar.reference.Strand;
+import htsjdk.variant.variantcontext.VariantContext;
+
+/**
+ * Benchmark for {@link VariantAnnotator#buildAnnotations(GenomeVariant)} and the batch variant
+ * {@link VariantAnnotator#buildAnnotations(List)}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class VariantAnnotatorBenchmark {
+
+	/** the annotator to benchmark */
+	private VariantAnnotator annotator;
+
+	/** variants to annotate */
+	private GenomeVariant[] variants;
+
+	/** {@link #variants}, sorted by position */
+	private List<GenomeVariant> sortedVariants;
+
+	/** index of the next variant to annotate */
+	private int next = 0;
+
+	@Setup
+	public void setUp() {
+		SyntheticData data = new SyntheticData(42, 10_000_000, 5_000);
+		annotator = new VariantAnnotator(data.buildJannovarData(), new AnnotationBuilderOptions());
+
+		variants = new GenomeVariant[10_000];
+		int i = 0;
+		for (VariantContext vc : data.randomVariants(variants.length))
+			variants[i++] = new GenomeVariant(new GenomePosition(data.getRefDict(), Strand.FWD, 1, vc.getStart(),
+					PositionType.ONE_BASED), vc.getReference().getBaseString(),
+					vc.getAlternateAllele(0).getBaseString());
+		GenomeVariant[] sorted = variants.clone();
+		Arrays.sort(sorted, Comparator.comparing(GenomeVariant::getGenomePos));
+		sortedVariants = Arrays.asList(sorted);
+	}
+
+	@Benchmark
+	public VariantAnnotations buildAnnotations() throws AnnotationException {
+		final GenomeVariant variant = variants[next];
+		next = (next + 1) % variants.length;
+		return annotator.buildAnnotations(variant);
+	}
+
+	/** Annotate all variants in position order, per-variant (compare with {@link #buildAnnotationsBatch}) */
+	@Benchmark
+	public int buildAnnotationsSorted() throws AnnotationException {
+		int count = 0;
+		for (GenomeVariant variant : sortedVariants)
+			count += annotator.buildAnnotations(variant).getAnnotations().size();
+		return count;
+	}
+
+	/** Annotate all variants in position order, as a batch */
+	@Benchmark
+	public int buildAnnotationsBatch() throws AnnotationException {
+		int count = 0;
+		for (VariantAnnotations annotations : annotator.buildAnnotations(sortedVariants))
+			count += annotations.getAnnotations().size();
+		return count;
+	}
+
+}
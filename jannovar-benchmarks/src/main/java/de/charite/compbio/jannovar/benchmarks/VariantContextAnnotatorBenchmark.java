@@ -0,0 +1,71 @@
+package de.charite.compbio.jannovar.benchmarks;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import de.charite.compbio.jannovar.annotation.VariantAnnotations;
+import de.charite.compbio.jannovar.htsjdk.InvalidCoordinatesException;
+import de.charite.compbio.jannovar.htsjdk.VariantContextAnnotator;
+import htsjdk.variant.variantcontext.VariantContext;
+
+/**
+ * Benchmark for {@link VariantContextAnnotator}, for rendering precomputed annotations into the <code>ANN</code> field
+ * ({@link VariantContextAnnotator#applyAnnotations}) and for the full annotation of a {@link VariantContext}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class VariantContextAnnotatorBenchmark {
+
+	/** the annotator to benchmark */
+	private VariantContextAnnotator annotator;
+
+	/** variants to annotate */
+	private VariantContext[] variants;
+
+	/** precomputed annotations for {@link #variants} */
+	private List<?>[] annotations;
+
+	/** index of the next variant to annotate */
+	private int next = 0;
+
+	@Setup
+	public void setUp() throws InvalidCoordinatesException {
+		SyntheticData data = new SyntheticData(42, 10_000_000, 5_000);
+		annotator = new VariantContextAnnotator(data.buildJannovarData());
+		variants = data.randomVariants(10_000).toArray(new VariantContext[0]);
+		annotations = new List<?>[variants.length];
+		for (int i = 0; i < variants.length; ++i)
+			annotations[i] = annotator.buildAnnotations(variants[i]);
+	}
+
+	@Benchmark
+	@SuppressWarnings("unchecked")
+	public VariantContext applyAnnotations() {
+		final int i = next;
+		next = (next + 1) % variants.length;
+		return annotator.applyAnnotations(variants[i], (List<VariantAnnotations>) annotations[i]);
+	}
+
+	@Benchmark
+	public VariantContext annotateVariantContext() {
+		final VariantContext vc = variants[next];
+		next = (next + 1) % variants.length;
+		return annotator.annotateVariantContext(vc);
+	}
+
+}
@@ -6,10 +6,15 @@ import de.charite.compbio.jannovar.cmd.JannovarCommand;
 import de.charite.compbio.jannovar.cmd.annotate_csv.JannovarAnnotateCSVOptions;
 import de.charite.compbio.jannovar.cmd.annotate_pos.JannovarAnnotatePosOptions;
 import de.charite.compbio.jannovar.cmd.annotate_vcf.JannovarAnnotateVCFOptions;
+import de.charite.compbio.jannovar.cmd.db_bloom.JannovarDBBloomOptions;
+import de.charite.compbio.jannovar.cmd.db_import.JannovarDBImportOptions;
+import de.charite.compbio.jannovar.cmd.db_index.JannovarDBIndexOptions;
 import de.charite.compbio.jannovar.cmd.db_list.JannovarDBListOptions;
 import de.charite.compbio.jannovar.cmd.download.JannovarDownloadOptions;
 import de.charite.compbio.jannovar.cmd.hgvs_to_vcf.ProjectTranscriptToChromosomeOptions;
+import de.charite.compbio.jannovar.cmd.serve.JannovarServeOptions;
 import de.charite.compbio.jannovar.cmd.statistics.JannovarGatherStatisticsOptions;
+import de.charite.compbio.jannovar.cmd.update_annotation_cache.JannovarUpdateAnnotationCacheOptions;
 import net.sourceforge.argparse4j.ArgumentParsers;
 import net.sourceforge.argparse4j.impl.Arguments;
 import net.sourceforge.argparse4j.inf.ArgumentParser;
@@ -38,10 +43,15 @@ public final class Jannovar {
 		JannovarAnnotatePosOptions.setupParser(subParsers);
 		JannovarAnnotateCSVOptions.setupParser(subParsers);
 		JannovarAnnotateVCFOptions.setupParser(subParsers);
+		JannovarDBImportOptions.setupParser(subParsers);
+		JannovarDBIndexOptions.setupParser(subParsers);
+		JannovarDBBloomOptions.setupParser(subParsers);
 		JannovarDBListOptions.setupParser(subParsers);
 		JannovarDownloadOptions.setupParser(subParsers);
 		JannovarGatherStatisticsOptions.setupParser(subParsers);
 		ProjectTranscriptToChromosomeOptions.setupParser(subParsers);
+		JannovarUpdateAnnotationCacheOptions.setupParser(subParsers);
+		JannovarServeOptions.setupParser(subParsers);
 		parser.defaultHelp(true);
 		parser.epilog("You can find out more at http://jannovar.rtfd.org");
 
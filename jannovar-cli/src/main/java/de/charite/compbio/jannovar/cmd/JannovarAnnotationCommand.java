@@ -1,9 +1,6 @@
 package de.charite.compbio.jannovar.cmd;
 
-import com.google.common.collect.ImmutableMap;
-
 import de.charite.compbio.jannovar.JannovarException;
-import de.charite.compbio.jannovar.data.Chromosome;
 import de.charite.compbio.jannovar.data.JannovarData;
 import de.charite.compbio.jannovar.data.JannovarDataSerializer;
 import de.charite.compbio.jannovar.data.ReferenceDictionary;
@@ -21,9 +18,6 @@ public abstract class JannovarAnnotationCommand extends JannovarCommand {
 	/** {@link ReferenceDictionary} with genome information. */
 	protected ReferenceDictionary refDict = null;
 
-	/** Map of Chromosomes, used in the annotation. */
-	protected ImmutableMap<Integer, Chromosome> chromosomeMap = null;
-
 	/**
 	 * Deserialize the transcript definition file from {@link pathToDataFile}.
 	 *
@@ -36,9 +30,28 @@ public abstract class JannovarAnnotationCommand extends JannovarCommand {
 	 */
 	protected void deserializeTranscriptDefinitionFile(String pathToDataFile)
 			throws JannovarException, HelpRequestedException {
+		deserializeTranscriptDefinitionFile(pathToDataFile, false);
+	}
+
+	/**
+	 * Deserialize the transcript definition file from {@link pathToDataFile}, optionally packing the transcript
+	 * sequences, see {@link JannovarData#withPackedSequences()}.
+	 *
+	 * @param pathToDataFile
+	 *            String with the path to the data file to deserialize
+	 * @param packSequences
+	 *            whether or not to keep the transcript sequences packed with two bits per nucleotide
+	 * @throws JannovarException
+	 *             when there is a problem with the deserialization
+	 * @throws HelpRequestedException
+	 *             when the user requested the help page
+	 */
+	protected void deserializeTranscriptDefinitionFile(String pathToDataFile, boolean packSequences)
+			throws JannovarException, HelpRequestedException {
 		this.jannovarData = new JannovarDataSerializer(pathToDataFile).load();
+		if (packSequences)
+			this.jannovarData = this.jannovarData.withPackedSequences();
 		this.refDict = this.jannovarData.getRefDict();
-		this.chromosomeMap = this.jannovarData.getChromosomes();
 	}
 
 }
\ No newline at end of file
@@ -25,6 +25,9 @@ public class JannovarAnnotationOptions extends JannovarBaseOptions {
 
 	/** Path to database file */
 	private String databaseFilePath = null;
+
+	/** Whether or not to keep the transcript sequences packed with two bits per nucleotide */
+	private boolean packSequences = false;
 	
 	/**
 	 * Setup {@link ArgumentParser}
@@ -39,6 +42,9 @@ public class JannovarAnnotationOptions extends JannovarBaseOptions {
 				.dest("3_prime_shifting").setDefault(true).action(Arguments.storeFalse());
 		optionalGroup.addArgument("--3-letter-amino-acids").help("Enable usage of 3 letter amino acid codes")
 				.setDefault(false).action(Arguments.storeTrue());
+		optionalGroup.addArgument("--pack-sequences")
+				.help("Keep transcript sequences packed with two bits per nucleotide, reduces memory usage")
+				.setDefault(false).action(Arguments.storeTrue());
 		
 		JannovarBaseOptions.setupParser(subParser);
 	}
@@ -53,6 +59,7 @@ public class JannovarAnnotationOptions extends JannovarBaseOptions {
 		nt3PrimeShifting = !args.getBoolean("3_prime_shifting");
 		databaseFilePath = args.getString("database");
 		showAll = args.getBoolean("show_all");
+		packSequences = args.getBoolean("pack_sequences");
 	}
 
 	public boolean isUseThreeLetterAminoAcidCode() {
@@ -87,11 +94,19 @@ public class JannovarAnnotationOptions extends JannovarBaseOptions {
 		this.showAll = showAll;
 	}
 
+	public boolean isPackSequences() {
+		return packSequences;
+	}
+
+	public void setPackSequences(boolean packSequences) {
+		this.packSequences = packSequences;
+	}
+
 	@Override
 	public String toString() {
 		return "JannovarAnnotationOptions [useThreeLetterAminoAcidCode=" + useThreeLetterAminoAcidCode
 				+ ", nt3PrimeShifting=" + nt3PrimeShifting + ", showAll=" + showAll + ", databaseFilePath="
-				+ databaseFilePath + ", toString()=" + super.toString() + "]";
+				+ databaseFilePath + ", packSequences=" + packSequences + ", toString()=" + super.toString() + "]";
 	}
 
 }
@@ -62,9 +62,9 @@ public class AnnotateCSVCommand extends JannovarAnnotationCommand {
 		System.err.println(options.toString());
 
 		System.err.println("Deserializing transcripts...");
-		deserializeTranscriptDefinitionFile(options.getDatabaseFilePath());
+		deserializeTranscriptDefinitionFile(options.getDatabaseFilePath(), options.isPackSequences());
 
-		final VariantAnnotator annotator = new VariantAnnotator(refDict, chromosomeMap, new AnnotationBuilderOptions());
+		final VariantAnnotator annotator = new VariantAnnotator(jannovarData, new AnnotationBuilderOptions());
 
 		try {
 			Reader in = new FileReader(options.getCsv());
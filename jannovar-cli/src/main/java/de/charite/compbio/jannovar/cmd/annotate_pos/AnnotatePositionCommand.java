@@ -54,9 +54,9 @@ public class AnnotatePositionCommand extends JannovarAnnotationCommand {
 		System.err.println(options.toString());
 
 		System.err.println("Deserializing transcripts...");
-		deserializeTranscriptDefinitionFile(options.getDatabaseFilePath());
+		deserializeTranscriptDefinitionFile(options.getDatabaseFilePath(), options.isPackSequences());
 
-		final VariantAnnotator annotator = new VariantAnnotator(refDict, chromosomeMap, new AnnotationBuilderOptions());
+		final VariantAnnotator annotator = new VariantAnnotator(jannovarData, new AnnotationBuilderOptions());
 		System.out.println("#change\teffect\thgvs_annotation\tmessages");
 		for (String chromosomalChange : options.getGenomicChanges()) {
 			// Parse the chromosomal change string into a GenomeChange object.
@@ -2,8 +2,11 @@ package de.charite.compbio.jannovar.cmd.annotate_vcf;
 
 import com.google.common.base.Joiner;
 import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Streams;
 import de.charite.compbio.jannovar.Jannovar;
 import de.charite.compbio.jannovar.JannovarException;
+import de.charite.compbio.jannovar.annotation.VariantAnnotationsCache;
+import de.charite.compbio.jannovar.annotation.builders.AnnotationBuilderOptions;
 import de.charite.compbio.jannovar.cmd.CommandLineParsingException;
 import de.charite.compbio.jannovar.cmd.JannovarAnnotationCommand;
 import de.charite.compbio.jannovar.cmd.annotate_vcf.JannovarAnnotateVCFOptions.BedAnnotationOptions;
@@ -37,6 +40,9 @@ import de.charite.compbio.jannovar.progress.GenomeRegionListFactoryFromSAMSequen
 import de.charite.compbio.jannovar.progress.ProgressReporter;
 import de.charite.compbio.jannovar.vardbs.base.DBAnnotationOptions;
 import de.charite.compbio.jannovar.vardbs.base.DBAnnotationOptions.MultipleMatchBehaviour;
+import de.charite.compbio.jannovar.vardbs.base.DatabaseBloomFilter;
+import de.charite.compbio.jannovar.vardbs.base.NormalizedAlleleIndex;
+import de.charite.compbio.jannovar.vardbs.facade.CombinedDBVariantContextAnnotator;
 import de.charite.compbio.jannovar.vardbs.facade.DBVariantContextAnnotator;
 import de.charite.compbio.jannovar.vardbs.facade.DBVariantContextAnnotatorFactory;
 import de.charite.compbio.jannovar.vardbs.generic_tsv.GenericTSVAnnotationDriver;
@@ -60,6 +66,7 @@ import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 import net.sourceforge.argparse4j.inf.Namespace;
@@ -72,6 +79,12 @@ import net.sourceforge.argparse4j.inf.Namespace;
  */
 public class AnnotateVCFCommand extends JannovarAnnotationCommand {
 
+	/** Number of records to annotate at once by a worker thread */
+	private static final int BATCH_SIZE = 1000;
+
+	/** Length of the regions to split indexed input files into for multi-threaded annotation */
+	private static final int REGION_LENGTH = 10 * 1000 * 1000;
+
 	/** Raw command line arguments */
 	private String[] argv = null;
 
@@ -81,6 +94,15 @@ public class AnnotateVCFCommand extends JannovarAnnotationCommand {
 	/** Configuration */
 	private JannovarAnnotateVCFOptions options;
 
+	/** Annotation result cache shared by the worker threads, <code>null</code> if disabled */
+	private VariantAnnotationsCache annotationCache = null;
+
+	/**
+	 * Database annotator of the annotation steps when annotating on one thread with prefetching, <code>null</code>
+	 * otherwise
+	 */
+	private CombinedDBVariantContextAnnotator prefetchingDBAnnotator = null;
+
 	public AnnotateVCFCommand(String[] argv, Namespace args) throws CommandLineParsingException {
 		this.argv = argv;
 		this.options = new JannovarAnnotateVCFOptions();
@@ -100,7 +122,10 @@ public class AnnotateVCFCommand extends JannovarAnnotationCommand {
 		System.err.println(options.toString());
 
 		System.err.println("Deserializing transcripts...");
-		deserializeTranscriptDefinitionFile(options.getDatabaseFilePath());
+		deserializeTranscriptDefinitionFile(options.getDatabaseFilePath(), options.isPackSequences());
+
+		if (options.getAnnotationCacheSize() > 0)
+			setUpAnnotationCache();
 
 		final String vcfPath = options.getPathInputVCF();
 
@@ -125,6 +150,8 @@ public class AnnotateVCFCommand extends JannovarAnnotationCommand {
 			}
 
 			VCFHeader vcfHeader = vcfReader.getFileHeader();
+			// Unmodified copy for building the annotation steps of the worker threads
+			final VCFHeader inputHeader = new VCFHeader(vcfHeader);
 
 			System.err.println("Annotating VCF...");
 			final long startTime = System.nanoTime();
@@ -147,140 +174,26 @@ public class AnnotateVCFCommand extends JannovarAnnotationCommand {
 				iter = vcfReader.iterator();
 			}
 
-			// Obtain Java 8 stream from iterator
-			Stream<VariantContext> stream = iter.stream();
-
-			// If configured, annotate using dbSNP VCF file (extend header to
-			// use for writing out)
-			if (options.pathVCFDBSNP != null) {
-				DBAnnotationOptions dbSNPOptions = DBAnnotationOptions.createDefaults();
-				dbSNPOptions.setIdentifierPrefix(options.prefixDBSNP);
-				DBVariantContextAnnotator dbSNPAnno = new DBVariantContextAnnotatorFactory()
-						.constructDBSNP(options.pathVCFDBSNP, options.pathFASTARef, dbSNPOptions);
-				dbSNPAnno.extendHeader(vcfHeader);
-				stream = stream.map(dbSNPAnno::annotateVariantContext);
-			}
-
-			// If configured, annotate using ExAC VCF file (extend header to use
-			// for writing out)
-			if (options.pathVCFExac != null) {
-				DBAnnotationOptions exacOptions = DBAnnotationOptions.createDefaults();
-				exacOptions.setIdentifierPrefix(options.prefixExac);
-				DBVariantContextAnnotator exacAnno = new DBVariantContextAnnotatorFactory()
-						.constructExac(options.pathVCFExac, options.pathFASTARef, exacOptions);
-				exacAnno.extendHeader(vcfHeader);
-				stream = stream.map(exacAnno::annotateVariantContext);
-			}
-
-			// If configured, annotate using gnomAD exomes VCF file (extend
-			// header to use for
-			// writing out)
-			if (options.pathVCFGnomadExomes != null) {
-				DBAnnotationOptions gnomadOptions = DBAnnotationOptions.createDefaults();
-				gnomadOptions.setIdentifierPrefix(options.prefixGnomadExomes);
-				DBVariantContextAnnotator gnomadExomesAnno = new DBVariantContextAnnotatorFactory()
-						.constructGnomad(options.pathVCFGnomadExomes, options.pathFASTARef,
-								gnomadOptions);
-				gnomadExomesAnno.extendHeader(vcfHeader);
-				stream = stream.map(gnomadExomesAnno::annotateVariantContext);
-			}
-
-			// If configured, annotate using gnomAD genomes VCF file (extend
-			// header to use for
-			// writing out)
-			if (options.pathVCFGnomadGenomes != null) {
-				DBAnnotationOptions gnomadOptions = DBAnnotationOptions.createDefaults();
-				gnomadOptions.setIdentifierPrefix(options.prefixGnomadGenomes);
-				DBVariantContextAnnotator gnomadGenomesAnno = new DBVariantContextAnnotatorFactory()
-						.constructGnomad(options.pathVCFGnomadGenomes, options.pathFASTARef,
-								gnomadOptions);
-				gnomadGenomesAnno.extendHeader(vcfHeader);
-				stream = stream.map(gnomadGenomesAnno::annotateVariantContext);
-			}
-
-			// If configured, annotate using thousand genomes VCF file (extend
-			// header to use for writing out)
-			if (options.pathThousandGenomes != null) {
-				DBAnnotationOptions thousandGenomesOptions = DBAnnotationOptions.createDefaults();
-				thousandGenomesOptions.setIdentifierPrefix(options.prefixThousandGenomes);
-				DBVariantContextAnnotator thousandGenomesAnno = new DBVariantContextAnnotatorFactory()
-						.constructThousandGenomes(options.pathThousandGenomes, options.pathFASTARef,
-								thousandGenomesOptions);
-				thousandGenomesAnno.extendHeader(vcfHeader);
-				stream = stream.map(thousandGenomesAnno::annotateVariantContext);
-			}
-
-			// If configured, annotate using UK10K VCF file (extend header to
-			// use for writing out)
-			if (options.pathVCFUK10K != null) {
-				DBAnnotationOptions exacOptions = DBAnnotationOptions.createDefaults();
-				exacOptions.setIdentifierPrefix(options.prefixUK10K);
-				DBVariantContextAnnotator uk10kAnno = new DBVariantContextAnnotatorFactory()
-						.constructUK10K(options.pathVCFUK10K, options.pathFASTARef, exacOptions);
-				uk10kAnno.extendHeader(vcfHeader);
-				stream = stream.map(uk10kAnno::annotateVariantContext);
-			}
-
-			// If configured, annotate using ClinVar VCF file (extend header to
-			// use for writing out)
-			if (options.pathClinVar != null) {
-				DBAnnotationOptions clinVarOptions = DBAnnotationOptions.createDefaults();
-				clinVarOptions.setIdentifierPrefix(options.prefixClinVar);
-				DBVariantContextAnnotator clinvarAnno = new DBVariantContextAnnotatorFactory()
-						.constructClinVar(options.pathClinVar, options.pathFASTARef,
-								clinVarOptions);
-				clinvarAnno.extendHeader(vcfHeader);
-				stream = stream.map(clinvarAnno::annotateVariantContext);
-			}
-
-			// If configured, annotate using COSMIC VCF file (extend header to
-			// use for writing out)
-			if (options.pathCosmic != null) {
-				DBAnnotationOptions cosmicOptions = DBAnnotationOptions.createDefaults();
-				cosmicOptions.setIdentifierPrefix(options.prefixCosmic);
-				DBVariantContextAnnotator cosmicAnno = new DBVariantContextAnnotatorFactory()
-						.constructCosmic(options.pathCosmic, options.pathFASTARef, cosmicOptions);
-				cosmicAnno.extendHeader(vcfHeader);
-				stream = stream.map(cosmicAnno::annotateVariantContext);
+			// Load pedigree for the threshold-based filters and collect the affected individuals
+			final Pedigree pedigree;
+			final List<String> affecteds = new ArrayList<>();
+			if (options.useThresholdFilters
+					&& (options.pathPedFile != null || options.useAdvancedPedigreeFilters)) {
+				try {
+					pedigree = loadPedigree(vcfHeader);
+				} catch (IOException e) {
+					System.err.println("Problem loading pedigree from " + options.pathPedFile);
+					System.err.println(e.getMessage());
+					System.err.println("\n");
+					e.printStackTrace(System.err);
+					return;
+				}
+			} else {
+				pedigree = null;
 			}
-
-			// Add step for annotating with variant effect
-			VariantEffectHeaderExtender extender = new VariantEffectHeaderExtender();
-			extender.addHeaders(vcfHeader);
-			VariantContextAnnotator variantEffectAnnotator = new VariantContextAnnotator(refDict,
-					chromosomeMap,
-					new VariantContextAnnotator.Options(!options.isShowAll(),
-							(options.isUseThreeLetterAminoAcidCode() ? AminoAcidCode.THREE_LETTER
-									: AminoAcidCode.ONE_LETTER),
-							options.isEscapeAnnField(), options.isNt3PrimeShifting(),
-							options.isOffTargetFilterEnabled(),
-							options.isOffTargetFilterUtrIsOffTarget(),
-							options.isOffTargetFilterIntronicSpliceIsOffTarget()));
-			stream = stream.map(variantEffectAnnotator::annotateVariantContext);
-
-			// If configured, use threshold-based annotation (extend header to
-			// use for writing out)
-			ArrayList<String> affecteds = new ArrayList<>();
 			if (options.useThresholdFilters) {
-				// Build options object for threshold filter
-				ThresholdFilterOptions thresholdFilterOptions = new ThresholdFilterOptions(
-						options.getThreshFiltMinGtCovHet(), options.getThreshFiltMinGtCovHomAlt(),
-						options.getThreshFiltMaxCov(), options.getThreshFiltMinGtGq(),
-						options.getThreshFiltMinGtAafHet(), options.getThreshFiltMaxGtAafHet(),
-						options.getThreshFiltMinGtAafHomAlt(),
-						options.getThreshFiltMaxGtAafHomRef(), options.getPrefixExac(),
-						options.getPrefixDBSNP(), options.getPrefixGnomadGenomes(),
-						options.getPrefixGnomadExomes(),
-						options.getPrefixThousandGenomes(),
-						options.getThreshFiltMaxAlleleFrequencyAd(),
-						options.getThreshFiltMaxAlleleFrequencyAr(),
-						options.getThreshFiltMaxExacHomAlt(),
-						options.getThreshFiltMaxThousandGenomesHomAlt());
-				// Add headers
-				new ThresholdFilterHeaderExtender(thresholdFilterOptions).addHeaders(vcfHeader);
-				// Build list of affecteds; take from pedigree file if given.
-				// Otherwise, assume one single individual is always affected and otherwise warn
-				// about missing pedigree.
+				// Take affecteds from pedigree file if given. Otherwise, assume one single
+				// individual is always affected and otherwise warn about missing pedigree.
 				if (options.pathPedFile == null) {
 					if (vcfHeader.getNGenotypeSamples() == 1) {
 						System.err.println(
@@ -290,16 +203,6 @@ public class AnnotateVCFCommand extends JannovarAnnotationCommand {
 								"WARNING: no pedigree file given. Threshold filter will not annotate FILTER field, only genotype FT");
 					}
 				} else {
-					Pedigree pedigree;
-					try {
-						pedigree = loadPedigree(vcfHeader);
-					} catch (IOException e) {
-						System.err.println("Problem loading pedigree from " + options.pathPedFile);
-						System.err.println(e.getMessage());
-						System.err.println("\n");
-						e.printStackTrace(System.err);
-						return;
-					}
 					for (Person person : pedigree.getMembers()) {
 						if (person.isAffected())
 							affecteds.add(person.getName());
@@ -310,94 +213,14 @@ public class AnnotateVCFCommand extends JannovarAnnotationCommand {
 										+ "only genotype FT");
 					}
 				}
-				GenotypeThresholdFilterAnnotator gtThresholdFilterAnno = new GenotypeThresholdFilterAnnotator(
-						thresholdFilterOptions);
-				stream = stream.map(gtThresholdFilterAnno::annotateVariantContext);
-
-				// When configured to use advanced pedigree filters (must come
-				// after threshold-based filtration)
-				if (options.useAdvancedPedigreeFilters) {
-					// Build options object from configuration and extend headers
-					PedigreeFilterOptions pedFilterOptions = new PedigreeFilterOptions(
-							options.getThreshDeNovoParentAd2(), options.isUseParentGtIsFiltered(),
-							options.isOneParentGtFilteredFiltersAffected());
-					new PedigreeFilterHeaderExtender(pedFilterOptions).addHeaders(vcfHeader);
-
-					// Load pedigree
-					Pedigree pedigree;
-					try {
-						pedigree = loadPedigree(vcfHeader);
-					} catch (IOException e) {
-						System.err.println("Problem loading pedigree from " + options.pathPedFile);
-						System.err.println(e.getMessage());
-						System.err.println("\n");
-						e.printStackTrace(System.err);
-						return;
-					}
-
-					// Construct annotator and register with pipeline
-					PedigreeFilterAnnotator pedFilterAnnotator = new PedigreeFilterAnnotator(
-							pedFilterOptions, pedigree);
-					stream = stream.map(pedFilterAnnotator::annotateVariantContext);
-				}
-
-				if (options.useThresholdFilters) {
-					VariantThresholdFilterAnnotator varThresholdFilterAnno = new VariantThresholdFilterAnnotator(
-							thresholdFilterOptions, affecteds);
-					stream = stream.map(varThresholdFilterAnno::annotateVariantContext);
-				}
-			}
-
-			// Annotate from BED files
-			List<BedFileAnnotator> bedFileAnnotators = new ArrayList<>();
-			for (BedAnnotationOptions bedAnnotationOptions : options.getBedAnnotationOptions()) {
-				BedFileAnnotator annotator = new BedFileAnnotator(bedAnnotationOptions);
-				bedFileAnnotators.add(annotator);
-				annotator.extendHeader(vcfHeader);
-				stream = stream.map(annotator::annotateVariantContext);
-			}
-
-			// Annotate using dbNSFP
-			GenericTSVAnnotationDriver dbNsfpAnnotator;
-			if (options.getPathDbNsfp() != null) {
-				Map<String, GenericTSVValueColumnDescription> descriptions = new HashMap<>();
-				for (String colName : options.getColumnsDbNsfp()) {
-					descriptions.put(colName, DbNsfpFields.DBNSFP_FIELDS.get(colName));
-				}
-				GenericTSVAnnotationOptions dbNsfpAnnotationOptions = new GenericTSVAnnotationOptions(
-						true, false, options.getPrefixDbNsfp(), MultipleMatchBehaviour.BEST_ONLY,
-						new File(options.getPathDbNsfp()), GenericTSVAnnotationTarget.VARIANT, true,
-						options.getDbNsfpColContig(), options.getDbNsfpColPosition(),
-						options.getDbNsfpColPosition(), 3, 4, false, options.getColumnsDbNsfp(),
-						descriptions);
-				dbNsfpAnnotator = new GenericTSVAnnotationDriver(options.getPathFASTARef(),
-						dbNsfpAnnotationOptions);
-				dbNsfpAnnotator.constructVCFHeaderExtender().addHeaders(vcfHeader);
-				stream = stream.map(dbNsfpAnnotator::annotateVariantContext);
 			}
 
-			// Annotate from generic TSV files
-			List<GenericTSVAnnotationDriver> tsvAnnotators = new ArrayList<>();
-			for (GenericTSVAnnotationOptions tsvAnnotationOptions : options
-					.getTsvAnnotationOptions()) {
-				GenericTSVAnnotationDriver annotator = new GenericTSVAnnotationDriver(
-						options.getPathFASTARef(), tsvAnnotationOptions);
-				tsvAnnotators.add(annotator);
-				annotator.constructVCFHeaderExtender().addHeaders(vcfHeader);
-				stream = stream.map(annotator::annotateVariantContext);
-			}
-
-			// Annotate from generic VCF files
-			List<GenericVCFAnnotationDriver> vcfAnnotators = new ArrayList<>();
-			for (GenericVCFAnnotationOptions vcfAnnotationOptions : options
-					.getVcfAnnotationOptions()) {
-				GenericVCFAnnotationDriver annotator = new GenericVCFAnnotationDriver(
-						vcfAnnotationOptions.getPathVcfFile(), options.getPathFASTARef(),
-						vcfAnnotationOptions);
-				vcfAnnotators.add(annotator);
-				annotator.constructVCFHeaderExtender().addHeaders(vcfHeader);
-				stream = stream.map(annotator::annotateVariantContext);
-			}
+			// Build the annotation steps (extend header to use for writing out). Each worker
+			// thread gets its own steps as the database readers are not thread-safe.
+			final List<Function<VariantContext, VariantContext>> annotators = new ArrayList<>();
+			annotators.add(buildAnnotationSteps(vcfHeader, pedigree, affecteds));
+			for (int i = 1; i < options.getThreads(); ++i)
+				annotators.add(buildAnnotationSteps(new VCFHeader(inputHeader), pedigree, affecteds));
 
 			// Extend header with INHERITANCE filter
 			if (options.pathPedFile != null || options.annotateAsSingletonPedigree) {
@@ -414,11 +237,40 @@ public class AnnotateVCFCommand extends JannovarAnnotationCommand {
 			try (VariantContextWriter vcfWriter = VariantContextWriterConstructionHelper
 					.openVariantContextWriter(vcfHeader, options.getPathOutputVCF(), jvHeaderLines);
 					VariantContextProcessor sink = buildMendelianProcessors(vcfWriter, vcfHeader)) {
+				// Annotate on a worker pool if configured, the records stay in input order. For
+				// indexed files, the workers also read the records, region by region.
+				Stream<VariantContext> stream;
+				OrderedParallelAnnotator parallelAnnotator = null;
+				if (annotators.size() == 1) {
+					// Query the databases for the upcoming records while annotating the current one
+					if (prefetchingDBAnnotator != null)
+						stream = Streams.stream(prefetchingDBAnnotator.prefetchAhead(iter,
+								getDBPrefetchWindow())).map(annotators.get(0));
+					else
+						stream = iter.stream().map(annotators.get(0));
+				} else {
+					parallelAnnotator = new OrderedParallelAnnotator(annotators, BATCH_SIZE);
+					final List<Interval> regions = useInterval ? null
+							: new VCFRegionSplitter(REGION_LENGTH).split(new File(vcfPath));
+					if (regions != null) {
+						System.err.println("Annotating " + regions.size()
+								+ " regions of indexed input file in parallel");
+						stream = parallelAnnotator.annotateRegions(new File(vcfPath), regions);
+					} else {
+						stream = parallelAnnotator.annotate(iter);
+					}
+				}
+
 				// Make current VC available to progress printer
 				if (this.progressReporter != null)
 					stream = stream.peek(vc -> this.progressReporter.setCurrentVC(vc));
 
-				stream.forEachOrdered(sink::put);
+				try {
+					stream.forEachOrdered(sink::put);
+				} finally {
+					if (parallelAnnotator != null)
+						parallelAnnotator.close();
+				}
 			} catch (IOException e) {
 				throw new JannovarException("Problem opening file", e);
 			}
@@ -427,6 +279,9 @@ public class AnnotateVCFCommand extends JannovarAnnotationCommand {
 			final long endTime = System.nanoTime();
 			System.err.println(String.format("Annotation and writing took %.2f sec.",
 					(endTime - startTime) / 1000.0 / 1000.0 / 1000.0));
+
+			if (annotationCache != null)
+				saveAnnotationCache();
 		} catch (IncompatiblePedigreeException e) {
 			if (options.pathPedFile != null)
 				System.err.println("VCF file " + vcfPath + " is not compatible to pedigree file "
@@ -451,6 +306,323 @@ public class AnnotateVCFCommand extends JannovarAnnotationCommand {
 			progressReporter.done();
 	}
 
+	/**
+	 * Create {@link #annotationCache} and load the cache file if configured and present
+	 *
+	 * @throws JannovarException
+	 *             on problems reading the transcript database file for identifying it
+	 */
+	private void setUpAnnotationCache() throws JannovarException {
+		final String databaseID;
+		try {
+			databaseID = VariantAnnotationsCache.buildDatabaseID(
+					new File(options.getDatabaseFilePath()),
+					new AnnotationBuilderOptions(options.isNt3PrimeShifting(), false));
+		} catch (IOException e) {
+			throw new JannovarException("Problem reading transcript database file", e);
+		}
+		annotationCache = new VariantAnnotationsCache(databaseID, options.getAnnotationCacheSize());
+
+		final String path = options.getPathAnnotationCache();
+		if (path != null && new File(path).exists()) {
+			System.err.println("Loading annotation cache from \"" + path + "\"...");
+			annotationCache.load(new File(path), jannovarData);
+		}
+	}
+
+	/**
+	 * Report {@link #annotationCache} usage and save it to the cache file if configured
+	 *
+	 * @throws JannovarException
+	 *             on problems writing the cache file
+	 */
+	private void saveAnnotationCache() throws JannovarException {
+		System.err.println("Annotation cache hits: " + annotationCache.getHitCount() + ", misses: "
+				+ annotationCache.getMissCount());
+		final String path = options.getPathAnnotationCache();
+		if (path == null)
+			return;
+		System.err.println("Saving annotation cache to \"" + path + "\"...");
+		try {
+			annotationCache.save(new File(path));
+		} catch (IOException e) {
+			throw new JannovarException("Problem writing annotation cache file", e);
+		}
+	}
+
+	/** @return number of records to prefetch database records for, 0 if disabled or using multiple threads */
+	private int getDBPrefetchWindow() {
+		return (options.getThreads() == 1) ? options.getDbPrefetch() : 0;
+	}
+
+	/**
+	 * @param pathDB
+	 *            path to the database file
+	 * @return default {@link DBAnnotationOptions} with the configured prefetch window and the
+	 *         normalized allele index and Bloom filter next to <code>pathDB</code>, if any
+	 * @throws JannovarException
+	 *             if the normalized allele index or Bloom filter was written for a different
+	 *             database file
+	 */
+	private DBAnnotationOptions buildDBAnnotationOptions(String pathDB) throws JannovarException {
+		DBAnnotationOptions result = DBAnnotationOptions.createDefaults();
+		result.setPrefetchWindow(getDBPrefetchWindow());
+		setDBSidecarFiles(result, pathDB);
+		return result;
+	}
+
+	/**
+	 * Set normalized allele index and Bloom filter next to the database file, if any
+	 *
+	 * @param dbOptions
+	 *            {@link DBAnnotationOptions} to update
+	 * @param pathDB
+	 *            path to the database file
+	 * @throws JannovarException
+	 *             if the normalized allele index or Bloom filter was written for a different
+	 *             database file
+	 */
+	private static void setDBSidecarFiles(DBAnnotationOptions dbOptions, String pathDB)
+			throws JannovarException {
+		dbOptions.setNormalizationIndexPath(NormalizedAlleleIndex.findFor(pathDB));
+		if (dbOptions.getNormalizationIndexPath() != null)
+			System.err.println("Using normalized allele index \"" + dbOptions.getNormalizationIndexPath() + "\"");
+		dbOptions.setBloomFilterPath(DatabaseBloomFilter.findFor(pathDB));
+		if (dbOptions.getBloomFilterPath() != null)
+			System.err.println("Using Bloom filter \"" + dbOptions.getBloomFilterPath() + "\"");
+	}
+
+	/**
+	 * Construct the annotation steps that are applied to each {@link VariantContext}
+	 *
+	 * @param vcfHeader
+	 *            {@link VCFHeader} to extend with the header lines of the annotation steps
+	 * @param pedigree
+	 *            {@link Pedigree} for the advanced pedigree filters, <code>null</code> if the
+	 *            threshold-based filters are disabled
+	 * @param affecteds
+	 *            names of the affected individuals for the threshold-based filters
+	 * @return {@link Function} applying all configured annotation steps in order
+	 * @throws JannovarException
+	 *             on problems opening the annotation databases
+	 */
+	private Function<VariantContext, VariantContext> buildAnnotationSteps(VCFHeader vcfHeader,
+			Pedigree pedigree, List<String> affecteds) throws JannovarException {
+		Function<VariantContext, VariantContext> steps = Function.identity();
+
+		// The database annotators are applied together, in a single pass per record
+		List<DBVariantContextAnnotator> dbAnnotators = new ArrayList<>();
+
+		// If configured, annotate using dbSNP VCF file (extend header to
+		// use for writing out)
+		if (options.pathVCFDBSNP != null) {
+			DBAnnotationOptions dbSNPOptions = buildDBAnnotationOptions(options.pathVCFDBSNP);
+			dbSNPOptions.setIdentifierPrefix(options.prefixDBSNP);
+			DBVariantContextAnnotator dbSNPAnno = new DBVariantContextAnnotatorFactory()
+					.constructDBSNP(options.pathVCFDBSNP, options.pathFASTARef, dbSNPOptions);
+			dbAnnotators.add(dbSNPAnno);
+		}
+
+		// If configured, annotate using ExAC VCF file (extend header to use
+		// for writing out)
+		if (options.pathVCFExac != null) {
+			DBAnnotationOptions exacOptions = buildDBAnnotationOptions(options.pathVCFExac);
+			exacOptions.setIdentifierPrefix(options.prefixExac);
+			DBVariantContextAnnotator exacAnno = new DBVariantContextAnnotatorFactory()
+					.constructExac(options.pathVCFExac, options.pathFASTARef, exacOptions);
+			dbAnnotators.add(exacAnno);
+		}
+
+		// If configured, annotate using gnomAD exomes VCF file (extend
+		// header to use for
+		// writing out)
+		if (options.pathVCFGnomadExomes != null) {
+			DBAnnotationOptions gnomadOptions = buildDBAnnotationOptions(options.pathVCFGnomadExomes);
+			gnomadOptions.setIdentifierPrefix(options.prefixGnomadExomes);
+			DBVariantContextAnnotator gnomadExomesAnno = new DBVariantContextAnnotatorFactory()
+					.constructGnomad(options.pathVCFGnomadExomes, options.pathFASTARef,
+							gnomadOptions);
+			dbAnnotators.add(gnomadExomesAnno);
+		}
+
+		// If configured, annotate using gnomAD genomes VCF file (extend
+		// header to use for
+		// writing out)
+		if (options.pathVCFGnomadGenomes != null) {
+			DBAnnotationOptions gnomadOptions = buildDBAnnotationOptions(options.pathVCFGnomadGenomes);
+			gnomadOptions.setIdentifierPrefix(options.prefixGnomadGenomes);
+			DBVariantContextAnnotator gnomadGenomesAnno = new DBVariantContextAnnotatorFactory()
+					.constructGnomad(options.pathVCFGnomadGenomes, options.pathFASTARef,
+							gnomadOptions);
+			dbAnnotators.add(gnomadGenomesAnno);
+		}
+
+		// If configured, annotate using thousand genomes VCF file (extend
+		// header to use for writing out)
+		if (options.pathThousandGenomes != null) {
+			DBAnnotationOptions thousandGenomesOptions = buildDBAnnotationOptions(options.pathThousandGenomes);
+			thousandGenomesOptions.setIdentifierPrefix(options.prefixThousandGenomes);
+			DBVariantContextAnnotator thousandGenomesAnno = new DBVariantContextAnnotatorFactory()
+					.constructThousandGenomes(options.pathThousandGenomes, options.pathFASTARef,
+							thousandGenomesOptions);
+			dbAnnotators.add(thousandGenomesAnno);
+		}
+
+		// If configured, annotate using UK10K VCF file (extend header to
+		// use for writing out)
+		if (options.pathVCFUK10K != null) {
+			DBAnnotationOptions exacOptions = buildDBAnnotationOptions(options.pathVCFUK10K);
+			exacOptions.setIdentifierPrefix(options.prefixUK10K);
+			DBVariantContextAnnotator uk10kAnno = new DBVariantContextAnnotatorFactory()
+					.constructUK10K(options.pathVCFUK10K, options.pathFASTARef, exacOptions);
+			dbAnnotators.add(uk10kAnno);
+		}
+
+		// If configured, annotate using ClinVar VCF file (extend header to
+		// use for writing out)
+		if (options.pathClinVar != null) {
+			DBAnnotationOptions clinVarOptions = buildDBAnnotationOptions(options.pathClinVar);
+			clinVarOptions.setIdentifierPrefix(options.prefixClinVar);
+			DBVariantContextAnnotator clinvarAnno = new DBVariantContextAnnotatorFactory()
+					.constructClinVar(options.pathClinVar, options.pathFASTARef,
+							clinVarOptions);
+			dbAnnotators.add(clinvarAnno);
+		}
+
+		// If configured, annotate using COSMIC VCF file (extend header to
+		// use for writing out)
+		if (options.pathCosmic != null) {
+			DBAnnotationOptions cosmicOptions = buildDBAnnotationOptions(options.pathCosmic);
+			cosmicOptions.setIdentifierPrefix(options.prefixCosmic);
+			DBVariantContextAnnotator cosmicAnno = new DBVariantContextAnnotatorFactory()
+					.constructCosmic(options.pathCosmic, options.pathFASTARef, cosmicOptions);
+			dbAnnotators.add(cosmicAnno);
+		}
+
+		if (!dbAnnotators.isEmpty()) {
+			CombinedDBVariantContextAnnotator dbAnno = new CombinedDBVariantContextAnnotator(
+					dbAnnotators);
+			dbAnno.extendHeader(vcfHeader);
+			steps = steps.andThen(dbAnno::annotateVariantContext);
+			if (getDBPrefetchWindow() > 0)
+				prefetchingDBAnnotator = dbAnno;
+		}
+
+		// Add step for annotating with variant effect
+		VariantEffectHeaderExtender extender = new VariantEffectHeaderExtender();
+		extender.addHeaders(vcfHeader);
+		VariantContextAnnotator variantEffectAnnotator = new VariantContextAnnotator(jannovarData,
+				new VariantContextAnnotator.Options(!options.isShowAll(),
+						(options.isUseThreeLetterAminoAcidCode() ? AminoAcidCode.THREE_LETTER
+								: AminoAcidCode.ONE_LETTER),
+						options.isEscapeAnnField(), options.isNt3PrimeShifting(),
+						options.isOffTargetFilterEnabled(),
+						options.isOffTargetFilterUtrIsOffTarget(),
+						options.isOffTargetFilterIntronicSpliceIsOffTarget()),
+				annotationCache);
+		steps = steps.andThen(variantEffectAnnotator::annotateVariantContext);
+
+		// If configured, use threshold-based annotation (extend header to
+		// use for writing out)
+		if (options.useThresholdFilters) {
+			// Build options object for threshold filter
+			ThresholdFilterOptions thresholdFilterOptions = new ThresholdFilterOptions(
+					options.getThreshFiltMinGtCovHet(), options.getThreshFiltMinGtCovHomAlt(),
+					options.getThreshFiltMaxCov(), options.getThreshFiltMinGtGq(),
+					options.getThreshFiltMinGtAafHet(), options.getThreshFiltMaxGtAafHet(),
+					options.getThreshFiltMinGtAafHomAlt(),
+					options.getThreshFiltMaxGtAafHomRef(), options.getPrefixExac(),
+					options.getPrefixDBSNP(), options.getPrefixGnomadGenomes(),
+					options.getPrefixGnomadExomes(),
+					options.getPrefixThousandGenomes(),
+					options.getThreshFiltMaxAlleleFrequencyAd(),
+					options.getThreshFiltMaxAlleleFrequencyAr(),
+					options.getThreshFiltMaxExacHomAlt(),
+					options.getThreshFiltMaxThousandGenomesHomAlt());
+			// Add headers
+			new ThresholdFilterHeaderExtender(thresholdFilterOptions).addHeaders(vcfHeader);
+			GenotypeThresholdFilterAnnotator gtThresholdFilterAnno = new GenotypeThresholdFilterAnnotator(
+					thresholdFilterOptions);
+			steps = steps.andThen(gtThresholdFilterAnno::annotateVariantContext);
+
+			// When configured to use advanced pedigree filters (must come
+			// after threshold-based filtration)
+			if (options.useAdvancedPedigreeFilters) {
+				// Build options object from configuration and extend headers
+				PedigreeFilterOptions pedFilterOptions = new PedigreeFilterOptions(
+						options.getThreshDeNovoParentAd2(), options.isUseParentGtIsFiltered(),
+						options.isOneParentGtFilteredFiltersAffected());
+				new PedigreeFilterHeaderExtender(pedFilterOptions).addHeaders(vcfHeader);
+
+				// Construct annotator and register with pipeline
+				PedigreeFilterAnnotator pedFilterAnnotator = new PedigreeFilterAnnotator(
+						pedFilterOptions, pedigree);
+				steps = steps.andThen(pedFilterAnnotator::annotateVariantContext);
+			}
+
+			if (options.useThresholdFilters) {
+				VariantThresholdFilterAnnotator varThresholdFilterAnno = new VariantThresholdFilterAnnotator(
+						thresholdFilterOptions, affecteds);
+				steps = steps.andThen(varThresholdFilterAnno::annotateVariantContext);
+			}
+		}
+
+		// Annotate from BED files
+		List<BedFileAnnotator> bedFileAnnotators = new ArrayList<>();
+		for (BedAnnotationOptions bedAnnotationOptions : options.getBedAnnotationOptions()) {
+			BedFileAnnotator annotator = new BedFileAnnotator(bedAnnotationOptions);
+			bedFileAnnotators.add(annotator);
+			annotator.extendHeader(vcfHeader);
+			steps = steps.andThen(annotator::annotateVariantContext);
+		}
+
+		// Annotate using dbNSFP (this and the generic TSV/VCF annotators below stay separate steps after the
+		// filters, see CombinedDBVariantContextAnnotator)
+		GenericTSVAnnotationDriver dbNsfpAnnotator;
+		if (options.getPathDbNsfp() != null) {
+			Map<String, GenericTSVValueColumnDescription> descriptions = new HashMap<>();
+			for (String colName : options.getColumnsDbNsfp()) {
+				descriptions.put(colName, DbNsfpFields.DBNSFP_FIELDS.get(colName));
+			}
+			GenericTSVAnnotationOptions dbNsfpAnnotationOptions = new GenericTSVAnnotationOptions(
+					true, false, options.getPrefixDbNsfp(), MultipleMatchBehaviour.BEST_ONLY,
+					new File(options.getPathDbNsfp()), GenericTSVAnnotationTarget.VARIANT, true,
+					options.getDbNsfpColContig(), options.getDbNsfpColPosition(),
+					options.getDbNsfpColPosition(), 3, 4, false, options.getColumnsDbNsfp(),
+					descriptions);
+			dbNsfpAnnotator = new GenericTSVAnnotationDriver(options.getPathFASTARef(),
+					dbNsfpAnnotationOptions);
+			dbNsfpAnnotator.constructVCFHeaderExtender().addHeaders(vcfHeader);
+			steps = steps.andThen(dbNsfpAnnotator::annotateVariantContext);
+		}
+
+		// Annotate from generic TSV files
+		List<GenericTSVAnnotationDriver> tsvAnnotators = new ArrayList<>();
+		for (GenericTSVAnnotationOptions tsvAnnotationOptions : options
+				.getTsvAnnotationOptions()) {
+			GenericTSVAnnotationDriver annotator = new GenericTSVAnnotationDriver(
+					options.getPathFASTARef(), tsvAnnotationOptions);
+			tsvAnnotators.add(annotator);
+			annotator.constructVCFHeaderExtender().addHeaders(vcfHeader);
+			steps = steps.andThen(annotator::annotateVariantContext);
+		}
+
+		// Annotate from generic VCF files
+		List<GenericVCFAnnotationDriver> vcfAnnotators = new ArrayList<>();
+		for (GenericVCFAnnotationOptions vcfAnnotationOptions : options
+				.getVcfAnnotationOptions()) {
+			setDBSidecarFiles(vcfAnnotationOptions, vcfAnnotationOptions.getPathVcfFile());
+			GenericVCFAnnotationDriver annotator = new GenericVCFAnnotationDriver(
+					vcfAnnotationOptions.getPathVcfFile(), options.getPathFASTARef(),
+					vcfAnnotationOptions);
+			vcfAnnotators.add(annotator);
+			annotator.constructVCFHeaderExtender().addHeaders(vcfHeader);
+			steps = steps.andThen(annotator::annotateVariantContext);
+		}
+
+		return steps;
+	}
+
 	/**
 	 * Load pedigree from file given in configuration or construct singleton pedigree
 	 * 
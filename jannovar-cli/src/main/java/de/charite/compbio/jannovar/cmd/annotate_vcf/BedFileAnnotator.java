@@ -3,15 +3,16 @@ package de.charite.compbio.jannovar.cmd.annotate_vcf;
 import java.io.Closeable;
 import java.io.File;
 import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.util.ArrayList;
 import java.util.List;
 
 import de.charite.compbio.jannovar.cmd.annotate_vcf.JannovarAnnotateVCFOptions.BedAnnotationOptions;
+import de.charite.compbio.jannovar.vardbs.base.CachingTabixReader;
+import htsjdk.samtools.util.CloseableIterator;
 import htsjdk.samtools.util.Interval;
-import htsjdk.tribble.TabixFeatureReader;
 import htsjdk.tribble.bed.BEDCodec;
 import htsjdk.tribble.bed.BEDFeature;
-import htsjdk.tribble.readers.LineIterator;
 import htsjdk.variant.variantcontext.VariantContext;
 import htsjdk.variant.variantcontext.VariantContextBuilder;
 import htsjdk.variant.vcf.VCFHeader;
@@ -32,16 +33,18 @@ public class BedFileAnnotator implements Closeable {
 	/** {@link File} with BED features. */
 	private final File featureFile;
 
-	/** This is used for reading. */
-	TabixFeatureReader<BEDFeature, LineIterator> reader;
+	/** This is used for reading, through the shared BGZF block cache. */
+	CachingTabixReader reader;
+
+	/** This is used for decoding the BED lines. */
+	private final BEDCodec codec = new BEDCodec();
 
 	public BedFileAnnotator(BedAnnotationOptions options) {
 		this.options = options;
 		this.featureFile = new File(options.getPathBed());
 
 		try {
-			this.reader = new TabixFeatureReader<>(featureFile.getAbsolutePath().toString(),
-					featureFile.getAbsolutePath().toString() + ".tbi", new BEDCodec());
+			this.reader = new CachingTabixReader(featureFile.getAbsolutePath().toString());
 		} catch (IOException e) {
 			throw new RuntimeException("Problem opening indexed BED file", e);
 		}
@@ -74,10 +77,15 @@ public class BedFileAnnotator implements Closeable {
 	 */
 	public VariantContext annotateVariantContext(VariantContext vc) {
 		List<String> overlaps = new ArrayList<>();
-		try {
-			final Interval vcInterval = new Interval(vc.getContig(), vc.getStart(), vc.getEnd());
-			for (BEDFeature bedFeature : reader.query(vc.getContig(), vc.getStart() - 1,
-					vc.getEnd() + 1)) {
+		final Interval vcInterval = new Interval(vc.getContig(), vc.getStart(), vc.getEnd());
+		// zero-based, half-open coordinates, same region as querying a TabixFeatureReader with
+		// vc.getStart() - 1 and vc.getEnd() + 1
+		try (CloseableIterator<String> lines = reader.query(vc.getContig(), vc.getStart() - 2,
+				vc.getEnd() + 1)) {
+			while (lines.hasNext()) {
+				final BEDFeature bedFeature = codec.decode(lines.next());
+				if (bedFeature == null)
+					continue; // track or browser line
 				final Interval bedItv = new Interval(bedFeature.getContig(), bedFeature.getStart(),
 						bedFeature.getEnd());
 				if (vcInterval.intersects(bedItv)) {
@@ -89,7 +97,7 @@ public class BedFileAnnotator implements Closeable {
 					}
 				}
 			}
-		} catch (IOException e) {
+		} catch (UncheckedIOException e) {
 			throw new RuntimeException(
 					"Could not query " + vc.getContig() + ":" + vc.getStart() + "-" + vc.getEnd(),
 					e);
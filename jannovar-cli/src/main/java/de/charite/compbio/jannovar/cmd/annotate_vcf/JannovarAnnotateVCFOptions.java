@@ -25,6 +25,9 @@ import net.sourceforge.argparse4j.inf.Subparsers;
  */
 public class JannovarAnnotateVCFOptions extends JannovarAnnotationOptions {
 
+	/** Annotation cache size to use when only the cache file is given */
+	public static final int DEFAULT_ANNOTATION_CACHE_SIZE = 200 * 1000;
+
 	/** Whether or not to escape ANN field */
 	private boolean escapeAnnField = true;
 
@@ -37,6 +40,18 @@ public class JannovarAnnotateVCFOptions extends JannovarAnnotationOptions {
 	/** Path to output VCF file */
 	private String pathOutputVCF = null;
 
+	/** Number of threads to use for the annotation */
+	private int threads = 1;
+
+	/** Number of upcoming records to query the databases for in the background, 0 to disable */
+	private int dbPrefetch = 0;
+
+	/** Number of variants to keep in the annotation result cache, 0 to disable */
+	private int annotationCacheSize = 0;
+
+	/** Path to the file to load the annotation result cache from and save it to, <code>null</code> for none */
+	private String pathAnnotationCache = null;
+
 	/** Path to dbSNP VCF file to use for the annotation */
 	public String pathVCFDBSNP = null;
 
@@ -403,6 +418,23 @@ public class JannovarAnnotateVCFOptions extends JannovarAnnotationOptions {
 		optionalGroup.addArgument("--3-letter-amino-acids")
 				.help("Enable usage of 3 letter amino acid codes").setDefault(false)
 				.action(Arguments.storeTrue());
+		optionalGroup.addArgument("--pack-sequences")
+				.help("Keep transcript sequences packed with two bits per nucleotide, reduces memory usage")
+				.setDefault(false).action(Arguments.storeTrue());
+		optionalGroup.addArgument("--threads")
+				.help("Number of threads to use for the annotation, output order is kept")
+				.type(Integer.class).setDefault(1);
+		optionalGroup.addArgument("--db-prefetch")
+				.help("Number of upcoming records to query the variant databases for in the background, "
+						+ "hiding the latency of slow file systems; 0 disables, only used with one thread")
+				.type(Integer.class).setDefault(0);
+		optionalGroup.addArgument("--annotation-cache-size")
+				.help("Number of variants to keep annotation results for, 0 disables the cache (default "
+						+ DEFAULT_ANNOTATION_CACHE_SIZE + " when using --annotation-cache-file)")
+				.type(Integer.class).setDefault(0);
+		optionalGroup.addArgument("--annotation-cache-file")
+				.help("File to load annotation results from and save them to after annotation, only used "
+						+ "with the same transcript database and options");
 		optionalGroup.addArgument("--disable-parent-gt-is-filtered").setDefault(true)
 				.dest("use_parent_gt_is_filtered").action(Arguments.storeFalse());
 
@@ -417,6 +449,18 @@ public class JannovarAnnotateVCFOptions extends JannovarAnnotationOptions {
 		escapeAnnField = args.getBoolean("escape_ann_field");
 		pathInputVCF = args.getString("input_vcf");
 		pathOutputVCF = args.getString("output_vcf");
+		threads = args.getInt("threads");
+		if (threads < 1)
+			throw new CommandLineParsingException("Number of threads must be at least 1");
+		dbPrefetch = args.getInt("db_prefetch");
+		if (dbPrefetch < 0)
+			throw new CommandLineParsingException("Number of records to prefetch must not be negative");
+		annotationCacheSize = args.getInt("annotation_cache_size");
+		pathAnnotationCache = args.getString("annotation_cache_file");
+		if (annotationCacheSize < 0)
+			throw new CommandLineParsingException("Annotation cache size must not be negative");
+		if (annotationCacheSize == 0 && pathAnnotationCache != null)
+			annotationCacheSize = DEFAULT_ANNOTATION_CACHE_SIZE;
 		pathPedFile = args.getString("pedigree_file");
 		annotateAsSingletonPedigree = args.getBoolean("annotate_as_singleton_pedigree");
 
@@ -533,6 +577,38 @@ public class JannovarAnnotateVCFOptions extends JannovarAnnotationOptions {
 		this.pathOutputVCF = pathOutputVCF;
 	}
 
+	public int getThreads() {
+		return threads;
+	}
+
+	public void setThreads(int threads) {
+		this.threads = threads;
+	}
+
+	public int getDbPrefetch() {
+		return dbPrefetch;
+	}
+
+	public void setDbPrefetch(int dbPrefetch) {
+		this.dbPrefetch = dbPrefetch;
+	}
+
+	public int getAnnotationCacheSize() {
+		return annotationCacheSize;
+	}
+
+	public void setAnnotationCacheSize(int annotationCacheSize) {
+		this.annotationCacheSize = annotationCacheSize;
+	}
+
+	public String getPathAnnotationCache() {
+		return pathAnnotationCache;
+	}
+
+	public void setPathAnnotationCache(String pathAnnotationCache) {
+		this.pathAnnotationCache = pathAnnotationCache;
+	}
+
 	public boolean isEscapeAnnField() {
 		return escapeAnnField;
 	}
@@ -938,6 +1014,9 @@ public class JannovarAnnotateVCFOptions extends JannovarAnnotationOptions {
 	public String toString() {
 		return "JannovarAnnotateVCFOptions [escapeAnnField=" + escapeAnnField + ", pathInputVCF="
 				+ pathInputVCF + ", interval=" + interval + ", pathOutputVCF=" + pathOutputVCF
+				+ ", threads=" + threads + ", dbPrefetch=" + dbPrefetch
+				+ ", annotationCacheSize=" + annotationCacheSize
+				+ ", pathAnnotationCache=" + pathAnnotationCache
 				+ ", pathVCFDBSNP=" + pathVCFDBSNP + ", prefixDBSNP=" + prefixDBSNP
 				+ ", pathFASTARef=" + pathFASTARef + ", pathVCFExac=" + pathVCFExac
 				+ ", prefixExac=" + prefixExac + ", pathVCFGnomadExomes=" + pathVCFGnomadExomes
@@ -0,0 +1,297 @@
+package de.charite.compbio.jannovar.cmd.annotate_vcf;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import de.charite.compbio.jannovar.UncheckedJannovarException;
+import htsjdk.samtools.util.CloseableIterator;
+import htsjdk.samtools.util.Interval;
+import htsjdk.variant.variantcontext.VariantContext;
+import htsjdk.variant.vcf.VCFFileReader;
+import java.io.Closeable;
+import java.io.File;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Function;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Annotate {@link VariantContext} objects on a pool of worker threads, keeping the input order.
+ *
+ * The records are read in batches on the calling thread and the batches are annotated on the
+ * worker threads. The annotated records are returned in the order of the input, so downstream
+ * steps such as the mendelian inheritance annotation and the VCF writer see the same sequence of
+ * records as in the single-threaded case. At most two batches per worker thread are in flight at
+ * any time.
+ *
+ * For indexed VCF files, {@link #annotateRegions(File, List)} also moves reading the records to
+ * the worker threads. Each worker reads one region with its own {@link VCFFileReader}, the
+ * annotated records of each region are returned after those of the previous region.
+ *
+ * Each worker thread uses its own annotation {@link Function}, so these need not be thread-safe
+ * (e.g., they can use their own readers for the annotation databases).
+ */
+public final class OrderedParallelAnnotator implements Closeable {
+
+	/** Worker threads, one for each annotation function */
+	private final ExecutorService executor;
+
+	/** Annotation function of the current worker thread */
+	private final ThreadLocal<Function<VariantContext, VariantContext>> annotator;
+
+	/** Number of records to annotate at once */
+	private final int batchSize;
+
+	/** Maximal number of batches submitted but not yet returned */
+	private final int maxPendingBatches;
+
+	/**
+	 * Construct new parallel annotator.
+	 *
+	 * @param annotators
+	 *            one annotation function for each worker thread
+	 * @param batchSize
+	 *            number of records to annotate at once
+	 */
+	public OrderedParallelAnnotator(List<Function<VariantContext, VariantContext>> annotators,
+			int batchSize) {
+		if (annotators.isEmpty())
+			throw new IllegalArgumentException("Need at least one annotator");
+		final ConcurrentLinkedQueue<Function<VariantContext, VariantContext>> unassigned = new ConcurrentLinkedQueue<>(
+				annotators);
+		this.annotator = ThreadLocal.withInitial(unassigned::remove);
+		this.executor = Executors.newFixedThreadPool(annotators.size(),
+				new ThreadFactoryBuilder().setNameFormat("annotate-vcf-%d").setDaemon(true).build());
+		this.batchSize = batchSize;
+		this.maxPendingBatches = 2 * annotators.size();
+	}
+
+	/**
+	 * Annotate the records from <code>input</code>.
+	 *
+	 * Records are read from <code>input</code> as the returned {@link Stream} is consumed.
+	 * Exceptions from the annotation functions are rethrown on the consuming thread.
+	 *
+	 * @param input
+	 *            {@link Iterator} of the records to annotate
+	 * @return sequential {@link Stream} of the annotated records, in the order of <code>input</code>
+	 */
+	public Stream<VariantContext> annotate(Iterator<VariantContext> input) {
+		return StreamSupport.stream(Spliterators.spliteratorUnknownSize(new AnnotatedIterator(input),
+				Spliterator.ORDERED | Spliterator.NONNULL), false);
+	}
+
+	/**
+	 * Read and annotate the records from the given regions of an indexed VCF file.
+	 *
+	 * The regions are annotated in parallel, records are returned in the order of
+	 * <code>regions</code>. A record is only returned for the region that it starts in. At most
+	 * two batches per region are buffered. Exceptions from reading or annotating the records are
+	 * rethrown on the consuming thread.
+	 *
+	 * @param vcfFile
+	 *            path to the indexed VCF file
+	 * @param regions
+	 *            regions to annotate, e.g., from {@link VCFRegionSplitter}
+	 * @return sequential {@link Stream} of the annotated records
+	 */
+	public Stream<VariantContext> annotateRegions(File vcfFile, List<Interval> regions) {
+		final List<RegionResult> results = new ArrayList<>();
+		for (Interval region : regions) {
+			final RegionResult result = new RegionResult();
+			results.add(result);
+			executor.submit(() -> annotateRegion(vcfFile, region, result));
+		}
+		return results.stream().flatMap(result -> StreamSupport.stream(
+				Spliterators.spliteratorUnknownSize(result, Spliterator.ORDERED | Spliterator.NONNULL),
+				false));
+	}
+
+	/** Stop the worker threads */
+	@Override
+	public void close() {
+		executor.shutdownNow();
+	}
+
+	/** Annotate <code>batch</code> in place using the annotation function of the current thread */
+	private List<VariantContext> annotateBatch(List<VariantContext> batch) {
+		final Function<VariantContext, VariantContext> fun = annotator.get();
+		for (int i = 0; i < batch.size(); ++i)
+			batch.set(i, fun.apply(batch.get(i)));
+		return batch;
+	}
+
+	/** Read and annotate the records of <code>region</code> and pass them to <code>result</code> */
+	private void annotateRegion(File vcfFile, Interval region, RegionResult result) {
+		try (VCFFileReader reader = new VCFFileReader(vcfFile, true);
+				CloseableIterator<VariantContext> iter = reader.query(region.getContig(),
+						region.getStart(), region.getEnd())) {
+			final Function<VariantContext, VariantContext> fun = annotator.get();
+			List<VariantContext> batch = new ArrayList<>(batchSize);
+			while (iter.hasNext()) {
+				final VariantContext vc = iter.next();
+				if (vc.getStart() < region.getStart())
+					continue; // returned for the previous region already
+				batch.add(fun.apply(vc));
+				if (batch.size() == batchSize) {
+					result.put(batch);
+					batch = new ArrayList<>(batchSize);
+				}
+			}
+			if (!batch.isEmpty())
+				result.put(batch);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			return; // stopped by close(), no one is waiting for the result
+		} catch (Throwable e) {
+			result.setError(e);
+		}
+		result.finish();
+	}
+
+	/** Unwrap the exception <code>cause</code> from a worker thread and rethrow it */
+	private static RuntimeException rethrow(Throwable cause) {
+		if (cause instanceof RuntimeException)
+			throw (RuntimeException) cause;
+		if (cause instanceof Error)
+			throw (Error) cause;
+		throw new UncheckedJannovarException("Problem annotating variants", cause);
+	}
+
+	/**
+	 * Annotated batches of one region, passed from the worker thread to the consuming thread.
+	 */
+	private static final class RegionResult implements Iterator<VariantContext> {
+
+		/** Marks the end of the region in {@link #queue} */
+		private final List<VariantContext> end = new ArrayList<>();
+
+		/** Annotated batches, followed by {@link #end} */
+		private final BlockingQueue<List<VariantContext>> queue = new ArrayBlockingQueue<>(2);
+
+		/** Exception from the worker thread, if any */
+		private volatile Throwable error = null;
+
+		/** Iterator into the current batch, <code>null</code> after the end of the region */
+		private Iterator<VariantContext> current = Collections.emptyIterator();
+
+		void put(List<VariantContext> batch) throws InterruptedException {
+			queue.put(batch);
+		}
+
+		void setError(Throwable error) {
+			this.error = error;
+		}
+
+		void finish() {
+			try {
+				queue.put(end);
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+		}
+
+		@Override
+		public boolean hasNext() {
+			while (current != null && !current.hasNext()) {
+				final List<VariantContext> batch;
+				try {
+					batch = queue.take();
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+					throw new UncheckedJannovarException("Interrupted while waiting for annotation", e);
+				}
+				if (batch == end) {
+					current = null;
+					if (error != null)
+						throw rethrow(error);
+				} else {
+					current = batch.iterator();
+				}
+			}
+			return current != null;
+		}
+
+		@Override
+		public VariantContext next() {
+			if (!hasNext())
+				throw new NoSuchElementException();
+			return current.next();
+		}
+
+	}
+
+	/**
+	 * Iterator that submits batches from the input to the worker threads and returns the annotated
+	 * batches in submission order.
+	 */
+	private final class AnnotatedIterator implements Iterator<VariantContext> {
+
+		/** Records to annotate */
+		private final Iterator<VariantContext> input;
+
+		/** Submitted batches, in input order */
+		private final ArrayDeque<Future<List<VariantContext>>> pending = new ArrayDeque<>();
+
+		/** Iterator into the current annotated batch */
+		private Iterator<VariantContext> current = Collections.emptyIterator();
+
+		AnnotatedIterator(Iterator<VariantContext> input) {
+			this.input = input;
+		}
+
+		@Override
+		public boolean hasNext() {
+			while (!current.hasNext()) {
+				submitBatches();
+				if (pending.isEmpty())
+					return false;
+				current = await(pending.poll()).iterator();
+			}
+			return true;
+		}
+
+		@Override
+		public VariantContext next() {
+			if (!hasNext())
+				throw new NoSuchElementException();
+			return current.next();
+		}
+
+		/** Fill {@link #pending} up to {@link #maxPendingBatches} from {@link #input} */
+		private void submitBatches() {
+			while (pending.size() < maxPendingBatches && input.hasNext()) {
+				final List<VariantContext> batch = new ArrayList<>(batchSize);
+				while (batch.size() < batchSize && input.hasNext())
+					batch.add(input.next());
+				pending.add(executor.submit(() -> annotateBatch(batch)));
+			}
+		}
+
+		/** Wait for <code>future</code> and unwrap exceptions from the worker thread */
+		private List<VariantContext> await(Future<List<VariantContext>> future) {
+			try {
+				return future.get();
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				throw new UncheckedJannovarException("Interrupted while waiting for annotation", e);
+			} catch (ExecutionException e) {
+				throw rethrow(e.getCause());
+			}
+		}
+
+	}
+
+}
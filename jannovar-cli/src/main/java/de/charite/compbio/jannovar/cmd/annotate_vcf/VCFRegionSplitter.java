@@ -0,0 +1,75 @@
+package de.charite.compbio.jannovar.cmd.annotate_vcf;
+
+import htsjdk.samtools.SAMSequenceDictionary;
+import htsjdk.samtools.SAMSequenceRecord;
+import htsjdk.samtools.util.Interval;
+import htsjdk.tribble.Tribble;
+import htsjdk.tribble.index.Index;
+import htsjdk.tribble.index.IndexFactory;
+import htsjdk.variant.vcf.VCFFileReader;
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Split the contigs of an indexed VCF file into regions for annotating them in parallel.
+ *
+ * The contigs are taken from the tabix or tribble index in the order of the file, the contig
+ * lengths from the contig lines in the VCF header. Each contig is split into regions of a fixed
+ * length, the last region of each contig extends far beyond the contig end such that records
+ * behind a wrong or missing contig length are not lost.
+ *
+ * The regions are closed intervals with one-based positions, as for
+ * {@link VCFFileReader#query(String, int, int)}. Records spanning region boundaries are returned by
+ * the queries for both regions, they should only be used for the region that they start in.
+ */
+public final class VCFRegionSplitter {
+
+	/** End position of the last region of each contig */
+	static final int LAST_REGION_END = 1000 * 1000 * 1000;
+
+	/** Length of the regions */
+	private final int regionLength;
+
+	/**
+	 * Construct new splitter.
+	 *
+	 * @param regionLength
+	 *            length of the regions to split the contigs into
+	 */
+	public VCFRegionSplitter(int regionLength) {
+		this.regionLength = regionLength;
+	}
+
+	/**
+	 * Split the contigs of the VCF file at <code>vcfFile</code> into regions.
+	 *
+	 * @param vcfFile
+	 *            path to the VCF file
+	 * @return regions in the order of the records in the file, <code>null</code> if the file has no
+	 *         tabix or tribble index
+	 */
+	public List<Interval> split(File vcfFile) {
+		File indexFile = Tribble.tabixIndexFile(vcfFile);
+		if (!indexFile.exists())
+			indexFile = Tribble.indexFile(vcfFile);
+		if (!indexFile.exists())
+			return null;
+
+		final Index index = IndexFactory.loadIndex(indexFile.getPath());
+		final SAMSequenceDictionary seqDict = VCFFileReader.getSequenceDictionary(vcfFile);
+		final List<Interval> result = new ArrayList<>();
+		for (String contig : index.getSequenceNames()) {
+			final SAMSequenceRecord record = (seqDict == null) ? null : seqDict.getSequence(contig);
+			final int length = (record == null) ? 0 : record.getSequenceLength();
+			int begin = 1;
+			while (begin + regionLength <= length) {
+				result.add(new Interval(contig, begin, begin + regionLength - 1));
+				begin += regionLength;
+			}
+			result.add(new Interval(contig, begin, LAST_REGION_END));
+		}
+		return result;
+	}
+
+}
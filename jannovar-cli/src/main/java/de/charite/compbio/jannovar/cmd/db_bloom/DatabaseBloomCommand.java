@@ -0,0 +1,58 @@
+package de.charite.compbio.jannovar.cmd.db_bloom;
+
+import java.io.File;
+import java.io.IOException;
+
+import de.charite.compbio.jannovar.JannovarException;
+import de.charite.compbio.jannovar.cmd.CommandLineParsingException;
+import de.charite.compbio.jannovar.cmd.JannovarCommand;
+import de.charite.compbio.jannovar.vardbs.af_store.AlleleFrequencyStoreVariantProvider;
+import de.charite.compbio.jannovar.vardbs.base.DatabaseBloomFilter;
+import htsjdk.variant.vcf.VCFFileReader;
+import net.sourceforge.argparse4j.inf.Namespace;
+
+/**
+ * Write Bloom filter for a variant database
+ */
+public class DatabaseBloomCommand extends JannovarCommand {
+
+	/** Configuration */
+	private JannovarDBBloomOptions options;
+
+	public DatabaseBloomCommand(String argv[], Namespace args) throws CommandLineParsingException {
+		this.options = new JannovarDBBloomOptions();
+		this.options.setFromArgs(args);
+	}
+
+	/**
+	 * Build and write the filter.
+	 */
+	@Override
+	public void run() throws JannovarException {
+		System.err.println("Options");
+		System.err.println(options.toString());
+
+		final String pathInput = options.getPathInput();
+		final String pathOutput = (options.getPathOutput() == null) ? DatabaseBloomFilter.defaultPath(pathInput)
+				: options.getPathOutput();
+
+		final long startTime = System.nanoTime();
+		final DatabaseBloomFilter filter;
+		if (AlleleFrequencyStoreVariantProvider.isStoreFile(pathInput)) {
+			try (AlleleFrequencyStoreVariantProvider store = new AlleleFrequencyStoreVariantProvider(pathInput)) {
+				filter = DatabaseBloomFilter.build(pathInput, store.iterator(), options.getFalsePositiveRate());
+			} catch (IOException e) {
+				throw new JannovarException("Problem closing " + pathInput, e);
+			}
+		} else {
+			try (VCFFileReader vcfReader = new VCFFileReader(new File(pathInput), false)) {
+				filter = DatabaseBloomFilter.build(pathInput, vcfReader.iterator(), options.getFalsePositiveRate());
+			}
+		}
+		filter.save(pathOutput);
+		System.err.println("Wrote Bloom filter to \"" + pathOutput + "\".");
+		final long endTime = System.nanoTime();
+		System.err.println(String.format("Building took %.2f sec.", (endTime - startTime) / 1000.0 / 1000.0 / 1000.0));
+	}
+
+}
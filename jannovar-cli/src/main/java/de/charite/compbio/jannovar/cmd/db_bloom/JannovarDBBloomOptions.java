@@ -0,0 +1,107 @@
+package de.charite.compbio.jannovar.cmd.db_bloom;
+
+import java.util.function.BiFunction;
+
+import de.charite.compbio.jannovar.UncheckedJannovarException;
+import de.charite.compbio.jannovar.cmd.CommandLineParsingException;
+import de.charite.compbio.jannovar.cmd.JannovarBaseOptions;
+import net.sourceforge.argparse4j.inf.ArgumentGroup;
+import net.sourceforge.argparse4j.inf.ArgumentParser;
+import net.sourceforge.argparse4j.inf.Namespace;
+import net.sourceforge.argparse4j.inf.Subparser;
+import net.sourceforge.argparse4j.inf.Subparsers;
+
+/**
+ * Configuration for the <tt>db-bloom</tt> command
+ */
+public class JannovarDBBloomOptions extends JannovarBaseOptions {
+
+	/** Path to input database file */
+	private String pathInput = null;
+
+	/** Path to output filter, <code>null</code> for writing it next to the database file */
+	private String pathOutput = null;
+
+	/** False positive probability of the filter */
+	private double falsePositiveRate = 0.01;
+
+	/**
+	 * Setup {@link ArgumentParser}
+	 * 
+	 * @param subParsers
+	 *            {@link Subparsers} to setup
+	 */
+	public static void setupParser(Subparsers subParsers) {
+		BiFunction<String[], Namespace, DatabaseBloomCommand> handler = (argv, args) -> {
+			try {
+				return new DatabaseBloomCommand(argv, args);
+			} catch (CommandLineParsingException e) {
+				throw new UncheckedJannovarException("Could not parse command line", e);
+			}
+		};
+
+		Subparser subParser = subParsers.addParser("db-bloom", true)
+				.help("write Bloom filter for skipping absent variants in variant database")
+				.setDefault("cmd", handler);
+		subParser.description("Write Bloom filter over the regions covered by the records of a variant database "
+				+ "VCF file (or allele frequency store) next to the file, used by the annotation for skipping the "
+				+ "database queries of variants that are absent from the database");
+
+		ArgumentGroup requiredGroup = subParser.addArgumentGroup("Required arguments");
+		requiredGroup.addArgument("-i", "--input").help("Path to database VCF file or allele frequency store")
+				.required(true);
+
+		ArgumentGroup optionalGroup = subParser.addArgumentGroup("Optional Arguments");
+		optionalGroup.addArgument("-o", "--output")
+				.help("Path to output filter, defaults to the input path with \".jvbf\" appended, where the "
+						+ "annotation looks for it");
+		optionalGroup.addArgument("--false-positive-rate").type(Double.class)
+				.help("Probability of the filter to not rule out a region without database records")
+				.setDefault(0.01);
+
+		JannovarBaseOptions.setupParser(subParser);
+	}
+
+	@Override
+	public void setFromArgs(Namespace args) throws CommandLineParsingException {
+		super.setFromArgs(args);
+
+		pathInput = args.getString("input");
+		pathOutput = args.getString("output");
+		falsePositiveRate = args.getDouble("false_positive_rate");
+		if (falsePositiveRate <= 0 || falsePositiveRate >= 1)
+			throw new CommandLineParsingException(
+					"--false-positive-rate must be between 0 and 1 but was " + falsePositiveRate);
+	}
+
+	public String getPathInput() {
+		return pathInput;
+	}
+
+	public void setPathInput(String pathInput) {
+		this.pathInput = pathInput;
+	}
+
+	public String getPathOutput() {
+		return pathOutput;
+	}
+
+	public void setPathOutput(String pathOutput) {
+		this.pathOutput = pathOutput;
+	}
+
+	public double getFalsePositiveRate() {
+		return falsePositiveRate;
+	}
+
+	public void setFalsePositiveRate(double falsePositiveRate) {
+		this.falsePositiveRate = falsePositiveRate;
+	}
+
+	@Override
+	public String toString() {
+		return "JannovarDBBloomOptions [pathInput=" + pathInput + ", pathOutput=" + pathOutput
+				+ ", falsePositiveRate=" + falsePositiveRate + "]";
+	}
+
+}
@@ -0,0 +1,57 @@
+package de.charite.compbio.jannovar.cmd.db_import;
+
+import java.io.File;
+import java.util.List;
+import java.util.regex.Pattern;
+import java.util.regex.PatternSyntaxException;
+
+import de.charite.compbio.jannovar.JannovarException;
+import de.charite.compbio.jannovar.cmd.CommandLineParsingException;
+import de.charite.compbio.jannovar.cmd.JannovarCommand;
+import de.charite.compbio.jannovar.vardbs.af_store.AlleleFrequencyStoreWriter;
+import htsjdk.variant.vcf.VCFFileReader;
+import htsjdk.variant.vcf.VCFInfoHeaderLine;
+import net.sourceforge.argparse4j.inf.Namespace;
+
+/**
+ * Convert population database VCF file into allele frequency store
+ */
+public class DatabaseImportCommand extends JannovarCommand {
+
+	/** Configuration */
+	private JannovarDBImportOptions options;
+
+	public DatabaseImportCommand(String argv[], Namespace args) throws CommandLineParsingException {
+		this.options = new JannovarDBImportOptions();
+		this.options.setFromArgs(args);
+	}
+
+	/**
+	 * Perform the conversion.
+	 */
+	@Override
+	public void run() throws JannovarException {
+		System.err.println("Options");
+		System.err.println(options.toString());
+
+		final Pattern extraInfoFields;
+		try {
+			extraInfoFields = Pattern.compile(options.getExtraInfoFields());
+		} catch (PatternSyntaxException e) {
+			throw new JannovarException("Invalid --extra-info-fields expression: " + e.getMessage());
+		}
+
+		final long startTime = System.nanoTime();
+		try (VCFFileReader vcfReader = new VCFFileReader(new File(options.getPathInputVCF()), false)) {
+			List<VCFInfoHeaderLine> infoFields = AlleleFrequencyStoreWriter.selectInfoFields(vcfReader.getFileHeader(),
+					extraInfoFields);
+			System.err.println("Keeping " + infoFields.size() + " INFO fields");
+			AlleleFrequencyStoreWriter writer = new AlleleFrequencyStoreWriter(options.getPathOutput(), infoFields);
+			final long numRecords = writer.write(options.getPathInputVCF(), vcfReader.iterator());
+			System.err.println("Wrote " + numRecords + " records to \"" + options.getPathOutput() + "\".");
+		}
+		final long endTime = System.nanoTime();
+		System.err.println(String.format("Import took %.2f sec.", (endTime - startTime) / 1000.0 / 1000.0 / 1000.0));
+	}
+
+}
@@ -0,0 +1,100 @@
+package de.charite.compbio.jannovar.cmd.db_import;
+
+import java.util.function.BiFunction;
+
+import de.charite.compbio.jannovar.UncheckedJannovarException;
+import de.charite.compbio.jannovar.cmd.CommandLineParsingException;
+import de.charite.compbio.jannovar.cmd.JannovarBaseOptions;
+import net.sourceforge.argparse4j.inf.ArgumentGroup;
+import net.sourceforge.argparse4j.inf.ArgumentParser;
+import net.sourceforge.argparse4j.inf.Namespace;
+import net.sourceforge.argparse4j.inf.Subparser;
+import net.sourceforge.argparse4j.inf.Subparsers;
+
+/**
+ * Configuration for the <tt>db-import</tt> command
+ */
+public class JannovarDBImportOptions extends JannovarBaseOptions {
+
+	/** Path to input VCF file */
+	private String pathInputVCF = null;
+
+	/** Path to output allele frequency store */
+	private String pathOutput = null;
+
+	/** Regular expression for the IDs of INFO fields to keep in addition to the Integer ones */
+	private String extraInfoFields = null;
+
+	/**
+	 * Setup {@link ArgumentParser}
+	 * 
+	 * @param subParsers
+	 *            {@link Subparsers} to setup
+	 */
+	public static void setupParser(Subparsers subParsers) {
+		BiFunction<String[], Namespace, DatabaseImportCommand> handler = (argv, args) -> {
+			try {
+				return new DatabaseImportCommand(argv, args);
+			} catch (CommandLineParsingException e) {
+				throw new UncheckedJannovarException("Could not parse command line", e);
+			}
+		};
+
+		Subparser subParser = subParsers.addParser("db-import", true)
+				.help("convert population database VCF file to allele frequency store").setDefault("cmd", handler);
+		subParser.description("Convert population database VCF file (gnomAD, ExAC, 1000 Genomes, UK10K) to a "
+				+ "compact allele frequency store that can be used instead of the VCF file for annotation");
+
+		ArgumentGroup requiredGroup = subParser.addArgumentGroup("Required arguments");
+		requiredGroup.addArgument("-i", "--input-vcf").help("Path to coordinate-sorted input VCF file")
+				.required(true);
+		requiredGroup.addArgument("-o", "--output").help("Path to output allele frequency store").required(true);
+
+		ArgumentGroup optionalGroup = subParser.addArgumentGroup("Optional Arguments");
+		optionalGroup.addArgument("--extra-info-fields")
+				.help("Regular expression for the INFO fields to keep in addition to the Integer ones")
+				.setDefault(".*POPMAX.*");
+
+		JannovarBaseOptions.setupParser(subParser);
+	}
+
+	@Override
+	public void setFromArgs(Namespace args) throws CommandLineParsingException {
+		super.setFromArgs(args);
+
+		pathInputVCF = args.getString("input_vcf");
+		pathOutput = args.getString("output");
+		extraInfoFields = args.getString("extra_info_fields");
+	}
+
+	public String getPathInputVCF() {
+		return pathInputVCF;
+	}
+
+	public void setPathInputVCF(String pathInputVCF) {
+		this.pathInputVCF = pathInputVCF;
+	}
+
+	public String getPathOutput() {
+		return pathOutput;
+	}
+
+	public void setPathOutput(String pathOutput) {
+		this.pathOutput = pathOutput;
+	}
+
+	public String getExtraInfoFields() {
+		return extraInfoFields;
+	}
+
+	public void setExtraInfoFields(String extraInfoFields) {
+		this.extraInfoFields = extraInfoFields;
+	}
+
+	@Override
+	public String toString() {
+		return "JannovarDBImportOptions [pathInputVCF=" + pathInputVCF + ", pathOutput=" + pathOutput
+				+ ", extraInfoFields=" + extraInfoFields + "]";
+	}
+
+}
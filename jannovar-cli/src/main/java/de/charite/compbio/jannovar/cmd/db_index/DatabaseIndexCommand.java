@@ -0,0 +1,61 @@
+package de.charite.compbio.jannovar.cmd.db_index;
+
+import java.io.File;
+import java.io.IOException;
+
+import de.charite.compbio.jannovar.JannovarException;
+import de.charite.compbio.jannovar.cmd.CommandLineParsingException;
+import de.charite.compbio.jannovar.cmd.JannovarCommand;
+import de.charite.compbio.jannovar.vardbs.af_store.AlleleFrequencyStoreVariantProvider;
+import de.charite.compbio.jannovar.vardbs.base.NormalizedAlleleIndex;
+import de.charite.compbio.jannovar.vardbs.base.NormalizedAlleleIndexWriter;
+import htsjdk.variant.vcf.VCFFileReader;
+import net.sourceforge.argparse4j.inf.Namespace;
+
+/**
+ * Write normalized allele index for a variant database
+ */
+public class DatabaseIndexCommand extends JannovarCommand {
+
+	/** Configuration */
+	private JannovarDBIndexOptions options;
+
+	public DatabaseIndexCommand(String argv[], Namespace args) throws CommandLineParsingException {
+		this.options = new JannovarDBIndexOptions();
+		this.options.setFromArgs(args);
+	}
+
+	/**
+	 * Write the index.
+	 */
+	@Override
+	public void run() throws JannovarException {
+		System.err.println("Options");
+		System.err.println(options.toString());
+
+		final String pathInput = options.getPathInput();
+		final String pathOutput = (options.getPathOutput() == null) ? NormalizedAlleleIndex.defaultPath(pathInput)
+				: options.getPathOutput();
+
+		final long startTime = System.nanoTime();
+		final NormalizedAlleleIndexWriter writer = new NormalizedAlleleIndexWriter(pathOutput,
+				options.getPathFASTARef());
+		final long numEntries;
+		if (AlleleFrequencyStoreVariantProvider.isStoreFile(pathInput)) {
+			try (AlleleFrequencyStoreVariantProvider store = new AlleleFrequencyStoreVariantProvider(pathInput)) {
+				numEntries = writer.write(pathInput, store.iterator());
+			} catch (IOException e) {
+				throw new JannovarException("Problem closing " + pathInput, e);
+			}
+		} else {
+			try (VCFFileReader vcfReader = new VCFFileReader(new File(pathInput), false)) {
+				numEntries = writer.write(pathInput, vcfReader.iterator());
+			}
+		}
+		System.err.println("Indexed " + numEntries + " of the alleles in " + writer.getNumRecords()
+				+ " records, wrote \"" + pathOutput + "\".");
+		final long endTime = System.nanoTime();
+		System.err.println(String.format("Indexing took %.2f sec.", (endTime - startTime) / 1000.0 / 1000.0 / 1000.0));
+	}
+
+}
@@ -0,0 +1,102 @@
+package de.charite.compbio.jannovar.cmd.db_index;
+
+import java.util.function.BiFunction;
+
+import de.charite.compbio.jannovar.UncheckedJannovarException;
+import de.charite.compbio.jannovar.cmd.CommandLineParsingException;
+import de.charite.compbio.jannovar.cmd.JannovarBaseOptions;
+import net.sourceforge.argparse4j.inf.ArgumentGroup;
+import net.sourceforge.argparse4j.inf.ArgumentParser;
+import net.sourceforge.argparse4j.inf.Namespace;
+import net.sourceforge.argparse4j.inf.Subparser;
+import net.sourceforge.argparse4j.inf.Subparsers;
+
+/**
+ * Configuration for the <tt>db-index</tt> command
+ */
+public class JannovarDBIndexOptions extends JannovarBaseOptions {
+
+	/** Path to input database file */
+	private String pathInput = null;
+
+	/** Path to reference FASTA file */
+	private String pathFASTARef = null;
+
+	/** Path to output index, <code>null</code> for writing it next to the database file */
+	private String pathOutput = null;
+
+	/**
+	 * Setup {@link ArgumentParser}
+	 * 
+	 * @param subParsers
+	 *            {@link Subparsers} to setup
+	 */
+	public static void setupParser(Subparsers subParsers) {
+		BiFunction<String[], Namespace, DatabaseIndexCommand> handler = (argv, args) -> {
+			try {
+				return new DatabaseIndexCommand(argv, args);
+			} catch (CommandLineParsingException e) {
+				throw new UncheckedJannovarException("Could not parse command line", e);
+			}
+		};
+
+		Subparser subParser = subParsers.addParser("db-index", true)
+				.help("write normalized allele index for variant database").setDefault("cmd", handler);
+		subParser.description("Normalize the alleles of a variant database VCF file (or allele frequency store) "
+				+ "once and write them to an index next to the file, used by the annotation instead of "
+				+ "normalizing the database alleles on each query");
+
+		ArgumentGroup requiredGroup = subParser.addArgumentGroup("Required arguments");
+		requiredGroup.addArgument("-i", "--input").help("Path to database VCF file or allele frequency store")
+				.required(true);
+		requiredGroup.addArgument("--ref-fasta")
+				.help("Path to FAI-indexed reference FASTA file, the same as used for annotation").required(true);
+
+		ArgumentGroup optionalGroup = subParser.addArgumentGroup("Optional Arguments");
+		optionalGroup.addArgument("-o", "--output")
+				.help("Path to output index, defaults to the input path with \".jvni\" appended, where the "
+						+ "annotation looks for it");
+
+		JannovarBaseOptions.setupParser(subParser);
+	}
+
+	@Override
+	public void setFromArgs(Namespace args) throws CommandLineParsingException {
+		super.setFromArgs(args);
+
+		pathInput = args.getString("input");
+		pathFASTARef = args.getString("ref_fasta");
+		pathOutput = args.getString("output");
+	}
+
+	public String getPathInput() {
+		return pathInput;
+	}
+
+	public void setPathInput(String pathInput) {
+		this.pathInput = pathInput;
+	}
+
+	public String getPathFASTARef() {
+		return pathFASTARef;
+	}
+
+	public void setPathFASTARef(String pathFASTARef) {
+		this.pathFASTARef = pathFASTARef;
+	}
+
+	public String getPathOutput() {
+		return pathOutput;
+	}
+
+	public void setPathOutput(String pathOutput) {
+		this.pathOutput = pathOutput;
+	}
+
+	@Override
+	public String toString() {
+		return "JannovarDBIndexOptions [pathInput=" + pathInput + ", pathFASTARef=" + pathFASTARef
+				+ ", pathOutput=" + pathOutput + "]";
+	}
+
+}
@@ -45,7 +45,7 @@ public final class DownloadCommand extends JannovarCommand {
 			String filename = PathUtil.join(options.getDownloadDir(),
 					name.replace('/', '_').replace('\\', '_') + ".ser");
 			JannovarDataSerializer serializer = new JannovarDataSerializer(filename);
-			serializer.save(data);
+			serializer.save(data, options.getDataFormat());
 		}
 	}
 
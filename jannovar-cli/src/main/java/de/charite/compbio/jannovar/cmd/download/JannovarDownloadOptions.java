@@ -4,6 +4,7 @@ import de.charite.compbio.jannovar.UncheckedJannovarException;
 import de.charite.compbio.jannovar.cmd.CommandLineParsingException;
 import de.charite.compbio.jannovar.cmd.JannovarBaseOptions;
 import de.charite.compbio.jannovar.cmd.JannovarDBOptions;
+import de.charite.compbio.jannovar.data.JannovarDataFormat;
 import net.sourceforge.argparse4j.impl.Arguments;
 import net.sourceforge.argparse4j.inf.ArgumentGroup;
 import net.sourceforge.argparse4j.inf.ArgumentParser;
@@ -29,6 +30,9 @@ public class JannovarDownloadOptions extends JannovarDBOptions {
 	/** Names of the databases to download */
 	private List<String> databaseNames = new ArrayList<>();
 
+	/** Format to write the transcript databases in */
+	private JannovarDataFormat dataFormat = JannovarDataFormat.LEGACY;
+
 	/**
 	 * Setup {@link ArgumentParser}
 	 *
@@ -56,6 +60,9 @@ public class JannovarDownloadOptions extends JannovarDBOptions {
 		optionalGroup.addArgument("-s", "--data-source-list").help("INI file with data source list")
 				.setDefault(new ArrayList<String>(Arrays.asList("bundle:///default_sources.ini"))).action(Arguments.append());
 		optionalGroup.addArgument("--download-dir").help("Path to download directory").setDefault("data");
+		optionalGroup.addArgument("--ser-format").help(
+				"Format of the written .ser file, \"mapped\" files can be loaded much faster but need Jannovar >= 0.28")
+				.choices("legacy", "mapped").setDefault("legacy");
 
 		JannovarBaseOptions.setupParser(subParser);
 	}
@@ -66,6 +73,7 @@ public class JannovarDownloadOptions extends JannovarDBOptions {
 
 		downloadDir = args.getString("download_dir");
 		databaseNames = args.getList("database");
+		dataFormat = JannovarDataFormat.valueOf(args.getString("ser_format").toUpperCase());
 	}
 
 	public String getDownloadDir() {
@@ -84,9 +92,18 @@ public class JannovarDownloadOptions extends JannovarDBOptions {
 		this.databaseNames = databaseNames;
 	}
 
+	public JannovarDataFormat getDataFormat() {
+		return dataFormat;
+	}
+
+	public void setDataFormat(JannovarDataFormat dataFormat) {
+		this.dataFormat = dataFormat;
+	}
+
 	@Override
 	public String toString() {
-		return "JannovarDownloadOptions [downloadDir=" + downloadDir + ", getDataSourceFiles()=" + getDataSourceFiles()
+		return "JannovarDownloadOptions [downloadDir=" + downloadDir + ", dataFormat=" + dataFormat
+				+ ", getDataSourceFiles()=" + getDataSourceFiles()
 				+ ", isReportProgress()=" + isReportProgress() + ", getHttpProxy()=" + getHttpProxy()
 				+ ", getHttpsProxy()=" + getHttpsProxy() + ", getFtpProxy()=" + getFtpProxy() + "]";
 	}
@@ -24,9 +24,9 @@ import de.charite.compbio.jannovar.hgvs.bridge.NucleotideChangeToGenomeVariantTr
 import de.charite.compbio.jannovar.hgvs.nts.variant.SingleAlleleNucleotideVariant;
 import de.charite.compbio.jannovar.hgvs.parser.HGVSParser;
 import de.charite.compbio.jannovar.hgvs.parser.HGVSParsingException;
+import de.charite.compbio.jannovar.htsjdk.CachingReferenceSequenceFile;
 import de.charite.compbio.jannovar.reference.GenomeVariant;
 import htsjdk.samtools.SAMSequenceRecord;
-import htsjdk.samtools.reference.IndexedFastaSequenceFile;
 import htsjdk.variant.variantcontext.Allele;
 import htsjdk.variant.variantcontext.VariantContext;
 import htsjdk.variant.variantcontext.VariantContextBuilder;
@@ -52,7 +52,7 @@ public class ProjectTranscriptToChromosome extends JannovarAnnotationCommand {
 	private ProjectTranscriptToChromosomeOptions options;
 
 	/** FAI-indexed FASTA file to use */
-	IndexedFastaSequenceFile fasta;
+	CachingReferenceSequenceFile fasta;
 
 	/** Translation of variants */
 	NucleotideChangeToGenomeVariantTranslator translator;
@@ -67,7 +67,7 @@ public class ProjectTranscriptToChromosome extends JannovarAnnotationCommand {
 		System.err.println("Options");
 		System.err.println(options.toString());
 		System.err.println("Loading database file...");
-		deserializeTranscriptDefinitionFile(options.getDatabaseFilePath());
+		deserializeTranscriptDefinitionFile(options.getDatabaseFilePath(), options.isPackSequences());
 		System.err.println("Loading FASTA index...");
 		loadFASTAIndex();
 		System.err.println("Opening output VCF file...");
@@ -108,7 +108,7 @@ public class ProjectTranscriptToChromosome extends JannovarAnnotationCommand {
 
 	private void loadFASTAIndex() {
 		try {
-			this.fasta = new IndexedFastaSequenceFile(new File(options.getPathReferenceFASTA()));
+			this.fasta = CachingReferenceSequenceFile.getShared(options.getPathReferenceFASTA());
 		} catch (FileNotFoundException e) {
 			throw new UncheckedJannovarException("Could not load FASTA index", e);
 		}
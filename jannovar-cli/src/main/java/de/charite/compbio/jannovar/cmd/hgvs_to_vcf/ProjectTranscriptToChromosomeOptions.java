@@ -70,6 +70,9 @@ public class ProjectTranscriptToChromosomeOptions extends JannovarAnnotationOpti
 				.dest("3_prime_shifting").setDefault(true).action(Arguments.storeFalse());
 		optionalGroup.addArgument("--3-letter-amino-acids").help("Enable usage of 3 letter amino acid codes")
 				.setDefault(false).action(Arguments.storeTrue());
+		optionalGroup.addArgument("--pack-sequences")
+				.help("Keep transcript sequences packed with two bits per nucleotide, reduces memory usage")
+				.setDefault(false).action(Arguments.storeTrue());
 
 		subParser.epilog("Example: java -jar Jannovar.jar tx-to-chrom -i in.txt -o out.vcf");
 
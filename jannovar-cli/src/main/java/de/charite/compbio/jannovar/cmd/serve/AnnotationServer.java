@@ -0,0 +1,314 @@
+package de.charite.compbio.jannovar.cmd.serve;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.UnsupportedEncodingException;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import de.charite.compbio.jannovar.JannovarException;
+import de.charite.compbio.jannovar.annotation.AllAnnotationListTextGenerator;
+import de.charite.compbio.jannovar.annotation.AnnotationException;
+import de.charite.compbio.jannovar.annotation.BestAnnotationListTextGenerator;
+import de.charite.compbio.jannovar.annotation.VariantAnnotations;
+import de.charite.compbio.jannovar.annotation.VariantAnnotationsTextGenerator;
+import de.charite.compbio.jannovar.data.ReferenceDictionary;
+import de.charite.compbio.jannovar.hgvs.AminoAcidCode;
+import de.charite.compbio.jannovar.hgvs.HGVSVariant;
+import de.charite.compbio.jannovar.hgvs.bridge.CannotTranslateHGVSVariant;
+import de.charite.compbio.jannovar.hgvs.bridge.NucleotideChangeToGenomeVariantTranslator;
+import de.charite.compbio.jannovar.hgvs.nts.variant.SingleAlleleNucleotideVariant;
+import de.charite.compbio.jannovar.hgvs.parser.HGVSParser;
+import de.charite.compbio.jannovar.hgvs.parser.HGVSParsingException;
+import de.charite.compbio.jannovar.reference.GenomePosition;
+import de.charite.compbio.jannovar.reference.GenomeVariant;
+import de.charite.compbio.jannovar.reference.PositionType;
+import de.charite.compbio.jannovar.reference.Strand;
+import de.charite.compbio.jannovar.vardbs.facade.ThreadSafeAnnotationEngine;
+import htsjdk.tribble.readers.LineIterator;
+import htsjdk.tribble.readers.LineIteratorImpl;
+import htsjdk.tribble.readers.SynchronousLineReader;
+import htsjdk.variant.variantcontext.writer.Options;
+import htsjdk.variant.variantcontext.writer.VariantContextWriter;
+import htsjdk.variant.variantcontext.writer.VariantContextWriterBuilder;
+import htsjdk.variant.vcf.VCFCodec;
+import htsjdk.variant.vcf.VCFHeader;
+
+/**
+ * HTTP server answering annotation requests with a {@link ThreadSafeAnnotationEngine}
+ *
+ * The following endpoints are provided, errors are answered with status 400 and a message:
+ *
+ * <ul>
+ * <li><tt>GET /health</tt> returns <tt>OK</tt></li>
+ * <li><tt>/annotate-pos?change=chr1:12345C&gt;A</tt> annotates the genomic changes given as <tt>change</tt>
+ * parameters and, for <tt>POST</tt>, one per line in the body, answering in the tab-separated format of the
+ * <tt>annotate-pos</tt> command</li>
+ * <li><tt>/annotate-hgvs?hgvs=NM_000109.3:c.33C&gt;T</tt> does the same for transcript-level HGVS variants, only
+ * available with a reference FASTA file</li>
+ * <li><tt>POST /annotate-vcf</tt> annotates the VCF file in the body, streaming back the annotated VCF file</li>
+ * </ul>
+ */
+public final class AnnotationServer {
+
+	/** Pattern for genomic changes, e.g., <tt>chr1:12345C&gt;A</tt> */
+	private static final Pattern GENOMIC_CHANGE = Pattern.compile("([^:]+):([0-9]+)([ACGTN]*)>([ACGTN]*)");
+
+	/** Engine for the annotation, shared by all request threads */
+	private final ThreadSafeAnnotationEngine engine;
+
+	/** Translation of HGVS variants to genomic ones, <code>null</code> if not available */
+	private final NucleotideChangeToGenomeVariantTranslator hgvsTranslator;
+
+	/** Whether to list all effects in the text output instead of the most pathogenic one only */
+	private final boolean showAll;
+
+	/** Amino acid code to use in the text output */
+	private final AminoAcidCode aminoAcidCode;
+
+	/** HTTP server, <code>null</code> until started */
+	private HttpServer server = null;
+
+	/** Threads answering the requests, <code>null</code> until started */
+	private ExecutorService executor = null;
+
+	/**
+	 * Initialize the server, use {@link #start} for listening.
+	 *
+	 * @param engine
+	 *            {@link ThreadSafeAnnotationEngine} to use for the annotation
+	 * @param hgvsTranslator
+	 *            translation of HGVS variants, <code>null</code> for disabling the <tt>/annotate-hgvs</tt> endpoint;
+	 *            it must read the reference through a thread-safe
+	 *            {@link de.charite.compbio.jannovar.htsjdk.CachingReferenceSequenceFile}
+	 * @param showAll
+	 *            whether to list all effects in the text output instead of the most pathogenic one only
+	 * @param aminoAcidCode
+	 *            amino acid code to use in the text output
+	 */
+	public AnnotationServer(ThreadSafeAnnotationEngine engine,
+			NucleotideChangeToGenomeVariantTranslator hgvsTranslator, boolean showAll, AminoAcidCode aminoAcidCode) {
+		this.engine = engine;
+		this.hgvsTranslator = hgvsTranslator;
+		this.showAll = showAll;
+		this.aminoAcidCode = aminoAcidCode;
+	}
+
+	/**
+	 * Start listening for requests
+	 *
+	 * @param host
+	 *            host name or address to listen on
+	 * @param port
+	 *            port to listen on, 0 for any free port, see {@link #getPort()}
+	 * @param numThreads
+	 *            number of threads for answering requests
+	 * @throws IOException
+	 *             if the server could not be bound to the address
+	 */
+	public void start(String host, int port, int numThreads) throws IOException {
+		server = HttpServer.create(new InetSocketAddress(host, port), 0);
+		server.createContext("/health", exchange -> handle(exchange, this::handleHealth));
+		server.createContext("/annotate-pos", exchange -> handle(exchange, this::handleAnnotatePos));
+		server.createContext("/annotate-hgvs", exchange -> handle(exchange, this::handleAnnotateHGVS));
+		server.createContext("/annotate-vcf", exchange -> handle(exchange, this::handleAnnotateVCF));
+		executor = Executors.newFixedThreadPool(numThreads);
+		server.setExecutor(executor);
+		server.start();
+	}
+
+	/** @return port the server listens on */
+	public int getPort() {
+		return server.getAddress().getPort();
+	}
+
+	/** Stop listening and answering requests */
+	public void stop() {
+		if (server == null)
+			return;
+		server.stop(0);
+		executor.shutdown();
+	}
+
+	/** Handler for one endpoint */
+	@FunctionalInterface
+	private interface Handler {
+
+		/**
+		 * Answer the request in <code>exchange</code>
+		 *
+		 * @throws JannovarException
+		 *             on problems with the request, answered with status 400 and the message
+		 * @throws IOException
+		 *             on problems reading the request or writing the response
+		 */
+		void run(HttpExchange exchange) throws JannovarException, IOException;
+
+	}
+
+	/** Run <code>handler</code> on <code>exchange</code>, answering errors with status 400 */
+	private void handle(HttpExchange exchange, Handler handler) throws IOException {
+		try {
+			handler.run(exchange);
+		} catch (JannovarException | RuntimeException e) {
+			// If the response was already started (streaming VCF), this only closes the connection.
+			try {
+				sendText(exchange, 400, "ERROR: " + e.getMessage() + "\n");
+			} catch (IOException | RuntimeException e2) {
+				// ignore, nothing more to tell the client
+			}
+		} finally {
+			exchange.close();
+		}
+	}
+
+	private void handleHealth(HttpExchange exchange) throws IOException {
+		sendText(exchange, 200, "OK\n");
+	}
+
+	private void handleAnnotatePos(HttpExchange exchange) throws JannovarException, IOException {
+		final ReferenceDictionary refDict = engine.getEffectAnnotator().getRefDict();
+		final List<String> changes = getInputs(exchange, "change");
+		final StringBuilder builder = new StringBuilder("#change\teffect\thgvs_annotation\tmessages\n");
+		for (String change : changes)
+			appendAnnotation(builder, change, parseGenomeChange(refDict, change));
+		sendText(exchange, 200, builder.toString());
+	}
+
+	private void handleAnnotateHGVS(HttpExchange exchange) throws JannovarException, IOException {
+		if (hgvsTranslator == null)
+			throw new JannovarException("HGVS annotation requires starting the server with --ref-fasta");
+		final List<String> variants = getInputs(exchange, "hgvs");
+		final StringBuilder builder = new StringBuilder("#change\teffect\thgvs_annotation\tmessages\n");
+		for (String variant : variants)
+			appendAnnotation(builder, variant, translateHGVS(variant));
+		sendText(exchange, 200, builder.toString());
+	}
+
+	private void handleAnnotateVCF(HttpExchange exchange) throws JannovarException, IOException {
+		if (!"POST".equals(exchange.getRequestMethod()))
+			throw new JannovarException("VCF annotation requires POST with the VCF file in the body");
+
+		final LineIterator lines = new LineIteratorImpl(
+				new SynchronousLineReader(new InputStreamReader(exchange.getRequestBody(), StandardCharsets.UTF_8)));
+		final VCFCodec codec = new VCFCodec();
+		final VCFHeader header = (VCFHeader) codec.readActualHeader(lines);
+		engine.extendHeader(header);
+
+		exchange.getResponseHeaders().set("Content-Type", "text/plain; charset=utf-8");
+		exchange.sendResponseHeaders(200, 0);
+		try (VariantContextWriter writer = new VariantContextWriterBuilder()
+				.setOutputStream(exchange.getResponseBody()).unsetOption(Options.INDEX_ON_THE_FLY)
+				.setOption(Options.ALLOW_MISSING_FIELDS_IN_HEADER).build()) {
+			writer.writeHeader(header);
+			while (lines.hasNext()) {
+				final String line = lines.next();
+				if (!line.isEmpty())
+					writer.add(engine.annotateVariantContext(codec.decode(line)));
+			}
+		}
+	}
+
+	/** Append the annotation line for <code>change</code> in the format of the <tt>annotate-pos</tt> command */
+	private void appendAnnotation(StringBuilder builder, String input, GenomeVariant change)
+			throws AnnotationException {
+		final VariantAnnotations annos = engine.getEffectAnnotator().buildAnnotations(change);
+		final VariantAnnotationsTextGenerator textGenerator;
+		if (showAll)
+			textGenerator = new AllAnnotationListTextGenerator(annos, 0, 1);
+		else
+			textGenerator = new BestAnnotationListTextGenerator(annos, 0, 1);
+		builder.append(input).append('\t').append(textGenerator.buildEffectText()).append('\t')
+				.append(textGenerator.buildHGVSText(aminoAcidCode)).append('\t')
+				.append(textGenerator.buildMessages()).append('\n');
+	}
+
+	/** @return genomic change parsed from <code>changeStr</code>, e.g., <tt>chr1:12345C&gt;A</tt> */
+	private static GenomeVariant parseGenomeChange(ReferenceDictionary refDict, String changeStr)
+			throws JannovarException {
+		final Matcher match = GENOMIC_CHANGE.matcher(changeStr);
+		if (!match.matches())
+			throw new JannovarException("Genomic change " + changeStr + " does not have the form chr1:12345C>A");
+		final Integer chr = refDict.getContigNameToID().get(match.group(1));
+		if (chr == null)
+			throw new JannovarException("Unknown contig " + match.group(1) + " in genomic change " + changeStr);
+		final int pos = Integer.parseInt(match.group(2));
+		return new GenomeVariant(new GenomePosition(refDict, Strand.FWD, chr, pos, PositionType.ONE_BASED),
+				match.group(3), match.group(4));
+	}
+
+	/** @return genomic change for the transcript-level HGVS variant <code>variantStr</code> */
+	private GenomeVariant translateHGVS(String variantStr) throws JannovarException {
+		final HGVSVariant variant;
+		try {
+			variant = new HGVSParser().parseHGVSString(variantStr);
+		} catch (HGVSParsingException e) {
+			throw new JannovarException("Could not parse HGVS variant " + variantStr + ": " + e.getMessage());
+		}
+		if (!(variant instanceof SingleAlleleNucleotideVariant))
+			throw new JannovarException("HGVS variant " + variantStr + " must be a single-allele nucleotide variant");
+		try {
+			return hgvsTranslator.translateNucleotideVariantToGenomeVariant((SingleAlleleNucleotideVariant) variant,
+					true);
+		} catch (CannotTranslateHGVSVariant e) {
+			throw new JannovarException("Could not translate HGVS variant " + variantStr + ": " + e.getMessage());
+		}
+	}
+
+	/**
+	 * @return the values of the query parameter <code>name</code> followed by, for <tt>POST</tt>, the non-empty lines
+	 *         of the request body
+	 */
+	private static List<String> getInputs(HttpExchange exchange, String name) throws IOException {
+		final List<String> result = new ArrayList<String>();
+		final String query = exchange.getRequestURI().getRawQuery();
+		if (query != null) {
+			for (String param : query.split("&")) {
+				final int pos = param.indexOf('=');
+				if (pos != -1 && name.equals(urlDecode(param.substring(0, pos))))
+					result.add(urlDecode(param.substring(pos + 1)));
+			}
+		}
+		if ("POST".equals(exchange.getRequestMethod())) {
+			final BufferedReader reader = new BufferedReader(
+					new InputStreamReader(exchange.getRequestBody(), StandardCharsets.UTF_8));
+			String line;
+			while ((line = reader.readLine()) != null)
+				if (!line.trim().isEmpty())
+					result.add(line.trim());
+		}
+		return result;
+	}
+
+	/** @return <code>s</code> with URL encoding removed */
+	private static String urlDecode(String s) {
+		try {
+			return URLDecoder.decode(s, "utf-8");
+		} catch (UnsupportedEncodingException e) {
+			return s;
+		}
+	}
+
+	/** Send <code>text</code> as the complete response with the given <code>status</code> */
+	private static void sendText(HttpExchange exchange, int status, String text) throws IOException {
+		final byte[] bytes = text.getBytes(StandardCharsets.UTF_8);
+		exchange.getResponseHeaders().set("Content-Type", "text/plain; charset=utf-8");
+		exchange.sendResponseHeaders(status, bytes.length);
+		try (OutputStream os = exchange.getResponseBody()) {
+			os.write(bytes);
+		}
+	}
+
+}
@@ -0,0 +1,257 @@
+package de.charite.compbio.jannovar.cmd.serve;
+
+import java.util.function.BiFunction;
+
+import de.charite.compbio.jannovar.UncheckedJannovarException;
+import de.charite.compbio.jannovar.cmd.CommandLineParsingException;
+import de.charite.compbio.jannovar.cmd.JannovarAnnotationOptions;
+import net.sourceforge.argparse4j.inf.ArgumentGroup;
+import net.sourceforge.argparse4j.inf.ArgumentParser;
+import net.sourceforge.argparse4j.inf.Namespace;
+import net.sourceforge.argparse4j.inf.Subparser;
+import net.sourceforge.argparse4j.inf.Subparsers;
+
+/**
+ * Options for the <tt>serve</tt> command
+ */
+public class JannovarServeOptions extends JannovarAnnotationOptions {
+
+	/** Host name or address to listen on */
+	private String host = "localhost";
+
+	/** Port to listen on, 0 for any free port */
+	private int port = 8080;
+
+	/** Number of threads for answering requests */
+	private int threads = 4;
+
+	/** Number of variants to keep annotation results for, 0 disables the cache */
+	private int annotationCacheSize = 0;
+
+	/** Path to FAI-indexed reference FASTA file, <code>null</code> if not given */
+	private String pathFASTARef = null;
+
+	/** Path to dbSNP VCF file, <code>null</code> if not given */
+	private String pathVCFDBSNP = null;
+
+	/** Prefix for dbSNP annotations */
+	private String prefixDBSNP = "DBSNP_";
+
+	/** Path to gnomAD exomes VCF file, <code>null</code> if not given */
+	private String pathVCFGnomadExomes = null;
+
+	/** Prefix for gnomAD exomes annotations */
+	private String prefixGnomadExomes = "GNOMAD_EXOMES_";
+
+	/** Path to gnomAD genomes VCF file, <code>null</code> if not given */
+	private String pathVCFGnomadGenomes = null;
+
+	/** Prefix for gnomAD genomes annotations */
+	private String prefixGnomadGenomes = "GNOMAD_GENOMES_";
+
+	/** Path to ClinVar VCF file, <code>null</code> if not given */
+	private String pathClinVar = null;
+
+	/** Prefix for ClinVar annotations */
+	private String prefixClinVar = "CLINVAR_";
+
+	/**
+	 * Setup {@link ArgumentParser}
+	 *
+	 * @param subParsers
+	 *            {@link Subparsers} to setup
+	 */
+	public static void setupParser(Subparsers subParsers) {
+		BiFunction<String[], Namespace, ServeCommand> handler = (argv, args) -> {
+			try {
+				return new ServeCommand(argv, args);
+			} catch (CommandLineParsingException e) {
+				throw new UncheckedJannovarException("Could not parse command line", e);
+			}
+		};
+
+		Subparser subParser = subParsers.addParser("serve", true)
+				.help("answer annotation requests over HTTP, keeping the database loaded").setDefault("cmd", handler);
+		subParser.description("Load the database once and annotate genomic changes, HGVS variants, and VCF files "
+				+ "sent over HTTP");
+		ArgumentGroup requiredGroup = subParser.addArgumentGroup("Required arguments");
+		requiredGroup.addArgument("-d", "--database").help("Path to database .ser file").required(true);
+
+		ArgumentGroup serverGroup = subParser.addArgumentGroup("Server Arguments (optional)");
+		serverGroup.addArgument("--host").help("Host name or address to listen on").setDefault("localhost");
+		serverGroup.addArgument("--port").help("Port to listen on, 0 for any free port").type(Integer.class)
+				.setDefault(8080);
+		serverGroup.addArgument("--threads").help("Number of threads for answering requests").type(Integer.class)
+				.setDefault(4);
+		serverGroup.addArgument("--annotation-cache-size")
+				.help("Number of variants to keep annotation results for, 0 disables the cache").type(Integer.class)
+				.setDefault(0);
+
+		ArgumentGroup annotationGroup = subParser.addArgumentGroup("Annotation Arguments (optional)");
+		annotationGroup.addArgument("--ref-fasta").help(
+				"Path to FAI-indexed reference FASTA file, required for HGVS and database-based annotation");
+		annotationGroup.addArgument("--dbsnp-vcf").help("Path to dbSNP VCF file, activates dbSNP annotation");
+		annotationGroup.addArgument("--dbsnp-prefix").help("Prefix for dbSNP annotations").setDefault("DBSNP_");
+		annotationGroup.addArgument("--gnomad-exomes-vcf")
+				.help("Path to gnomAD exomes VCF file, activates gnomAD exomes annotation");
+		annotationGroup.addArgument("--gnomad-exomes-prefix").help("Prefix for gnomAD exomes annotations")
+				.setDefault("GNOMAD_EXOMES_");
+		annotationGroup.addArgument("--gnomad-genomes-vcf")
+				.help("Path to gnomAD genomes VCF file, activates gnomAD genomes annotation");
+		annotationGroup.addArgument("--gnomad-genomes-prefix").help("Prefix for gnomAD genomes annotations")
+				.setDefault("GNOMAD_GENOMES_");
+		annotationGroup.addArgument("--clinvar-vcf").help("Path to ClinVar file, activates ClinVar annotation");
+		annotationGroup.addArgument("--clinvar-prefix").help("Prefix for ClinVar annotations")
+				.setDefault("CLINVAR_");
+
+		subParser.epilog("Example: java -jar Jannovar.jar serve -d hg19_refseq.ser --port 8080");
+
+		JannovarAnnotationOptions.setupParser(subParser);
+	}
+
+	@Override
+	public void setFromArgs(Namespace args) throws CommandLineParsingException {
+		super.setFromArgs(args);
+
+		host = args.getString("host");
+		port = args.getInt("port");
+		if (port < 0 || port > 65535)
+			throw new CommandLineParsingException("Port must be between 0 and 65535");
+		threads = args.getInt("threads");
+		if (threads < 1)
+			throw new CommandLineParsingException("Number of threads must be at least 1");
+		annotationCacheSize = args.getInt("annotation_cache_size");
+		if (annotationCacheSize < 0)
+			throw new CommandLineParsingException("Annotation cache size must not be negative");
+
+		pathFASTARef = args.getString("ref_fasta");
+		pathVCFDBSNP = args.getString("dbsnp_vcf");
+		prefixDBSNP = args.getString("dbsnp_prefix");
+		pathVCFGnomadExomes = args.getString("gnomad_exomes_vcf");
+		prefixGnomadExomes = args.getString("gnomad_exomes_prefix");
+		pathVCFGnomadGenomes = args.getString("gnomad_genomes_vcf");
+		prefixGnomadGenomes = args.getString("gnomad_genomes_prefix");
+		pathClinVar = args.getString("clinvar_vcf");
+		prefixClinVar = args.getString("clinvar_prefix");
+
+		if (pathFASTARef == null && (pathVCFDBSNP != null || pathVCFGnomadExomes != null
+				|| pathVCFGnomadGenomes != null || pathClinVar != null))
+			throw new CommandLineParsingException(
+					"Command --ref-fasta required when using dbSNP, gnomAD, or ClinVar annotations.");
+	}
+
+	public String getHost() {
+		return host;
+	}
+
+	public void setHost(String host) {
+		this.host = host;
+	}
+
+	public int getPort() {
+		return port;
+	}
+
+	public void setPort(int port) {
+		this.port = port;
+	}
+
+	public int getThreads() {
+		return threads;
+	}
+
+	public void setThreads(int threads) {
+		this.threads = threads;
+	}
+
+	public int getAnnotationCacheSize() {
+		return annotationCacheSize;
+	}
+
+	public void setAnnotationCacheSize(int annotationCacheSize) {
+		this.annotationCacheSize = annotationCacheSize;
+	}
+
+	public String getPathFASTARef() {
+		return pathFASTARef;
+	}
+
+	public void setPathFASTARef(String pathFASTARef) {
+		this.pathFASTARef = pathFASTARef;
+	}
+
+	public String getPathVCFDBSNP() {
+		return pathVCFDBSNP;
+	}
+
+	public void setPathVCFDBSNP(String pathVCFDBSNP) {
+		this.pathVCFDBSNP = pathVCFDBSNP;
+	}
+
+	public String getPrefixDBSNP() {
+		return prefixDBSNP;
+	}
+
+	public void setPrefixDBSNP(String prefixDBSNP) {
+		this.prefixDBSNP = prefixDBSNP;
+	}
+
+	public String getPathVCFGnomadExomes() {
+		return pathVCFGnomadExomes;
+	}
+
+	public void setPathVCFGnomadExomes(String pathVCFGnomadExomes) {
+		this.pathVCFGnomadExomes = pathVCFGnomadExomes;
+	}
+
+	public String getPrefixGnomadExomes() {
+		return prefixGnomadExomes;
+	}
+
+	public void setPrefixGnomadExomes(String prefixGnomadExomes) {
+		this.prefixGnomadExomes = prefixGnomadExomes;
+	}
+
+	public String getPathVCFGnomadGenomes() {
+		return pathVCFGnomadGenomes;
+	}
+
+	public void setPathVCFGnomadGenomes(String pathVCFGnomadGenomes) {
+		this.pathVCFGnomadGenomes = pathVCFGnomadGenomes;
+	}
+
+	public String getPrefixGnomadGenomes() {
+		return prefixGnomadGenomes;
+	}
+
+	public void setPrefixGnomadGenomes(String prefixGnomadGenomes) {
+		this.prefixGnomadGenomes = prefixGnomadGenomes;
+	}
+
+	public String getPathClinVar() {
+		return pathClinVar;
+	}
+
+	public void setPathClinVar(String pathClinVar) {
+		this.pathClinVar = pathClinVar;
+	}
+
+	public String getPrefixClinVar() {
+		return prefixClinVar;
+	}
+
+	public void setPrefixClinVar(String prefixClinVar) {
+		this.prefixClinVar = prefixClinVar;
+	}
+
+	@Override
+	public String toString() {
+		return "JannovarServeOptions [host=" + host + ", port=" + port + ", threads=" + threads
+				+ ", annotationCacheSize=" + annotationCacheSize + ", pathFASTARef=" + pathFASTARef
+				+ ", pathVCFDBSNP=" + pathVCFDBSNP + ", prefixDBSNP=" + prefixDBSNP + ", pathVCFGnomadExomes="
+				+ pathVCFGnomadExomes + ", prefixGnomadExomes=" + prefixGnomadExomes + ", pathVCFGnomadGenomes="
+				+ pathVCFGnomadGenomes + ", prefixGnomadGenomes=" + prefixGnomadGenomes + ", pathClinVar="
+				+ pathClinVar + ", prefixClinVar=" + prefixClinVar + ", toString()=" + super.toString() + "]";
+	}
+
+}
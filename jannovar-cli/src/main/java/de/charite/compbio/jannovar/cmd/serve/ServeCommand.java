@@ -0,0 +1,152 @@
+package de.charite.compbio.jannovar.cmd.serve;
+
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import de.charite.compbio.jannovar.JannovarException;
+import de.charite.compbio.jannovar.annotation.VariantAnnotationsCache;
+import de.charite.compbio.jannovar.annotation.builders.AnnotationBuilderOptions;
+import de.charite.compbio.jannovar.cmd.CommandLineParsingException;
+import de.charite.compbio.jannovar.cmd.JannovarAnnotationCommand;
+import de.charite.compbio.jannovar.hgvs.AminoAcidCode;
+import de.charite.compbio.jannovar.hgvs.bridge.NucleotideChangeToGenomeVariantTranslator;
+import de.charite.compbio.jannovar.htsjdk.CachingReferenceSequenceFile;
+import de.charite.compbio.jannovar.htsjdk.VariantContextAnnotator;
+import de.charite.compbio.jannovar.vardbs.base.DBAnnotationOptions;
+import de.charite.compbio.jannovar.vardbs.base.DatabaseBloomFilter;
+import de.charite.compbio.jannovar.vardbs.base.NormalizedAlleleIndex;
+import de.charite.compbio.jannovar.vardbs.facade.DBVariantContextAnnotatorFactory;
+import de.charite.compbio.jannovar.vardbs.facade.ThreadSafeAnnotationEngine;
+import de.charite.compbio.jannovar.vardbs.facade.ThreadSafeAnnotationEngine.DBAnnotatorSupplier;
+import net.sourceforge.argparse4j.inf.Namespace;
+
+/**
+ * Answer annotation requests over HTTP, loading the transcript database only once
+ *
+ * See {@link AnnotationServer} for the endpoints. The command returns after starting the server, which keeps the JVM
+ * running until it is terminated.
+ */
+public class ServeCommand extends JannovarAnnotationCommand {
+
+	/** Configuration */
+	private JannovarServeOptions options;
+
+	public ServeCommand(String argv[], Namespace args) throws CommandLineParsingException {
+		this.options = new JannovarServeOptions();
+		this.options.setFromArgs(args);
+	}
+
+	/**
+	 * Load the database and start the server.
+	 */
+	@Override
+	public void run() throws JannovarException {
+		System.err.println("Options");
+		System.err.println(options.toString());
+
+		System.err.println("Deserializing transcripts...");
+		deserializeTranscriptDefinitionFile(options.getDatabaseFilePath(), options.isPackSequences());
+
+		System.err.println("Opening annotation databases...");
+		final AminoAcidCode aminoAcidCode = options.isUseThreeLetterAminoAcidCode() ? AminoAcidCode.THREE_LETTER
+				: AminoAcidCode.ONE_LETTER;
+		final VariantContextAnnotator.Options annotatorOptions = new VariantContextAnnotator.Options(
+				!options.isShowAll(), aminoAcidCode, true, options.isNt3PrimeShifting(), false, false, false);
+		final ThreadSafeAnnotationEngine engine = new ThreadSafeAnnotationEngine(jannovarData, annotatorOptions,
+				buildAnnotationCache(), buildDBAnnotatorSuppliers());
+
+		NucleotideChangeToGenomeVariantTranslator hgvsTranslator = null;
+		if (options.getPathFASTARef() != null) {
+			try {
+				hgvsTranslator = new NucleotideChangeToGenomeVariantTranslator(jannovarData,
+						CachingReferenceSequenceFile.getShared(options.getPathFASTARef()));
+			} catch (FileNotFoundException e) {
+				throw new JannovarException("Could not load FASTA index", e);
+			}
+		}
+
+		final AnnotationServer server = new AnnotationServer(engine, hgvsTranslator, options.isShowAll(),
+				aminoAcidCode);
+		try {
+			server.start(options.getHost(), options.getPort(), options.getThreads());
+		} catch (IOException e) {
+			throw new JannovarException("Could not listen on " + options.getHost() + ":" + options.getPort(), e);
+		}
+		Runtime.getRuntime().addShutdownHook(new Thread(server::stop));
+		System.err.println("Listening on http://" + options.getHost() + ":" + server.getPort() + "/");
+	}
+
+	/**
+	 * @return cache of annotation results shared by the request threads, <code>null</code> if disabled
+	 * @throws JannovarException
+	 *             on problems reading the transcript database file for identifying it
+	 */
+	private VariantAnnotationsCache buildAnnotationCache() throws JannovarException {
+		if (options.getAnnotationCacheSize() == 0)
+			return null;
+		try {
+			return new VariantAnnotationsCache(
+					VariantAnnotationsCache.buildDatabaseID(new File(options.getDatabaseFilePath()),
+							new AnnotationBuilderOptions(options.isNt3PrimeShifting(), false)),
+					options.getAnnotationCacheSize());
+		} catch (IOException e) {
+			throw new JannovarException("Problem reading transcript database file", e);
+		}
+	}
+
+	/**
+	 * @return suppliers for the configured database annotators
+	 * @throws JannovarException
+	 *             if a normalized allele index or Bloom filter was written for a different
+	 *             database file
+	 */
+	private List<DBAnnotatorSupplier> buildDBAnnotatorSuppliers() throws JannovarException {
+		final String pathFASTA = options.getPathFASTARef();
+		final List<DBAnnotatorSupplier> result = new ArrayList<DBAnnotatorSupplier>();
+		if (options.getPathVCFDBSNP() != null) {
+			final DBAnnotationOptions dbSNPOptions = buildDBAnnotationOptions(options.getPathVCFDBSNP());
+			dbSNPOptions.setIdentifierPrefix(options.getPrefixDBSNP());
+			result.add(() -> new DBVariantContextAnnotatorFactory().constructDBSNP(options.getPathVCFDBSNP(),
+					pathFASTA, dbSNPOptions));
+		}
+		if (options.getPathVCFGnomadExomes() != null) {
+			final DBAnnotationOptions gnomadOptions = buildDBAnnotationOptions(options.getPathVCFGnomadExomes());
+			gnomadOptions.setIdentifierPrefix(options.getPrefixGnomadExomes());
+			result.add(() -> new DBVariantContextAnnotatorFactory().constructGnomad(options.getPathVCFGnomadExomes(),
+					pathFASTA, gnomadOptions));
+		}
+		if (options.getPathVCFGnomadGenomes() != null) {
+			final DBAnnotationOptions gnomadOptions = buildDBAnnotationOptions(options.getPathVCFGnomadGenomes());
+			gnomadOptions.setIdentifierPrefix(options.getPrefixGnomadGenomes());
+			result.add(() -> new DBVariantContextAnnotatorFactory()
+					.constructGnomad(options.getPathVCFGnomadGenomes(), pathFASTA, gnomadOptions));
+		}
+		if (options.getPathClinVar() != null) {
+			final DBAnnotationOptions clinVarOptions = buildDBAnnotationOptions(options.getPathClinVar());
+			clinVarOptions.setIdentifierPrefix(options.getPrefixClinVar());
+			result.add(() -> new DBVariantContextAnnotatorFactory().constructClinVar(options.getPathClinVar(),
+					pathFASTA, clinVarOptions));
+		}
+		return result;
+	}
+
+	/**
+	 * @param pathDB
+	 *            path to the database file
+	 * @return default {@link DBAnnotationOptions} with the normalized allele index and Bloom filter
+	 *         next to <code>pathDB</code>, if any
+	 * @throws JannovarException
+	 *             if the normalized allele index or Bloom filter was written for a different
+	 *             database file
+	 */
+	private static DBAnnotationOptions buildDBAnnotationOptions(String pathDB) throws JannovarException {
+		final DBAnnotationOptions result = DBAnnotationOptions.createDefaults();
+		result.setNormalizationIndexPath(NormalizedAlleleIndex.findFor(pathDB));
+		result.setBloomFilterPath(DatabaseBloomFilter.findFor(pathDB));
+		return result;
+	}
+
+}
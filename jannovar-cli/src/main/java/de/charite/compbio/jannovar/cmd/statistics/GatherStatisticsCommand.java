@@ -45,7 +45,7 @@ public class GatherStatisticsCommand extends JannovarAnnotationCommand {
 		deserializeTranscriptDefinitionFile(options.getDatabaseFilePath());
 		final boolean isUtrOffTarget = false;
 		final boolean isIntronicSpliceOffTarget = false;
-		VariantContextAnnotator annotator = new VariantContextAnnotator(refDict, chromosomeMap,
+		VariantContextAnnotator annotator = new VariantContextAnnotator(jannovarData,
 				new VariantContextAnnotator.Options(false, AminoAcidCode.ONE_LETTER, false, false, false, isUtrOffTarget,
 						isIntronicSpliceOffTarget));
 
@@ -0,0 +1,119 @@
+package de.charite.compbio.jannovar.cmd.update_annotation_cache;
+
+import java.util.function.BiFunction;
+
+import de.charite.compbio.jannovar.UncheckedJannovarException;
+import de.charite.compbio.jannovar.cmd.CommandLineParsingException;
+import de.charite.compbio.jannovar.cmd.JannovarAnnotationOptions;
+import de.charite.compbio.jannovar.cmd.annotate_vcf.JannovarAnnotateVCFOptions;
+import net.sourceforge.argparse4j.inf.ArgumentGroup;
+import net.sourceforge.argparse4j.inf.ArgumentParser;
+import net.sourceforge.argparse4j.inf.Namespace;
+import net.sourceforge.argparse4j.inf.Subparser;
+import net.sourceforge.argparse4j.inf.Subparsers;
+
+/**
+ * Configuration for the <tt>update-annotation-cache</tt> command
+ */
+public class JannovarUpdateAnnotationCacheOptions extends JannovarAnnotationOptions {
+
+	/** Path to the database file that the input cache was written for */
+	private String pathOldDatabase = null;
+
+	/** Path to the input annotation cache file */
+	private String pathInput = null;
+
+	/** Path to the output annotation cache file */
+	private String pathOutput = null;
+
+	/** Number of variants to keep in the annotation cache */
+	private int annotationCacheSize = JannovarAnnotateVCFOptions.DEFAULT_ANNOTATION_CACHE_SIZE;
+
+	/**
+	 * Setup {@link ArgumentParser}
+	 *
+	 * @param subParsers
+	 *            {@link Subparsers} to setup
+	 */
+	public static void setupParser(Subparsers subParsers) {
+		BiFunction<String[], Namespace, UpdateAnnotationCacheCommand> handler = (argv, args) -> {
+			try {
+				return new UpdateAnnotationCacheCommand(argv, args);
+			} catch (CommandLineParsingException e) {
+				throw new UncheckedJannovarException("Could not parse command line", e);
+			}
+		};
+
+		Subparser subParser = subParsers.addParser("update-annotation-cache", true)
+				.help("update annotation cache file to a new database release").setDefault("cmd", handler);
+		subParser.description("Update an annotation cache file written by annotate-vcf for a new release of the "
+				+ "database, only annotating the variants again that are affected by changed transcripts");
+
+		ArgumentGroup requiredGroup = subParser.addArgumentGroup("Required arguments");
+		requiredGroup.addArgument("-d", "--database").help("Path to new database .ser file").required(true);
+		requiredGroup.addArgument("--old-database").help("Path to database .ser file the input cache was written for")
+				.required(true);
+		requiredGroup.addArgument("-i", "--input").help("Path to input annotation cache file").required(true);
+		requiredGroup.addArgument("-o", "--output").help("Path to output annotation cache file").required(true);
+
+		ArgumentGroup optionalGroup = subParser.addArgumentGroup("Other, optional Arguments");
+		optionalGroup.addArgument("--annotation-cache-size").help("Number of variants to keep annotation results for")
+				.type(Integer.class).setDefault(JannovarAnnotateVCFOptions.DEFAULT_ANNOTATION_CACHE_SIZE);
+
+		subParser.epilog("Use the same annotation options as for annotate-vcf, e.g., --no-3-prime-shifting.");
+
+		JannovarAnnotationOptions.setupParser(subParser);
+	}
+
+	@Override
+	public void setFromArgs(Namespace args) throws CommandLineParsingException {
+		super.setFromArgs(args);
+
+		pathOldDatabase = args.getString("old_database");
+		pathInput = args.getString("input");
+		pathOutput = args.getString("output");
+		annotationCacheSize = args.getInt("annotation_cache_size");
+		if (annotationCacheSize < 1)
+			throw new CommandLineParsingException("Annotation cache size must be at least 1");
+	}
+
+	public String getPathOldDatabase() {
+		return pathOldDatabase;
+	}
+
+	public void setPathOldDatabase(String pathOldDatabase) {
+		this.pathOldDatabase = pathOldDatabase;
+	}
+
+	public String getPathInput() {
+		return pathInput;
+	}
+
+	public void setPathInput(String pathInput) {
+		this.pathInput = pathInput;
+	}
+
+	public String getPathOutput() {
+		return pathOutput;
+	}
+
+	public void setPathOutput(String pathOutput) {
+		this.pathOutput = pathOutput;
+	}
+
+	public int getAnnotationCacheSize() {
+		return annotationCacheSize;
+	}
+
+	public void setAnnotationCacheSize(int annotationCacheSize) {
+		this.annotationCacheSize = annotationCacheSize;
+	}
+
+	@Override
+	public String toString() {
+		return "JannovarUpdateAnnotationCacheOptions [pathOldDatabase=" + pathOldDatabase + ", pathInput="
+				+ pathInput + ", pathOutput=" + pathOutput + ", annotationCacheSize=" + annotationCacheSize
+				+ ", toString()=" + super.toString() + "]";
+	}
+
+}
@@ -0,0 +1,83 @@
+package de.charite.compbio.jannovar.cmd.update_annotation_cache;
+
+import java.io.File;
+import java.io.IOException;
+
+import de.charite.compbio.jannovar.JannovarException;
+import de.charite.compbio.jannovar.annotation.VariantAnnotationsCache;
+import de.charite.compbio.jannovar.annotation.VariantAnnotator;
+import de.charite.compbio.jannovar.annotation.builders.AnnotationBuilderOptions;
+import de.charite.compbio.jannovar.cmd.CommandLineParsingException;
+import de.charite.compbio.jannovar.cmd.JannovarAnnotationCommand;
+import de.charite.compbio.jannovar.data.JannovarData;
+import de.charite.compbio.jannovar.data.JannovarDataSerializer;
+import de.charite.compbio.jannovar.data.TranscriptModelDiff;
+import net.sourceforge.argparse4j.inf.Namespace;
+
+/**
+ * Update annotation cache file to a new release of the database
+ *
+ * Only the variants whose annotation depends on added, removed, or changed transcripts are annotated again, see
+ * {@link VariantAnnotationsCache#update}.
+ */
+public class UpdateAnnotationCacheCommand extends JannovarAnnotationCommand {
+
+	/** Configuration */
+	private JannovarUpdateAnnotationCacheOptions options;
+
+	public UpdateAnnotationCacheCommand(String argv[], Namespace args) throws CommandLineParsingException {
+		this.options = new JannovarUpdateAnnotationCacheOptions();
+		this.options.setFromArgs(args);
+	}
+
+	/**
+	 * Perform the update.
+	 */
+	@Override
+	public void run() throws JannovarException {
+		System.err.println("Options");
+		System.err.println(options.toString());
+
+		System.err.println("Deserializing transcripts...");
+		final JannovarData oldData = new JannovarDataSerializer(options.getPathOldDatabase()).load();
+		deserializeTranscriptDefinitionFile(options.getDatabaseFilePath(), options.isPackSequences());
+
+		final long startTime = System.nanoTime();
+		final AnnotationBuilderOptions annotationOptions = new AnnotationBuilderOptions(options.isNt3PrimeShifting(),
+				false);
+		final String oldDatabaseID;
+		final String newDatabaseID;
+		try {
+			oldDatabaseID = VariantAnnotationsCache.buildDatabaseID(new File(options.getPathOldDatabase()),
+					annotationOptions);
+			newDatabaseID = VariantAnnotationsCache.buildDatabaseID(new File(options.getDatabaseFilePath()),
+					annotationOptions);
+		} catch (IOException e) {
+			throw new JannovarException("Problem reading transcript database file", e);
+		}
+
+		final VariantAnnotationsCache cache = new VariantAnnotationsCache(oldDatabaseID,
+				options.getAnnotationCacheSize());
+		if (cache.load(new File(options.getPathInput()), oldData) == 0)
+			System.err.println("No variant annotations loaded from \"" + options.getPathInput()
+					+ "\", check that it was written for the old database and with the same options");
+
+		System.err.println("Comparing transcripts...");
+		final TranscriptModelDiff diff = new TranscriptModelDiff(oldData, jannovarData);
+		System.err.println("Added " + diff.getAdded().size() + ", removed " + diff.getRemoved().size()
+				+ ", changed " + diff.getChanged().size() + " transcripts");
+
+		System.err.println("Updating annotation cache...");
+		final VariantAnnotationsCache updated = cache.update(diff, jannovarData,
+				new VariantAnnotator(jannovarData, annotationOptions), newDatabaseID);
+		try {
+			updated.save(new File(options.getPathOutput()));
+		} catch (IOException e) {
+			throw new JannovarException("Problem writing annotation cache file", e);
+		}
+
+		final long endTime = System.nanoTime();
+		System.err.println(String.format("Update took %.2f sec.", (endTime - startTime) / 1000.0 / 1000.0 / 1000.0));
+	}
+
+}
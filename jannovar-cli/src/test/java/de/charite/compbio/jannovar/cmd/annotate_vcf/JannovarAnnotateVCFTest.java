@@ -3,6 +3,8 @@ package de.charite.compbio.jannovar.cmd.annotate_vcf;
 import java.io.File;
 import java.io.IOException;
 import java.net.URISyntaxException;
+import java.util.Arrays;
+import java.util.List;
 
 import org.junit.Assert;
 import org.junit.Before;
@@ -12,10 +14,21 @@ import org.junit.rules.TemporaryFolder;
 
 import com.google.common.base.Charsets;
 import com.google.common.base.Joiner;
+import com.google.common.collect.ImmutableList;
 import com.google.common.io.Files;
 
 import de.charite.compbio.jannovar.Jannovar;
 import de.charite.compbio.jannovar.JannovarException;
+import de.charite.compbio.jannovar.data.JannovarDataFormat;
+import de.charite.compbio.jannovar.data.JannovarDataSerializer;
+import htsjdk.samtools.SAMSequenceDictionary;
+import htsjdk.samtools.SAMSequenceRecord;
+import htsjdk.variant.variantcontext.Allele;
+import htsjdk.variant.variantcontext.VariantContextBuilder;
+import htsjdk.variant.variantcontext.writer.Options;
+import htsjdk.variant.variantcontext.writer.VariantContextWriter;
+import htsjdk.variant.variantcontext.writer.VariantContextWriterBuilder;
+import htsjdk.variant.vcf.VCFHeader;
 
 /**
  * This test runs the annotation command.
@@ -54,6 +67,97 @@ public class JannovarAnnotateVCFTest {
 		Assert.assertEquals(expected, actual);
 	}
 
+	// Test on small.vcf with the transcript database converted to the memory-mapped format, the result must not change
+	@Test
+	public void testOnSmallExampleMappedDatabase() throws JannovarException, URISyntaxException, IOException {
+		final File outFolder = tmpFolder.newFolder();
+		final String pathToMappedSer = outFolder.toString() + "/hg19_small.mapped.ser";
+		new JannovarDataSerializer(pathToMappedSer).save(new JannovarDataSerializer(pathToSmallSer).load(),
+				JannovarDataFormat.MAPPED);
+
+		final String inputFilePath = this.getClass().getResource("/small.vcf").toURI().getPath();
+		String[] argv = new String[] { "annotate-vcf", "-o", outFolder.toString() + "/small.jv.vcf", "-d",
+				pathToMappedSer, "-i", inputFilePath };
+		System.err.println(Joiner.on(" ").join(argv));
+
+		Jannovar.main(argv);
+
+		File f = new File(outFolder.getAbsolutePath() + File.separator + "small.jv.vcf");
+		Assert.assertTrue(f.exists());
+
+		final File expectedFile = new File(this.getClass().getResource("/small.jv.vcf").toURI().getPath());
+		final String expected = Files.asCharSource(expectedFile, Charsets.UTF_8).read();
+		final String actual = Files.asCharSource(f, Charsets.UTF_8).read().replaceAll("##jannovarCommand.*", "##jannovarCommand")
+				.replaceAll("##jannovarVersion.*", "##jannovarVersion");
+		Assert.assertEquals(expected, actual);
+	}
+
+	// Test on small.vcf with multiple threads, the result and the order of records must not change
+	@Test
+	public void testOnSmallExampleThreads() throws JannovarException, URISyntaxException, IOException {
+		final File outFolder = tmpFolder.newFolder();
+		final String inputFilePath = this.getClass().getResource("/small.vcf").toURI().getPath();
+		String[] argv = new String[] { "annotate-vcf", "-o", outFolder.toString() + "/small.jv.vcf", "-d",
+				pathToSmallSer, "-i", inputFilePath, "--threads", "4" };
+		System.err.println(Joiner.on(" ").join(argv));
+
+		Jannovar.main(argv);
+
+		File f = new File(outFolder.getAbsolutePath() + File.separator + "small.jv.vcf");
+		Assert.assertTrue(f.exists());
+
+		final File expectedFile = new File(this.getClass().getResource("/small.jv.vcf").toURI().getPath());
+		final String expected = Files.asCharSource(expectedFile, Charsets.UTF_8).read();
+		final String actual = Files.asCharSource(f, Charsets.UTF_8).read().replaceAll("##jannovarCommand.*", "##jannovarCommand")
+				.replaceAll("##jannovarVersion.*", "##jannovarVersion");
+		Assert.assertEquals(expected, actual);
+	}
+
+	// Test on an indexed VCF file, annotated region-wise with multiple threads; the result must be the same as for
+	// one thread, also for records spanning region boundaries
+	@Test
+	public void testOnIndexedInputThreads() throws JannovarException, IOException {
+		final File outFolder = tmpFolder.newFolder();
+		final File inputFile = new File(outFolder, "many.vcf.gz");
+		writeIndexedVCF(inputFile);
+		Assert.assertTrue(new File(outFolder, "many.vcf.gz.tbi").exists());
+
+		for (String threads : new String[] { "1", "3" }) {
+			String[] argv = new String[] { "annotate-vcf", "-o", outFolder.toString() + "/many.jv." + threads + ".vcf",
+					"-d", pathToSmallSer, "-i", inputFile.toString(), "--threads", threads };
+			System.err.println(Joiner.on(" ").join(argv));
+			Jannovar.main(argv);
+		}
+
+		final String expected = Files.asCharSource(new File(outFolder, "many.jv.1.vcf"), Charsets.UTF_8).read()
+				.replaceAll("##jannovarCommand.*", "##jannovarCommand");
+		final String actual = Files.asCharSource(new File(outFolder, "many.jv.3.vcf"), Charsets.UTF_8).read()
+				.replaceAll("##jannovarCommand.*", "##jannovarCommand");
+		Assert.assertEquals(expected, actual);
+		Assert.assertEquals(204, Arrays.stream(expected.split("\n")).filter(line -> !line.startsWith("#")).count());
+	}
+
+	/** Write indexed VCF file with records on two contigs, including a deletion over a region boundary */
+	static void writeIndexedVCF(File file) {
+		final SAMSequenceDictionary seqDict = new SAMSequenceDictionary(ImmutableList
+				.of(new SAMSequenceRecord("NC_000001.10", 249250621), new SAMSequenceRecord("NC_000002.11", 243199373)));
+		final VCFHeader header = new VCFHeader();
+		header.setSequenceDictionary(seqDict);
+		final List<Allele> snv = ImmutableList.of(Allele.create("C", true), Allele.create("T"));
+		try (VariantContextWriter writer = new VariantContextWriterBuilder().setOutputFile(file)
+				.setReferenceDictionary(seqDict).setOption(Options.INDEX_ON_THE_FLY).build()) {
+			writer.writeHeader(header);
+			for (int pos = 100000; pos <= 20000000; pos += 100000) {
+				writer.add(new VariantContextBuilder().chr("NC_000001.10").start(pos).stop(pos).alleles(snv).make());
+				if (pos == 9900000)
+					writer.add(new VariantContextBuilder().chr("NC_000001.10").start(9999998).stop(10000002)
+							.alleles(ImmutableList.of(Allele.create("CACGT", true), Allele.create("C"))).make());
+			}
+			for (int pos = 1000; pos <= 3000; pos += 1000)
+				writer.add(new VariantContextBuilder().chr("NC_000002.11").start(pos).stop(pos).alleles(snv).make());
+		}
+	}
+
 	// Test on semicolons.vcf. This file contains trailing semicolons at the end of the INFO and FILTER columns.
 	// Previous versions of Jannovar directly used the HTSJDK, interpreted this as empty entries and moved the semicolon
 	// to the beginning. The new versions remove it.
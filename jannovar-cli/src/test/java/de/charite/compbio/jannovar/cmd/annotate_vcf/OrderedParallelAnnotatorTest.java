@@ -0,0 +1,76 @@
+package de.charite.compbio.jannovar.cmd.annotate_vcf;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.google.common.collect.ImmutableList;
+
+import htsjdk.variant.variantcontext.Allele;
+import htsjdk.variant.variantcontext.VariantContext;
+import htsjdk.variant.variantcontext.VariantContextBuilder;
+
+public class OrderedParallelAnnotatorTest {
+
+	private List<VariantContext> buildInput(int count) {
+		List<VariantContext> result = new ArrayList<>();
+		for (int i = 1; i <= count; ++i)
+			result.add(new VariantContextBuilder().chr("1").start(i).stop(i)
+					.alleles(ImmutableList.of(Allele.create("A", true), Allele.create("C"))).make());
+		return result;
+	}
+
+	/** Each worker thread gets its own function, which must not be called concurrently */
+	private Function<VariantContext, VariantContext> buildAnnotator(String name) {
+		return new Function<VariantContext, VariantContext>() {
+			private Thread owner = null;
+
+			@Override
+			public VariantContext apply(VariantContext vc) {
+				if (owner == null)
+					owner = Thread.currentThread();
+				Assert.assertSame(owner, Thread.currentThread());
+				return new VariantContextBuilder(vc).attribute("ANNO", name).make();
+			}
+		};
+	}
+
+	@Test
+	public void testKeepsOrder() {
+		List<Function<VariantContext, VariantContext>> annotators = ImmutableList.of(buildAnnotator("a"),
+				buildAnnotator("b"), buildAnnotator("c"));
+		List<VariantContext> input = buildInput(1000);
+		try (OrderedParallelAnnotator annotator = new OrderedParallelAnnotator(annotators, 7)) {
+			List<VariantContext> output = annotator.annotate(input.iterator()).collect(Collectors.toList());
+			Assert.assertEquals(input.size(), output.size());
+			for (int i = 0; i < input.size(); ++i) {
+				Assert.assertEquals(input.get(i).getStart(), output.get(i).getStart());
+				Assert.assertTrue(output.get(i).hasAttribute("ANNO"));
+			}
+		}
+	}
+
+	@Test
+	public void testEmptyInput() {
+		try (OrderedParallelAnnotator annotator = new OrderedParallelAnnotator(
+				ImmutableList.of(buildAnnotator("a"), buildAnnotator("b")), 7)) {
+			Assert.assertEquals(0, annotator.annotate(buildInput(0).iterator()).count());
+		}
+	}
+
+	@Test(expected = IllegalStateException.class)
+	public void testRethrowsException() {
+		Function<VariantContext, VariantContext> failing = vc -> {
+			throw new IllegalStateException("failed on purpose");
+		};
+		try (OrderedParallelAnnotator annotator = new OrderedParallelAnnotator(ImmutableList.of(failing, failing),
+				7)) {
+			annotator.annotate(buildInput(100).iterator()).count();
+		}
+	}
+
+}
@@ -0,0 +1,41 @@
+package de.charite.compbio.jannovar.cmd.annotate_vcf;
+
+import java.io.File;
+import java.util.List;
+
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import htsjdk.samtools.util.Interval;
+
+public class VCFRegionSplitterTest {
+
+	@Rule
+	public TemporaryFolder tmpFolder = new TemporaryFolder();
+
+	@Test
+	public void testSplitIndexed() throws Exception {
+		final File file = new File(tmpFolder.getRoot(), "many.vcf.gz");
+		JannovarAnnotateVCFTest.writeIndexedVCF(file);
+
+		List<Interval> regions = new VCFRegionSplitter(100000000).split(file);
+		Assert.assertEquals(6, regions.size());
+		Assert.assertEquals(new Interval("NC_000001.10", 1, 100000000), regions.get(0));
+		Assert.assertEquals(new Interval("NC_000001.10", 100000001, 200000000), regions.get(1));
+		Assert.assertEquals(new Interval("NC_000001.10", 200000001, VCFRegionSplitter.LAST_REGION_END),
+				regions.get(2));
+		Assert.assertEquals(new Interval("NC_000002.11", 1, 100000000), regions.get(3));
+		Assert.assertEquals(new Interval("NC_000002.11", 100000001, 200000000), regions.get(4));
+		Assert.assertEquals(new Interval("NC_000002.11", 200000001, VCFRegionSplitter.LAST_REGION_END),
+				regions.get(5));
+	}
+
+	@Test
+	public void testSplitNotIndexed() throws Exception {
+		final String path = this.getClass().getResource("/small.vcf").toURI().getPath();
+		Assert.assertNull(new VCFRegionSplitter(100000000).split(new File(path)));
+	}
+
+}
@@ -0,0 +1,115 @@
+package de.charite.compbio.jannovar.cmd.serve;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.io.ByteStreams;
+
+import de.charite.compbio.jannovar.data.JannovarData;
+import de.charite.compbio.jannovar.data.JannovarDataSerializer;
+import de.charite.compbio.jannovar.hgvs.AminoAcidCode;
+import de.charite.compbio.jannovar.htsjdk.VariantContextAnnotator;
+import de.charite.compbio.jannovar.vardbs.facade.ThreadSafeAnnotationEngine;
+
+public class AnnotationServerTest {
+
+	private AnnotationServer server;
+
+	@Before
+	public void setUp() throws Exception {
+		final JannovarData data = new JannovarDataSerializer(
+				this.getClass().getResource("/hg19_small.ser").toURI().getPath()).load();
+		final ThreadSafeAnnotationEngine engine = new ThreadSafeAnnotationEngine(data,
+				new VariantContextAnnotator.Options(), null, ImmutableList.of());
+		server = new AnnotationServer(engine, null, false, AminoAcidCode.ONE_LETTER);
+		server.start("localhost", 0, 2);
+	}
+
+	@After
+	public void tearDown() {
+		server.stop();
+	}
+
+	@Test
+	public void testHealth() throws IOException {
+		HttpURLConnection conn = open("/health");
+		Assert.assertEquals(200, conn.getResponseCode());
+		Assert.assertEquals("OK\n", read(conn.getInputStream()));
+	}
+
+	@Test
+	public void testAnnotatePos() throws IOException {
+		HttpURLConnection conn = open("/annotate-pos?change=" + URLEncoder.encode("NC_000001.10:321052C>T", "utf-8"));
+		Assert.assertEquals(200, conn.getResponseCode());
+		Assert.assertEquals("#change\teffect\thgvs_annotation\tmessages\n"
+				+ "NC_000001.10:321052C>T\tNON_CODING_TRANSCRIPT_EXON_VARIANT\tLOC100132287:XR_246673.1:n.571C>T:\t.\n",
+				read(conn.getInputStream()));
+	}
+
+	@Test
+	public void testAnnotatePosPost() throws IOException {
+		HttpURLConnection conn = post("/annotate-pos", "NC_000001.10:321052C>T\n\nNC_000001.10:321052C>G\n");
+		Assert.assertEquals(200, conn.getResponseCode());
+		Assert.assertEquals(3, read(conn.getInputStream()).split("\n").length);
+	}
+
+	@Test
+	public void testAnnotatePosInvalid() throws IOException {
+		HttpURLConnection conn = open("/annotate-pos?change=chrUnknown:1C%3ET");
+		Assert.assertEquals(400, conn.getResponseCode());
+		Assert.assertTrue(read(conn.getErrorStream()).startsWith("ERROR: Unknown contig chrUnknown"));
+	}
+
+	@Test
+	public void testAnnotateHGVSWithoutFASTA() throws IOException {
+		HttpURLConnection conn = open("/annotate-hgvs?hgvs=XR_246673.1:n.571C%3ET");
+		Assert.assertEquals(400, conn.getResponseCode());
+	}
+
+	@Test
+	public void testAnnotateVCF() throws Exception {
+		final String vcf = new String(
+				Files.readAllBytes(Paths.get(this.getClass().getResource("/small.vcf").toURI())),
+				StandardCharsets.UTF_8);
+		HttpURLConnection conn = post("/annotate-vcf", vcf);
+		Assert.assertEquals(200, conn.getResponseCode());
+		final String result = read(conn.getInputStream());
+		Assert.assertTrue(result.contains("##INFO=<ID=ANN,"));
+		Assert.assertTrue(result.contains("NC_000001.10\t321052\t.\tC\tT\t.\t.\tANN=T|non_coding_transcript_exon_variant|"
+				+ "LOW|LOC100132287|100132287|transcript|XR_246673.1|Noncoding|3/4|n.571C>T||571/5993||||\t"));
+	}
+
+	private HttpURLConnection open(String path) throws IOException {
+		return (HttpURLConnection) new URL("http://localhost:" + server.getPort() + path).openConnection();
+	}
+
+	private HttpURLConnection post(String path, String body) throws IOException {
+		HttpURLConnection conn = open(path);
+		conn.setRequestMethod("POST");
+		conn.setDoOutput(true);
+		try (OutputStream os = conn.getOutputStream()) {
+			os.write(body.getBytes(StandardCharsets.UTF_8));
+		}
+		return conn;
+	}
+
+	private static String read(InputStream is) throws IOException {
+		try (InputStream in = is) {
+			return new String(ByteStreams.toByteArray(in), StandardCharsets.UTF_8);
+		}
+	}
+
+}
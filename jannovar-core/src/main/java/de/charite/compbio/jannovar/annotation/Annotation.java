@@ -1,5 +1,6 @@
 package de.charite.compbio.jannovar.annotation;
 
+import java.io.Serializable;
 import java.util.Collection;
 
 import com.google.common.base.Joiner;
@@ -25,7 +26,9 @@ import de.charite.compbio.jannovar.reference.VariantDescription;
  * @author <a href="mailto:manuel.holtgrewe@charite.de">Manuel Holtgrewe</a>
  */
 @Immutable
-public final class Annotation implements VariantDescription, Comparable<Annotation> {
+public final class Annotation implements VariantDescription, Comparable<Annotation>, Serializable {
+
+	private static final long serialVersionUID = 1L;
 
 	/**
 	 * This line is added to the output of a VCF file annotated by Jannovar and describes the new field for the INFO
@@ -267,6 +270,27 @@ public final class Annotation implements VariantDescription, Comparable<Annotati
 	 * @return VCF annotation string
 	 */
 	public String toVCFAnnoString(String alt, boolean escape, AminoAcidCode code) {
+		StringBuilder builder = new StringBuilder();
+		appendVCFAnnoString(builder, alt, escape, code);
+		return builder.toString();
+	}
+
+	/**
+	 * Append the standardized VCF variant string for the given <code>ALT</code> allele to <code>builder</code>.
+	 *
+	 * Same as {@link #toVCFAnnoString(String, boolean, AminoAcidCode)} but allows to reuse <code>builder</code> for
+	 * rendering all annotations of a VCF record.
+	 *
+	 * @param builder
+	 *            {@link StringBuilder} to append to
+	 * @param alt
+	 *            alt allele
+	 * @param escape
+	 *            whether or not to escape the invalid VCF characters, e.g. <code>'='</code>.
+	 * @param code
+	 *            Three or one letter amino acid code
+	 */
+	public void appendVCFAnnoString(StringBuilder builder, String alt, boolean escape, AminoAcidCode code) {
 		VCFAnnotationData data = new VCFAnnotationData();
 		data.effects = effects;
 		data.impact = getPutativeImpact();
@@ -276,10 +300,7 @@ public final class Annotation implements VariantDescription, Comparable<Annotati
 		data.cdsNTChange = cdsNTChange;
 		data.proteinChange = proteinChange;
 		data.messages = messages;
-		if (escape)
-			return data.toString(alt, code);
-		else
-			return data.toUnescapedString(alt, code);
+		data.appendTo(builder, alt, code, escape);
 	}
 
 	/**
@@ -1,5 +1,7 @@
 package de.charite.compbio.jannovar.annotation;
 
+import java.io.Serializable;
+
 import de.charite.compbio.jannovar.Immutable;
 import de.charite.compbio.jannovar.reference.TranscriptInterval;
 import de.charite.compbio.jannovar.reference.TranscriptModel;
@@ -12,7 +14,9 @@ import de.charite.compbio.jannovar.reference.TranscriptModel;
  * @author <a href="mailto:manuel.holtgrewe@charite.de">Manuel Holtgrewe</a>
  */
 @Immutable
-public class AnnotationLocation {
+public class AnnotationLocation implements Serializable {
+
+	private static final long serialVersionUID = 1L;
 
 	/** Enumeration for rank types, exon, intron, or neither (i.e. spans more than one feature). */
 	public enum RankType {
@@ -1,8 +1,5 @@
 package de.charite.compbio.jannovar.annotation;
 
-import com.google.common.base.CharMatcher;
-import com.google.common.base.Joiner;
-import com.google.common.collect.FluentIterable;
 import com.google.common.collect.ImmutableSortedSet;
 
 import de.charite.compbio.jannovar.annotation.AnnotationLocation.RankType;
@@ -18,7 +15,7 @@ import de.charite.compbio.jannovar.reference.TranscriptProjectionDecorator;
 /**
  * Class for collecting the data for a VCF annotation string.
  *
- * Simplifies building of <code>Object</code> arrays that can then be joined using {@link Joiner}.
+ * The fields are rendered by {@link #appendTo}.
  */
 class VCFAnnotationData {
 
@@ -107,82 +104,119 @@ class VCFAnnotationData {
 	}
 
 	/**
+	 * Append the string for the "ANN" field of the VCF file to <code>builder</code>.
+	 *
+	 * The fields are written directly into <code>builder</code>, without building intermediate strings for the
+	 * effects, positions, or escaping.
+	 *
+	 * @param builder
+	 *            {@link StringBuilder} to append to
 	 * @param allele
-	 *            String with the allele value to prepend to the returned array
+	 *            alternative allele value to prepend
 	 * @param code
 	 *            Three ore one letter amino acid code
-	 * @return array of objects to be converted to string and joined, the alternative allele is given by
+	 * @param escape
+	 *            whether or not to escape the invalid VCF characters, e.g. <code>'='</code>
 	 */
-	public Object[] toArray(String allele, AminoAcidCode code) {
-		final Joiner joiner = Joiner.on('&').useForNull("");
-		final String effectsString = joiner.join(FluentIterable.from(effects).transform(VariantEffect.TO_SO_TERM));
-		return new Object[] { allele, effectsString, impact, geneSymbol, geneID, featureType, featureID,
-				featureBioType, getRankString(),
-				(cdsNTChange == null) ? cdsNTChange : ((isCoding ? "c." : "n.") + cdsNTChange.toHGVSString()),
-				(proteinChange == null) ? proteinChange : ("p." + proteinChange.toHGVSString(code)), getTXPosString(),
-				getCDSPosString(), getAminoAcidPosString(), getDistanceString(), joiner.join(messages) };
-	}
-
-	public String toUnescapedString(String allele, AminoAcidCode code) {
-		return Joiner.on('|').useForNull("").join(toArray(allele, code));
-	}
-
-	private String escape(String str) {
-		// Escaping follows the requirements of (1) VCF 4.2 and (2) the "Variant annotations in VCF format document.
-		// We use the strategy of keeping as much as possible reconstructable (bijective mappings, for the
-		// mathematically inclined).
-		String result = CharMatcher.is('%').replaceFrom(str, "%25");
-		result = CharMatcher.is(',').replaceFrom(result, "%2C");
-		result = CharMatcher.is(';').replaceFrom(result, "%3B");
-		result = CharMatcher.is('=').replaceFrom(result, "%3D");
-		result = CharMatcher.is(' ').replaceFrom(result, "%20");
-		result = CharMatcher.is('\t').replaceFrom(result, "%09");
-		return result;
+	public void appendTo(StringBuilder builder, String allele, AminoAcidCode code, boolean escape) {
+		append(builder, allele, escape);
+		builder.append('|');
+		boolean first = true;
+		for (VariantEffect effect : effects) {
+			if (!first)
+				builder.append('&');
+			first = false;
+			append(builder, effect.getSequenceOntologyTerm(), escape);
+		}
+		builder.append('|');
+		if (impact != null)
+			builder.append(impact.name());
+		builder.append('|');
+		append(builder, geneSymbol, escape);
+		builder.append('|');
+		append(builder, geneID, escape);
+		builder.append('|');
+		append(builder, featureType, escape);
+		builder.append('|');
+		append(builder, featureID, escape);
+		builder.append('|');
+		append(builder, featureBioType, escape);
+		builder.append('|');
+		if (rank != -1)
+			builder.append(rank + 1).append('/').append(totalRank);
+		builder.append('|');
+		if (cdsNTChange != null) {
+			builder.append(isCoding ? "c." : "n.");
+			append(builder, cdsNTChange.toHGVSString(), escape);
+		}
+		builder.append('|');
+		if (proteinChange != null) {
+			builder.append("p.");
+			append(builder, proteinChange.toHGVSString(code), escape);
+		}
+		builder.append('|');
+		if (txPos != -1)
+			builder.append(txPos + 1).append('/').append(txLength);
+		builder.append('|');
+		final boolean showCDSPos = (cdsPos != -1 && "Coding".equals(featureBioType));
+		if (showCDSPos)
+			builder.append(cdsPos + 1).append('/').append(cdsLength);
+		builder.append('|');
+		if (showCDSPos)
+			builder.append(cdsPos / 3 + 1).append('/').append(cdsLength / 3);
+		builder.append('|');
+		if (distance != -1)
+			builder.append(distance);
+		builder.append('|');
+		first = true;
+		for (AnnotationMessage message : messages) {
+			if (!first)
+				builder.append('&');
+			first = false;
+			builder.append(message.name());
+		}
 	}
 
 	/**
-	 * @param allele
-	 *            alternative allele value to prepend
- 	 * @param code
-	 *            Three ore one letter amino acid code
-	 * @return String for putting into the "ANN" field of the VCF file
+	 * Append <code>str</code> to <code>builder</code>, <code>null</code> is written as the empty string.
+	 *
+	 * Escaping follows the requirements of (1) VCF 4.2 and (2) the "Variant annotations in VCF format document. We
+	 * use the strategy of keeping as much as possible reconstructable (bijective mappings, for the mathematically
+	 * inclined).
 	 */
-	public String toString(String allele, AminoAcidCode code) {
-		return escape(toUnescapedString(allele, code));
-	}
-
-	private String getRankString() {
-		if (rank == -1)
-			return null;
-		return Joiner.on('/').join(rank + 1, totalRank);
-	}
-
-	private String getTXPosString() {
-		if (txPos == -1)
-			return null;
-		return Joiner.on('/').join(txPos + 1, txLength);
-	}
-
-	private String getCDSPosString() {
-		if (cdsPos == -1)
-			return null;
-		if (!"Coding".equals(featureBioType))
-			return null;
-		return Joiner.on('/').join(cdsPos + 1, cdsLength);
-	}
-
-	private String getAminoAcidPosString() {
-		if (cdsPos == -1)
-			return null;
-		if (!"Coding".equals(featureBioType))
-			return null;
-		return Joiner.on('/').join(cdsPos / 3 + 1, cdsLength / 3);
-	}
-
-	private String getDistanceString() {
-		if (distance == -1)
-			return null;
-		return Integer.toString(distance);
+	private static void append(StringBuilder builder, String str, boolean escape) {
+		if (str == null)
+			return;
+		if (!escape) {
+			builder.append(str);
+			return;
+		}
+		final int length = str.length();
+		for (int i = 0; i < length; ++i) {
+			final char c = str.charAt(i);
+			switch (c) {
+			case '%':
+				builder.append("%25");
+				break;
+			case ',':
+				builder.append("%2C");
+				break;
+			case ';':
+				builder.append("%3B");
+				break;
+			case '=':
+				builder.append("%3D");
+				break;
+			case ' ':
+				builder.append("%20");
+				break;
+			case '\t':
+				builder.append("%09");
+				break;
+			default:
+				builder.append(c);
+			}
+		}
 	}
 
 }
\ No newline at end of file
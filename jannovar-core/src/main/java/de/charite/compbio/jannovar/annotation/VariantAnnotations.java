@@ -1,5 +1,6 @@
 package de.charite.compbio.jannovar.annotation;
 
+import java.io.Serializable;
 import java.util.Collection;
 
 import com.google.common.collect.ImmutableList;
@@ -16,7 +17,9 @@ import de.charite.compbio.jannovar.reference.VariantDescription;
  * @author <a href="mailto:manuel.holtgrewe@charite.de">Manuel Holtgrewe</a>
  */
 @Immutable
-public final class VariantAnnotations implements VariantDescription {
+public final class VariantAnnotations implements VariantDescription, Serializable {
+
+	private static final long serialVersionUID = 1L;
 
 	/** the {@link GenomeVariant} that this <code>AnnotationList</code> contains entries for. */
 	private final GenomeVariant change;
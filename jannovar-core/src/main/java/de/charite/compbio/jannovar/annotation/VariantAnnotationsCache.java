@@ -0,0 +1,426 @@
+package de.charite.compbio.jannovar.annotation;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InvalidObjectException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.OutputStream;
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.hash.Hashing;
+import com.google.common.io.Files;
+
+import de.charite.compbio.jannovar.UncheckedJannovarException;
+import de.charite.compbio.jannovar.annotation.builders.AnnotationBuilderOptions;
+import de.charite.compbio.jannovar.data.Chromosome;
+import de.charite.compbio.jannovar.data.JannovarData;
+import de.charite.compbio.jannovar.data.ReferenceDictionary;
+import de.charite.compbio.jannovar.data.TranscriptModelDiff;
+import de.charite.compbio.jannovar.impl.intervals.Interval;
+import de.charite.compbio.jannovar.reference.GenomeInterval;
+import de.charite.compbio.jannovar.reference.GenomeVariant;
+import de.charite.compbio.jannovar.reference.Strand;
+import de.charite.compbio.jannovar.reference.TranscriptInterval;
+import de.charite.compbio.jannovar.reference.TranscriptModel;
+
+/**
+ * Bounded cache of {@link VariantAnnotations}, keyed by the normalized {@link GenomeVariant} that was annotated.
+ *
+ * Cohort and re-annotation runs see the same variants again and again, and looking up the result is much cheaper than
+ * annotating the variant once more. The cache is only valid for the transcript database and the annotation options
+ * that the entries were computed with; these are described by the <b>database ID</b> given on construction, e.g. as
+ * built by {@link #buildDatabaseID}.
+ *
+ * The cache can be written to a file with {@link #save} and read back with {@link #load}. Only {@link TranscriptModel}
+ * accessions are written, the transcripts are resolved against the {@link JannovarData} on loading. Files written for
+ * a different database ID are ignored. When a new release of the database arrives, {@link #update} carries the
+ * entries over, only annotating the variants again whose transcripts changed.
+ *
+ * Objects of this class are thread-safe, so one cache can be shared by all annotating threads.
+ */
+public final class VariantAnnotationsCache {
+
+	/** the logger object to use */
+	private static final Logger LOGGER = LoggerFactory.getLogger(VariantAnnotationsCache.class);
+
+	/** magic string at the beginning of cache files */
+	private static final String MAGIC = "JannovarVariantAnnotationsCache";
+	/** version of the cache file format */
+	private static final int VERSION = 1;
+	/** number of entries after which the object stream's back references are dropped when writing */
+	private static final int RESET_INTERVAL = 1000;
+
+	/** identifies the database and options that the entries were computed with */
+	private final String databaseID;
+	/** maximal number of entries */
+	private final long maxSize;
+	/** the cached annotations */
+	private final Cache<GenomeVariant, VariantAnnotations> cache;
+
+	/**
+	 * Construct empty cache.
+	 *
+	 * @param databaseID
+	 *            identifier of the database and options that the entries are computed with
+	 * @param maxSize
+	 *            maximal number of variants to keep, the least recently used ones are evicted first
+	 */
+	public VariantAnnotationsCache(String databaseID, long maxSize) {
+		this.databaseID = databaseID;
+		this.maxSize = maxSize;
+		this.cache = CacheBuilder.newBuilder().maximumSize(maxSize).recordStats().build();
+	}
+
+	/**
+	 * Build database ID from the contents of the database file and the annotation options.
+	 *
+	 * @param databaseFile
+	 *            path to the transcript database file
+	 * @param options
+	 *            the {@link AnnotationBuilderOptions} used for annotating
+	 * @return database ID to use for {@link #VariantAnnotationsCache(String, long)}
+	 * @throws IOException
+	 *             on problems reading <code>databaseFile</code>
+	 */
+	public static String buildDatabaseID(File databaseFile, AnnotationBuilderOptions options) throws IOException {
+		return Files.asByteSource(databaseFile).hash(Hashing.murmur3_128()).toString() + ";nt3PrimeShifting="
+				+ options.isNt3PrimeShifting() + ";overrideTxSeqWithGenomeVariantRef="
+				+ options.isOverrideTxSeqWithGenomeVariantRef();
+	}
+
+	/** @return identifier of the database and options that the entries are computed with */
+	public String getDatabaseID() {
+		return databaseID;
+	}
+
+	/**
+	 * @param change
+	 *            the {@link GenomeVariant} to look up
+	 * @return the cached {@link VariantAnnotations} for <code>change</code>, <code>null</code> if there are none
+	 */
+	public VariantAnnotations get(GenomeVariant change) {
+		return cache.getIfPresent(change);
+	}
+
+	/**
+	 * Register the {@link VariantAnnotations} for a {@link GenomeVariant}.
+	 *
+	 * @param change
+	 *            the {@link GenomeVariant} that was annotated
+	 * @param annotations
+	 *            the resulting {@link VariantAnnotations}
+	 */
+	public void put(GenomeVariant change, VariantAnnotations annotations) {
+		cache.put(change, annotations);
+	}
+
+	/** @return maximal number of cached entries */
+	public long getMaxSize() {
+		return maxSize;
+	}
+
+	/** @return number of cached entries */
+	public long size() {
+		return cache.size();
+	}
+
+	/** @return number of {@link #get} calls that found an entry */
+	public long getHitCount() {
+		return cache.stats().hitCount();
+	}
+
+	/** @return number of {@link #get} calls that did not find an entry */
+	public long getMissCount() {
+		return cache.stats().missCount();
+	}
+
+	/**
+	 * Write the cached entries to <code>file</code>, overwriting it.
+	 *
+	 * @param file
+	 *            path to the file to write to
+	 * @throws IOException
+	 *             on problems writing the file
+	 */
+	public void save(File file) throws IOException {
+		final Map<GenomeVariant, VariantAnnotations> entries = new HashMap<>(cache.asMap());
+		try (OutputStream os = new GZIPOutputStream(new BufferedOutputStream(new FileOutputStream(file)));
+				ObjectOutputStream oos = new CacheObjectOutputStream(os)) {
+			oos.writeUTF(MAGIC);
+			oos.writeInt(VERSION);
+			oos.writeUTF(databaseID);
+			oos.writeInt(entries.size());
+			int count = 0;
+			for (Map.Entry<GenomeVariant, VariantAnnotations> entry : entries.entrySet()) {
+				oos.writeObject(entry.getKey());
+				oos.writeObject(entry.getValue());
+				if (++count % RESET_INTERVAL == 0)
+					oos.reset();
+			}
+		}
+		LOGGER.info("Wrote {} cached variant annotations to {}", new Object[] { entries.size(), file });
+	}
+
+	/**
+	 * Add the entries from a file written by {@link #save} to this cache.
+	 *
+	 * Nothing is added if the file was written for another database ID or cannot be read, a warning is logged in this
+	 * case.
+	 *
+	 * @param file
+	 *            path to the file to read from
+	 * @param jannovarData
+	 *            the {@link JannovarData} with the {@link TranscriptModel}s to resolve the entries against, must be
+	 *            the database described by the database ID
+	 * @return number of loaded entries
+	 */
+	public int load(File file, JannovarData jannovarData) {
+		final Map<GenomeVariant, VariantAnnotations> entries = new HashMap<>();
+		try (InputStream is = new GZIPInputStream(new BufferedInputStream(new FileInputStream(file)));
+				ObjectInputStream ois = new CacheObjectInputStream(is, jannovarData)) {
+			if (!MAGIC.equals(ois.readUTF()) || ois.readInt() != VERSION) {
+				LOGGER.warn("Ignoring {}, not a variant annotations cache of the supported version", file);
+				return 0;
+			}
+			final String fileDatabaseID = ois.readUTF();
+			if (!databaseID.equals(fileDatabaseID)) {
+				LOGGER.warn("Ignoring {}, it was written for another database or other options", file);
+				return 0;
+			}
+			final int count = ois.readInt();
+			for (int i = 0; i < count; ++i) {
+				final GenomeVariant change = (GenomeVariant) ois.readObject();
+				entries.put(change, (VariantAnnotations) ois.readObject());
+			}
+		} catch (IOException | ClassNotFoundException | ClassCastException e) {
+			LOGGER.warn("Ignoring {}, problem reading variant annotations cache: {}", new Object[] { file, e.getMessage() });
+			return 0;
+		}
+		cache.putAll(entries);
+		LOGGER.info("Loaded {} cached variant annotations from {}", new Object[] { entries.size(), file });
+		return entries.size();
+	}
+
+	/**
+	 * Build cache for annotating with a new release of the database, annotating only the variants again whose
+	 * annotation depends on added, removed, or changed transcripts.
+	 *
+	 * The annotation of a variant overlapping with transcripts depends only on these. Otherwise, the annotation is
+	 * built for the closest transcripts left and right of the variant, so it depends on all transcripts up to and
+	 * including these; without transcript on one side, this extends to the end of the contig. The entries whose region
+	 * does not overlap with any transcript from <code>diff</code> are linked to the {@link TranscriptModel}s of
+	 * <code>newData</code>, all other ones are annotated again with <code>annotator</code>. Variants that cannot be
+	 * annotated any more are dropped.
+	 *
+	 * @param diff
+	 *            the {@link TranscriptModelDiff} between the data of this cache and <code>newData</code>
+	 * @param newData
+	 *            the new {@link JannovarData} to link the entries to
+	 * @param annotator
+	 *            {@link VariantAnnotator} for <code>newData</code> for annotating the variants again
+	 * @param newDatabaseID
+	 *            identifier of <code>newData</code> and the annotation options
+	 * @return new {@link VariantAnnotationsCache} for <code>newDatabaseID</code> with the same maximal size
+	 */
+	public VariantAnnotationsCache update(TranscriptModelDiff diff, JannovarData newData, VariantAnnotator annotator,
+			String newDatabaseID) {
+		final VariantAnnotationsCache result = new VariantAnnotationsCache(newDatabaseID, maxSize);
+		if (!diff.isSameContigs()) {
+			LOGGER.warn("Contigs differ between the databases, not keeping any cached variant annotations");
+			return result;
+		}
+
+		final ImmutableMap<String, TranscriptModel> newTMs = newData.getTmByAccession();
+		int kept = 0;
+		int annotated = 0;
+		for (Map.Entry<GenomeVariant, VariantAnnotations> entry : cache.asMap().entrySet()) {
+			if (!dependsOnChanges(entry.getKey(), entry.getValue(), diff)) {
+				result.put(entry.getKey(), relink(entry.getValue(), newTMs));
+				kept += 1;
+				continue;
+			}
+			try {
+				result.put(entry.getKey(), annotator.buildAnnotations(entry.getKey()));
+				annotated += 1;
+			} catch (AnnotationException e) {
+				LOGGER.warn("Dropping {} from cache, could not annotate: {}",
+						new Object[] { entry.getKey(), e.getMessage() });
+			}
+		}
+
+		LOGGER.info("Kept {} and annotated {} cached variant annotations for new database",
+				new Object[] { kept, annotated });
+		return result;
+	}
+
+	/**
+	 * @return copy of <code>annotations</code> referencing the {@link TranscriptModel}s from <code>newTMs</code>,
+	 *         which are equal to the current ones
+	 */
+	private static VariantAnnotations relink(VariantAnnotations annotations,
+			ImmutableMap<String, TranscriptModel> newTMs) {
+		final ArrayList<Annotation> entries = new ArrayList<>(annotations.getAnnotations().size());
+		for (Annotation anno : annotations.getAnnotations()) {
+			final TranscriptModel transcript = relink(anno.getTranscript(), newTMs);
+			AnnotationLocation annoLoc = anno.getAnnoLoc();
+			if (annoLoc != null) {
+				TranscriptInterval txLocation = annoLoc.getTXLocation();
+				if (txLocation != null)
+					txLocation = new TranscriptInterval(relink(txLocation.getTranscript(), newTMs),
+							txLocation.getBeginPos(), txLocation.getEndPos());
+				annoLoc = new AnnotationLocation(relink(annoLoc.getTranscript(), newTMs), annoLoc.getRankType(),
+						annoLoc.getRank(), annoLoc.getTotalRank(), txLocation);
+			}
+			entries.add(new Annotation(transcript, anno.getGenomeVariant(), anno.getEffects(), annoLoc,
+					anno.getGenomicNTChange(), anno.getCDSNTChange(), anno.getProteinChange(), anno.getMessages()));
+		}
+		return new VariantAnnotations(annotations.getGenomeVariant(), entries);
+	}
+
+	/** @return the {@link TranscriptModel} from <code>newTMs</code> with the accession of <code>transcript</code> */
+	private static TranscriptModel relink(TranscriptModel transcript, ImmutableMap<String, TranscriptModel> newTMs) {
+		if (transcript == null)
+			return null;
+		final TranscriptModel result = newTMs.get(transcript.getAccession());
+		if (result == null)
+			throw new UncheckedJannovarException("Unknown transcript " + transcript.getAccession());
+		return result;
+	}
+
+	/**
+	 * @return whether or not the annotation of <code>change</code> depends on transcripts from <code>diff</code>,
+	 *         given its current <code>annotations</code>
+	 */
+	private static boolean dependsOnChanges(GenomeVariant change, VariantAnnotations annotations,
+			TranscriptModelDiff diff) {
+		if (change.isSymbolic())
+			return false; // never annotated
+
+		// Region queried for overlapping transcripts, as in VariantAnnotator.
+		final GenomeInterval changeInterval = change.getGenomeInterval().withStrand(Strand.FWD);
+		final int queryBegin = changeInterval.getBeginPos();
+		final int queryEnd = (changeInterval.length() == 0) ? queryBegin + 1 : changeInterval.getEndPos();
+
+		int begin = Integer.MAX_VALUE;
+		int end = Integer.MIN_VALUE;
+		boolean overlapping = false;
+		for (Annotation annotation : annotations.getAnnotations()) {
+			if (annotation.getTranscript() == null)
+				continue;
+			final GenomeInterval txRegion = annotation.getTranscript().getTXRegion().withStrand(Strand.FWD);
+			overlapping = overlapping || (txRegion.getBeginPos() < queryEnd && queryBegin < txRegion.getEndPos());
+			begin = Math.min(begin, txRegion.getBeginPos());
+			end = Math.max(end, txRegion.getEndPos());
+		}
+
+		if (overlapping) {
+			begin = queryBegin;
+			end = queryEnd;
+		} else {
+			// neighbors, extending to the contig ends if there is none on one side
+			begin = (begin < queryBegin) ? begin : 0;
+			end = (end > queryBegin) ? end : Integer.MAX_VALUE;
+			begin = Math.min(begin, queryBegin);
+			end = Math.max(end, queryEnd);
+		}
+		return diff.overlapsWithChanges(change.getChr(), begin, end);
+	}
+
+	/** Placeholder for {@link TranscriptModel}s when writing, resolved by accession on reading */
+	private static final class TranscriptModelReference implements Serializable {
+		private static final long serialVersionUID = 1L;
+
+		final int chr;
+		final String accession;
+
+		TranscriptModelReference(TranscriptModel transcript) {
+			this.chr = transcript.getChr();
+			this.accession = transcript.getAccession();
+		}
+	}
+
+	/** Placeholder for the {@link ReferenceDictionary} when writing, resolved to the database's one on reading */
+	private static final class ReferenceDictionaryReference implements Serializable {
+		private static final long serialVersionUID = 1L;
+	}
+
+	/** Writes placeholders instead of the database's {@link TranscriptModel}s and {@link ReferenceDictionary} */
+	private static final class CacheObjectOutputStream extends ObjectOutputStream {
+
+		CacheObjectOutputStream(OutputStream out) throws IOException {
+			super(out);
+			enableReplaceObject(true);
+		}
+
+		@Override
+		protected Object replaceObject(Object obj) throws IOException {
+			if (obj instanceof TranscriptModel)
+				return new TranscriptModelReference((TranscriptModel) obj);
+			else if (obj instanceof ReferenceDictionary)
+				return new ReferenceDictionaryReference();
+			else
+				return obj;
+		}
+
+	}
+
+	/** Resolves the placeholders written by {@link CacheObjectOutputStream} against a {@link JannovarData} */
+	private static final class CacheObjectInputStream extends ObjectInputStream {
+
+		/** database to resolve against */
+		private final JannovarData jannovarData;
+		/** transcripts by accession for each contig, filled on first access so lazily loaded data stays lazy */
+		private final Map<Integer, Map<String, TranscriptModel>> transcripts = new HashMap<>();
+
+		CacheObjectInputStream(InputStream in, JannovarData jannovarData) throws IOException {
+			super(in);
+			this.jannovarData = jannovarData;
+			enableResolveObject(true);
+		}
+
+		@Override
+		protected Object resolveObject(Object obj) throws IOException {
+			if (obj instanceof TranscriptModelReference) {
+				final TranscriptModelReference ref = (TranscriptModelReference) obj;
+				final TranscriptModel transcript = getTranscripts(ref.chr).get(ref.accession);
+				if (transcript == null)
+					throw new InvalidObjectException("Unknown transcript " + ref.accession);
+				return transcript;
+			} else if (obj instanceof ReferenceDictionaryReference) {
+				return jannovarData.getRefDict();
+			} else {
+				return obj;
+			}
+		}
+
+		private Map<String, TranscriptModel> getTranscripts(int chr) {
+			return transcripts.computeIfAbsent(chr, chrID -> {
+				final Map<String, TranscriptModel> result = new HashMap<>();
+				final Chromosome chromosome = jannovarData.getChromosome(chrID);
+				if (chromosome != null)
+					for (Interval<TranscriptModel> interval : chromosome.getTMIntervalTree().getIntervals())
+						result.put(interval.getValue().getAccession(), interval.getValue());
+				return result;
+			});
+		}
+
+	}
+
+}
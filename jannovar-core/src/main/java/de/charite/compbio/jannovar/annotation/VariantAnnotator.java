@@ -2,15 +2,20 @@ package de.charite.compbio.jannovar.annotation;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.function.IntFunction;
 
 import com.google.common.collect.ImmutableMap;
 
 import de.charite.compbio.jannovar.annotation.builders.AnnotationBuilderDispatcher;
 import de.charite.compbio.jannovar.annotation.builders.AnnotationBuilderOptions;
+import de.charite.compbio.jannovar.annotation.builders.OffTranscriptAnnotationBuilder;
 import de.charite.compbio.jannovar.annotation.builders.StructuralVariantAnnotationBuilder;
 import de.charite.compbio.jannovar.data.Chromosome;
+import de.charite.compbio.jannovar.data.JannovarData;
 import de.charite.compbio.jannovar.data.ReferenceDictionary;
-import de.charite.compbio.jannovar.impl.intervals.IntervalArray;
+import de.charite.compbio.jannovar.impl.intervals.IntervalIndex;
+import de.charite.compbio.jannovar.impl.intervals.IntervalSweep;
+import de.charite.compbio.jannovar.impl.intervals.MutableQueryResult;
 import de.charite.compbio.jannovar.reference.GenomeInterval;
 import de.charite.compbio.jannovar.reference.GenomePosition;
 import de.charite.compbio.jannovar.reference.GenomeVariant;
@@ -18,8 +23,6 @@ import de.charite.compbio.jannovar.reference.PositionType;
 import de.charite.compbio.jannovar.reference.Strand;
 import de.charite.compbio.jannovar.reference.TranscriptModel;
 
-// TODO(holtgrem): We should directly pass in a JannovarData object after adding the interval trees to it. Then, this should be fine.
-
 /**
  * Main driver class for annotating variants.
  *
@@ -38,8 +41,12 @@ public final class VariantAnnotator {
 	/** {@link ReferenceDictionary} to use for genome information. */
 	final private ReferenceDictionary refDict;
 
-	/** {@link Chromosome}s with their {@link TranscriptModel} objects. */
-	final private ImmutableMap<Integer, Chromosome> chromosomeMap;
+	/** lookup of {@link Chromosome}s with their {@link TranscriptModel} objects by numeric contig ID. */
+	final private IntFunction<Chromosome> chromosomes;
+
+	/** per-thread buffer for querying the {@link IntervalIndex} of the {@link Chromosome}s */
+	final private ThreadLocal<MutableQueryResult<TranscriptModel>> queryResult = ThreadLocal
+			.withInitial(MutableQueryResult::new);
 
 	/**
 	 * Construct new VariantAnnotator, given a chromosome map.
@@ -54,7 +61,24 @@ public final class VariantAnnotator {
 	public VariantAnnotator(ReferenceDictionary refDict, ImmutableMap<Integer, Chromosome> chromosomeMap,
 			AnnotationBuilderOptions options) {
 		this.refDict = refDict;
-		this.chromosomeMap = chromosomeMap;
+		this.chromosomes = chromosomeMap::get;
+		this.options = options;
+	}
+
+	/**
+	 * Construct new VariantAnnotator, given a {@link JannovarData} object.
+	 *
+	 * The {@link Chromosome}s are obtained through {@link JannovarData#getChromosome(int)}, so only the contigs that
+	 * variants are annotated on are loaded for lazily loaded data.
+	 *
+	 * @param jannovarData
+	 *            {@link JannovarData} with the transcripts and the {@link ReferenceDictionary} to use.
+	 * @param options
+	 *            configuration to use for building the annotations
+	 */
+	public VariantAnnotator(JannovarData jannovarData, AnnotationBuilderOptions options) {
+		this.refDict = jannovarData.getRefDict();
+		this.chromosomes = jannovarData::getChromosome;
 		this.options = options;
 	}
 
@@ -80,7 +104,7 @@ public final class VariantAnnotator {
 	public VariantAnnotations buildAnnotations(int chr, int position, String ref, String alt, PositionType posType)
 			throws AnnotationException {
 		// Get chromosome by id.
-		if (chromosomeMap.get(chr) == null)
+		if (chromosomes.apply(chr) == null)
 			throw new AnnotationException(String.format("Could not identify chromosome \"%d\"", chr));
 
 		// Build the GenomeChange to build annotation for.
@@ -112,14 +136,66 @@ public final class VariantAnnotator {
 		final GenomeInterval changeInterval = change.getGenomeInterval();
 
 		// Get the TranscriptModel objects that overlap with changeInterval.
-		final Chromosome chr = chromosomeMap.get(change.getChr());
-		IntervalArray<TranscriptModel>.QueryResult qr;
+		final Chromosome chr = chromosomes.apply(change.getChr());
+		final MutableQueryResult<TranscriptModel> qr = queryResult.get();
 		if (changeInterval.length() == 0)
-			qr = chr.getTMIntervalTree().findOverlappingWithPoint(changeInterval.getBeginPos());
+			chr.getTMIntervalIndex().findOverlappingWithPoint(changeInterval.getBeginPos(), qr);
 		else
-			qr = chr.getTMIntervalTree().findOverlappingWithInterval(changeInterval.getBeginPos(),
-					changeInterval.getEndPos());
-		ArrayList<TranscriptModel> candidateTranscripts = new ArrayList<TranscriptModel>(qr.getEntries());
+			chr.getTMIntervalIndex().findOverlappingWithInterval(changeInterval.getBeginPos(),
+					changeInterval.getEndPos(), qr);
+		return buildAnnotations(change, qr);
+	}
+
+	/**
+	 * Build annotations for a list of variants, sorted by chromosome and position.
+	 *
+	 * The result is the same as calling {@link #buildAnnotations(GenomeVariant)} for each variant. The overlapping
+	 * transcripts are found by sweeping through the transcripts of each chromosome once instead of one search in the
+	 * transcript index per variant. Unsorted variants are allowed but restart the sweep whenever the position decreases.
+	 *
+	 * @param changes
+	 *            the {@link GenomeVariant}s to annotate, sorted by chromosome and position
+	 * @return {@link VariantAnnotations} for each of the <code>changes</code>, in the same order
+	 * @throws AnnotationException
+	 *             on problems building the annotation lists
+	 */
+	public List<VariantAnnotations> buildAnnotations(List<GenomeVariant> changes) throws AnnotationException {
+		final ArrayList<VariantAnnotations> result = new ArrayList<>(changes.size());
+		final MutableQueryResult<TranscriptModel> qr = queryResult.get();
+		IntervalSweep<TranscriptModel> sweep = null;
+		int sweepChr = -1;
+		for (GenomeVariant change : changes) {
+			if (change.isSymbolic()) {
+				result.add(VariantAnnotations.buildEmptyList(change));
+				continue;
+			}
+
+			// Start new sweep when entering a chromosome.
+			if (sweep == null || change.getChr() != sweepChr) {
+				sweep = new IntervalSweep<>(chromosomes.apply(change.getChr()).getTMIntervalIndex());
+				sweepChr = change.getChr();
+			}
+
+			final GenomeInterval changeInterval = change.getGenomeInterval();
+			if (changeInterval.length() == 0)
+				sweep.findOverlappingWithPoint(changeInterval.getBeginPos(), qr);
+			else
+				sweep.findOverlappingWithInterval(changeInterval.getBeginPos(), changeInterval.getEndPos(), qr);
+			result.add(buildAnnotations(change, qr));
+		}
+		return result;
+	}
+
+	/**
+	 * @param change
+	 *            the {@link GenomeVariant} to annotate
+	 * @param qr
+	 *            the result of querying the transcripts for <code>change</code>
+	 * @return {@link VariantAnnotations} for the genome change
+	 */
+	private VariantAnnotations buildAnnotations(GenomeVariant change, MutableQueryResult<TranscriptModel> qr)
+			throws AnnotationException {
+		final List<TranscriptModel> candidateTranscripts = qr.getEntries();
 
 		// The annotations collected so far for GenomeVariant.
 		ArrayList<Annotation> annotations = new ArrayList<>();
@@ -153,8 +229,18 @@ public final class VariantAnnotator {
 
 	private void buildNonSVAnnotation(List<Annotation> annotations, GenomeVariant change, TranscriptModel leftNeighbor,
 			TranscriptModel rightNeighbor) throws AnnotationException {
-		buildNonSVAnnotation(annotations, change, leftNeighbor);
-		buildNonSVAnnotation(annotations, change, rightNeighbor);
+		buildNeighborAnnotation(annotations, change, leftNeighbor);
+		buildNeighborAnnotation(annotations, change, rightNeighbor);
+	}
+
+	private void buildNeighborAnnotation(List<Annotation> annotations, GenomeVariant change,
+			TranscriptModel transcript) throws InvalidGenomeVariant {
+		// Variants away from the transcript are upstream, downstream, or intergenic, which is decided from the
+		// coordinates alone. Only variants next to the transcript need the full builders.
+		if (transcript != null && OffTranscriptAnnotationBuilder.isApplicable(transcript, change))
+			annotations.add(new OffTranscriptAnnotationBuilder(transcript, change).build());
+		else
+			buildNonSVAnnotation(annotations, change, transcript);
 	}
 
 	private void buildNonSVAnnotation(List<Annotation> annotations, GenomeVariant change, TranscriptModel transcript)
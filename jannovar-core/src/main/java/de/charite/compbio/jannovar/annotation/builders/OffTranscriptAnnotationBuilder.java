@@ -0,0 +1,107 @@
+package de.charite.compbio.jannovar.annotation.builders;
+
+import com.google.common.collect.ImmutableSortedSet;
+
+import de.charite.compbio.jannovar.annotation.Annotation;
+import de.charite.compbio.jannovar.annotation.VariantEffect;
+import de.charite.compbio.jannovar.reference.GenomeInterval;
+import de.charite.compbio.jannovar.reference.GenomeVariant;
+import de.charite.compbio.jannovar.reference.GenomeVariantType;
+import de.charite.compbio.jannovar.reference.TranscriptModel;
+import de.charite.compbio.jannovar.reference.TranscriptSequenceOntologyDecorator;
+
+/**
+ * Builds upstream, downstream, and intergenic {@link Annotation}s for {@link GenomeVariant}s that lie away from a
+ * {@link TranscriptModel}.
+ *
+ * This is the case for the neighbors of intergenic variants, the majority of variants in whole genome data. Such
+ * variants can be classified from the coordinates alone, so this builder does not project the variant onto the
+ * transcript or access its sequence as the {@link AnnotationBuilder} subclasses do. The resulting annotations are the
+ * same as the ones from {@link AnnotationBuilderDispatcher}.
+ */
+public final class OffTranscriptAnnotationBuilder {
+
+	/** effects of upstream variants, shared between the annotations */
+	private static final ImmutableSortedSet<VariantEffect> UPSTREAM_EFFECTS = ImmutableSortedSet
+			.of(VariantEffect.UPSTREAM_GENE_VARIANT);
+	/** effects of downstream variants, shared between the annotations */
+	private static final ImmutableSortedSet<VariantEffect> DOWNSTREAM_EFFECTS = ImmutableSortedSet
+			.of(VariantEffect.DOWNSTREAM_GENE_VARIANT);
+	/** effects of intergenic variants, shared between the annotations */
+	private static final ImmutableSortedSet<VariantEffect> INTERGENIC_EFFECTS = ImmutableSortedSet
+			.of(VariantEffect.INTERGENIC_VARIANT);
+
+	/** transcript to build annotation for */
+	private final TranscriptModel transcript;
+	/** genomic change to build annotation for, on the strand of {@link #transcript} */
+	private final GenomeVariant change;
+	/** helper for sequence ontology terms */
+	private final TranscriptSequenceOntologyDecorator so;
+
+	/**
+	 * @param transcript
+	 *            {@link TranscriptModel} to build the annotation for
+	 * @param change
+	 *            {@link GenomeVariant} to build the annotation for, must be {@link #isApplicable applicable}
+	 */
+	public OffTranscriptAnnotationBuilder(TranscriptModel transcript, GenomeVariant change) {
+		this.transcript = transcript;
+		this.change = change.withStrand(transcript.getStrand());
+		this.so = new TranscriptSequenceOntologyDecorator(transcript);
+	}
+
+	/**
+	 * Returns whether the builder can be used for the given <code>transcript</code> and <code>change</code>.
+	 *
+	 * This is the case if <code>change</code> and its flanking bases do not overlap with the transcript region. The
+	 * flanking bases are included because insertions are classified by the bases left and right of them.
+	 *
+	 * @param transcript
+	 *            {@link TranscriptModel} to build the annotation for
+	 * @param change
+	 *            {@link GenomeVariant} to build the annotation for
+	 * @return <code>true</code> if {@link #build} yields the annotation for <code>transcript</code> and
+	 *         <code>change</code>
+	 */
+	public static boolean isApplicable(TranscriptModel transcript, GenomeVariant change) {
+		final GenomeInterval txRegion = transcript.getTXRegion().withStrand(change.getGenomePos().getStrand());
+		final GenomeInterval changeInterval = change.getGenomeInterval();
+		return (changeInterval.getBeginPos() > txRegion.getEndPos()
+				|| changeInterval.getEndPos() < txRegion.getBeginPos());
+	}
+
+	/**
+	 * @return {@link Annotation} for the transcript and change given on construction
+	 */
+	public Annotation build() {
+		if (isUpOrDownstream())
+			return new Annotation(transcript, change, isUpstream() ? UPSTREAM_EFFECTS : DOWNSTREAM_EFFECTS, null, null,
+					null, null);
+		else
+			return new Annotation(transcript, change, INTERGENIC_EFFECTS, null, null, null, null);
+	}
+
+	/**
+	 * The coding insertion builder looks at the flanking bases, all other builders at the change interval.
+	 *
+	 * @return whether {@link #change} is in the upstream or downstream region of {@link #transcript}
+	 */
+	private boolean isUpOrDownstream() {
+		if (transcript.isCoding() && change.getType() == GenomeVariantType.INSERTION)
+			return so.liesInUpstreamRegion(change.getGenomePos().shifted(-1))
+					|| so.liesInDownstreamRegion(change.getGenomePos());
+		final GenomeInterval changeInterval = change.getGenomeInterval();
+		return so.overlapsWithUpstreamRegion(changeInterval) || so.overlapsWithDownstreamRegion(changeInterval);
+	}
+
+	/**
+	 * @return whether {@link #change} is upstream of {@link #transcript}, given that it is upstream or downstream
+	 */
+	private boolean isUpstream() {
+		if (change.getGenomeInterval().length() == 0)
+			return so.liesInUpstreamRegion(change.getGenomePos().shifted(-1));
+		else
+			return so.overlapsWithUpstreamRegion(change.getGenomeInterval());
+	}
+
+}
@@ -3,6 +3,7 @@ package de.charite.compbio.jannovar.data;
 import java.io.Serializable;
 
 import de.charite.compbio.jannovar.impl.intervals.IntervalArray;
+import de.charite.compbio.jannovar.impl.intervals.IntervalIndex;
 import de.charite.compbio.jannovar.reference.GenomeInterval;
 import de.charite.compbio.jannovar.reference.TranscriptModel;
 
@@ -39,6 +40,9 @@ public final class Chromosome implements Serializable {
 	 */
 	private final IntervalArray<TranscriptModel> tmIntervalTree;
 
+	/** {@link IntervalIndex} built from {@link #tmIntervalTree} on first use, not serialized */
+	private transient volatile IntervalIndex<TranscriptModel> tmIntervalIndex;
+
 	/**
 	 * Initialize object.
 	 *
@@ -86,4 +90,15 @@ public final class Chromosome implements Serializable {
 		return tmIntervalTree;
 	}
 
+	/**
+	 * @return the {@link IntervalIndex} of the chromosome, for allocation-free overlap queries
+	 */
+	public IntervalIndex<TranscriptModel> getTMIntervalIndex() {
+		// racy initialization is fine, building the index is deterministic
+		IntervalIndex<TranscriptModel> result = tmIntervalIndex;
+		if (result == null)
+			tmIntervalIndex = result = new IntervalIndex<TranscriptModel>(tmIntervalTree);
+		return result;
+	}
+
 }
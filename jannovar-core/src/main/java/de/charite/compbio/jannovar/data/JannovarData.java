@@ -1,23 +1,32 @@
 package de.charite.compbio.jannovar.data;
 
+import java.io.ObjectStreamException;
 import java.io.Serializable;
 import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.concurrent.ConcurrentHashMap;
 
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.ImmutableMultimap;
 
 import de.charite.compbio.jannovar.Immutable;
+import de.charite.compbio.jannovar.impl.intervals.Interval;
 import de.charite.compbio.jannovar.impl.intervals.IntervalArray;
 import de.charite.compbio.jannovar.reference.TranscriptIntervalEndExtractor;
 import de.charite.compbio.jannovar.reference.TranscriptModel;
+import de.charite.compbio.jannovar.reference.TranscriptSequenceProvider;
 
 /**
  * This data type is used for serialization after downloading.
  *
  * Making this class immutable makes it a convenient serializeable read-only database.
  *
+ * Objects obtained from {@link MappedJannovarData#toLazyJannovarData()} load the {@link Chromosome}s on first access
+ * through {@link #getChromosome(int)}, such that programs only touching some contigs do not pay for building the
+ * interval trees of all others. The maps returned by {@link #getChromosomes()}, {@link #getTmByAccession()}, and
+ * {@link #getTmByGeneSymbol()} are built for all contigs on their first call.
+ *
  * @author <a href="mailto:manuel.holtgrewe@charite.de">Manuel Holtgrewe</a>
  */
 @Immutable
@@ -26,18 +35,24 @@ public final class JannovarData implements Serializable {
 	/** Serial version ID. */
 	private static final long serialVersionUID = 3L;
 
-	/** map from chromosome ID to {@link Chromosome} */
-	private final ImmutableMap<Integer, Chromosome> chromosomes;
+	/** map from chromosome ID to {@link Chromosome}, <code>null</code> until first use for lazily loaded data */
+	private volatile ImmutableMap<Integer, Chromosome> chromosomes;
 
 	/** map from transcript accession to {@link TranscriptModel} instance. */
-	private final ImmutableMap<String, TranscriptModel> tmByAccession;
+	private volatile ImmutableMap<String, TranscriptModel> tmByAccession;
 
 	/** map from transcript accession to {@link TranscriptModel} instance. */
-	private final ImmutableMultimap<String, TranscriptModel> tmByGeneSymbol;
+	private volatile ImmutableMultimap<String, TranscriptModel> tmByGeneSymbol;
 
 	/** information about reference lengths and identities */
 	private final ReferenceDictionary refDict;
 
+	/** file to load the {@link Chromosome}s from on first access, <code>null</code> if loaded eagerly */
+	private final transient MappedJannovarData source;
+
+	/** {@link Chromosome}s loaded so far from {@link #source} */
+	private final transient ConcurrentHashMap<Integer, Chromosome> loadedChromosomes;
+
 	/**
 	 * Initialize the object with the given values.
 	 *
@@ -51,20 +66,80 @@ public final class JannovarData implements Serializable {
 		this.chromosomes = makeChromsomes(refDict, transcriptModels);
 		this.tmByAccession = makeTMByAccession(transcriptModels);
 		this.tmByGeneSymbol = makeTMByGeneSymbol(transcriptModels);
+		this.source = null;
+		this.loadedChromosomes = null;
+	}
+
+	/**
+	 * Initialize the object for loading the {@link Chromosome}s lazily from <code>source</code>.
+	 *
+	 * @param source
+	 *            the {@link MappedJannovarData} to load the transcripts from
+	 */
+	JannovarData(MappedJannovarData source) {
+		this.refDict = source.getRefDict();
+		this.chromosomes = null;
+		this.tmByAccession = null;
+		this.tmByGeneSymbol = null;
+		this.source = source;
+		this.loadedChromosomes = new ConcurrentHashMap<Integer, Chromosome>();
+	}
+
+	/**
+	 * Return the {@link Chromosome} with the given ID, loading only this contig in the case of lazily loaded data.
+	 *
+	 * @param chrID
+	 *            numeric contig ID
+	 * @return the {@link Chromosome} with the given ID, <code>null</code> if the contig is not known
+	 */
+	public Chromosome getChromosome(int chrID) {
+		final ImmutableMap<Integer, Chromosome> chromosomes = this.chromosomes;
+		if (chromosomes != null)
+			return chromosomes.get(chrID);
+		if (!refDict.getContigIDToName().containsKey(chrID))
+			return null;
+		return loadedChromosomes.computeIfAbsent(chrID, source::loadChromosome);
+	}
+
+	/** @return <code>true</code> if the {@link Chromosome}s are loaded on first access */
+	public boolean isLazy() {
+		return source != null;
 	}
 
 	/** @return map from chromosome ID to {@link Chromosome} */
 	public ImmutableMap<Integer, Chromosome> getChromosomes() {
+		if (chromosomes == null) {
+			synchronized (this) {
+				if (chromosomes == null) {
+					ImmutableMap.Builder<Integer, Chromosome> builder = new ImmutableMap.Builder<Integer, Chromosome>();
+					for (Integer chrID : refDict.getContigIDToName().keySet())
+						builder.put(chrID, getChromosome(chrID));
+					chromosomes = builder.build();
+				}
+			}
+		}
 		return chromosomes;
 	}
 
 	/** @return map from transcript accession to {@link TranscriptModel} instance. */
 	public ImmutableMap<String, TranscriptModel> getTmByAccession() {
+		if (tmByAccession == null) {
+			synchronized (this) {
+				if (tmByAccession == null)
+					tmByAccession = makeTMByAccession(collectTranscripts());
+			}
+		}
 		return tmByAccession;
 	}
 
 	/** @return map from transcript accession to {@link TranscriptModel} instance. */
 	public ImmutableMultimap<String, TranscriptModel> getTmByGeneSymbol() {
+		if (tmByGeneSymbol == null) {
+			synchronized (this) {
+				if (tmByGeneSymbol == null)
+					tmByGeneSymbol = makeTMByGeneSymbol(collectTranscripts());
+			}
+		}
 		return tmByGeneSymbol;
 	}
 
@@ -73,6 +148,56 @@ public final class JannovarData implements Serializable {
 		return refDict;
 	}
 
+	/**
+	 * Return a copy with the transcript sequences packed with two bits per nucleotide.
+	 *
+	 * The {@link TranscriptModel}s of the result resolve their sequence through a shared
+	 * {@link TranscriptSequenceProvider} instead of keeping it as a <code>String</code>, which reduces the memory used
+	 * for the sequences to an eighth (a quarter compared to the one byte per character of compact strings in later Java
+	 * versions). Lazily loaded data is returned as is, its sequences are not kept on the heap in the first place.
+	 *
+	 * @return {@link JannovarData} with the same transcripts and packed sequences
+	 */
+	public JannovarData withPackedSequences() {
+		if (isLazy())
+			return this;
+
+		final ImmutableList<TranscriptModel> tms = collectTranscripts();
+		final ArrayList<String> sequences = new ArrayList<String>(tms.size());
+		for (TranscriptModel tm : tms)
+			sequences.add((tm.getSequence() == null) ? "" : tm.getSequence());
+		final PackedTranscriptSequenceProvider provider = new PackedTranscriptSequenceProvider(sequences);
+
+		ImmutableList.Builder<TranscriptModel> builder = new ImmutableList.Builder<TranscriptModel>();
+		for (int i = 0; i < tms.size(); ++i) {
+			final TranscriptModel tm = tms.get(i);
+			builder.add(new TranscriptModel(tm.getAccession(), tm.getGeneSymbol(), tm.getTXRegion(),
+					tm.getCDSRegion(), tm.getExonRegions(), provider, i, tm.getGeneID(),
+					tm.getTranscriptSupportLevel(), tm.getAltGeneIDs()));
+		}
+		return new JannovarData(refDict, builder.build());
+	}
+
+	/**
+	 * Replace lazily loaded objects by a fully loaded copy on serialization, {@link #source} cannot be serialized.
+	 *
+	 * @return the object to serialize instead of <code>this</code>
+	 */
+	private Object writeReplace() throws ObjectStreamException {
+		if (source == null)
+			return this;
+		return new JannovarData(refDict, collectTranscripts());
+	}
+
+	/** @return all {@link TranscriptModel}s, taken from the {@link Chromosome}s */
+	private ImmutableList<TranscriptModel> collectTranscripts() {
+		ImmutableList.Builder<TranscriptModel> builder = new ImmutableList.Builder<TranscriptModel>();
+		for (Chromosome chr : getChromosomes().values())
+			for (Interval<TranscriptModel> itv : chr.getTMIntervalTree().getIntervals())
+				builder.add(itv.getValue());
+		return builder.build();
+	}
+
 	/**
 	 * @param transcriptModels
 	 *            set of {@link TranscriptModel}s to build multi-mapping for
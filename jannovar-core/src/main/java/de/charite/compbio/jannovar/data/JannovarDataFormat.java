@@ -0,0 +1,18 @@
+package de.charite.compbio.jannovar.data;
+
+// NOTE(holtgrem): Part of the public interface of the Jannovar library.
+
+/**
+ * On-disk formats for {@link JannovarData} files.
+ *
+ * Both formats are detected automatically by {@link JannovarDataSerializer#load()} using the magic bytes at the top of
+ * the file.
+ */
+public enum JannovarDataFormat {
+
+	/** Legacy format: gzip-compressed Java object serialization, starts with <code>"JVDB"</code>. */
+	LEGACY,
+	/** Columnar, memory-mappable format read through {@link MappedJannovarData}, starts with <code>"JVDM"</code>. */
+	MAPPED;
+
+}
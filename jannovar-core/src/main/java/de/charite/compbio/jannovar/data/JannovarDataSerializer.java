@@ -64,7 +64,7 @@ public final class JannovarDataSerializer {
 	}
 
 	/**
-	 * Serialize a {@link JannovarData} object to a file.
+	 * Serialize a {@link JannovarData} object to a file in the {@link JannovarDataFormat#LEGACY} format.
 	 *
 	 * @param data
 	 *            the {@link JannovarData} object to serialize
@@ -72,12 +72,50 @@ public final class JannovarDataSerializer {
 	 *             on problems with the serialization
 	 */
 	public void save(JannovarData data) throws SerializationException {
-		logger.info(StringUtil.concatenate("Serializing JannovarData to ", filename));
+		save(data, JannovarDataFormat.LEGACY);
+	}
+
+	/**
+	 * Serialize a {@link JannovarData} object to a file in the given format.
+	 *
+	 * @param data
+	 *            the {@link JannovarData} object to serialize
+	 * @param format
+	 *            the {@link JannovarDataFormat} to write
+	 * @throws SerializationException
+	 *             on problems with the serialization
+	 */
+	public void save(JannovarData data, JannovarDataFormat format) throws SerializationException {
+		logger.info(StringUtil.concatenate("Serializing JannovarData to ", filename, " (", format, " format)"));
 		final long startTime = System.nanoTime();
 
 		if (data == null || data.getRefDict().getContigNameToID().isEmpty())
 			throw new SerializationException("Attempting to serialize empty data set");
 
+		if (format == JannovarDataFormat.MAPPED)
+			saveMapped(data);
+		else
+			saveLegacy(data);
+
+		logger.info(String.format("Serialization took %.2f sec.",
+				(System.nanoTime() - startTime) / 1000.0 / 1000.0 / 1000.0));
+	}
+
+	/**
+	 * Write <code>data</code> in the {@link JannovarDataFormat#MAPPED} format.
+	 */
+	private void saveMapped(JannovarData data) throws SerializationException {
+		try {
+			new MappedJannovarDataWriter(filename, getVersion()).write(data);
+		} catch (IOException e) {
+			throw new SerializationException(String.format("Could not serialize data file list: %s", e.toString()));
+		}
+	}
+
+	/**
+	 * Write <code>data</code> in the {@link JannovarDataFormat#LEGACY} format.
+	 */
+	private void saveLegacy(JannovarData data) throws SerializationException {
 		// This is waiting for Java 7 to be improved. Also see:
 		// http://stackoverflow.com/questions/4092914
 		String error = null;
@@ -114,14 +152,39 @@ public final class JannovarDataSerializer {
 			if (error != null)
 				throw new SerializationException(error);
 		}
+	}
 
-		logger.info(String.format("Serialization took %.2f sec.",
-				(System.nanoTime() - startTime) / 1000.0 / 1000.0 / 1000.0));
+	/**
+	 * Detect the format of the file at {@link #filename} from its magic bytes.
+	 *
+	 * @return the {@link JannovarDataFormat} of the file
+	 * @throws SerializationException
+	 *             if the file could not be read or the magic bytes are not known
+	 */
+	public JannovarDataFormat detectFormat() throws SerializationException {
+		byte[] word = new byte[4];
+		try (FileInputStream fileIn = new FileInputStream(filename)) {
+			if (fileIn.read(word) != word.length)
+				throw new SerializationException(filename + " is too short to be a Jannovar database");
+		} catch (IOException e) {
+			throw new SerializationException(String.format("Could not read %s: %s", filename, e.toString()));
+		}
+		if (Arrays.equals(word, MAGIC_BYTES))
+			return JannovarDataFormat.LEGACY;
+		else if (Arrays.equals(word, MappedJannovarData.MAGIC_BYTES))
+			return JannovarDataFormat.MAPPED;
+		else
+			throw new UncheckedJannovarException(
+					filename + " does not look like a Jannovar database, magic number incorrect!");
 	}
 
 	/**
 	 * Deserialize a {@link JannovarData} object from a file.
 	 *
+	 * The format of the file is detected automatically, see {@link #detectFormat()}. Files in the
+	 * {@link JannovarDataFormat#MAPPED} format are loaded lazily, contig by contig, see
+	 * {@link JannovarData#getChromosome(int)}.
+	 *
 	 * @return {@link JannovarData} object yielded by deserialization
 	 * @throws SerializationException
 	 *             on problems with the deserialization
@@ -130,6 +193,34 @@ public final class JannovarDataSerializer {
 		logger.info(StringUtil.concatenate("Deserializing JannovarData from ", filename));
 		final long startTime = System.nanoTime();
 
+		final JannovarData result;
+		if (detectFormat() == JannovarDataFormat.MAPPED)
+			result = loadMapped();
+		else
+			result = loadLegacy();
+
+		logger.info(String.format("Deserialization took %.2f sec.",
+				(System.nanoTime() - startTime) / 1000.0 / 1000.0 / 1000.0));
+		return result;
+	}
+
+	/**
+	 * Load {@link JannovarData} from a file in the {@link JannovarDataFormat#MAPPED} format.
+	 *
+	 * The {@link Chromosome}s of the result are loaded on first access, see {@link MappedJannovarData#toLazyJannovarData()}.
+	 */
+	private JannovarData loadMapped() throws SerializationException {
+		try (MappedJannovarData mapped = new MappedJannovarData(filename)) {
+			return mapped.toLazyJannovarData();
+		} catch (IOException e) {
+			throw new SerializationException(String.format("Could not deserialize data list: %s", e.toString()));
+		}
+	}
+
+	/**
+	 * Load {@link JannovarData} from a file in the {@link JannovarDataFormat#LEGACY} format.
+	 */
+	private JannovarData loadLegacy() throws SerializationException {
 		JannovarData result = null;
 
 		// This is also waiting for Java 7 to be cleaned up, see above.
@@ -174,8 +265,6 @@ public final class JannovarDataSerializer {
 				throw new SerializationException(error);
 		}
 
-		logger.info(String.format("Deserialization took %.2f sec.",
-				(System.nanoTime() - startTime) / 1000.0 / 1000.0 / 1000.0));
 		return result;
 	}
 }
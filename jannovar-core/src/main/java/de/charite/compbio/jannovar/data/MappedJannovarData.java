@@ -0,0 +1,508 @@
+package de.charite.compbio.jannovar.data;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSortedMap;
+
+import de.charite.compbio.jannovar.UncheckedJannovarException;
+import de.charite.compbio.jannovar.impl.intervals.IntervalArray;
+import de.charite.compbio.jannovar.reference.GenomeInterval;
+import de.charite.compbio.jannovar.reference.Strand;
+import de.charite.compbio.jannovar.reference.TranscriptIntervalEndExtractor;
+import de.charite.compbio.jannovar.reference.TranscriptModel;
+
+// NOTE(holtgrem): Part of the public interface of the Jannovar library.
+
+/**
+ * Read-only access to a {@link JannovarData} file in the {@link JannovarDataFormat#MAPPED} format.
+ *
+ * The file is opened through {@link FileChannel#map} and the transcript coordinates, exon arrays, and sequences can be
+ * queried by transcript index without materializing {@link TranscriptModel} objects. Transcripts are stored sorted by
+ * <code>(contig ID, forward-strand begin, forward-strand end, accession)</code> such that the transcripts of one contig
+ * form a contiguous range of indices.
+ *
+ * The file starts with the magic bytes <code>"JVDM"</code>, the format version, and a table of contents with the
+ * offsets of the following sections:
+ *
+ * <ol>
+ * <li>header with the Jannovar version that wrote the file</li>
+ * <li>the {@link ReferenceDictionary}</li>
+ * <li>per-contig transcript index ranges</li>
+ * <li>transcript columns (contig, begin/end positions, support level, exon and string offsets, sequence
+ * offset/length, strand)</li>
+ * <li>exon begin and end position columns</li>
+ * <li>transcript indices sorted by accession</li>
+ * <li>string heap with accession, gene symbol, gene ID, and alternative gene IDs</li>
+ * <li>sequence heap with the Latin-1 encoded transcript sequences</li>
+ * </ol>
+ *
+ * All integers are stored big-endian. Reading is thread-safe, objects of this class only use absolute accessors on the
+ * underlying buffers.
+ */
+public final class MappedJannovarData implements Closeable {
+
+	/** magic bytes */
+	static final byte[] MAGIC_BYTES = { 'J', 'V', 'D', 'M' };
+
+	/** version of the binary layout */
+	static final int FORMAT_VERSION = 1;
+
+	/** offset of the table of contents in the file */
+	static final int TOC_OFFSET = 8;
+
+	/** section with header */
+	static final int SECTION_HEADER = 0;
+	/** section with reference dictionary */
+	static final int SECTION_REF_DICT = 1;
+	/** section with contig ranges */
+	static final int SECTION_CONTIGS = 2;
+	/** section with transcript columns */
+	static final int SECTION_TRANSCRIPTS = 3;
+	/** section with exon columns */
+	static final int SECTION_EXONS = 4;
+	/** section with accession index */
+	static final int SECTION_ACCESSIONS = 5;
+	/** section with the string heap */
+	static final int SECTION_STRINGS = 6;
+	/** section with sequence heap */
+	static final int SECTION_SEQUENCES = 7;
+	/** number of sections */
+	static final int NUM_SECTIONS = 8;
+
+	/** default number of full transcript sequences to cache */
+	public static final int DEFAULT_SEQUENCE_CACHE_SIZE = 1024;
+
+	/** path to the file */
+	private final String filename;
+
+	/** file that is mapped */
+	private final RandomAccessFile file;
+
+	/** mapping of everything but the sequence heap */
+	private final MappedByteBuffer meta;
+
+	/** mapping of the sequence heap */
+	private final MappedByteBuffer sequences;
+
+	/** version of Jannovar that wrote the file */
+	private final String version;
+
+	/** reference dictionary from the file */
+	private final ReferenceDictionary refDict;
+
+	/** number of transcripts */
+	private final int numTranscripts;
+
+	/** sorted contig IDs with transcript ranges */
+	private final int[] contigIDs;
+
+	/** first transcript index for each entry in {@link #contigIDs} */
+	private final int[] contigFirst;
+
+	/** past-the-end transcript index for each entry in {@link #contigIDs} */
+	private final int[] contigEnd;
+
+	/** offsets of the transcript columns */
+	private final int colChr, colFwdBegin, colFwdEnd, colTxBegin, colTxEnd, colCdsBegin, colCdsEnd, colTsl,
+			colExonStart, colStringOffset, colSeqLength, colSeqOffset, colStrand;
+
+	/** offsets of the exon columns */
+	private final int colExonBegin, colExonEnd;
+
+	/** offset of the accession index */
+	private final int colAccessionOrder;
+
+	/** offset of the string heap */
+	private final int stringsOffset;
+
+	/** provider for lazily loading the sequences of {@link TranscriptModel}s created by this object */
+	private final MappedTranscriptSequenceProvider sequenceProvider;
+
+	/**
+	 * Open the file at <code>filename</code>, using the default sequence cache size.
+	 *
+	 * @param filename
+	 *            path to the file to open
+	 * @throws SerializationException
+	 *             on problems opening or mapping the file
+	 */
+	public MappedJannovarData(String filename) throws SerializationException {
+		this(filename, DEFAULT_SEQUENCE_CACHE_SIZE);
+	}
+
+	/**
+	 * Open the file at <code>filename</code>.
+	 *
+	 * @param filename
+	 *            path to the file to open
+	 * @param sequenceCacheSize
+	 *            maximal number of full transcript sequences to keep in memory for lazily resolving the sequences of
+	 *            the {@link TranscriptModel}s created by this object
+	 * @throws SerializationException
+	 *             on problems opening or mapping the file
+	 */
+	public MappedJannovarData(String filename, int sequenceCacheSize) throws SerializationException {
+		this.filename = filename;
+		this.sequenceProvider = new MappedTranscriptSequenceProvider(this, sequenceCacheSize);
+		try {
+			this.file = new RandomAccessFile(filename, "r");
+		} catch (IOException e) {
+			throw new SerializationException("Could not open " + filename + ": " + e.getMessage());
+		}
+		try {
+			final FileChannel channel = file.getChannel();
+
+			final ByteBuffer toc = ByteBuffer.allocate(TOC_OFFSET + 8 * (NUM_SECTIONS + 1));
+			while (toc.hasRemaining())
+				if (channel.read(toc, toc.position()) < 0)
+					throw new SerializationException(filename + " is truncated, cannot read table of contents");
+			byte[] word = new byte[MAGIC_BYTES.length];
+			toc.position(0);
+			toc.get(word);
+			if (!Arrays.equals(word, MAGIC_BYTES))
+				throw new UncheckedJannovarException(
+						filename + " does not look like a memory-mapped Jannovar database, magic number incorrect!");
+			final int formatVersion = toc.getInt();
+			if (formatVersion != FORMAT_VERSION)
+				throw new SerializationException(filename + " has format version " + formatVersion + " but we need "
+						+ FORMAT_VERSION);
+			final long[] offsets = new long[NUM_SECTIONS + 1];
+			for (int i = 0; i <= NUM_SECTIONS; ++i)
+				offsets[i] = toc.getLong();
+			if (offsets[SECTION_SEQUENCES] > Integer.MAX_VALUE
+					|| offsets[NUM_SECTIONS] - offsets[SECTION_SEQUENCES] > Integer.MAX_VALUE)
+				throw new SerializationException(filename + " is too large to be memory-mapped");
+
+			this.meta = channel.map(FileChannel.MapMode.READ_ONLY, 0, offsets[SECTION_SEQUENCES]);
+			this.sequences = channel.map(FileChannel.MapMode.READ_ONLY, offsets[SECTION_SEQUENCES],
+					offsets[NUM_SECTIONS] - offsets[SECTION_SEQUENCES]);
+			this.stringsOffset = (int) offsets[SECTION_STRINGS];
+
+			this.version = readString((int) offsets[SECTION_HEADER]);
+			this.refDict = readRefDict((int) offsets[SECTION_REF_DICT]);
+
+			int pos = (int) offsets[SECTION_CONTIGS];
+			final int numContigs = meta.getInt(pos);
+			this.contigIDs = new int[numContigs];
+			this.contigFirst = new int[numContigs];
+			this.contigEnd = new int[numContigs];
+			pos += 4;
+			for (int i = 0; i < numContigs; ++i, pos += 12) {
+				contigIDs[i] = meta.getInt(pos);
+				contigFirst[i] = meta.getInt(pos + 4);
+				contigEnd[i] = meta.getInt(pos + 8);
+			}
+
+			final int n = meta.getInt((int) offsets[SECTION_TRANSCRIPTS]);
+			this.numTranscripts = n;
+			this.colChr = (int) offsets[SECTION_TRANSCRIPTS] + 4;
+			this.colFwdBegin = colChr + 4 * n;
+			this.colFwdEnd = colFwdBegin + 4 * n;
+			this.colTxBegin = colFwdEnd + 4 * n;
+			this.colTxEnd = colTxBegin + 4 * n;
+			this.colCdsBegin = colTxEnd + 4 * n;
+			this.colCdsEnd = colCdsBegin + 4 * n;
+			this.colTsl = colCdsEnd + 4 * n;
+			this.colExonStart = colTsl + 4 * n;
+			this.colStringOffset = colExonStart + 4 * (n + 1);
+			this.colSeqLength = colStringOffset + 4 * n;
+			this.colSeqOffset = colSeqLength + 4 * n;
+			this.colStrand = colSeqOffset + 8 * n;
+
+			final int m = meta.getInt((int) offsets[SECTION_EXONS]);
+			this.colExonBegin = (int) offsets[SECTION_EXONS] + 4;
+			this.colExonEnd = colExonBegin + 4 * m;
+
+			this.colAccessionOrder = (int) offsets[SECTION_ACCESSIONS] + 4;
+		} catch (IOException e) {
+			closeQuietly();
+			throw new SerializationException("Could not map " + filename + ": " + e.getMessage());
+		} catch (SerializationException | RuntimeException e) {
+			closeQuietly();
+			throw e;
+		}
+	}
+
+	/** @return path to the mapped file */
+	public String getFilename() {
+		return filename;
+	}
+
+	/** @return version of Jannovar that wrote the file */
+	public String getVersion() {
+		return version;
+	}
+
+	/** @return the {@link ReferenceDictionary} stored in the file */
+	public ReferenceDictionary getRefDict() {
+		return refDict;
+	}
+
+	/** @return number of transcripts in the file */
+	public int getTranscriptCount() {
+		return numTranscripts;
+	}
+
+	/**
+	 * @param chrID
+	 *            numeric contig ID
+	 * @return index of the first transcript on the given contig
+	 */
+	public int getFirstTranscriptIndex(int chrID) {
+		final int idx = Arrays.binarySearch(contigIDs, chrID);
+		return (idx < 0) ? 0 : contigFirst[idx];
+	}
+
+	/**
+	 * @param chrID
+	 *            numeric contig ID
+	 * @return past-the-end index of the transcripts on the given contig, equal to
+	 *         {@link #getFirstTranscriptIndex(int)} if there are none
+	 */
+	public int getEndTranscriptIndex(int chrID) {
+		final int idx = Arrays.binarySearch(contigIDs, chrID);
+		return (idx < 0) ? 0 : contigEnd[idx];
+	}
+
+	/** @return numeric contig ID of the transcript with index <code>i</code> */
+	public int getChr(int i) {
+		return meta.getInt(colChr + 4 * i);
+	}
+
+	/** @return strand of the transcript with index <code>i</code> */
+	public Strand getStrand(int i) {
+		return (meta.get(colStrand + i) == 0) ? Strand.FWD : Strand.REV;
+	}
+
+	/** @return zero-based begin position of the transcript with index <code>i</code> on the forward strand */
+	public int getTxBeginFwd(int i) {
+		return meta.getInt(colFwdBegin + 4 * i);
+	}
+
+	/** @return zero-based end position of the transcript with index <code>i</code> on the forward strand */
+	public int getTxEndFwd(int i) {
+		return meta.getInt(colFwdEnd + 4 * i);
+	}
+
+	/** @return number of exons of the transcript with index <code>i</code> */
+	public int getExonCount(int i) {
+		return meta.getInt(colExonStart + 4 * (i + 1)) - meta.getInt(colExonStart + 4 * i);
+	}
+
+	/** @return accession of the transcript with index <code>i</code> */
+	public String getAccession(int i) {
+		return readString(stringsOffset + meta.getInt(colStringOffset + 4 * i));
+	}
+
+	/** @return gene symbol of the transcript with index <code>i</code> */
+	public String getGeneSymbol(int i) {
+		final int pos = stringsOffset + meta.getInt(colStringOffset + 4 * i);
+		return readString(skipString(pos));
+	}
+
+	/** @return length of the sequence of the transcript with index <code>i</code> */
+	public int getSequenceLength(int i) {
+		return meta.getInt(colSeqLength + 4 * i);
+	}
+
+	/** @return sequence of the transcript with index <code>i</code> */
+	public String getSequence(int i) {
+		return getSequence(i, 0, getSequenceLength(i));
+	}
+
+	/**
+	 * @param i
+	 *            index of the transcript
+	 * @param begin
+	 *            zero-based begin position in the transcript sequence
+	 * @param end
+	 *            zero-based end position in the transcript sequence
+	 * @return part of the sequence of the transcript with index <code>i</code>
+	 */
+	public String getSequence(int i, int begin, int end) {
+		final int offset = (int) meta.getLong(colSeqOffset + 8 * i);
+		final byte[] buf = new byte[end - begin];
+		final ByteBuffer dup = sequences.duplicate();
+		dup.position(offset + begin);
+		dup.get(buf);
+		return new String(buf, StandardCharsets.ISO_8859_1);
+	}
+
+	/**
+	 * Find transcript index by accession using binary search.
+	 *
+	 * @param accession
+	 *            accession of the transcript to search for
+	 * @return index of the transcript or <code>-1</code> if no such transcript could be found
+	 */
+	public int findTranscript(String accession) {
+		int lo = 0;
+		int hi = numTranscripts;
+		while (lo < hi) {
+			final int mid = (lo + hi) >>> 1;
+			final int idx = meta.getInt(colAccessionOrder + 4 * mid);
+			final int cmp = getAccession(idx).compareTo(accession);
+			if (cmp == 0)
+				return idx;
+			else if (cmp < 0)
+				lo = mid + 1;
+			else
+				hi = mid;
+		}
+		return -1;
+	}
+
+	/**
+	 * Materialize the {@link TranscriptModel} with the given index.
+	 *
+	 * The sequence of the returned transcript is not loaded but resolved lazily through a bounded cache. The memory
+	 * mapping stays valid after {@link #close()}, so the transcript can outlive this object.
+	 *
+	 * @param i
+	 *            index of the transcript
+	 * @return the {@link TranscriptModel} with the given index
+	 */
+	public TranscriptModel getTranscriptModel(int i) {
+		final int chr = getChr(i);
+		final Strand strand = getStrand(i);
+		final GenomeInterval txRegion = new GenomeInterval(refDict, strand, chr, meta.getInt(colTxBegin + 4 * i),
+				meta.getInt(colTxEnd + 4 * i));
+		final GenomeInterval cdsRegion = new GenomeInterval(refDict, strand, chr, meta.getInt(colCdsBegin + 4 * i),
+				meta.getInt(colCdsEnd + 4 * i));
+
+		final int exonFirst = meta.getInt(colExonStart + 4 * i);
+		final int exonEnd = meta.getInt(colExonStart + 4 * (i + 1));
+		final ImmutableList.Builder<GenomeInterval> exons = new ImmutableList.Builder<GenomeInterval>();
+		for (int j = exonFirst; j < exonEnd; ++j)
+			exons.add(new GenomeInterval(refDict, strand, chr, meta.getInt(colExonBegin + 4 * j),
+					meta.getInt(colExonEnd + 4 * j)));
+
+		int pos = stringsOffset + meta.getInt(colStringOffset + 4 * i);
+		final String accession = readString(pos);
+		pos = skipString(pos);
+		final String geneSymbol = readString(pos);
+		pos = skipString(pos);
+		final String geneID = readString(pos);
+		pos = skipString(pos);
+		final int numAltGeneIDs = meta.getInt(pos);
+		pos += 4;
+		final ImmutableSortedMap.Builder<String, String> altGeneIDs = ImmutableSortedMap.naturalOrder();
+		for (int j = 0; j < numAltGeneIDs; ++j) {
+			final String key = readString(pos);
+			pos = skipString(pos);
+			final String value = readString(pos);
+			pos = skipString(pos);
+			altGeneIDs.put(key, value);
+		}
+
+		return new TranscriptModel(accession, geneSymbol, txRegion, cdsRegion, exons.build(), sequenceProvider, i,
+				geneID, meta.getInt(colTsl + 4 * i), altGeneIDs.build());
+	}
+
+	/**
+	 * Materialize all transcripts into a {@link JannovarData} object.
+	 *
+	 * @return {@link JannovarData} with all transcripts from the file
+	 */
+	public JannovarData toJannovarData() {
+		ImmutableList.Builder<TranscriptModel> builder = new ImmutableList.Builder<TranscriptModel>();
+		for (int i = 0; i < numTranscripts; ++i)
+			builder.add(getTranscriptModel(i));
+		return new JannovarData(refDict, builder.build());
+	}
+
+	/**
+	 * Create a {@link JannovarData} object that loads the transcripts of each contig on first access.
+	 *
+	 * As with {@link #getTranscriptModel(int)}, the result stays usable after {@link #close()}.
+	 *
+	 * @return {@link JannovarData} backed by this file
+	 */
+	public JannovarData toLazyJannovarData() {
+		return new JannovarData(this);
+	}
+
+	/**
+	 * Materialize the transcripts of one contig into a {@link Chromosome}.
+	 *
+	 * @param chrID
+	 *            numeric contig ID
+	 * @return {@link Chromosome} with the transcripts on the given contig
+	 */
+	Chromosome loadChromosome(int chrID) {
+		final int first = getFirstTranscriptIndex(chrID);
+		final int end = getEndTranscriptIndex(chrID);
+		ArrayList<TranscriptModel> tms = new ArrayList<TranscriptModel>(end - first);
+		for (int i = first; i < end; ++i)
+			tms.add(getTranscriptModel(i));
+		return new Chromosome(refDict, chrID,
+				new IntervalArray<TranscriptModel>(tms, new TranscriptIntervalEndExtractor()));
+	}
+
+	@Override
+	public void close() throws IOException {
+		file.close();
+	}
+
+	/** Close {@link #file}, used for cleaning up on errors in the constructor */
+	private void closeQuietly() {
+		try {
+			file.close();
+		} catch (IOException e) {
+			// swallow, nothing we can do
+		}
+	}
+
+	/** @return {@link ReferenceDictionary} read from position <code>pos</code> */
+	private ReferenceDictionary readRefDict(int pos) {
+		ReferenceDictionaryBuilder builder = new ReferenceDictionaryBuilder();
+		final int numIDs = meta.getInt(pos);
+		pos += 4;
+		for (int i = 0; i < numIDs; ++i) {
+			final String name = readString(pos);
+			pos = skipString(pos);
+			builder.putContigID(name, meta.getInt(pos));
+			pos += 4;
+		}
+		final int numNames = meta.getInt(pos);
+		pos += 4;
+		for (int i = 0; i < numNames; ++i) {
+			final int id = meta.getInt(pos);
+			pos += 4;
+			builder.putContigName(id, readString(pos));
+			pos = skipString(pos);
+		}
+		final int numLengths = meta.getInt(pos);
+		pos += 4;
+		for (int i = 0; i < numLengths; ++i, pos += 8)
+			builder.putContigLength(meta.getInt(pos), meta.getInt(pos + 4));
+		return builder.build();
+	}
+
+	/** @return length-prefixed UTF-8 string starting at <code>pos</code> */
+	private String readString(int pos) {
+		final int len = meta.getInt(pos);
+		if (len < 0)
+			return null;
+		final byte[] buf = new byte[len];
+		final ByteBuffer dup = meta.duplicate();
+		dup.position(pos + 4);
+		dup.get(buf);
+		return new String(buf, StandardCharsets.UTF_8);
+	}
+
+	/** @return position after the length-prefixed UTF-8 string starting at <code>pos</code> */
+	private int skipString(int pos) {
+		return pos + 4 + Math.max(0, meta.getInt(pos));
+	}
+
+}
@@ -0,0 +1,275 @@
+package de.charite.compbio.jannovar.data;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+
+import de.charite.compbio.jannovar.reference.GenomeInterval;
+import de.charite.compbio.jannovar.reference.Strand;
+import de.charite.compbio.jannovar.reference.TranscriptModel;
+
+/**
+ * Writes {@link JannovarData} objects in the columnar {@link JannovarDataFormat#MAPPED} format.
+ *
+ * See {@link MappedJannovarData} for a description of the file layout.
+ */
+final class MappedJannovarDataWriter {
+
+	/** path to the file to write to */
+	private final String filename;
+
+	/** version string of Jannovar to write into the header */
+	private final String version;
+
+	MappedJannovarDataWriter(String filename, String version) {
+		this.filename = filename;
+		this.version = version;
+	}
+
+	/**
+	 * Write out <code>data</code> to {@link #filename}.
+	 *
+	 * @param data
+	 *            the {@link JannovarData} to write
+	 * @throws IOException
+	 *             on problems with writing the file
+	 */
+	void write(JannovarData data) throws IOException {
+		final ReferenceDictionary refDict = data.getRefDict();
+		final List<TranscriptModel> tms = sortedTranscripts(data);
+		final int n = tms.size();
+
+		// Build all sections but the sequence heap in memory, they are small compared to the sequences.
+		final byte[][] sections = new byte[MappedJannovarData.NUM_SECTIONS][];
+		sections[MappedJannovarData.SECTION_HEADER] = buildHeader();
+		sections[MappedJannovarData.SECTION_REF_DICT] = buildRefDict(refDict);
+		sections[MappedJannovarData.SECTION_CONTIGS] = buildContigs(refDict, tms);
+		sections[MappedJannovarData.SECTION_EXONS] = buildExons(tms);
+		sections[MappedJannovarData.SECTION_ACCESSIONS] = buildAccessionIndex(tms);
+		final ByteArrayOutputStream stringHeap = new ByteArrayOutputStream();
+		final int[] stringOffsets = buildStringHeap(tms, stringHeap);
+		sections[MappedJannovarData.SECTION_STRINGS] = stringHeap.toByteArray();
+		sections[MappedJannovarData.SECTION_TRANSCRIPTS] = buildTranscripts(tms, stringOffsets);
+		sections[MappedJannovarData.SECTION_SEQUENCES] = new byte[0]; // streamed below
+
+		// Compute section offsets, the sequence heap comes last.
+		final long[] offsets = new long[MappedJannovarData.NUM_SECTIONS + 1];
+		offsets[0] = MappedJannovarData.TOC_OFFSET + 8L * (MappedJannovarData.NUM_SECTIONS + 1);
+		for (int i = 0; i < MappedJannovarData.NUM_SECTIONS; ++i) {
+			long len = sections[i].length;
+			if (i == MappedJannovarData.SECTION_SEQUENCES)
+				for (TranscriptModel tm : tms)
+					len += sequenceOf(tm).length();
+			offsets[i + 1] = offsets[i] + len;
+		}
+
+		try (DataOutputStream out = new DataOutputStream(
+				new BufferedOutputStream(new FileOutputStream(filename), 1024 * 1024))) {
+			out.write(MappedJannovarData.MAGIC_BYTES);
+			out.writeInt(MappedJannovarData.FORMAT_VERSION);
+			for (long offset : offsets)
+				out.writeLong(offset);
+			for (int i = 0; i < MappedJannovarData.NUM_SECTIONS; ++i)
+				out.write(sections[i]);
+			for (int i = 0; i < n; ++i)
+				out.write(sequenceOf(tms.get(i)).getBytes(StandardCharsets.ISO_8859_1));
+		}
+	}
+
+	/** @return transcripts of <code>data</code> sorted by contig, forward-strand begin and end position */
+	private static List<TranscriptModel> sortedTranscripts(JannovarData data) {
+		ArrayList<TranscriptModel> result = new ArrayList<>(data.getTmByAccession().values());
+		Collections.sort(result, new Comparator<TranscriptModel>() {
+			@Override
+			public int compare(TranscriptModel lhs, TranscriptModel rhs) {
+				if (lhs.getChr() != rhs.getChr())
+					return Integer.compare(lhs.getChr(), rhs.getChr());
+				final GenomeInterval lhsItv = lhs.getTXRegion().withStrand(Strand.FWD);
+				final GenomeInterval rhsItv = rhs.getTXRegion().withStrand(Strand.FWD);
+				if (lhsItv.getBeginPos() != rhsItv.getBeginPos())
+					return Integer.compare(lhsItv.getBeginPos(), rhsItv.getBeginPos());
+				if (lhsItv.getEndPos() != rhsItv.getEndPos())
+					return Integer.compare(lhsItv.getEndPos(), rhsItv.getEndPos());
+				return lhs.getAccession().compareTo(rhs.getAccession());
+			}
+		});
+		return result;
+	}
+
+	private byte[] buildHeader() throws IOException {
+		ByteArrayOutputStream bos = new ByteArrayOutputStream();
+		DataOutputStream out = new DataOutputStream(bos);
+		writeString(out, version);
+		out.flush();
+		return bos.toByteArray();
+	}
+
+	private static byte[] buildRefDict(ReferenceDictionary refDict) throws IOException {
+		ByteArrayOutputStream bos = new ByteArrayOutputStream();
+		DataOutputStream out = new DataOutputStream(bos);
+		out.writeInt(refDict.getContigNameToID().size());
+		for (Entry<String, Integer> entry : refDict.getContigNameToID().entrySet()) {
+			writeString(out, entry.getKey());
+			out.writeInt(entry.getValue());
+		}
+		out.writeInt(refDict.getContigIDToName().size());
+		for (Entry<Integer, String> entry : refDict.getContigIDToName().entrySet()) {
+			out.writeInt(entry.getKey());
+			writeString(out, entry.getValue());
+		}
+		out.writeInt(refDict.getContigIDToLength().size());
+		for (Entry<Integer, Integer> entry : refDict.getContigIDToLength().entrySet()) {
+			out.writeInt(entry.getKey());
+			out.writeInt(entry.getValue());
+		}
+		out.flush();
+		return bos.toByteArray();
+	}
+
+	private static byte[] buildContigs(ReferenceDictionary refDict, List<TranscriptModel> tms) throws IOException {
+		ByteArrayOutputStream bos = new ByteArrayOutputStream();
+		DataOutputStream out = new DataOutputStream(bos);
+		ArrayList<Integer> chrIDs = new ArrayList<>(refDict.getContigIDToName().keySet());
+		Collections.sort(chrIDs);
+		out.writeInt(chrIDs.size());
+		int idx = 0;
+		for (int chrID : chrIDs) {
+			// skip over transcripts on contigs unknown to the dictionary, cannot happen for well-formed data
+			while (idx < tms.size() && tms.get(idx).getChr() < chrID)
+				++idx;
+			final int first = idx;
+			while (idx < tms.size() && tms.get(idx).getChr() == chrID)
+				++idx;
+			out.writeInt(chrID);
+			out.writeInt(first);
+			out.writeInt(idx);
+		}
+		out.flush();
+		return bos.toByteArray();
+	}
+
+	private static byte[] buildTranscripts(List<TranscriptModel> tms, int[] stringOffsets) throws IOException {
+		final int n = tms.size();
+		ByteArrayOutputStream bos = new ByteArrayOutputStream();
+		DataOutputStream out = new DataOutputStream(bos);
+		out.writeInt(n);
+		for (TranscriptModel tm : tms)
+			out.writeInt(tm.getChr());
+		for (TranscriptModel tm : tms)
+			out.writeInt(tm.getTXRegion().withStrand(Strand.FWD).getBeginPos());
+		for (TranscriptModel tm : tms)
+			out.writeInt(tm.getTXRegion().withStrand(Strand.FWD).getEndPos());
+		for (TranscriptModel tm : tms)
+			out.writeInt(tm.getTXRegion().getBeginPos());
+		for (TranscriptModel tm : tms)
+			out.writeInt(tm.getTXRegion().getEndPos());
+		for (TranscriptModel tm : tms)
+			out.writeInt(tm.getCDSRegion().getBeginPos());
+		for (TranscriptModel tm : tms)
+			out.writeInt(tm.getCDSRegion().getEndPos());
+		for (TranscriptModel tm : tms)
+			out.writeInt(tm.getTranscriptSupportLevel());
+		int exonOffset = 0;
+		for (TranscriptModel tm : tms) {
+			out.writeInt(exonOffset);
+			exonOffset += tm.getExonRegions().size();
+		}
+		out.writeInt(exonOffset);
+		for (int i = 0; i < n; ++i)
+			out.writeInt(stringOffsets[i]);
+		for (TranscriptModel tm : tms)
+			out.writeInt(sequenceOf(tm).length());
+		long seqOffset = 0;
+		for (TranscriptModel tm : tms) {
+			out.writeLong(seqOffset);
+			seqOffset += sequenceOf(tm).length();
+		}
+		for (TranscriptModel tm : tms)
+			out.writeByte(tm.getStrand() == Strand.FWD ? 0 : 1);
+		out.flush();
+		return bos.toByteArray();
+	}
+
+	private static byte[] buildExons(List<TranscriptModel> tms) throws IOException {
+		int m = 0;
+		for (TranscriptModel tm : tms)
+			m += tm.getExonRegions().size();
+		ByteArrayOutputStream bos = new ByteArrayOutputStream();
+		DataOutputStream out = new DataOutputStream(bos);
+		out.writeInt(m);
+		for (TranscriptModel tm : tms)
+			for (GenomeInterval exon : tm.getExonRegions())
+				out.writeInt(exon.getBeginPos());
+		for (TranscriptModel tm : tms)
+			for (GenomeInterval exon : tm.getExonRegions())
+				out.writeInt(exon.getEndPos());
+		out.flush();
+		return bos.toByteArray();
+	}
+
+	private static byte[] buildAccessionIndex(final List<TranscriptModel> tms) throws IOException {
+		ArrayList<Integer> order = new ArrayList<>(tms.size());
+		for (int i = 0; i < tms.size(); ++i)
+			order.add(i);
+		Collections.sort(order, new Comparator<Integer>() {
+			@Override
+			public int compare(Integer lhs, Integer rhs) {
+				return tms.get(lhs).getAccession().compareTo(tms.get(rhs).getAccession());
+			}
+		});
+
+		ByteArrayOutputStream bos = new ByteArrayOutputStream();
+		DataOutputStream out = new DataOutputStream(bos);
+		out.writeInt(order.size());
+		for (int idx : order)
+			out.writeInt(idx);
+		out.flush();
+		return bos.toByteArray();
+	}
+
+	private static int[] buildStringHeap(List<TranscriptModel> tms, ByteArrayOutputStream bos) throws IOException {
+		DataOutputStream out = new DataOutputStream(bos);
+		int[] result = new int[tms.size()];
+		for (int i = 0; i < tms.size(); ++i) {
+			final TranscriptModel tm = tms.get(i);
+			result[i] = out.size();
+			writeString(out, tm.getAccession());
+			writeString(out, tm.getGeneSymbol());
+			writeString(out, tm.getGeneID());
+			final Map<String, String> altGeneIDs = tm.getAltGeneIDs();
+			out.writeInt(altGeneIDs.size());
+			for (Entry<String, String> entry : altGeneIDs.entrySet()) {
+				writeString(out, entry.getKey());
+				writeString(out, entry.getValue());
+			}
+		}
+		out.flush();
+		return result;
+	}
+
+	/** @return sequence of <code>tm</code>, empty string if none */
+	private static String sequenceOf(TranscriptModel tm) {
+		return (tm.getSequence() == null) ? "" : tm.getSequence();
+	}
+
+	/** Write length-prefixed UTF-8 representation of <code>s</code>, length is <code>-1</code> for <code>null</code> */
+	private static void writeString(DataOutputStream out, String s) throws IOException {
+		if (s == null) {
+			out.writeInt(-1);
+		} else {
+			final byte[] bytes = s.getBytes(StandardCharsets.UTF_8);
+			out.writeInt(bytes.length);
+			out.write(bytes);
+		}
+	}
+
+}
@@ -0,0 +1,60 @@
+package de.charite.compbio.jannovar.data;
+
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheLoader;
+import com.google.common.cache.LoadingCache;
+
+import de.charite.compbio.jannovar.reference.TranscriptSequenceProvider;
+
+/**
+ * {@link TranscriptSequenceProvider} reading from the sequence heap of a {@link MappedJannovarData} file.
+ *
+ * The key of a transcript is its index in the file. Full sequences are kept in a bounded LRU cache, infix queries
+ * (e.g., single codons) are answered directly from the mapped file.
+ */
+final class MappedTranscriptSequenceProvider implements TranscriptSequenceProvider {
+
+	/** the file to read from */
+	private final MappedJannovarData mapped;
+
+	/** cache for full sequences */
+	private final LoadingCache<Integer, String> cache;
+
+	/**
+	 * @param mapped
+	 *            the {@link MappedJannovarData} to read from
+	 * @param cacheSize
+	 *            maximal number of full sequences to keep in memory
+	 */
+	MappedTranscriptSequenceProvider(final MappedJannovarData mapped, int cacheSize) {
+		this.mapped = mapped;
+		this.cache = CacheBuilder.newBuilder().maximumSize(cacheSize).build(new CacheLoader<Integer, String>() {
+			@Override
+			public String load(Integer key) {
+				return mapped.getSequence(key);
+			}
+		});
+	}
+
+	@Override
+	public String getSequence(int key) {
+		return cache.getUnchecked(key);
+	}
+
+	@Override
+	public int getSequenceLength(int key) {
+		return mapped.getSequenceLength(key);
+	}
+
+	@Override
+	public String getSubsequence(int key, int begin, int end) {
+		final String cached = cache.getIfPresent(key);
+		if (cached != null)
+			return cached.substring(begin, end);
+		if (begin < 0 || end < begin || end > mapped.getSequenceLength(key))
+			throw new StringIndexOutOfBoundsException("Invalid range [" + begin + ", " + end + ") for sequence of length "
+					+ mapped.getSequenceLength(key));
+		return mapped.getSequence(key, begin, end);
+	}
+
+}
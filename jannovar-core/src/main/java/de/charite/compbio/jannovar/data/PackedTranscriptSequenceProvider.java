@@ -0,0 +1,147 @@
+package de.charite.compbio.jannovar.data;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import com.google.common.primitives.Chars;
+import com.google.common.primitives.Ints;
+
+import de.charite.compbio.jannovar.Immutable;
+import de.charite.compbio.jannovar.reference.TranscriptSequenceProvider;
+
+/**
+ * {@link TranscriptSequenceProvider} keeping all sequences packed with two bits per nucleotide.
+ *
+ * The key of a sequence is its index in the list passed to the constructor. The nucleotides <code>A, C, G, T</code>
+ * are stored as codes <code>0, 1, 2, 3</code>, 32 to a <code>long</code>, the sequences following each other without
+ * padding. All other characters (e.g., <code>N</code>) are stored as a mask of runs of the same character that are
+ * applied on top of the decoded sequence, such that the packing is lossless.
+ *
+ * Infix queries (e.g., single codons) only decode the queried positions, full sequences are decoded on each call to
+ * {@link #getSequence(int)}.
+ */
+@Immutable
+final class PackedTranscriptSequenceProvider implements TranscriptSequenceProvider {
+
+	/** nucleotides by their two-bit code */
+	private static final char[] NUCLEOTIDES = { 'A', 'C', 'G', 'T' };
+
+	/** packed two-bit codes of all sequences */
+	private final long[] packed;
+
+	/** offset of each sequence in {@link #packed}, in nucleotides, with one additional past-the-end entry */
+	private final long[] offsets;
+
+	/** first index of the runs of each sequence in the run arrays, with one additional past-the-end entry */
+	private final int[] runOffsets;
+
+	/** zero-based begin positions of the runs of other characters, within the sequence */
+	private final int[] runBegins;
+
+	/** zero-based end positions of the runs of other characters, within the sequence */
+	private final int[] runEnds;
+
+	/** characters of the runs */
+	private final char[] runChars;
+
+	/**
+	 * Pack the given sequences.
+	 *
+	 * @param sequences
+	 *            sequences to pack, the keys of the sequences are their indices in this list
+	 */
+	PackedTranscriptSequenceProvider(List<String> sequences) {
+		this.offsets = new long[sequences.size() + 1];
+		for (int i = 0; i < sequences.size(); ++i)
+			offsets[i + 1] = offsets[i] + sequences.get(i).length();
+		this.packed = new long[Ints.checkedCast((offsets[sequences.size()] + 31) / 32)];
+
+		this.runOffsets = new int[sequences.size() + 1];
+		final ArrayList<Integer> runBegins = new ArrayList<Integer>();
+		final ArrayList<Integer> runEnds = new ArrayList<Integer>();
+		final ArrayList<Character> runChars = new ArrayList<Character>();
+		for (int i = 0; i < sequences.size(); ++i) {
+			final String seq = sequences.get(i);
+			for (int j = 0; j < seq.length(); ++j) {
+				final char c = seq.charAt(j);
+				final int code = encode(c);
+				if (code != -1) {
+					final long pos = offsets[i] + j;
+					packed[(int) (pos >>> 5)] |= ((long) code) << ((pos & 31) << 1);
+				} else if (runChars.size() > runOffsets[i] && runEnds.get(runEnds.size() - 1) == j
+						&& runChars.get(runChars.size() - 1) == c) {
+					runEnds.set(runEnds.size() - 1, j + 1);
+				} else {
+					runBegins.add(j);
+					runEnds.add(j + 1);
+					runChars.add(c);
+				}
+			}
+			runOffsets[i + 1] = runChars.size();
+		}
+		this.runBegins = Ints.toArray(runBegins);
+		this.runEnds = Ints.toArray(runEnds);
+		this.runChars = Chars.toArray(runChars);
+	}
+
+	/** @return two-bit code of the nucleotide <code>c</code>, -1 for other characters */
+	private static int encode(char c) {
+		switch (c) {
+		case 'A':
+			return 0;
+		case 'C':
+			return 1;
+		case 'G':
+			return 2;
+		case 'T':
+			return 3;
+		default:
+			return -1;
+		}
+	}
+
+	@Override
+	public String getSequence(int key) {
+		return getSubsequence(key, 0, getSequenceLength(key));
+	}
+
+	@Override
+	public int getSequenceLength(int key) {
+		return (int) (offsets[key + 1] - offsets[key]);
+	}
+
+	@Override
+	public String getSubsequence(int key, int begin, int end) {
+		if (begin < 0 || end < begin || end > getSequenceLength(key))
+			throw new StringIndexOutOfBoundsException("Invalid range [" + begin + ", " + end + ") for sequence of length "
+					+ getSequenceLength(key));
+
+		final char[] result = new char[end - begin];
+		long pos = offsets[key] + begin;
+		for (int i = 0; i < result.length; ++i, ++pos)
+			result[i] = NUCLEOTIDES[(int) (packed[(int) (pos >>> 5)] >>> ((pos & 31) << 1)) & 3];
+
+		// Apply the runs overlapping with [begin, end), they are sorted and non-overlapping.
+		for (int j = firstRunEndingAfter(key, begin); j < runOffsets[key + 1] && runBegins[j] < end; ++j)
+			Arrays.fill(result, Math.max(runBegins[j], begin) - begin, Math.min(runEnds[j], end) - begin,
+					runChars[j]);
+
+		return new String(result);
+	}
+
+	/** @return index of the first run of sequence <code>key</code> with an end position greater than <code>pos</code> */
+	private int firstRunEndingAfter(int key, int pos) {
+		int lo = runOffsets[key];
+		int hi = runOffsets[key + 1];
+		while (lo < hi) {
+			final int mid = (lo + hi) >>> 1;
+			if (runEnds[mid] <= pos)
+				lo = mid + 1;
+			else
+				hi = mid;
+		}
+		return lo;
+	}
+
+}
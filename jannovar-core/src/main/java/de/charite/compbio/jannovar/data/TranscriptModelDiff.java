@@ -0,0 +1,138 @@
+package de.charite.compbio.jannovar.data;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+
+import de.charite.compbio.jannovar.Immutable;
+import de.charite.compbio.jannovar.impl.intervals.IntervalIndex;
+import de.charite.compbio.jannovar.impl.intervals.MutableQueryResult;
+import de.charite.compbio.jannovar.reference.TranscriptIntervalEndExtractor;
+import de.charite.compbio.jannovar.reference.TranscriptModel;
+
+/**
+ * Differences of the {@link TranscriptModel}s between two {@link JannovarData} objects, e.g. two releases of the same
+ * database.
+ *
+ * The transcripts are matched by accession. A transcript is considered changed if its model differs in any of the
+ * values that go into annotations, i.e., {@link TranscriptModel#equals} or the alternative gene IDs. The regions of
+ * the removed and changed transcripts in the old data and the added and changed transcripts in the new data can be
+ * queried with {@link #overlapsWithChanges}.
+ */
+@Immutable
+public final class TranscriptModelDiff {
+
+	/** whether or not the two data objects use the same contig names and IDs */
+	private final boolean sameContigs;
+	/** accessions of the transcripts only in the new data */
+	private final ImmutableList<String> added;
+	/** accessions of the transcripts only in the old data */
+	private final ImmutableList<String> removed;
+	/** accessions of the transcripts in both data objects with different models */
+	private final ImmutableList<String> changed;
+	/** index of the changed transcript models for each contig, old and new versions */
+	private final ImmutableMap<Integer, IntervalIndex<TranscriptModel>> changedIndices;
+
+	/**
+	 * Compute differences from <code>oldData</code> to <code>newData</code>.
+	 *
+	 * This loads all contigs of lazily loaded {@link JannovarData}.
+	 *
+	 * @param oldData
+	 *            the {@link JannovarData} to compare from
+	 * @param newData
+	 *            the {@link JannovarData} to compare to
+	 */
+	public TranscriptModelDiff(JannovarData oldData, JannovarData newData) {
+		this.sameContigs = oldData.getRefDict().getContigNameToID()
+				.equals(newData.getRefDict().getContigNameToID());
+
+		final ImmutableMap<String, TranscriptModel> oldTMs = oldData.getTmByAccession();
+		final ImmutableMap<String, TranscriptModel> newTMs = newData.getTmByAccession();
+		final ImmutableList.Builder<String> addedBuilder = new ImmutableList.Builder<>();
+		final ImmutableList.Builder<String> removedBuilder = new ImmutableList.Builder<>();
+		final ImmutableList.Builder<String> changedBuilder = new ImmutableList.Builder<>();
+		final Map<Integer, List<TranscriptModel>> changedModels = new HashMap<>();
+
+		for (TranscriptModel oldTM : oldTMs.values()) {
+			final TranscriptModel newTM = newTMs.get(oldTM.getAccession());
+			if (newTM == null) {
+				removedBuilder.add(oldTM.getAccession());
+				changedModels.computeIfAbsent(oldTM.getChr(), chr -> new ArrayList<>()).add(oldTM);
+			} else if (!oldTM.equals(newTM) || !oldTM.getAltGeneIDs().equals(newTM.getAltGeneIDs())) {
+				changedBuilder.add(oldTM.getAccession());
+				changedModels.computeIfAbsent(oldTM.getChr(), chr -> new ArrayList<>()).add(oldTM);
+				changedModels.computeIfAbsent(newTM.getChr(), chr -> new ArrayList<>()).add(newTM);
+			}
+		}
+		for (TranscriptModel newTM : newTMs.values()) {
+			if (!oldTMs.containsKey(newTM.getAccession())) {
+				addedBuilder.add(newTM.getAccession());
+				changedModels.computeIfAbsent(newTM.getChr(), chr -> new ArrayList<>()).add(newTM);
+			}
+		}
+
+		this.added = addedBuilder.build();
+		this.removed = removedBuilder.build();
+		this.changed = changedBuilder.build();
+		final ImmutableMap.Builder<Integer, IntervalIndex<TranscriptModel>> indexBuilder = new ImmutableMap.Builder<>();
+		for (Map.Entry<Integer, List<TranscriptModel>> entry : changedModels.entrySet())
+			indexBuilder.put(entry.getKey(),
+					new IntervalIndex<TranscriptModel>(entry.getValue(), new TranscriptIntervalEndExtractor()));
+		this.changedIndices = indexBuilder.build();
+	}
+
+	/**
+	 * @return whether or not the two data objects use the same contig names and IDs, only then are positions
+	 *         comparable between them
+	 */
+	public boolean isSameContigs() {
+		return sameContigs;
+	}
+
+	/** @return accessions of the transcripts only in the new data */
+	public ImmutableList<String> getAdded() {
+		return added;
+	}
+
+	/** @return accessions of the transcripts only in the old data */
+	public ImmutableList<String> getRemoved() {
+		return removed;
+	}
+
+	/** @return accessions of the transcripts in both data objects with different models */
+	public ImmutableList<String> getChanged() {
+		return changed;
+	}
+
+	/** @return whether or not there are any differences */
+	public boolean isEmpty() {
+		return sameContigs && added.isEmpty() && removed.isEmpty() && changed.isEmpty();
+	}
+
+	/**
+	 * Query for added, removed, or changed transcripts overlapping with an interval on the forward strand.
+	 *
+	 * @param chr
+	 *            numeric contig ID
+	 * @param begin
+	 *            zero-based begin position of the interval on the forward strand
+	 * @param end
+	 *            zero-based end position of the interval on the forward strand
+	 * @return <code>true</code> if the old or new version of an added, removed, or changed transcript overlaps with
+	 *         the interval
+	 */
+	public boolean overlapsWithChanges(int chr, int begin, int end) {
+		final IntervalIndex<TranscriptModel> index = changedIndices.get(chr);
+		if (index == null)
+			return false;
+		final MutableQueryResult<TranscriptModel> result = new MutableQueryResult<>();
+		index.findOverlappingWithInterval(begin, end, result);
+		return !result.getEntries().isEmpty();
+	}
+
+}
@@ -0,0 +1,181 @@
+package de.charite.compbio.jannovar.impl.intervals;
+
+import java.util.Arrays;
+import java.util.Collection;
+
+import com.google.common.collect.ImmutableList;
+
+/**
+ * Immutable interval tree over primitive arrays, the query-time counterpart of {@link IntervalArray}.
+ *
+ * The begin, end, and max end positions are kept in <code>int[]</code> arrays sorted by <code>(begin, end)</code>,
+ * encoding the same implicit tree as {@link IntervalArray}. Queries traverse this tree iteratively and write into a
+ * caller-provided {@link MutableQueryResult}, so they do not allocate. The query results are the same as for
+ * {@link IntervalArray}, including the left and right neighbors.
+ *
+ * Objects of this class are thread-safe, as long as each thread uses its own {@link MutableQueryResult}.
+ */
+public final class IntervalIndex<T> {
+
+	/** begin positions, sorted by <code>(begin, end)</code> */
+	final int[] begins;
+
+	/** end positions, in the order of {@link #begins} */
+	final int[] ends;
+
+	/** maximal end position in the implicit subtree rooted at each entry, in the order of {@link #begins} */
+	private final int[] maxEnds;
+
+	/** values, in the order of {@link #begins} */
+	final Object[] values;
+
+	/** end positions, sorted by <code>(end, begin)</code> */
+	private final int[] sortedEnds;
+
+	/** values, in the order of {@link #sortedEnds} */
+	private final Object[] valuesByEnd;
+
+	/**
+	 * Construct index with the given values.
+	 *
+	 * @param elements
+	 *            the elements to put into the index
+	 * @param extractor
+	 *            for getting begin and end positions of the elements
+	 */
+	public IntervalIndex(Collection<T> elements, IntervalEndExtractor<T> extractor) {
+		this(new IntervalArray<T>(elements, extractor));
+	}
+
+	/**
+	 * Construct index with the intervals from an {@link IntervalArray}.
+	 *
+	 * @param array
+	 *            the {@link IntervalArray} to take the sorted intervals from
+	 */
+	public IntervalIndex(IntervalArray<T> array) {
+		final ImmutableList<Interval<T>> intervals = array.getIntervals();
+		final int n = intervals.size();
+		this.begins = new int[n];
+		this.ends = new int[n];
+		this.maxEnds = new int[n];
+		this.values = new Object[n];
+		for (int i = 0; i < n; ++i) {
+			final Interval<T> itv = intervals.get(i);
+			begins[i] = itv.getBegin();
+			ends[i] = itv.getEnd();
+			maxEnds[i] = itv.getMaxEnd();
+			values[i] = itv.getValue();
+		}
+
+		final ImmutableList<Interval<T>> intervalsEnd = array.getIntervalsEnd();
+		this.sortedEnds = new int[n];
+		this.valuesByEnd = new Object[n];
+		for (int i = 0; i < n; ++i) {
+			sortedEnds[i] = intervalsEnd.get(i).getEnd();
+			valuesByEnd[i] = intervalsEnd.get(i).getValue();
+		}
+	}
+
+	/** @return the number of elements in the index */
+	public int size() {
+		return begins.length;
+	}
+
+	/**
+	 * Query the index for all values with intervals overlapping with a given <code>point</code>.
+	 *
+	 * @param point
+	 *            zero-based point for the query
+	 * @param result
+	 *            {@link MutableQueryResult} to clear and write the result to
+	 */
+	public void findOverlappingWithPoint(int point, MutableQueryResult<T> result) {
+		findOverlapping(point, point + 1, result);
+	}
+
+	/**
+	 * Query the index for all values with intervals overlapping with a given <code>interval</code>.
+	 *
+	 * @param begin
+	 *            zero-based begin position of the query interval
+	 * @param end
+	 *            zero-based end position of the query interval
+	 * @param result
+	 *            {@link MutableQueryResult} to clear and write the result to
+	 */
+	public void findOverlappingWithInterval(int begin, int end, MutableQueryResult<T> result) {
+		findOverlapping(begin, end, result);
+	}
+
+	/**
+	 * In-order traversal of the implicit tree with pruning by {@link #maxEnds}, followed by neighbor search if no
+	 * overlapping interval was found.
+	 */
+	@SuppressWarnings("unchecked")
+	private void findOverlapping(int qBegin, int qEnd, MutableQueryResult<T> result) {
+		result.clear();
+
+		final int[] stack = result.stack;
+		int sp = 0;
+		int lo = 0;
+		int hi = begins.length;
+		while (true) {
+			// descend to the left, remembering the nodes and their right subtrees
+			while (lo < hi) {
+				final int center = (lo + hi) >>> 1;
+				if (maxEnds[center] <= qBegin) // all intervals in subtree end left of query
+					break;
+				stack[sp++] = center;
+				stack[sp++] = hi;
+				hi = center;
+			}
+			if (sp == 0)
+				break;
+			hi = stack[--sp];
+			final int center = stack[--sp];
+			if (begins[center] >= qEnd) // this and all following intervals start right of the query
+				break;
+			if (qBegin < ends[center])
+				result.add((T) values[center]);
+			lo = center + 1;
+		}
+
+		if (result.getEntries().isEmpty())
+			result.setNeighbors(findLeftNeighbor(qBegin), findRightNeighbor(qBegin));
+	}
+
+	/**
+	 * @return right neighbor of the given point if any, or <code>null</code>
+	 */
+	@SuppressWarnings("unchecked")
+	T findRightNeighbor(int point) {
+		int idx = Arrays.binarySearch(begins, point);
+		if (idx >= 0)
+			throw new RuntimeException("Found element although in right neighbor search!");
+		idx = -(idx + 1); // convert to insertion point
+
+		if (idx == begins.length)
+			return null;
+		else
+			return (T) values[idx];
+	}
+
+	/**
+	 * @return left neighbor of the given point if any, or <code>null</code>
+	 */
+	@SuppressWarnings("unchecked")
+	T findLeftNeighbor(int point) {
+		int idx = Arrays.binarySearch(sortedEnds, point);
+		if (idx >= 0)
+			idx += 1;
+		else
+			idx = -(idx + 1); // convert to insertion point
+
+		if (idx == 0)
+			return null;
+		else
+			return (T) valuesByEnd[idx - 1];
+	}
+
+}
@@ -0,0 +1,116 @@
+package de.charite.compbio.jannovar.impl.intervals;
+
+import java.util.Arrays;
+
+/**
+ * Cursor for querying an {@link IntervalIndex} with queries sorted by begin position.
+ *
+ * Instead of descending the implicit tree for each query, the sweep keeps the window of intervals that begin at or
+ * before the current query and have not ended yet. Between two queries, only the intervals beginning in between are
+ * added to the window and the ones ending in between are dropped from it. The query results are the same as for
+ * {@link IntervalIndex#findOverlappingWithInterval}. Queries with a begin position left of the previous one are
+ * allowed but restart the sweep from the first interval.
+ *
+ * Objects of this class are not thread-safe.
+ */
+public final class IntervalSweep<T> {
+
+	/** the index to sweep over */
+	private final IntervalIndex<T> index;
+
+	/** indices of the intervals in the window, ascending */
+	private int[] window = new int[16];
+
+	/** number of entries in {@link #window} */
+	private int windowSize = 0;
+
+	/** index of the first interval that begins right of the previous query begin position */
+	private int next = 0;
+
+	/** begin position of the previous query */
+	private int lastBegin = Integer.MIN_VALUE;
+
+	/**
+	 * Construct sweep over the given <code>index</code>, starting left of the first interval.
+	 *
+	 * @param index
+	 *            {@link IntervalIndex} to sweep over
+	 */
+	public IntervalSweep(IntervalIndex<T> index) {
+		this.index = index;
+	}
+
+	/** @return the {@link IntervalIndex} this sweep goes over */
+	public IntervalIndex<T> getIndex() {
+		return index;
+	}
+
+	/**
+	 * Query for all values with intervals overlapping with a given <code>point</code>.
+	 *
+	 * @param point
+	 *            zero-based point for the query
+	 * @param result
+	 *            {@link MutableQueryResult} to clear and write the result to
+	 */
+	public void findOverlappingWithPoint(int point, MutableQueryResult<T> result) {
+		findOverlapping(point, point + 1, result);
+	}
+
+	/**
+	 * Query for all values with intervals overlapping with a given <code>interval</code>.
+	 *
+	 * @param begin
+	 *            zero-based begin position of the query interval
+	 * @param end
+	 *            zero-based end position of the query interval
+	 * @param result
+	 *            {@link MutableQueryResult} to clear and write the result to
+	 */
+	public void findOverlappingWithInterval(int begin, int end, MutableQueryResult<T> result) {
+		findOverlapping(begin, end, result);
+	}
+
+	/** Move window to <code>qBegin</code>, then report the window and the intervals beginning before <code>qEnd</code> */
+	@SuppressWarnings("unchecked")
+	private void findOverlapping(int qBegin, int qEnd, MutableQueryResult<T> result) {
+		result.clear();
+		if (qBegin < lastBegin) {
+			windowSize = 0;
+			next = 0;
+		}
+		lastBegin = qBegin;
+
+		final int[] begins = index.begins;
+		final int[] ends = index.ends;
+		final Object[] values = index.values;
+
+		// drop the intervals that ended, keeping the window in (begin, end) order
+		int size = 0;
+		for (int i = 0; i < windowSize; ++i)
+			if (ends[window[i]] > qBegin)
+				window[size++] = window[i];
+		windowSize = size;
+		// add the intervals beginning up to qBegin, these stay in the window until they end
+		while (next < begins.length && begins[next] <= qBegin) {
+			if (ends[next] > qBegin) {
+				if (windowSize == window.length)
+					window = Arrays.copyOf(window, 2 * windowSize);
+				window[windowSize++] = next;
+			}
+			next += 1;
+		}
+
+		for (int i = 0; i < windowSize; ++i)
+			if (begins[window[i]] < qEnd)
+				result.add((T) values[window[i]]);
+		// the intervals beginning right of qBegin and left of qEnd only overlap with this query
+		for (int i = next; i < begins.length && begins[i] < qEnd; ++i)
+			if (qBegin < ends[i])
+				result.add((T) values[i]);
+
+		if (result.getEntries().isEmpty())
+			result.setNeighbors(index.findLeftNeighbor(qBegin), index.findRightNeighbor(qBegin));
+	}
+
+}
@@ -0,0 +1,65 @@
+package de.charite.compbio.jannovar.impl.intervals;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Reusable result of queries to an {@link IntervalIndex}.
+ *
+ * Each query clears the object before filling it, so one object can be used for many queries without allocating. As
+ * for {@link IntervalArray.QueryResult}, the left and right neighbors are only set if there are no overlapping entries.
+ * Objects of this class are not thread-safe.
+ */
+public final class MutableQueryResult<T> {
+
+	/** maximal depth of the implicit tree for arrays of up to {@link Integer#MAX_VALUE} elements */
+	private static final int MAX_DEPTH = 32;
+
+	/** the values that overlapped with the query */
+	private final ArrayList<T> entries = new ArrayList<T>();
+
+	/** read-only view of {@link #entries} */
+	private final List<T> entriesView = Collections.unmodifiableList(entries);
+
+	/** the value to the left of the query */
+	private T left = null;
+
+	/** the value to the right of the query */
+	private T right = null;
+
+	/** stack for the iterative tree traversal in {@link IntervalIndex}, two entries per level */
+	final int[] stack = new int[2 * (MAX_DEPTH + 1)];
+
+	/** @return read-only view of the values that overlapped with the query, sorted by <code>(begin, end)</code> */
+	public List<T> getEntries() {
+		return entriesView;
+	}
+
+	/** @return the value to the left of the query, if there were no overlapping values */
+	public T getLeft() {
+		return left;
+	}
+
+	/** @return the value to the right of the query, if there were no overlapping values */
+	public T getRight() {
+		return right;
+	}
+
+	/** Reset the object to the empty state */
+	public void clear() {
+		entries.clear();
+		left = null;
+		right = null;
+	}
+
+	void add(T value) {
+		entries.add(value);
+	}
+
+	void setNeighbors(T left, T right) {
+		this.left = left;
+		this.right = right;
+	}
+
+}
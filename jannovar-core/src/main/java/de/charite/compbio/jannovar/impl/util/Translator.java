@@ -1,5 +1,6 @@
 package de.charite.compbio.jannovar.impl.util;
 
+import java.util.Arrays;
 import java.util.Map;
 
 import com.google.common.collect.ImmutableMap;
@@ -13,10 +14,28 @@ import com.google.common.collect.ImmutableMap;
  */
 public final class Translator {
 
-	/** Map of genetic code. Keys are codons and values are the corresponding amino acid (one-letter code) */
-	private ImmutableMap<String, String> codon1 = null;
-	/** Map of genetic code. Keys are codons and values are the corresponding amino acid (three-letter code) */
-	private ImmutableMap<String, String> codon3 = null;
+	/** Index of a nucleotide in the codon tables, for ASCII characters; -1 for invalid, {@link #NT_N} for 'N'. */
+	private static final byte[] NT_INDEX = new byte[128];
+	/** Value in {@link #NT_INDEX} for 'N' */
+	private static final byte NT_N = 4;
+
+	static {
+		Arrays.fill(NT_INDEX, (byte) -1);
+		NT_INDEX['A'] = 0;
+		NT_INDEX['C'] = 1;
+		NT_INDEX['G'] = 2;
+		NT_INDEX['T'] = 3;
+		NT_INDEX['N'] = NT_N;
+	}
+
+	/** Value returned by {@link #codonIndex} for codons containing 'N', translated to 'X' */
+	private static final int CODON_N = 64;
+
+	/** Genetic code as table indexed by {@link #codonIndex}, one-letter code */
+	private final char[] codonTable1 = new char[64];
+	/** Genetic code as table indexed by {@link #codonIndex}, three-letter code */
+	private final String[] codonTable3 = new String[64];
+
 	/** Map of IUPAC ambiguity codes. */
 	@SuppressWarnings("unused")
 	private ImmutableMap<String, String> iupac = null;
@@ -25,7 +44,10 @@ public final class Translator {
 	/** Map of long AA codes to short ones */
 	private ImmutableMap<String, String> longToShort = null;
 
-	private static Translator translator = null;
+	/** Holder of the singleton, the class loader creates it thread-safely on first use */
+	private static final class Holder {
+		static final Translator TRANSLATOR = new Translator();
+	}
 
 	/**
 	 * Private constructor, initializes singleton instance. Use {@link #getTranslator} for obtaining an object.
@@ -35,15 +57,12 @@ public final class Translator {
 	}
 
 	/**
-	 * Factory method to get reference to Translator.
+	 * Factory method to get reference to Translator, safe to call from multiple threads.
 	 *
 	 * @return {@link Translator} singleton
 	 */
 	static public Translator getTranslator() {
-		if (Translator.translator == null) {
-			Translator.translator = new Translator();
-		}
-		return Translator.translator;
+		return Holder.TRANSLATOR;
 	}
 
 	/**
@@ -52,18 +71,36 @@ public final class Translator {
 	 * Currently, there is no need to translate more than a single codon. However, some portions of the code are trying
 	 * to translate DNA that is not a multiple of 3 nt long (from indel code). Therefore, we will translate as much as
 	 * possible here. This may need refactoring in the future. (TODO).
+	 * <P>
+	 * Codons containing an 'N' are translated to 'X', translation stops at the first codon with any other invalid
+	 * character. The codons are looked up in a table with 64 entries instead of a map of codon strings.
 	 *
 	 * @param dnaseq
 	 *            A DNA sequence that is to be translated
 	 * @return corresonding aminoacid sequence
 	 */
 	public String translateDNA(String dnaseq) {
-		return translateDNA(dnaseq, this.codon1);
+		final char[] aminoAcidSeq = new char[dnaseq.length() / 3];
+		int numAAs = 0;
+		for (int i = 0; i + 3 <= dnaseq.length(); i += 3) {
+			final int idx = codonIndex(dnaseq.charAt(i), dnaseq.charAt(i + 1), dnaseq.charAt(i + 2));
+			if (idx == -1)
+				break; /* stop translation */
+			aminoAcidSeq[numAAs++] = (idx == CODON_N) ? 'X' : codonTable1[idx];
+		}
+		return new String(aminoAcidSeq, 0, numAAs);
 	}
 
 	// same as above but returning 3-letter AA codes
 	public String translateDNA3(String dnaseq) {
-		return translateDNA(dnaseq, this.codon3);
+		StringBuilder aminoAcidSeq = new StringBuilder();
+		for (int i = 0; i + 3 <= dnaseq.length(); i += 3) {
+			final int idx = codonIndex(dnaseq.charAt(i), dnaseq.charAt(i + 1), dnaseq.charAt(i + 2));
+			if (idx == -1)
+				break; /* stop translation */
+			aminoAcidSeq.append((idx == CODON_N) ? "X" : codonTable3[idx]);
+		}
+		return aminoAcidSeq.toString();
 	}
 
 	/**
@@ -87,33 +124,28 @@ public final class Translator {
 		return shortToLong.get("" + c);
 	}
 
-	private String translateDNA(String dnaseq, ImmutableMap<String, String> codonTable) {
-		StringBuilder aminoAcidSeq = new StringBuilder();
-		int len = dnaseq.length();
-		if (!(len % 3 == 0)) {
-			len = len - (len % 3);
-			/* this forces len to be a multiple of 3. */
-			// String err =
-			// String.format("Attempt to translate sequence [%s] with length %d (should be 3n)",dnaseq,len);
-			// throw new AnnotationException(err);
-		}
-		for (int i = 0; i < len; i += 3) {
-			String nt3 = dnaseq.substring(i, i + 3);
-			String aa = codonTable.get(nt3);
-			if (aa == null) {
-				if (nt3.contains("N")) {
-					aa = "X";
-				} else {
-					/*
-					 * String err = String.format("Could not find translation for codon:\"%s\" in sequence:\"%s\"", nt3,
-					 * dnaseq); throw new AnnotationException(err);
-					 */
-					break; /* stop translation */
-				}
-			}
-			aminoAcidSeq.append(aa);
-		}
-		return aminoAcidSeq.toString();
+	/**
+	 * Compute index of a codon in the codon tables, the index of the codon "<code>c0 c1 c2</code>" is
+	 * <code>16 * i0 + 4 * i1 + i2</code> where <code>A=0, C=1, G=2, T=3</code>.
+	 *
+	 * @return index of the codon, {@link #CODON_N} if the codon contains 'N' and otherwise only valid characters, -1
+	 *         if the codon contains any other character
+	 */
+	private static int codonIndex(int c0, int c1, int c2) {
+		final int i0 = ntIndex(c0);
+		final int i1 = ntIndex(c1);
+		final int i2 = ntIndex(c2);
+		if (i0 == NT_N || i1 == NT_N || i2 == NT_N)
+			return CODON_N;
+		else if (i0 == -1 || i1 == -1 || i2 == -1)
+			return -1;
+		else
+			return 16 * i0 + 4 * i1 + i2;
+	}
+
+	/** @return value from {@link #NT_INDEX} for character <code>c</code>, -1 for non-ASCII characters */
+	private static int ntIndex(int c) {
+		return (c >= 0 && c < NT_INDEX.length) ? NT_INDEX[c] : -1;
 	}
 
 	/**
@@ -303,8 +335,12 @@ public final class Translator {
 		for (Map.Entry<String, String> entry : this.longToShort.entrySet())
 			shortToLong.put(entry.getValue(), entry.getKey());
 
-		this.codon1 = codon1.build();
-		this.codon3 = codon3.build();
+		for (Map.Entry<String, String> entry : codon1.build().entrySet())
+			codonTable1[codonIndex(entry.getKey().charAt(0), entry.getKey().charAt(1),
+					entry.getKey().charAt(2))] = entry.getValue().charAt(0);
+		for (Map.Entry<String, String> entry : codon3.build().entrySet())
+			codonTable3[codonIndex(entry.getKey().charAt(0), entry.getKey().charAt(1),
+					entry.getKey().charAt(2))] = entry.getValue();
 		this.iupac = iupac.build();
 		this.shortToLong = shortToLong.build();
 	}
@@ -1,5 +1,7 @@
 package de.charite.compbio.jannovar.reference;
 
+import java.io.Serializable;
+
 import com.google.common.base.Joiner;
 import com.google.common.collect.ComparisonChain;
 
@@ -24,7 +26,9 @@ import de.charite.compbio.jannovar.impl.util.DNAUtils;
  * @author <a href="mailto:Peter.Robinson@jax.org">Peter N Robinson</a>
  */
 @Immutable
-public final class GenomeVariant implements VariantDescription {
+public final class GenomeVariant implements VariantDescription, Serializable {
+
+	private static final long serialVersionUID = 1L;
 
 	/** position of the change */
 	private final GenomePosition pos;
@@ -1,5 +1,7 @@
 package de.charite.compbio.jannovar.reference;
 
+import java.io.Serializable;
+
 import de.charite.compbio.jannovar.Immutable;
 import de.charite.compbio.jannovar.impl.util.StringUtil;
 
@@ -9,7 +11,9 @@ import de.charite.compbio.jannovar.impl.util.StringUtil;
  * @author <a href="mailto:manuel.holtgrewe@charite.de">Manuel Holtgrewe</a>
  */
 @Immutable
-public final class TranscriptInterval {
+public final class TranscriptInterval implements Serializable {
+
+	private static final long serialVersionUID = 1L;
 
 	/** the transcript that this position is relative to */
 	private final TranscriptModel transcript;
@@ -42,9 +42,18 @@ public final class TranscriptModel implements Serializable, Comparable<Transcrip
 	/** Genomic intervals with the exons, order is dictated by strand of transcript. */
 	private final ImmutableList<GenomeInterval> exonRegions;
 
-	/** cDNA sequence of the spliced RNA of this known gene transcript. */
+	/**
+	 * cDNA sequence of the spliced RNA of this known gene transcript, <code>null</code> if resolved through
+	 * {@link #sequenceProvider}.
+	 */
 	private final String sequence;
 
+	/** Provider for lazily resolving the sequence, <code>null</code> if {@link #sequence} is set. */
+	private final transient TranscriptSequenceProvider sequenceProvider;
+
+	/** Key of this transcript in {@link #sequenceProvider}. */
+	private final transient int sequenceKey;
+
 	/**
 	 * The gene ID, from Ensembl (<code>"ENS[MUS]*G0+([0-9]+)"</code>), Entrez ("<code>ENTREZ([0-9]+)</code>
 	 * "), RefSeq ("<code>gene([0-9]+)</code>").
@@ -92,6 +101,29 @@ public final class TranscriptModel implements Serializable, Comparable<Transcrip
 		this.cdsRegion = cdsRegion;
 		this.exonRegions = exonRegions;
 		this.sequence = sequence;
+		this.sequenceProvider = null;
+		this.sequenceKey = -1;
+		this.geneID = geneID;
+		this.transcriptSupportLevel = transcriptSupportLevel;
+		this.altGeneIDs = ImmutableSortedMap.copyOf(altGeneIDs);
+		checkForConsistency();
+	}
+
+	/**
+	 * Initialize the {@link TranscriptModel} object from the given parameters, the sequence will be resolved lazily
+	 * through <code>sequenceProvider</code>.
+	 */
+	public TranscriptModel(String accession, String geneSymbol, GenomeInterval txRegion, GenomeInterval cdsRegion,
+			ImmutableList<GenomeInterval> exonRegions, TranscriptSequenceProvider sequenceProvider, int sequenceKey,
+			String geneID, int transcriptSupportLevel, Map<String, String> altGeneIDs) {
+		this.accession = accession;
+		this.geneSymbol = geneSymbol;
+		this.txRegion = txRegion;
+		this.cdsRegion = cdsRegion;
+		this.exonRegions = exonRegions;
+		this.sequence = null;
+		this.sequenceProvider = sequenceProvider;
+		this.sequenceKey = sequenceKey;
 		this.geneID = geneID;
 		this.transcriptSupportLevel = transcriptSupportLevel;
 		this.altGeneIDs = ImmutableSortedMap.copyOf(altGeneIDs);
@@ -123,11 +155,43 @@ public final class TranscriptModel implements Serializable, Comparable<Transcrip
 		return exonRegions;
 	}
 
-	/** @return mDNA sequence of the spliced RNA of this known gene transcript. */
+	/**
+	 * Note that this materializes the full sequence for lazily resolved transcripts, prefer
+	 * {@link #getSequenceLength()} and {@link #getSubsequence(int, int)} where possible.
+	 *
+	 * @return mDNA sequence of the spliced RNA of this known gene transcript.
+	 */
 	public String getSequence() {
+		if (sequenceProvider != null)
+			return sequenceProvider.getSequence(sequenceKey);
 		return sequence;
 	}
 
+	/** @return length of the mRNA sequence of this transcript */
+	public int getSequenceLength() {
+		if (sequenceProvider != null)
+			return sequenceProvider.getSequenceLength(sequenceKey);
+		return sequence.length();
+	}
+
+	/**
+	 * @param begin
+	 *            zero-based begin position in the mRNA sequence
+	 * @param end
+	 *            zero-based end position in the mRNA sequence
+	 * @return infix <code>[begin, end)</code> of the mRNA sequence of this transcript
+	 */
+	public String getSubsequence(int begin, int end) {
+		if (sequenceProvider != null)
+			return sequenceProvider.getSubsequence(sequenceKey, begin, end);
+		return sequence.substring(begin, end);
+	}
+
+	/** @return <code>true</code> if the sequence is resolved lazily through a {@link TranscriptSequenceProvider} */
+	public boolean hasLazySequence() {
+		return (sequenceProvider != null);
+	}
+
 	/**
 	 * @return The gene ID, from Ensembl (<code>"ENS[MUS]*G0+([0-9]+)"</code>), Entrez ("<code>ENTREZ([0-9]+)</code>
 	 *         "), RefSeq ("<code>gene([0-9]+)</code>"). <code>null</code> for no available gene ID.
@@ -216,6 +280,18 @@ public final class TranscriptModel implements Serializable, Comparable<Transcrip
 			assert (region.getStrand() == strand);
 	}
 
+	/**
+	 * Replace lazily resolved transcripts by ones with materialized sequence on serialization.
+	 *
+	 * @return object to serialize in place of this one
+	 */
+	private Object writeReplace() {
+		if (sequenceProvider == null)
+			return this;
+		return new TranscriptModel(accession, geneSymbol, txRegion, cdsRegion, exonRegions, getSequence(), geneID,
+				transcriptSupportLevel, altGeneIDs);
+	}
+
 	@Override
 	public String toString() {
 		return accession + "(" + txRegion + ")";
@@ -224,6 +300,7 @@ public final class TranscriptModel implements Serializable, Comparable<Transcrip
 	@Override
 	public int hashCode() {
 		final int prime = 31;
+		final String sequence = getSequence();
 		int result = 1;
 		result = prime * result + ((accession == null) ? 0 : accession.hashCode());
 		result = prime * result + ((cdsRegion == null) ? 0 : cdsRegion.hashCode());
@@ -270,10 +347,11 @@ public final class TranscriptModel implements Serializable, Comparable<Transcrip
 				return false;
 		} else if (!geneSymbol.equals(other.geneSymbol))
 			return false;
+		final String sequence = getSequence();
 		if (sequence == null) {
-			if (other.sequence != null)
+			if (other.getSequence() != null)
 				return false;
-		} else if (!sequence.equals(other.sequence))
+		} else if (!sequence.equals(other.getSequence()))
 			return false;
 		if (transcriptSupportLevel != other.transcriptSupportLevel)
 			return false;
@@ -42,7 +42,7 @@ public final class TranscriptProjectionDecorator {
 		try {
 			TranscriptPosition tBeginPos = genomeToTranscriptPos(transcript.getCDSRegion().getGenomeBeginPos());
 			TranscriptPosition tEndPos = genomeToTranscriptPos(transcript.getCDSRegion().getGenomeEndPos());
-			return transcript.getSequence().substring(tBeginPos.getPos(), tEndPos.getPos());
+			return transcript.getSubsequence(tBeginPos.getPos(), tEndPos.getPos());
 		} catch (ProjectionException e) {
 			throw new Error("Bug: CDS begin/end must be translatable into transcript positions");
 		}
@@ -54,7 +54,7 @@ public final class TranscriptProjectionDecorator {
 	public String getTranscriptStartingAtCDS() {
 		try {
 			TranscriptPosition tBeginPos = genomeToTranscriptPos(transcript.getCDSRegion().getGenomeBeginPos());
-			return transcript.getSequence().substring(tBeginPos.getPos(), transcript.getSequence().length());
+			return transcript.getSubsequence(tBeginPos.getPos(), transcript.getSequenceLength());
 		} catch (ProjectionException e) {
 			throw new Error("Bug: CDS begin must be translatable into transcript positions");
 		}
@@ -85,10 +85,11 @@ public final class TranscriptSequenceDecorator {
 		int frameShift = cdsPos.getPos() % 3;
 		int codonStart = txPos.getPos() - frameShift; // codon start in transcript string
 		int endPos = codonStart + 3;
-		if (transcript.getSequence().length() < endPos)
+		final int seqLength = transcript.getSequenceLength();
+		if (seqLength < endPos)
 			throw new InvalidCodonException("Could not access codon " + codonStart + " - " + endPos
-					+ ", transcript sequence length is " + transcript.getSequence().length());
-		return transcript.getSequence().substring(codonStart, endPos);
+					+ ", transcript sequence length is " + seqLength);
+		return transcript.getSubsequence(codonStart, endPos);
 	}
 
 	/**
@@ -110,9 +111,9 @@ public final class TranscriptSequenceDecorator {
 		int frameShift = cdsPos.getPos() % 3;
 		int codonStart = txPos.getPos() - frameShift; // codon start in transcript string
 		int endPos = codonStart + 3 * count;
-		if (endPos > transcript.getSequence().length())
-			endPos = transcript.getSequence().length();
-		return transcript.getSequence().substring(codonStart, endPos);
+		if (endPos > transcript.getSequenceLength())
+			endPos = transcript.getSequenceLength();
+		return transcript.getSubsequence(codonStart, endPos);
 	}
 
 	/**
@@ -126,7 +127,7 @@ public final class TranscriptSequenceDecorator {
 	 * @return the codon affected by a change at the given position
 	 */
 	public String getCodonsStartingFrom(TranscriptPosition txPos, CDSPosition cdsPos) {
-		return getCodonsStartingFrom(txPos, cdsPos, transcript.getSequence().length());
+		return getCodonsStartingFrom(txPos, cdsPos, transcript.getSequenceLength());
 	}
 
 }
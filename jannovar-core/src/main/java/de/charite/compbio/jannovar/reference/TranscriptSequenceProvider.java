@@ -0,0 +1,39 @@
+package de.charite.compbio.jannovar.reference;
+
+// NOTE(holtgrem): Part of the public interface of the Jannovar library.
+
+/**
+ * Source for lazily resolving transcript sequences.
+ *
+ * {@link TranscriptModel} objects created with a provider do not keep their sequence on the heap but fetch it on
+ * demand. Transcripts are identified by an integer key that is only meaningful for the provider (e.g., an index into a
+ * database file). Implementations must be thread-safe.
+ */
+public interface TranscriptSequenceProvider {
+
+	/**
+	 * @param key
+	 *            key of the transcript within the provider
+	 * @return the full mRNA sequence of the transcript
+	 */
+	public String getSequence(int key);
+
+	/**
+	 * @param key
+	 *            key of the transcript within the provider
+	 * @return length of the mRNA sequence of the transcript
+	 */
+	public int getSequenceLength(int key);
+
+	/**
+	 * @param key
+	 *            key of the transcript within the provider
+	 * @param begin
+	 *            zero-based begin position in the mRNA sequence
+	 * @param end
+	 *            zero-based end position in the mRNA sequence
+	 * @return infix <code>[begin, end)</code> of the mRNA sequence of the transcript
+	 */
+	public String getSubsequence(int key, int begin, int end);
+
+}
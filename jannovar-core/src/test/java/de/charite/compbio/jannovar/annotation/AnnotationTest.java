@@ -0,0 +1,39 @@
+package de.charite.compbio.jannovar.annotation;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.google.common.collect.ImmutableList;
+
+import de.charite.compbio.jannovar.hgvs.AminoAcidCode;
+
+/**
+ * Tests for rendering {@link Annotation}s for the <code>ANN</code> field.
+ */
+public class AnnotationTest {
+
+	private final Annotation annotation = new Annotation(ImmutableList.of(
+			AnnotationMessage.ERROR_PROBLEM_DURING_ANNOTATION, AnnotationMessage.WARNING_REF_DOES_NOT_MATCH_GENOME));
+
+	@Test
+	public void testToVCFAnnoStringEscaped() {
+		Assert.assertEquals(
+				"A%3DB%2C%3B%25%20%09|||||||||||||||WARNING_REF_DOES_NOT_MATCH_GENOME&ERROR_PROBLEM_DURING_ANNOTATION",
+				annotation.toVCFAnnoString("A=B,;% \t", true, AminoAcidCode.ONE_LETTER));
+	}
+
+	@Test
+	public void testToVCFAnnoStringUnescaped() {
+		Assert.assertEquals("A=B|||||||||||||||WARNING_REF_DOES_NOT_MATCH_GENOME&ERROR_PROBLEM_DURING_ANNOTATION",
+				annotation.toVCFAnnoString("A=B", false, AminoAcidCode.ONE_LETTER));
+	}
+
+	@Test
+	public void testAppendVCFAnnoString() {
+		StringBuilder builder = new StringBuilder("ANN=");
+		annotation.appendVCFAnnoString(builder, "A", true, AminoAcidCode.ONE_LETTER);
+		Assert.assertEquals("ANN=" + annotation.toVCFAnnoString("A", true, AminoAcidCode.ONE_LETTER),
+				builder.toString());
+	}
+
+}
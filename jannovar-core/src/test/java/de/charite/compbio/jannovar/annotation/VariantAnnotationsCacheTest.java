@@ -0,0 +1,199 @@
+package de.charite.compbio.jannovar.annotation;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import com.google.common.collect.ImmutableList;
+
+import de.charite.compbio.jannovar.annotation.builders.AnnotationBuilderOptions;
+import de.charite.compbio.jannovar.data.JannovarData;
+import de.charite.compbio.jannovar.data.ReferenceDictionary;
+import de.charite.compbio.jannovar.data.TranscriptModelDiff;
+import de.charite.compbio.jannovar.hgvs.AminoAcidCode;
+import de.charite.compbio.jannovar.reference.GenomePosition;
+import de.charite.compbio.jannovar.reference.GenomeVariant;
+import de.charite.compbio.jannovar.reference.HG19RefDictBuilder;
+import de.charite.compbio.jannovar.reference.PositionType;
+import de.charite.compbio.jannovar.reference.Strand;
+import de.charite.compbio.jannovar.reference.TranscriptModelBuilder;
+import de.charite.compbio.jannovar.reference.TranscriptModelFactory;
+
+/**
+ * Tests for {@link VariantAnnotationsCache}
+ */
+public class VariantAnnotationsCacheTest {
+
+	@Rule
+	public TemporaryFolder tmpFolder = new TemporaryFolder();
+
+	/** this test uses this static hg19 reference dictionary */
+	static final ReferenceDictionary refDict = HG19RefDictBuilder.build();
+
+	/** variants to annotate, in coding, intronic, UTR, upstream, and intergenic regions */
+	List<GenomeVariant> changes;
+
+	@Before
+	public void setUp() {
+		changes = new ArrayList<>();
+		changes.add(buildVariant(6640669, "A", "T"));
+		changes.add(buildVariant(6642117, "", "TTG"));
+		changes.add(buildVariant(6642200, "CA", ""));
+		changes.add(buildVariant(6640600, "A", "G"));
+		changes.add(buildVariant(6640061, "T", "A"));
+		changes.add(buildVariant(23688461, "C", "A"));
+		changes.add(buildVariant(23693000, "T", "C"));
+		changes.add(buildVariant(15000000, "T", "C"));
+	}
+
+	/** @return {@link JannovarData} with a forward and a reverse strand transcript, built anew on each call */
+	private JannovarData buildData() {
+		return buildData("ZNF436");
+	}
+
+	/**
+	 * @param reverseGeneSymbol
+	 *            gene symbol to use for the reverse strand transcript
+	 * @return {@link JannovarData} with a forward and a reverse strand transcript, built anew on each call
+	 */
+	private JannovarData buildData(String reverseGeneSymbol) {
+		TranscriptModelBuilder builderForward = TranscriptModelFactory
+				.parseKnownGenesLine(
+						refDict,
+						"uc001anx.3	chr1	+	6640062	6649340	6640669	6649272	11	6640062,6640600,6642117,6645978,6646754,6647264,6647537,6648119,6648337,6648815,6648975,	6640196,6641359,6642359,6646090,6646847,6647351,6647692,6648256,6648502,6648904,6649340,	P10074	uc001anx.3");
+		builderForward
+				.setSequence("cgtcacgtccggcgcggagacggtggagtctccgcactgtcggcggggtacgcatagccgggcactaggttcgtgggctgtggaggcgacggagcagggggccagtggggccagctcagggaggacctgcctgggagctttctcttgcataccctcgcttaggctggccggggtgtcacttctgcctccctgccctccagaccatggacggctccttcgtccagcacagtgtgagggttctgcaggagctcaacaagcagcgggagaagggccagtactgcgacgccactctggacgtggggggcctggtgtttaaggcacactggagtgtccttgcctgctgcagtcactttttccagagcctctacggggatggctcagggggcagtgtcgtcctccctgctggcttcgctgagatctttggcctcttgttggactttttctacactggtcacctcgctctcacctcagggaaccgggatcaggtgctcctggcagccagggagttgcgagtgccagaggccgtagagctgtgccagagcttcaagcccaaaacttcagtgggacaggcagcaggtggccagagtgggctggggccccctgcctcccagaatgtgaacagccacgtcaaggagccggcaggcttggaagaagaggaagtttcgaggactctgggtctagtccccagggatcaggagcccagaggcagtcatagtcctcagaggccccagctccattccccagctcagagtgagggcccctcctccctctgtgggaaactgaagcaggccttgaagccttgtccccttgaggacaagaaacccgaggactgcaaagtgcccccaaggcccttagaggctgaaggtgcccagctgcagggcggcagtaatgagtgggaagtggtggttcaagtggaggatgatggggatggcgattacatgtctgagcctgaggctgtgctgaccaggaggaagtcaaatgtaatccgaaagccctgtgcagctgagccagccctgagcgcgggctccctagcagctgagcctgctgagaacagaaaaggtacagcggtgccggtcgaatgccccacatgtcataaaaagttcctcagcaaatattatctaaaagtccacaacaggaaacatactggggagaaaccctttgagtgtcccaaatgtgggaagtgttactttcggaaggagaacctcctggagcatgaagcccggaattgcatgaaccgctcggaacaggtcttcacgtgctctgtgtgccaggagacattccgccgaaggatggagctgcgggtgcacatggtgtctcacacaggggagatgccctacaagtgttcctcctgctcccagcagttcatgcagaagaaggacttgcagagccacatgatcaaacttcatggagcccccaagccccatgcatgccccacctgtgccaagtgcttcctgtctcggacagagctgcagctgcatgaagctttcaagcaccgtggtgagaagctgtttgtgtgtgaggagtgtgggcaccgggcctcgagccggaatggcctgcagatgcacatcaaggccaagcacaggaatgagaggccacacgtatgtgagttctgcagccacgccttcacccaaaaggccaatctcaacatgcacctgcgcacacacacgggtgagaagcccttccagtgccacctctgtggcaagaccttccgaacccaagccagcctggacaagcacaaccgcacccacaccggggaaaggcccttcagttgcgagttctgtgaacagcgcttcactgagaaggggcccctcctgaggcacgtggccagccgccatcaggagggccggccccacttctgccagatatgcggcaagaccttcaaagccgtggagcaactgcgtgtgcacgtcagacggcacaagggggtgaggaagtttgagtgcaccgagtgtggctacaagtttacccgacaggcccacctgcggaggcacatggagatccacgaccgggtagagaactacaacccgcggcagcgcaagctccgcaacctgatcatcgaggacgagaagatggtggtggtggcgctgcagccgcctgcagagctggaggtgggctcggcggaggtcattgtggagtccctggcccagggcggcctggcctcccagctccccggccagagactgtgtgcagaggagagcttcaccggcccaggtgtcctggagccctccctcatcatcacagctgctgtccccgaggactgtgacacatagcccattctggccaccagagcccacttggccccacccctcaataaaccgtgtggctttggactctcgtaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaa"
+						.toUpperCase());
+		builderForward.setGeneSymbol("ZBTB48");
+
+		TranscriptModelBuilder builderReverse = TranscriptModelFactory
+				.parseKnownGenesLine(
+						refDict,
+						"uc001bgu.3	chr1	-	23685940	23696357	23688461	23694498	4	23685940,23693534,23694465,23695858,	23689714,23693661,23694558,23696357,	Q9C0F3	uc001bgu.3");
+		builderReverse
+				.setSequence("aataagctgctatattctttttccatcacttccctctccaaggctacagcgagctgggagctcttccccacgcagaatgcctgctttccccagtgctcgacttccattgtctaattccctcatcctggctggggaaagggagagctgcgagtcctcccgttccgaggaactccagctgaatgcagcttagttgctggtggtttctcggccagcctctgtggtctcagggatctgcctatgagcctgtggtttctgagctgcctgcgagtctgaggcctcgggaatctgagtctttaggatcagcctacgatatctgggcttcgcctgcaagtctacgaattcgagatctacctgcgggtctgagacctccgggacctgcccgtgctctctagaatcttcctgaacgccaggtctgagagaacgctgcggctctggaacccgttcgcggtctctcaggttttggagacgacgatctagtggatcttttgcgggacaggagcgctgtctgctagctgcttttcctgctctctctccctggaggcgaacccttgtgctcgagatggcagccaccctgctcatggctgggtcccaggcacctgtgacgtttgaagatatggccatgtatctcacccgggaagaatggagacctctggacgctgcacagagggacctttaccgggatgttatgcaggagaattatggaaatgttgtctcactagattttgagatcaggagtgagaacgaggtaaatcccaagcaagagattagtgaagatgtacaatttgggactacatctgaaagacctgctgagaatgctgaggaaaatcctgaaagtgaagagggctttgaaagcggagataggtcagaaagacaatggggagatttaacagcagaagagtgggtaagctatcctctccaaccagtcactgatctacttgtccacaaagaagtccacacaggcatccgctatcatatatgttctcattgtggaaaggccttcagtcagatctcagaccttaatcgacatcagaagacccacactggagacagaccctataaatgttatgaatgtggaaaaggcttcagtcgcagctcacaccttattcagcatcaaagaacacatactggggagaggccttatgactgtaacgagtgtgggaaaagttttggaagaagttctcacctgattcagcatcagacaatccacactggagagaagcctcacaaatgtaatgagtgtggaaaaagtttctgccgtctctctcacctaatccaacaccaaaggacccacagtggtgagaaaccctatgagtgtgaggagtgtgggaaaagcttcagccggagctctcacctagctcagcaccagaggacccacacgggtgagaaaccttatgaatgtaacgaatgtggccgaggcttcagtgagagatctgatctcatcaaacactatcgagtccacacaggggagaggccctacaagtgtgatgagtgtgggaagaatttcagtcagaactccgaccttgtgcgtcatcgcagagcccacacgggagagaagccataccactgtaacgaatgtggggaaaatttcagccgcatctcacacttggttcagcaccagagaactcacactggagagaagccatatgaatgcaatgcttgtgggaaaagcttcagccggagctctcatctcatcacacaccagaaaattcacactggagagaagccttatgagtgtaatgagtgttggcgaagctttggtgaaaggtcagatctaattaaacatcagagaacccacacaggggagaagccctacgagtgtgtgcagtgtgggaaaggtttcacccagagctccaacctcatcacacatcaaagagttcacacgggagagaaaccttatgaatgtaccgaatgtgagaagagtttcagcaggagctcagctcttattaaacataagagagttcatacggactaagctgtaattatgatggctgagaaatgattcatttgaagatacaattttatttgatatcaatgaacgccctcaagactgagctgcttttatcatactctcctagttgtgggccacgatttaaaccatcagagatgacaagccatttgaaattctgaccctcagctttgggaatgttatctcctccaaaatggtgatttttattcactcaatgggttacttcattaaaagcagccccacaagtaactggaaatctgaagaccaggggacaaatgctggtgaatgcttaggcctggaaatggagtaaatctttcaatgttattttctcccatccttggcccaaggaactatgctaagtgaaacgtgggactgtaatagggtggtaatggctgctttggaaaaaggcaactagagactctgcctaaattgccacacctattcacacaccatagtagttgggcacacacatcttcccttccaaagggctttttccttgagttgctcatgcatttgtatcttttccatcttcctgagggcaagattttgcacgatgaaggcaatgattgtaacttttctccttctcattgtttctaattagctcctttaaagcttgcatctttgtgaaggctaactgaagatacggttggaaaggaaaaatgagacacaggtttggggaccaaggacccatcaatgatggtgactttagcagaagatgcccacagttattactgccattaatcagatttatgaattttctttggggatcactatagggaatattgtatagaaaatatcttcaagaaaagataggaccatcagtgacagttaagtgtaaggagcaagtggaattgagtccttcagggaaggaaccacagagtcccttcccaaggaatgtaggtcgtttctgtgttctttcccttctaatctttaagatcaactcttcctatcctgctaactctaagatttgataagggccacatcccagtgtttatcttagcttgcatcagggcatgtgtatgtacagtaatgtgtattcctgtggtttttctaatagaaactgaatttacagagacttagcatgttcttgggtgatgtgagtcatgtgacagaagtacagacataactccaatgtgagaaatgtccttttttcattatggaaaataatttaaacactagtgctttagtgtgcactctcctgtaaggtctgtctttgtacagagctaagcacttgtttgtatgtgtttgtcaattgtggaagataatgaccagacaaataggtcgattgtcctattctcagaatgaattatcttctatggtaatgaagaactctttggcttagtcagaaggaattaacgaacctcggtaggaatgtatttccatcctcccaccctacagatataagaggttaaaataacagttcgcccaatttaagcccagtagtgtcagttttcctaatctcagtccaggtaggaattaagaaatatctcaagtgttgatgctatccaagcatgttggggtggaagggaattggtgcccagaaaatgggactggagtgaggaatatcttttcttttgagagtacccccagtttatttctactgtgctttattgctactgttctttattgtgaatgttgtaacattttaaaaatgttttgccatagctttttaggacttggtgttaaaggagccagtggtctctctgggtgggtactataatgagttattgtgacccacagctgtgtgggaccacatcacttgttaataacacaacctttaaagtaacccatcttccaggggggttccttcatgttgccactcctttttaaggacaaactcaggcaaggagcatgtttttttgttatttacaaaatctagcagactgtgggtatccatattttaattgtcgggtgacacatgttcttggtaactaaactcaaatatgtcttttctcatatatgttgctgatggttttaataaatgtcaaagttctcctgttgcttctgtgagccactatgggtatcagcttgggagtggccatagatgaccgcatttccatgacctaactgtatttcacccccttttccttccctactgttcttgccccaccccaaccagttcctgctgctgcttttggcttcttggaggtgaagggcttaaaacaaggcttctaagcacccagctatctccatacatgaacaatctagctgggaaacttaagggacaagggccacaccagctgtctcctctttctgccaattgttgcccgtttgctgtgttgaactttgtatagaactcatgcatcagactcccttcactaatgctttttgcatgccttctgctcccaagtccctggctgcctctgcacatcccgtgaacactttgtgcctgttttctatggttgtggagaattaatgaacaaatcaatatgtagaacagttttccttatggtattggtcacagttatcctagtgtttgtattattctaacaatattctataattaaaaatataatttttaaagtca"
+						.toUpperCase());
+		builderReverse.setGeneSymbol(reverseGeneSymbol);
+		return new JannovarData(refDict, ImmutableList.of(builderForward.build(), builderReverse.build()));
+	}
+
+	private GenomeVariant buildVariant(int pos, String ref, String alt) {
+		return new GenomeVariant(new GenomePosition(refDict, Strand.FWD, 1, pos, PositionType.ZERO_BASED), ref, alt);
+	}
+
+	private VariantAnnotationsCache buildCache(JannovarData data, String databaseID) throws AnnotationException {
+		VariantAnnotator annotator = new VariantAnnotator(data, new AnnotationBuilderOptions());
+		VariantAnnotationsCache cache = new VariantAnnotationsCache(databaseID, 100);
+		for (GenomeVariant change : changes)
+			cache.put(change, annotator.buildAnnotations(change));
+		return cache;
+	}
+
+	private String toVCFAnnoString(VariantAnnotations annos) {
+		StringBuilder builder = new StringBuilder();
+		for (Annotation anno : annos.getAnnotations())
+			builder.append(anno.toVCFAnnoString(annos.getAlt(), true, AminoAcidCode.ONE_LETTER))
+					.append(',');
+		return builder.toString();
+	}
+
+	@Test
+	public void testGetAndPut() throws AnnotationException {
+		VariantAnnotationsCache cache = buildCache(buildData(), "db");
+		Assert.assertEquals(changes.size(), cache.size());
+		Assert.assertNotNull(cache.get(buildVariant(6640669, "A", "T")));
+		Assert.assertNull(cache.get(buildVariant(6640669, "A", "C")));
+		Assert.assertEquals(1, cache.getHitCount());
+		Assert.assertEquals(1, cache.getMissCount());
+	}
+
+	@Test
+	public void testSaveAndLoad() throws AnnotationException, IOException {
+		File file = new File(tmpFolder.getRoot(), "cache.bin");
+		VariantAnnotationsCache cache = buildCache(buildData(), "db");
+		cache.save(file);
+
+		JannovarData data = buildData();
+		VariantAnnotationsCache loaded = new VariantAnnotationsCache("db", 100);
+		Assert.assertEquals(changes.size(), loaded.load(file, data));
+		for (GenomeVariant change : changes) {
+			VariantAnnotations expected = cache.get(change);
+			VariantAnnotations actual = loaded.get(change);
+			Assert.assertEquals(toVCFAnnoString(expected), toVCFAnnoString(actual));
+			Assert.assertSame(data.getRefDict(), actual.getGenomeVariant().getGenomePos().getRefDict());
+			for (Annotation anno : actual.getAnnotations())
+				if (anno.getTranscript() != null)
+					Assert.assertSame(data.getTmByAccession().get(anno.getTranscript().getAccession()),
+							anno.getTranscript());
+		}
+	}
+
+	@Test
+	public void testLoadOtherDatabaseID() throws AnnotationException, IOException {
+		File file = new File(tmpFolder.getRoot(), "cache.bin");
+		buildCache(buildData(), "db").save(file);
+
+		VariantAnnotationsCache loaded = new VariantAnnotationsCache("other", 100);
+		Assert.assertEquals(0, loaded.load(file, buildData()));
+		Assert.assertEquals(0, loaded.size());
+	}
+
+	@Test
+	public void testUpdate() throws AnnotationException {
+		JannovarData oldData = buildData();
+		VariantAnnotationsCache cache = buildCache(oldData, "db");
+		JannovarData newData = buildData("ZNF436-NEW");
+		VariantAnnotator annotator = new VariantAnnotator(newData, new AnnotationBuilderOptions());
+		VariantAnnotationsCache updated = cache.update(new TranscriptModelDiff(oldData, newData), newData, annotator,
+				"db2");
+
+		Assert.assertEquals("db2", updated.getDatabaseID());
+		Assert.assertEquals(changes.size(), updated.size());
+		for (GenomeVariant change : changes) {
+			VariantAnnotations actual = updated.get(change);
+			Assert.assertEquals(toVCFAnnoString(annotator.buildAnnotations(change)), toVCFAnnoString(actual));
+			for (Annotation anno : actual.getAnnotations())
+				if (anno.getTranscript() != null)
+					Assert.assertSame(newData.getTmByAccession().get(anno.getTranscript().getAccession()),
+							anno.getTranscript());
+		}
+	}
+
+	@Test
+	public void testUpdateOnlyAnnotatesAffected() throws AnnotationException {
+		JannovarData oldData = buildData();
+		VariantAnnotationsCache cache = buildCache(oldData, "db");
+		// replace the results for SNVs by the ones for another base, these are kept unless annotating again
+		VariantAnnotator oldAnnotator = new VariantAnnotator(oldData, new AnnotationBuilderOptions());
+		for (GenomeVariant change : changes) {
+			if (change.getRef().length() != 1 || change.getAlt().length() != 1)
+				continue;
+			GenomeVariant other = new GenomeVariant(change.getGenomePos(), change.getRef(),
+					change.getAlt().equals("A") ? "G" : "A");
+			cache.put(change, new VariantAnnotations(change, oldAnnotator.buildAnnotations(other).getAnnotations()));
+		}
+		JannovarData newData = buildData("ZNF436-NEW");
+		VariantAnnotator annotator = new VariantAnnotator(newData, new AnnotationBuilderOptions());
+		VariantAnnotationsCache updated = cache.update(new TranscriptModelDiff(oldData, newData), newData, annotator,
+				"db2");
+
+		// variants in the forward strand transcript are kept
+		for (GenomeVariant change : new GenomeVariant[] { buildVariant(6640669, "A", "T"),
+				buildVariant(6640600, "A", "G") })
+			Assert.assertNotEquals(toVCFAnnoString(annotator.buildAnnotations(change)),
+					toVCFAnnoString(updated.get(change)));
+		// variants in the reverse strand transcript and between the transcripts are annotated again
+		for (GenomeVariant change : new GenomeVariant[] { buildVariant(23688461, "C", "A"),
+				buildVariant(15000000, "T", "C") })
+			Assert.assertEquals(toVCFAnnoString(annotator.buildAnnotations(change)),
+					toVCFAnnoString(updated.get(change)));
+	}
+
+}
@@ -0,0 +1,120 @@
+package de.charite.compbio.jannovar.annotation.builders;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.google.common.collect.ImmutableSortedSet;
+
+import de.charite.compbio.jannovar.annotation.Annotation;
+import de.charite.compbio.jannovar.annotation.InvalidGenomeVariant;
+import de.charite.compbio.jannovar.annotation.VariantEffect;
+import de.charite.compbio.jannovar.data.ReferenceDictionary;
+import de.charite.compbio.jannovar.hgvs.AminoAcidCode;
+import de.charite.compbio.jannovar.reference.GenomePosition;
+import de.charite.compbio.jannovar.reference.GenomeVariant;
+import de.charite.compbio.jannovar.reference.HG19RefDictBuilder;
+import de.charite.compbio.jannovar.reference.PositionType;
+import de.charite.compbio.jannovar.reference.Strand;
+import de.charite.compbio.jannovar.reference.TranscriptModel;
+import de.charite.compbio.jannovar.reference.TranscriptModelFactory;
+
+/**
+ * Tests for {@link OffTranscriptAnnotationBuilder}, comparing with the results of {@link AnnotationBuilderDispatcher}
+ */
+public class OffTranscriptAnnotationBuilderTest {
+
+	/** this test uses this static hg19 reference dictionary */
+	static final ReferenceDictionary refDict = HG19RefDictBuilder.build();
+	/** coding transcript on forward strand */
+	TranscriptModel infoForward;
+	/** coding transcript on reverse strand */
+	TranscriptModel infoReverse;
+	/** non-coding transcript on forward strand */
+	TranscriptModel infoNonCoding;
+
+	@Before
+	public void setUp() {
+		this.infoForward = TranscriptModelFactory.parseKnownGenesLine(refDict,
+				"uc001anx.3	chr1	+	6640062	6649340	6640669	6649272	11	6640062,6640600,6642117,6645978,6646754,6647264,6647537,6648119,6648337,6648815,6648975,	6640196,6641359,6642359,6646090,6646847,6647351,6647692,6648256,6648502,6648904,6649340,	P10074	uc001anx.3")
+				.build();
+		this.infoReverse = TranscriptModelFactory.parseKnownGenesLine(refDict,
+				"uc001bgu.3	chr1	-	23685940	23696357	23688461	23694498	4	23685940,23693534,23694465,23695858,	23689714,23693661,23694558,23696357,	Q9C0F3	uc001bgu.3")
+				.build();
+		this.infoNonCoding = TranscriptModelFactory.parseKnownGenesLine(refDict,
+				"uc001anx.3	chr1	+	6640062	6649340	6640062	6640062	11	6640062,6640600,6642117,6645978,6646754,6647264,6647537,6648119,6648337,6648815,6648975,	6640196,6641359,6642359,6646090,6646847,6647351,6647692,6648256,6648502,6648904,6649340,	P10074	uc001anx.3")
+				.build();
+	}
+
+	private GenomeVariant buildVariant(int pos, String ref, String alt) {
+		return new GenomeVariant(new GenomePosition(refDict, Strand.FWD, 1, pos, PositionType.ZERO_BASED), ref, alt);
+	}
+
+	private Annotation build(TranscriptModel transcript, GenomeVariant change) {
+		Assert.assertTrue(OffTranscriptAnnotationBuilder.isApplicable(transcript, change));
+		return new OffTranscriptAnnotationBuilder(transcript, change).build();
+	}
+
+	@Test
+	public void testForwardUpstream() {
+		Annotation anno = build(infoForward, buildVariant(6640061 - 1, "T", "A"));
+		Assert.assertEquals(infoForward.getAccession(), anno.getTranscript().getAccession());
+		Assert.assertEquals(null, anno.getAnnoLoc());
+		Assert.assertEquals(null, anno.getGenomicNTChange());
+		Assert.assertEquals(null, anno.getCDSNTChange());
+		Assert.assertEquals(null, anno.getProteinChange());
+		Assert.assertEquals(ImmutableSortedSet.of(VariantEffect.UPSTREAM_GENE_VARIANT), anno.getEffects());
+	}
+
+	@Test
+	public void testForwardDownstream() {
+		Annotation anno = build(infoForward, buildVariant(6649340 + 1, "", "A"));
+		Assert.assertEquals(ImmutableSortedSet.of(VariantEffect.DOWNSTREAM_GENE_VARIANT), anno.getEffects());
+	}
+
+	@Test
+	public void testReverseUpstream() {
+		Annotation anno = build(infoReverse, buildVariant(23696357 + 500, "TT", ""));
+		Assert.assertEquals(ImmutableSortedSet.of(VariantEffect.UPSTREAM_GENE_VARIANT), anno.getEffects());
+		Assert.assertEquals(Strand.FWD, anno.getGenomeVariant().getGenomePos().getStrand());
+	}
+
+	@Test
+	public void testForwardIntergenic() {
+		Annotation anno = build(infoForward, buildVariant(6640062 - 2000, "T", "A"));
+		Assert.assertEquals(ImmutableSortedSet.of(VariantEffect.INTERGENIC_VARIANT), anno.getEffects());
+	}
+
+	@Test
+	public void testNotApplicableNextToTranscript() {
+		Assert.assertFalse(OffTranscriptAnnotationBuilder.isApplicable(infoForward, buildVariant(6640061, "T", "A")));
+		Assert.assertFalse(OffTranscriptAnnotationBuilder.isApplicable(infoForward, buildVariant(6649340, "", "A")));
+		Assert.assertFalse(OffTranscriptAnnotationBuilder.isApplicable(infoReverse, buildVariant(23685938, "TT", "")));
+		Assert.assertFalse(OffTranscriptAnnotationBuilder.isApplicable(infoReverse, buildVariant(23690000, "T", "A")));
+	}
+
+	@Test
+	public void testSameAsDispatcher() throws InvalidGenomeVariant {
+		final String[][] alleles = { { "T", "A" }, { "", "TTG" }, { "TCT", "" }, { "TC", "GGT" }, { "TC", "CA" } };
+		for (TranscriptModel transcript : new TranscriptModel[] { infoForward, infoReverse, infoNonCoding }) {
+			for (int border : new int[] { transcript.getTXRegion().getBeginPos(),
+					transcript.getTXRegion().getEndPos() }) {
+				for (int offset = -1005; offset <= 1005; ++offset) {
+					for (String[] refAlt : alleles) {
+						final GenomeVariant change = buildVariant(border + offset, refAlt[0], refAlt[1]);
+						if (!OffTranscriptAnnotationBuilder.isApplicable(transcript, change))
+							continue;
+						final Annotation expected = new AnnotationBuilderDispatcher(transcript, change,
+								new AnnotationBuilderOptions()).build();
+						final Annotation actual = new OffTranscriptAnnotationBuilder(transcript, change).build();
+						Assert.assertEquals(expected.getEffects(), actual.getEffects());
+						Assert.assertEquals(expected.getGenomeVariant(), actual.getGenomeVariant());
+						Assert.assertEquals(expected.toVCFAnnoString(change.getAlt(), true, AminoAcidCode.ONE_LETTER),
+								actual.toVCFAnnoString(change.getAlt(), true, AminoAcidCode.ONE_LETTER));
+					}
+				}
+			}
+		}
+	}
+
+}
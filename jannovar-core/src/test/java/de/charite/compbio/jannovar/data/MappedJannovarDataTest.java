@@ -0,0 +1,136 @@
+package de.charite.compbio.jannovar.data;
+
+import java.io.File;
+import java.io.IOException;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import com.google.common.collect.ImmutableList;
+
+import de.charite.compbio.jannovar.reference.HG19RefDictBuilder;
+import de.charite.compbio.jannovar.reference.Strand;
+import de.charite.compbio.jannovar.reference.TranscriptModel;
+import de.charite.compbio.jannovar.reference.TranscriptModelBuilder;
+import de.charite.compbio.jannovar.reference.TranscriptModelFactory;
+
+/**
+ * Tests for writing and reading the {@link JannovarDataFormat#MAPPED} format.
+ */
+public class MappedJannovarDataTest {
+
+	@Rule
+	public TemporaryFolder tmpFolder = new TemporaryFolder();
+
+	/** this test uses this static hg19 reference dictionary */
+	static final ReferenceDictionary refDict = HG19RefDictBuilder.build();
+
+	/** transcript on forward strand */
+	TranscriptModel infoForward;
+	/** transcript on reverse strand */
+	TranscriptModel infoReverse;
+	/** path to the written file */
+	String path;
+
+	@Before
+	public void setUp() throws IOException, SerializationException {
+		TranscriptModelBuilder builderForward = TranscriptModelFactory.parseKnownGenesLine(refDict,
+				"uc001anx.3	chr1	+	6640062	6649340	6640669	6649272	11	6640062,6640600,6642117,6645978,6646754,6647264,6647537,6648119,6648337,6648815,6648975,	6640196,6641359,6642359,6646090,6646847,6647351,6647692,6648256,6648502,6648904,6649340,	P10074	uc001anx.3");
+		builderForward.setSequence("ACGTACGTAC");
+		builderForward.setGeneSymbol("ZBTB48");
+		builderForward.setGeneID("ENTREZ3104");
+		builderForward.getAltGeneIDs().put("HGNC_ID", "HGNC:4930");
+		this.infoForward = builderForward.build();
+
+		TranscriptModelBuilder builderReverse = TranscriptModelFactory.parseKnownGenesLine(refDict,
+				"uc001bgu.3	chr1	-	23685940	23696357	23688461	23694498	4	23685940,23693534,23694465,23695858,	23689714,23693661,23694558,23696357,	Q9C0F3	uc001bgu.3");
+		builderReverse.setSequence("TTTTGGGGCCCCAAAA");
+		builderReverse.setGeneSymbol("ZNF436");
+		this.infoReverse = builderReverse.build();
+
+		this.path = new File(tmpFolder.getRoot(), "mapped.ser").toString();
+		JannovarData data = new JannovarData(refDict, ImmutableList.of(infoReverse, infoForward));
+		new JannovarDataSerializer(path).save(data, JannovarDataFormat.MAPPED);
+	}
+
+	@Test
+	public void testDetectFormat() throws SerializationException {
+		Assert.assertEquals(JannovarDataFormat.MAPPED, new JannovarDataSerializer(path).detectFormat());
+	}
+
+	@Test
+	public void testColumnAccess() throws SerializationException, IOException {
+		try (MappedJannovarData mapped = new MappedJannovarData(path)) {
+			Assert.assertEquals(2, mapped.getTranscriptCount());
+			Assert.assertEquals(0, mapped.getFirstTranscriptIndex(1));
+			Assert.assertEquals(2, mapped.getEndTranscriptIndex(1));
+			Assert.assertEquals(mapped.getFirstTranscriptIndex(2), mapped.getEndTranscriptIndex(2));
+
+			// sorted by begin position
+			Assert.assertEquals("uc001anx.3", mapped.getAccession(0));
+			Assert.assertEquals("ZBTB48", mapped.getGeneSymbol(0));
+			Assert.assertEquals(Strand.FWD, mapped.getStrand(0));
+			Assert.assertEquals(6640062, mapped.getTxBeginFwd(0));
+			Assert.assertEquals(6649340, mapped.getTxEndFwd(0));
+			Assert.assertEquals(11, mapped.getExonCount(0));
+			Assert.assertEquals("uc001bgu.3", mapped.getAccession(1));
+			Assert.assertEquals(Strand.REV, mapped.getStrand(1));
+			Assert.assertEquals(23685940, mapped.getTxBeginFwd(1));
+			Assert.assertEquals(23696357, mapped.getTxEndFwd(1));
+			Assert.assertEquals("GGGG", mapped.getSequence(1, 4, 8));
+
+			Assert.assertEquals(1, mapped.findTranscript("uc001bgu.3"));
+			Assert.assertEquals(-1, mapped.findTranscript("uc001xxx.1"));
+		}
+	}
+
+	@Test
+	public void testRoundTrip() throws SerializationException {
+		JannovarData data = new JannovarDataSerializer(path).load();
+		Assert.assertEquals(refDict.getContigNameToID(), data.getRefDict().getContigNameToID());
+		Assert.assertEquals(refDict.getContigIDToName(), data.getRefDict().getContigIDToName());
+		Assert.assertEquals(refDict.getContigIDToLength(), data.getRefDict().getContigIDToLength());
+		Assert.assertEquals(infoForward, data.getTmByAccession().get("uc001anx.3"));
+		Assert.assertEquals(infoForward.getAltGeneIDs(), data.getTmByAccession().get("uc001anx.3").getAltGeneIDs());
+		Assert.assertEquals(infoReverse, data.getTmByAccession().get("uc001bgu.3"));
+		Assert.assertEquals(2, data.getChromosomes().get(1).getNumberOfGenes());
+	}
+
+	@Test
+	public void testLazySequence() throws SerializationException {
+		TranscriptModel tm = new JannovarDataSerializer(path).load().getTmByAccession().get("uc001bgu.3");
+		Assert.assertTrue(tm.hasLazySequence());
+		Assert.assertEquals(16, tm.getSequenceLength());
+		Assert.assertEquals("GGGGCCCC", tm.getSubsequence(4, 12));
+		Assert.assertEquals("TTTTGGGGCCCCAAAA", tm.getSequence());
+	}
+
+	@Test
+	public void testLazyChromosomes() throws SerializationException {
+		JannovarData data = new JannovarDataSerializer(path).load();
+		Assert.assertTrue(data.isLazy());
+		Assert.assertEquals(2, data.getChromosome(1).getNumberOfGenes());
+		Assert.assertSame(data.getChromosome(1), data.getChromosome(1));
+		Assert.assertEquals(0, data.getChromosome(2).getNumberOfGenes());
+		Assert.assertNull(data.getChromosome(12345));
+		Assert.assertSame(data.getChromosome(1), data.getChromosomes().get(1));
+		Assert.assertEquals(refDict.getContigIDToName().size(), data.getChromosomes().size());
+		Assert.assertEquals(infoReverse, data.getTmByAccession().get("uc001bgu.3"));
+		Assert.assertEquals(1, data.getTmByGeneSymbol().get("ZBTB48").size());
+	}
+
+	@Test
+	public void testSaveLegacyFromMapped() throws SerializationException {
+		JannovarData data = new JannovarDataSerializer(path).load();
+		final String legacyPath = new File(tmpFolder.getRoot(), "legacy.ser").toString();
+		new JannovarDataSerializer(legacyPath).save(data);
+
+		TranscriptModel tm = new JannovarDataSerializer(legacyPath).load().getTmByAccession().get("uc001bgu.3");
+		Assert.assertFalse(tm.hasLazySequence());
+		Assert.assertEquals(infoReverse, tm);
+	}
+
+}
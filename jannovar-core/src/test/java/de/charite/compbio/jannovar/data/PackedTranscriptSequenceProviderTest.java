@@ -0,0 +1,83 @@
+package de.charite.compbio.jannovar.data;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.google.common.collect.ImmutableList;
+
+import de.charite.compbio.jannovar.reference.CDSPosition;
+import de.charite.compbio.jannovar.reference.HG19RefDictBuilder;
+import de.charite.compbio.jannovar.reference.InvalidCodonException;
+import de.charite.compbio.jannovar.reference.TranscriptModel;
+import de.charite.compbio.jannovar.reference.TranscriptModelBuilder;
+import de.charite.compbio.jannovar.reference.TranscriptModelFactory;
+import de.charite.compbio.jannovar.reference.TranscriptPosition;
+import de.charite.compbio.jannovar.reference.TranscriptSequenceDecorator;
+
+/**
+ * Tests for {@link PackedTranscriptSequenceProvider} and {@link JannovarData#withPackedSequences()}
+ */
+public class PackedTranscriptSequenceProviderTest {
+
+	/** this test uses this static hg19 reference dictionary */
+	static final ReferenceDictionary refDict = HG19RefDictBuilder.build();
+
+	/** sequences to pack, crossing the boundaries of the packed words */
+	static final ImmutableList<String> SEQUENCES = ImmutableList.of("ACGTACGTAC", "",
+			"TTTTGGGGCCCCAAAATTTTGGGGCCCCAAAATTTTGGGGCCCCAAAA", "NNACGTNNNNacgtRYACGTN");
+
+	PackedTranscriptSequenceProvider provider;
+
+	@Before
+	public void setUp() {
+		this.provider = new PackedTranscriptSequenceProvider(SEQUENCES);
+	}
+
+	@Test
+	public void testGetSequence() {
+		for (int i = 0; i < SEQUENCES.size(); ++i) {
+			Assert.assertEquals(SEQUENCES.get(i).length(), provider.getSequenceLength(i));
+			Assert.assertEquals(SEQUENCES.get(i), provider.getSequence(i));
+		}
+	}
+
+	@Test
+	public void testGetSubsequence() {
+		for (int i = 0; i < SEQUENCES.size(); ++i) {
+			final String seq = SEQUENCES.get(i);
+			for (int begin = 0; begin <= seq.length(); ++begin)
+				for (int end = begin; end <= seq.length(); ++end)
+					Assert.assertEquals(seq.substring(begin, end), provider.getSubsequence(i, begin, end));
+		}
+	}
+
+	@Test(expected = StringIndexOutOfBoundsException.class)
+	public void testGetSubsequenceOutOfBounds() {
+		provider.getSubsequence(0, 5, 11);
+	}
+
+	@Test
+	public void testWithPackedSequences() throws InvalidCodonException {
+		TranscriptModelBuilder builder = TranscriptModelFactory.parseKnownGenesLine(refDict,
+				"uc001anx.3	chr1	+	6640062	6649340	6640669	6649272	11	6640062,6640600,6642117,6645978,6646754,6647264,6647537,6648119,6648337,6648815,6648975,	6640196,6641359,6642359,6646090,6646847,6647351,6647692,6648256,6648502,6648904,6649340,	P10074	uc001anx.3");
+		builder.setSequence("ACGTACGTACNNGTACGTAC");
+		builder.setGeneSymbol("ZBTB48");
+		builder.getAltGeneIDs().put("HGNC_ID", "HGNC:4930");
+		final TranscriptModel tm = builder.build();
+		final JannovarData data = new JannovarData(refDict, ImmutableList.of(tm)).withPackedSequences();
+
+		final TranscriptModel packedTM = data.getTmByAccession().get("uc001anx.3");
+		Assert.assertTrue(packedTM.hasLazySequence());
+		Assert.assertEquals(tm, packedTM);
+		Assert.assertEquals(tm.getAltGeneIDs(), packedTM.getAltGeneIDs());
+		Assert.assertEquals(1, data.getChromosome(1).getTMIntervalTree().size());
+
+		final TranscriptSequenceDecorator decorator = new TranscriptSequenceDecorator(packedTM);
+		Assert.assertEquals("CNN", decorator.getCodonAt(new TranscriptPosition(packedTM, 10),
+				new CDSPosition(packedTM, 10)));
+		Assert.assertEquals("CNNGTA", decorator.getCodonsStartingFrom(new TranscriptPosition(packedTM, 9),
+				new CDSPosition(packedTM, 9), 2));
+	}
+
+}
@@ -0,0 +1,79 @@
+package de.charite.compbio.jannovar.data;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.google.common.collect.ImmutableList;
+
+import de.charite.compbio.jannovar.reference.HG19RefDictBuilder;
+import de.charite.compbio.jannovar.reference.TranscriptModel;
+import de.charite.compbio.jannovar.reference.TranscriptModelBuilder;
+import de.charite.compbio.jannovar.reference.TranscriptModelFactory;
+
+/**
+ * Tests for {@link TranscriptModelDiff}
+ */
+public class TranscriptModelDiffTest {
+
+	/** this test uses this static hg19 reference dictionary */
+	static final ReferenceDictionary refDict = HG19RefDictBuilder.build();
+
+	/** transcript on forward strand, in both data objects */
+	TranscriptModel infoForward;
+	/** transcript on reverse strand, old version */
+	TranscriptModel infoReverseOld;
+	/** transcript on reverse strand, new version with other gene symbol */
+	TranscriptModel infoReverseNew;
+	/** transcript only in old data */
+	TranscriptModel infoRemoved;
+	/** transcript only in new data */
+	TranscriptModel infoAdded;
+
+	private TranscriptModel build(String line, String geneSymbol) {
+		TranscriptModelBuilder builder = TranscriptModelFactory.parseKnownGenesLine(refDict, line);
+		builder.setGeneSymbol(geneSymbol);
+		return builder.build();
+	}
+
+	@Before
+	public void setUp() {
+		this.infoForward = build(
+				"uc001anx.3	chr1	+	6640062	6649340	6640669	6649272	11	6640062,6640600,6642117,6645978,6646754,6647264,6647537,6648119,6648337,6648815,6648975,	6640196,6641359,6642359,6646090,6646847,6647351,6647692,6648256,6648502,6648904,6649340,	P10074	uc001anx.3",
+				"ZBTB48");
+		final String reverseLine = "uc001bgu.3	chr1	-	23685940	23696357	23688461	23694498	4	23685940,23693534,23694465,23695858,	23689714,23693661,23694558,23696357,	Q9C0F3	uc001bgu.3";
+		this.infoReverseOld = build(reverseLine, "ZNF436");
+		this.infoReverseNew = build(reverseLine, "ZNF436-NEW");
+		this.infoRemoved = build("uc001xxx.1	chr1	+	30000000	30001000	30000000	30000000	1	30000000,	30001000,	X	X",
+				"REMOVED");
+		this.infoAdded = build("uc001yyy.1	chr2	+	40000000	40001000	40000000	40000000	1	40000000,	40001000,	X	X",
+				"ADDED");
+	}
+
+	@Test
+	public void testDiff() {
+		JannovarData oldData = new JannovarData(refDict, ImmutableList.of(infoForward, infoReverseOld, infoRemoved));
+		JannovarData newData = new JannovarData(refDict, ImmutableList.of(infoForward, infoReverseNew, infoAdded));
+		TranscriptModelDiff diff = new TranscriptModelDiff(oldData, newData);
+
+		Assert.assertTrue(diff.isSameContigs());
+		Assert.assertFalse(diff.isEmpty());
+		Assert.assertEquals(ImmutableList.of("uc001yyy.1"), diff.getAdded());
+		Assert.assertEquals(ImmutableList.of("uc001xxx.1"), diff.getRemoved());
+		Assert.assertEquals(ImmutableList.of("uc001bgu.3"), diff.getChanged());
+
+		Assert.assertFalse(diff.overlapsWithChanges(1, 6640000, 6650000));
+		Assert.assertTrue(diff.overlapsWithChanges(1, 23690000, 23690001));
+		Assert.assertTrue(diff.overlapsWithChanges(1, 30000999, 30001000));
+		Assert.assertFalse(diff.overlapsWithChanges(1, 30001000, 30002000));
+		Assert.assertTrue(diff.overlapsWithChanges(2, 0, Integer.MAX_VALUE));
+		Assert.assertFalse(diff.overlapsWithChanges(3, 0, Integer.MAX_VALUE));
+	}
+
+	@Test
+	public void testSameData() {
+		JannovarData data = new JannovarData(refDict, ImmutableList.of(infoForward, infoReverseOld));
+		Assert.assertTrue(new TranscriptModelDiff(data, data).isEmpty());
+	}
+
+}
@@ -0,0 +1,127 @@
+package de.charite.compbio.jannovar.impl.intervals;
+
+import java.util.ArrayList;
+import java.util.Random;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class IntervalIndexTest {
+
+	static class Pair {
+
+		final int beginPos;
+		final int endPos;
+
+		Pair(int beginPos, int endPos) {
+			this.beginPos = beginPos;
+			this.endPos = endPos;
+		}
+
+		@Override
+		public String toString() {
+			return "Pair [beginPos=" + beginPos + ", endPos=" + endPos + "]";
+		}
+
+	}
+
+	static class PairEndExtractor implements IntervalEndExtractor<Pair> {
+
+		public int getBegin(Pair pair) {
+			return pair.beginPos;
+		}
+
+		public int getEnd(Pair pair) {
+			return pair.endPos;
+		}
+
+	}
+
+	private ArrayList<Pair> getList() {
+		ArrayList<Pair> lst = new ArrayList<Pair>();
+		lst.add(new Pair(1, 4));
+		lst.add(new Pair(5, 9));
+		lst.add(new Pair(4, 8));
+		lst.add(new Pair(5, 7));
+		lst.add(new Pair(16, 20));
+		lst.add(new Pair(11, 16));
+		lst.add(new Pair(30, 67));
+		return lst;
+	}
+
+	@Test
+	public void testSearchOverlapping() {
+		IntervalIndex<Pair> index = new IntervalIndex<Pair>(getList(), new PairEndExtractor());
+		MutableQueryResult<Pair> res = new MutableQueryResult<Pair>();
+		index.findOverlappingWithInterval(6, 8, res);
+
+		Assert.assertEquals(3, res.getEntries().size());
+		Assert.assertEquals(4, res.getEntries().get(0).beginPos);
+		Assert.assertEquals(5, res.getEntries().get(1).beginPos);
+		Assert.assertEquals(7, res.getEntries().get(1).endPos);
+		Assert.assertEquals(9, res.getEntries().get(2).endPos);
+		Assert.assertNull(res.getLeft());
+		Assert.assertNull(res.getRight());
+	}
+
+	@Test
+	public void testSearchNeighbors() {
+		IntervalIndex<Pair> index = new IntervalIndex<Pair>(getList(), new PairEndExtractor());
+		MutableQueryResult<Pair> res = new MutableQueryResult<Pair>();
+		index.findOverlappingWithPoint(6, res); // fill result before reuse
+		index.findOverlappingWithPoint(20, res);
+
+		Assert.assertEquals(0, res.getEntries().size());
+		Assert.assertEquals(16, res.getLeft().beginPos);
+		Assert.assertEquals(30, res.getRight().beginPos);
+
+		index.findOverlappingWithInterval(512, 513, res);
+		Assert.assertEquals(0, res.getEntries().size());
+		Assert.assertEquals(30, res.getLeft().beginPos);
+		Assert.assertNull(res.getRight());
+	}
+
+	@Test
+	public void testEmpty() {
+		IntervalIndex<Pair> index = new IntervalIndex<Pair>(new ArrayList<Pair>(), new PairEndExtractor());
+		MutableQueryResult<Pair> res = new MutableQueryResult<Pair>();
+		index.findOverlappingWithPoint(10, res);
+
+		Assert.assertEquals(0, index.size());
+		Assert.assertEquals(0, res.getEntries().size());
+		Assert.assertNull(res.getLeft());
+		Assert.assertNull(res.getRight());
+	}
+
+	/** Compare query results with {@link IntervalArray} on random intervals */
+	@Test
+	public void testSameAsIntervalArray() {
+		Random rnd = new Random(42);
+		ArrayList<Pair> lst = new ArrayList<Pair>();
+		for (int i = 0; i < 1000; ++i) {
+			final int begin = rnd.nextInt(100000);
+			lst.add(new Pair(begin, begin + 1 + rnd.nextInt(2000)));
+		}
+		IntervalArray<Pair> array = new IntervalArray<Pair>(lst, new PairEndExtractor());
+		IntervalIndex<Pair> index = new IntervalIndex<Pair>(array);
+		MutableQueryResult<Pair> res = new MutableQueryResult<Pair>();
+
+		for (int i = 0; i < 1000; ++i) {
+			final int begin = rnd.nextInt(110000);
+			final int end = begin + 1 + rnd.nextInt(10);
+
+			IntervalArray<Pair>.QueryResult expected = array.findOverlappingWithInterval(begin, end);
+			index.findOverlappingWithInterval(begin, end, res);
+			Assert.assertEquals(expected.getEntries(), res.getEntries());
+			Assert.assertSame(expected.getLeft(), res.getLeft());
+			Assert.assertSame(expected.getRight(), res.getRight());
+
+			expected = array.findOverlappingWithPoint(begin);
+			index.findOverlappingWithPoint(begin, res);
+			Assert.assertEquals(expected.getEntries(), res.getEntries());
+			Assert.assertSame(expected.getLeft(), res.getLeft());
+			Assert.assertSame(expected.getRight(), res.getRight());
+		}
+	}
+
+}
@@ -0,0 +1,98 @@
+package de.charite.compbio.jannovar.impl.intervals;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Random;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import de.charite.compbio.jannovar.impl.intervals.IntervalIndexTest.Pair;
+import de.charite.compbio.jannovar.impl.intervals.IntervalIndexTest.PairEndExtractor;
+
+public class IntervalSweepTest {
+
+	private IntervalIndex<Pair> buildIndex(Random rnd) {
+		ArrayList<Pair> lst = new ArrayList<Pair>();
+		for (int i = 0; i < 1000; ++i) {
+			final int begin = rnd.nextInt(100000);
+			lst.add(new Pair(begin, begin + 1 + rnd.nextInt(2000)));
+		}
+		return new IntervalIndex<Pair>(lst, new PairEndExtractor());
+	}
+
+	private void assertSameResult(MutableQueryResult<Pair> expected, MutableQueryResult<Pair> actual) {
+		Assert.assertEquals(expected.getEntries(), actual.getEntries());
+		Assert.assertSame(expected.getLeft(), actual.getLeft());
+		Assert.assertSame(expected.getRight(), actual.getRight());
+	}
+
+	@Test
+	public void testSearchOverlapping() {
+		IntervalIndex<Pair> index = new IntervalIndex<Pair>(Arrays.asList(new Pair(1, 4), new Pair(5, 9),
+				new Pair(4, 8), new Pair(5, 7), new Pair(16, 20), new Pair(11, 16), new Pair(30, 67)),
+				new PairEndExtractor());
+		IntervalSweep<Pair> sweep = new IntervalSweep<Pair>(index);
+		MutableQueryResult<Pair> res = new MutableQueryResult<Pair>();
+
+		sweep.findOverlappingWithInterval(6, 8, res);
+		Assert.assertEquals(3, res.getEntries().size());
+		Assert.assertEquals(4, res.getEntries().get(0).beginPos);
+		Assert.assertEquals(5, res.getEntries().get(1).beginPos);
+		Assert.assertEquals(7, res.getEntries().get(1).endPos);
+		Assert.assertEquals(9, res.getEntries().get(2).endPos);
+
+		sweep.findOverlappingWithPoint(20, res);
+		Assert.assertEquals(0, res.getEntries().size());
+		Assert.assertEquals(16, res.getLeft().beginPos);
+		Assert.assertEquals(30, res.getRight().beginPos);
+
+		// going back restarts the sweep
+		sweep.findOverlappingWithPoint(2, res);
+		Assert.assertEquals(1, res.getEntries().size());
+		Assert.assertEquals(1, res.getEntries().get(0).beginPos);
+	}
+
+	/** Compare sorted query results with {@link IntervalIndex} on random intervals */
+	@Test
+	public void testSameAsIntervalIndexSorted() {
+		Random rnd = new Random(42);
+		IntervalIndex<Pair> index = buildIndex(rnd);
+		IntervalSweep<Pair> sweep = new IntervalSweep<Pair>(index);
+		MutableQueryResult<Pair> expected = new MutableQueryResult<Pair>();
+		MutableQueryResult<Pair> actual = new MutableQueryResult<Pair>();
+
+		int begin = 0;
+		while (begin < 110000) {
+			final int end = begin + rnd.nextInt(10);
+			index.findOverlappingWithInterval(begin, end, expected);
+			sweep.findOverlappingWithInterval(begin, end, actual);
+			assertSameResult(expected, actual);
+
+			index.findOverlappingWithPoint(begin, expected);
+			sweep.findOverlappingWithPoint(begin, actual);
+			assertSameResult(expected, actual);
+
+			begin += rnd.nextInt(100);
+		}
+	}
+
+	/** Compare unsorted query results with {@link IntervalIndex} on random intervals */
+	@Test
+	public void testSameAsIntervalIndexUnsorted() {
+		Random rnd = new Random(42);
+		IntervalIndex<Pair> index = buildIndex(rnd);
+		IntervalSweep<Pair> sweep = new IntervalSweep<Pair>(index);
+		MutableQueryResult<Pair> expected = new MutableQueryResult<Pair>();
+		MutableQueryResult<Pair> actual = new MutableQueryResult<Pair>();
+
+		for (int i = 0; i < 1000; ++i) {
+			final int begin = rnd.nextInt(110000);
+			final int end = begin + 1 + rnd.nextInt(10);
+			index.findOverlappingWithInterval(begin, end, expected);
+			sweep.findOverlappingWithInterval(begin, end, actual);
+			assertSameResult(expected, actual);
+		}
+	}
+
+}
@@ -45,4 +45,29 @@ public class TranslatorTest {
 	public void testTranslateDna_tooLonger() throws AnnotationException {
 		Assert.assertEquals("T", translator.translateDNA("ACTG"));
 	}
+
+	/** Test for translateDNA() with codons containing 'N' and invalid characters */
+	@Test
+	public void testTranslateDna_invalid() throws AnnotationException {
+		Assert.assertEquals("MXS", translator.translateDNA("ATGANGAGT"));
+		Assert.assertEquals("M", translator.translateDNA("ATGA-GAGT"));
+		Assert.assertEquals("M", translator.translateDNA("ATGaGTAGT"));
+	}
+
+	/** Test for translateDNA() on all codons */
+	@Test
+	public void testTranslateDna_allCodons() throws AnnotationException {
+		final String nts = "ACGT";
+		StringBuilder dna = new StringBuilder();
+		for (int i = 0; i < 64; ++i)
+			dna.append(nts.charAt(i / 16)).append(nts.charAt((i / 4) % 4)).append(nts.charAt(i % 4));
+		Assert.assertEquals("KNKNTTTTRSRSIIMIQHQHPPPPRRRRLLLLEDEDAAAAGGGGVVVV*Y*YSSSS*CWCLFLF",
+				translator.translateDNA(dna.toString()));
+	}
+
+	/** Test for translateDNA3() */
+	@Test
+	public void testTranslateDna3() throws AnnotationException {
+		Assert.assertEquals("Met*SerX", translator.translateDNA3("ATGTAGAGTNAAG"));
+	}
 }
@@ -1,13 +1,17 @@
 package de.charite.compbio.jannovar.hgvs;
 
+import java.io.Serializable;
+
 import de.charite.compbio.jannovar.hgvs.protein.ProteinPointLocation;
 
 /**
  * Provide HGVS string representation of an element.
  *
+ * The elements are serializable so that annotations containing them can be written to disk.
+ *
  * @author <a href="mailto:manuel.holtgrewe@bihealth.de">Manuel Holtgrewe</a>
  */
-public interface ConvertibleToHGVSString {
+public interface ConvertibleToHGVSString extends Serializable {
 
 	/**
 	 * Return HGVS representation in three-letter amino acid code.
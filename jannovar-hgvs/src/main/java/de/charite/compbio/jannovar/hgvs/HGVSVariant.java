@@ -6,4 +6,6 @@ package de.charite.compbio.jannovar.hgvs;
  * @author <a href="mailto:manuel.holtgrewe@bihealth.de">Manuel Holtgrewe</a>
  */
 public abstract class HGVSVariant implements ConvertibleToHGVSString {
+
+	private static final long serialVersionUID = 1L;
 }
@@ -14,6 +14,8 @@ import de.charite.compbio.jannovar.hgvs.ConvertibleToHGVSString;
  */
 public class NucleotidePointLocation implements ConvertibleToHGVSString {
 
+	private static final long serialVersionUID = 1L;
+
 	/** 0-based base position */
 	final int basePos;
 	/** 1-based offset into the "gaps" of the coordinate system */
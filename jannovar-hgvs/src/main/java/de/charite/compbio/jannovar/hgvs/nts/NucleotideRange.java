@@ -14,6 +14,8 @@ import de.charite.compbio.jannovar.hgvs.ConvertibleToHGVSString;
  */
 public class NucleotideRange implements ConvertibleToHGVSString {
 
+	private static final long serialVersionUID = 1L;
+
 	/** position of the first base */
 	private final NucleotidePointLocation firstPos;
 	/** position of the last base */
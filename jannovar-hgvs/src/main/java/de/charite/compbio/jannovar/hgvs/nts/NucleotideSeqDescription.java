@@ -12,6 +12,8 @@ import de.charite.compbio.jannovar.hgvs.ConvertibleToHGVSString;
  */
 public class NucleotideSeqDescription implements ConvertibleToHGVSString {
 
+	private static final long serialVersionUID = 1L;
+
 	/** sentinel value for invalid nucleotide count */
 	public static final int INVALID_NT_COUNT = -1;
 
@@ -12,6 +12,8 @@ import de.charite.compbio.jannovar.hgvs.ConvertibleToHGVSString;
  */
 public abstract class NucleotideChange implements ConvertibleToHGVSString {
 
+	private static final long serialVersionUID = 1L;
+
 	/** change is only predicted and will be kept in parantheses */
 	private final boolean onlyPredicted;
 
@@ -12,6 +12,8 @@ import de.charite.compbio.jannovar.hgvs.nts.NucleotideSeqDescription;
  */
 public class NucleotideDuplication extends NucleotideChange {
 
+	private static final long serialVersionUID = 1L;
+
 	/** deleted range of nucleotides */
 	private final NucleotideRange range;
 	/** description of the deleted nucleotide sequence */
@@ -7,6 +7,8 @@ import de.charite.compbio.jannovar.hgvs.nts.NucleotideSeqDescription;
 
 public class NucleotideIndel extends NucleotideChange {
 
+	private static final long serialVersionUID = 1L;
+
 	/** range that is to deleted */
 	private final NucleotideRange range;
 	/** description of the to be deleted sequence */
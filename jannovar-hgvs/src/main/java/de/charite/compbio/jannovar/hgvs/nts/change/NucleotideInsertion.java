@@ -10,6 +10,8 @@ import de.charite.compbio.jannovar.hgvs.nts.NucleotideSeqDescription;
  */
 public class NucleotideInsertion extends NucleotideChange {
 
+	private static final long serialVersionUID = 1L;
+
 	/** range of length one giving the insertion location */
 	private final NucleotideRange range;
 	/** specification of the inserted Nucleotide sequence */
@@ -7,6 +7,8 @@ import de.charite.compbio.jannovar.hgvs.nts.NucleotideSeqDescription;
 
 public class NucleotideInversion extends NucleotideChange {
 
+	private static final long serialVersionUID = 1L;
+
 	/** deleted range of nucleotides */
 	private final NucleotideRange range;
 	/** description of the inverted nucleotide sequence */
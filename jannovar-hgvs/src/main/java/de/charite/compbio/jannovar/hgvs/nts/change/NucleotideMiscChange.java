@@ -7,6 +7,8 @@ package de.charite.compbio.jannovar.hgvs.nts.change;
  */
 public class NucleotideMiscChange extends NucleotideChange {
 
+	private static final long serialVersionUID = 1L;
+
 	/** type of the misc change */
 	private final NucleotideMiscChangeType changeType;
 
@@ -6,6 +6,8 @@ import de.charite.compbio.jannovar.hgvs.nts.NucleotideRange;
 
 public class NucleotideShortSequenceRepeatVariability extends NucleotideChange {
 
+	private static final long serialVersionUID = 1L;
+
 	/** range in the Nucleotide that has variable length */
 	private final NucleotideRange range;
 	/** lower bound on length, inclusive */
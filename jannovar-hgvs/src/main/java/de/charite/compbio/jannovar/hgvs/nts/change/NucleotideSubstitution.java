@@ -11,6 +11,8 @@ import de.charite.compbio.jannovar.hgvs.nts.NucleotidePointLocation;
  */
 public class NucleotideSubstitution extends NucleotideChange {
 
+	private static final long serialVersionUID = 1L;
+
 	/** position of the substituted base */
 	private final NucleotidePointLocation position;
 	/** String of length 1 with the original base */
@@ -15,6 +15,8 @@ import de.charite.compbio.jannovar.hgvs.SequenceType;
  */
 public class MultiAlleleNucleotideVariant extends NucleotideVariant {
 
+	private static final long serialVersionUID = 1L;
+
 	/** alleles */
 	protected final ImmutableList<NucleotideChangeAllele> alleles;
 
@@ -29,6 +29,8 @@ import de.charite.compbio.jannovar.hgvs.nts.change.NucleotideChange;
  */
 public final class NucleotideChangeAllele implements ConvertibleToHGVSString, List<NucleotideChange> {
 
+	private static final long serialVersionUID = 1L;
+
 	/** variant configuration on this allele */
 	protected final VariantConfiguration varConfig;
 	/** nucleotide changes that lie on the allele */
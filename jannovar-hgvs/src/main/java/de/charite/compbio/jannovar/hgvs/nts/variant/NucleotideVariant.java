@@ -13,6 +13,8 @@ import de.charite.compbio.jannovar.hgvs.SequenceType;
  */
 public abstract class NucleotideVariant extends HGVSVariant {
 
+	private static final long serialVersionUID = 1L;
+
 	public static final int NO_TRANSCRIPT_VERSION = -1;
 
 	/** type fo the underlying sequence */
@@ -17,6 +17,8 @@ import de.charite.compbio.jannovar.hgvs.nts.change.NucleotideChange;
  */
 public class SingleAlleleNucleotideVariant extends NucleotideVariant {
 
+	private static final long serialVersionUID = 1L;
+
 	protected final NucleotideChangeAllele allele;
 
 	/**
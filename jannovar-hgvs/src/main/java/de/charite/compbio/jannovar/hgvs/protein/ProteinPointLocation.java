@@ -11,6 +11,8 @@ import de.charite.compbio.jannovar.hgvs.Translator;
  */
 public class ProteinPointLocation implements ConvertibleToHGVSString {
 
+	private static final long serialVersionUID = 1L;
+
 	/** 1-letter code of the AA at this position */
 	private final String aa;
 	/** 0-based position in the protein */
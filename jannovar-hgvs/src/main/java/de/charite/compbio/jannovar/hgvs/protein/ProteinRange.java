@@ -17,6 +17,8 @@ import de.charite.compbio.jannovar.hgvs.ConvertibleToHGVSString;
  */
 public class ProteinRange implements ConvertibleToHGVSString {
 
+	private static final long serialVersionUID = 1L;
+
 	/** location of the first amino acid in the range */
 	private final ProteinPointLocation first;
 	/** location of the last amino acid in the range */
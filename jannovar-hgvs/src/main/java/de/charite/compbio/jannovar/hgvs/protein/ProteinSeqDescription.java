@@ -13,6 +13,8 @@ import de.charite.compbio.jannovar.hgvs.Translator;
  */
 public class ProteinSeqDescription implements ConvertibleToHGVSString {
 
+	private static final long serialVersionUID = 1L;
+
 	/** String of inserted amino acids, null if there are none */
 	private final String aas;
 	/** Length of amino acid string, fallback if {@link #aas} is empty */
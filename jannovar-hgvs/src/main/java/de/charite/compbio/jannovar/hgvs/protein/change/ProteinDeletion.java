@@ -13,6 +13,8 @@ import de.charite.compbio.jannovar.hgvs.protein.ProteinSeqDescription;
  */
 public class ProteinDeletion extends ProteinChange {
 
+	private static final long serialVersionUID = 1L;
+
 	/** range of one or more amino acids that are deleted */
 	private final ProteinRange range;
 	/** specification of the deleted characters, can be null */
@@ -8,6 +8,8 @@ import de.charite.compbio.jannovar.hgvs.protein.ProteinPointLocation;
 
 public class ProteinExtension extends ProteinChange {
 
+	private static final long serialVersionUID = 1L;
+
 	/** no terminal is encountered */
 	public static final int LEN_NO_TER = 0;
 
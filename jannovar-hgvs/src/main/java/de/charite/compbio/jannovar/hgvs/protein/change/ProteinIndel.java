@@ -13,6 +13,8 @@ import de.charite.compbio.jannovar.hgvs.protein.ProteinSeqDescription;
  */
 public class ProteinIndel extends ProteinChange {
 
+	private static final long serialVersionUID = 1L;
+
 	/** range that is to deleted */
 	private final ProteinRange range;
 	/** description of the to be deleted sequence */
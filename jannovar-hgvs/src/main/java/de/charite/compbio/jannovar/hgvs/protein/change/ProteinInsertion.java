@@ -11,6 +11,8 @@ import de.charite.compbio.jannovar.hgvs.protein.ProteinSeqDescription;
  */
 public class ProteinInsertion extends ProteinChange {
 
+	private static final long serialVersionUID = 1L;
+
 	/** range of length one giving the insertion location */
 	private final ProteinRange position;
 	/** specification of the inserted protein sequence */
@@ -9,6 +9,8 @@ import de.charite.compbio.jannovar.hgvs.AminoAcidCode;
  */
 public class ProteinMiscChange extends ProteinChange {
 
+	private static final long serialVersionUID = 1L;
+
 	/** type of the misc change */
 	private final ProteinMiscChangeType changeType;
 
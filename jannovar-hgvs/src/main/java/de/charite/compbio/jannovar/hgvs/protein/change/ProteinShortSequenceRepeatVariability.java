@@ -12,6 +12,8 @@ import de.charite.compbio.jannovar.hgvs.protein.ProteinRange;
  */
 public class ProteinShortSequenceRepeatVariability extends ProteinChange {
 
+	private static final long serialVersionUID = 1L;
+
 	/** range in the protein that has variable length */
 	private final ProteinRange range;
 	/** lower bound on length, inclusive */
@@ -11,6 +11,8 @@ import de.charite.compbio.jannovar.hgvs.protein.ProteinPointLocation;
  */
 public class ProteinSubstitution extends ProteinChange {
 
+	private static final long serialVersionUID = 1L;
+
 	/** location of the substituted amino acid */
 	private final ProteinPointLocation location;
 	/** target amino acid */
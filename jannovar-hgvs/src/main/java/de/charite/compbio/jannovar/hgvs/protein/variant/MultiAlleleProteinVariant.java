@@ -15,6 +15,8 @@ import de.charite.compbio.jannovar.hgvs.AminoAcidCode;
  */
 public class MultiAlleleProteinVariant extends ProteinVariant {
 
+	private static final long serialVersionUID = 1L;
+
 	/** alleles */
 	protected final ImmutableList<ProteinChangeAllele> alleles;
 
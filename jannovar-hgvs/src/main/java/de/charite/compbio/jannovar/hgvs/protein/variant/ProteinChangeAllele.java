@@ -29,6 +29,8 @@ import de.charite.compbio.jannovar.hgvs.protein.change.ProteinChange;
  */
 public final class ProteinChangeAllele implements ConvertibleToHGVSString, List<ProteinChange> {
 
+	private static final long serialVersionUID = 1L;
+
 	/** variant configuration on this allele */
 	protected final VariantConfiguration varConfig;
 	/** protein changes that lie on the allele */
@@ -12,6 +12,8 @@ import de.charite.compbio.jannovar.hgvs.HGVSVariant;
  */
 public abstract class ProteinVariant extends HGVSVariant {
 
+	private static final long serialVersionUID = 1L;
+
 	public static final int NO_PROTEIN_ISOFORM = -1;
 
 	/** reference ID */
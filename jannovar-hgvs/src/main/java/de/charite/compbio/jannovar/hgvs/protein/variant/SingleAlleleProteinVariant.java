@@ -17,6 +17,8 @@ import de.charite.compbio.jannovar.hgvs.protein.change.ProteinChange;
  */
 public class SingleAlleleProteinVariant extends ProteinVariant {
 
+	private static final long serialVersionUID = 1L;
+
 	protected final ProteinChangeAllele allele;
 
 	/**
@@ -1,6 +1,6 @@
 package de.charite.compbio.jannovar.hgvs.bridge;
 
-import htsjdk.samtools.reference.IndexedFastaSequenceFile;
+import htsjdk.samtools.reference.ReferenceSequenceFile;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -36,7 +36,7 @@ public class NucleotideChangeToGenomeVariantTranslator {
 	/** extraction of {@link GenomicRegion} from FASTA files */
 	private final GenomeRegionSequenceExtractor seqExtractor;
 
-	public NucleotideChangeToGenomeVariantTranslator(JannovarData jvDB, IndexedFastaSequenceFile indexedFasta) {
+	public NucleotideChangeToGenomeVariantTranslator(JannovarData jvDB, ReferenceSequenceFile indexedFasta) {
 		this.jvDB = jvDB;
 		this.seqExtractor = new GenomeRegionSequenceExtractor(jvDB, indexedFasta);
 	}
@@ -0,0 +1,272 @@
+package de.charite.compbio.jannovar.htsjdk;
+
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheStats;
+import com.google.common.util.concurrent.UncheckedExecutionException;
+
+import htsjdk.samtools.SAMException;
+import htsjdk.samtools.SAMSequenceDictionary;
+import htsjdk.samtools.reference.FastaSequenceIndex;
+import htsjdk.samtools.reference.FastaSequenceIndexEntry;
+import htsjdk.samtools.reference.IndexedFastaSequenceFile;
+import htsjdk.samtools.reference.ReferenceSequence;
+import htsjdk.samtools.reference.ReferenceSequenceFile;
+
+/**
+ * Random access to a FAI-indexed FASTA file through a size-bounded LRU cache of fixed-size pages.
+ *
+ * Lookups of the reference sequence during annotation are small (often single bases when shifting indels) and close
+ * to each other. This class reads the sequence in pages of {@link #DEFAULT_PAGE_SIZE} bases per contig and answers
+ * queries from the cached pages, such that neighbouring queries only read from the file once. Use
+ * {@link #getShared(String)} for sharing one object, and thus one open file and one cache, between all users of the
+ * same FASTA file (e.g., the variant normalizers of all database annotators).
+ *
+ * Objects of this class are thread-safe, except for {@link #nextSequence()} and {@link #reset()}, which iterate over
+ * the underlying file. Coordinates are one-based and inclusive as for {@link IndexedFastaSequenceFile}.
+ */
+public final class CachingReferenceSequenceFile implements ReferenceSequenceFile {
+
+	/** Default number of bases per page */
+	public static final int DEFAULT_PAGE_SIZE = 64 * 1024;
+
+	/** Default maximal size of the pages in the cache, in bytes */
+	public static final long DEFAULT_MAX_BYTES = 64L * 1024 * 1024;
+
+	/** Objects shared by all users, by canonical path of the FASTA file */
+	private static final ConcurrentHashMap<String, CachingReferenceSequenceFile> SHARED = new ConcurrentHashMap<>();
+
+	/** Underlying FASTA file, reads are synchronized on it */
+	private final IndexedFastaSequenceFile fasta;
+
+	/** FAI index of {@link #fasta} for looking up contig lengths */
+	private final FastaSequenceIndex index;
+
+	/** Number of bases per page */
+	private final int pageSize;
+
+	/** The cached pages */
+	private final Cache<PageKey, byte[]> pages;
+
+	/**
+	 * Open FASTA file with {@link #DEFAULT_PAGE_SIZE} and {@link #DEFAULT_MAX_BYTES}.
+	 *
+	 * @param fastaFile
+	 *            path to the FASTA file, the FAI index must be next to it
+	 * @throws FileNotFoundException
+	 *             if the FASTA file or its index could not be found
+	 */
+	public CachingReferenceSequenceFile(File fastaFile) throws FileNotFoundException {
+		this(fastaFile, DEFAULT_PAGE_SIZE, DEFAULT_MAX_BYTES);
+	}
+
+	/**
+	 * Open FASTA file.
+	 *
+	 * @param fastaFile
+	 *            path to the FASTA file, the FAI index must be next to it
+	 * @param pageSize
+	 *            number of bases per page
+	 * @param maxBytes
+	 *            maximal size of the pages in the cache, in bytes
+	 * @throws FileNotFoundException
+	 *             if the FASTA file or its index could not be found
+	 */
+	public CachingReferenceSequenceFile(File fastaFile, int pageSize, long maxBytes) throws FileNotFoundException {
+		if (pageSize < 1)
+			throw new IllegalArgumentException("Page size must be positive but was " + pageSize);
+		final File faiFile = new File(fastaFile.getPath() + ".fai");
+		if (!fastaFile.exists())
+			throw new FileNotFoundException("FASTA file " + fastaFile + " does not exist");
+		if (!faiFile.exists())
+			throw new FileNotFoundException("FASTA index file " + faiFile + " does not exist");
+		this.index = new FastaSequenceIndex(faiFile);
+		this.fasta = new IndexedFastaSequenceFile(fastaFile, index);
+		this.pageSize = pageSize;
+		this.pages = CacheBuilder.newBuilder().maximumWeight(maxBytes)
+				.weigher((PageKey key, byte[] page) -> page.length).recordStats().build();
+	}
+
+	/**
+	 * Return the object shared by all users of the FASTA file at <code>path</code>, opening it on first use.
+	 *
+	 * The returned object must not be closed.
+	 *
+	 * @param path
+	 *            path to the FASTA file, the FAI index must be next to it
+	 * @return shared {@link CachingReferenceSequenceFile} for <code>path</code>
+	 * @throws FileNotFoundException
+	 *             if the FASTA file or its index could not be found
+	 */
+	public static CachingReferenceSequenceFile getShared(String path) throws FileNotFoundException {
+		final File file = new File(path);
+		String key;
+		try {
+			key = file.getCanonicalPath();
+		} catch (IOException e) {
+			key = file.getAbsolutePath();
+		}
+		final CachingReferenceSequenceFile existing = SHARED.get(key);
+		if (existing != null)
+			return existing;
+		final CachingReferenceSequenceFile created = new CachingReferenceSequenceFile(file);
+		final CachingReferenceSequenceFile raced = SHARED.putIfAbsent(key, created);
+		return (raced != null) ? raced : created;
+	}
+
+	/** @return hit and miss statistics of the page cache */
+	public CacheStats stats() {
+		return pages.stats();
+	}
+
+	/**
+	 * Return the base at the given position.
+	 *
+	 * @param contig
+	 *            name of the contig in the FASTA file
+	 * @param pos
+	 *            one-based position on the contig
+	 * @return the base at <code>pos</code> as stored in the FASTA file
+	 * @throws SAMException
+	 *             if the contig is unknown or <code>pos</code> is out of its range
+	 */
+	public byte getBase(String contig, long pos) {
+		final long length = getContigLength(contig);
+		if (pos < 1 || pos > length)
+			throw new SAMException("Position " + pos + " is out of range of contig " + contig + " with length "
+					+ length);
+		final long pageIdx = (pos - 1) / pageSize;
+		return getPage(contig, pageIdx, length)[(int) (pos - 1 - pageIdx * pageSize)];
+	}
+
+	@Override
+	public ReferenceSequence getSubsequenceAt(String contig, long start, long stop) {
+		final FastaSequenceIndexEntry entry = getIndexEntry(contig);
+		final long length = entry.getSize();
+		if (start < 1 || start > stop + 1 || stop > length)
+			throw new SAMException("Invalid range " + start + "-" + stop + " on contig " + contig + " with length "
+					+ length);
+
+		final byte[] result = new byte[(int) (stop - start + 1)];
+		int offset = 0;
+		long pos = start - 1; // zero-based
+		while (pos < stop) {
+			final long pageIdx = pos / pageSize;
+			final long pageBegin = pageIdx * pageSize;
+			final byte[] page = getPage(contig, pageIdx, length);
+			final int count = (int) (Math.min(stop, pageBegin + page.length) - pos);
+			System.arraycopy(page, (int) (pos - pageBegin), result, offset, count);
+			offset += count;
+			pos += count;
+		}
+		return new ReferenceSequence(contig, entry.getSequenceIndex(), result);
+	}
+
+	@Override
+	public ReferenceSequence getSequence(String contig) {
+		return getSubsequenceAt(contig, 1, getContigLength(contig));
+	}
+
+	@Override
+	public SAMSequenceDictionary getSequenceDictionary() {
+		return fasta.getSequenceDictionary();
+	}
+
+	@Override
+	public ReferenceSequence nextSequence() {
+		synchronized (fasta) {
+			return fasta.nextSequence();
+		}
+	}
+
+	@Override
+	public void reset() {
+		synchronized (fasta) {
+			fasta.reset();
+		}
+	}
+
+	@Override
+	public boolean isIndexed() {
+		return true;
+	}
+
+	/** Close the underlying file, must not be called for objects from {@link #getShared(String)} */
+	@Override
+	public void close() throws IOException {
+		pages.invalidateAll();
+		synchronized (fasta) {
+			fasta.close();
+		}
+	}
+
+	@Override
+	public String toString() {
+		return "CachingReferenceSequenceFile [fasta=" + fasta + ", pageSize=" + pageSize + "]";
+	}
+
+	/** @return length of <code>contig</code> */
+	private long getContigLength(String contig) {
+		return getIndexEntry(contig).getSize();
+	}
+
+	/** @return index entry for <code>contig</code> */
+	private FastaSequenceIndexEntry getIndexEntry(String contig) {
+		if (!index.hasIndexEntry(contig))
+			throw new SAMException("Unable to find entry for contig: " + contig);
+		return index.getIndexEntry(contig);
+	}
+
+	/** @return page <code>pageIdx</code> of <code>contig</code>, loading it on a cache miss */
+	private byte[] getPage(String contig, long pageIdx, long contigLength) {
+		try {
+			return pages.get(new PageKey(contig, pageIdx), () -> {
+				final long begin = pageIdx * pageSize + 1;
+				final long end = Math.min(contigLength, begin + pageSize - 1);
+				synchronized (fasta) {
+					return fasta.getSubsequenceAt(contig, begin, end).getBases();
+				}
+			});
+		} catch (ExecutionException | UncheckedExecutionException e) {
+			if (e.getCause() instanceof RuntimeException)
+				throw (RuntimeException) e.getCause();
+			throw new SAMException("Problem reading page " + pageIdx + " of contig " + contig, e.getCause());
+		}
+	}
+
+	/** Key of a page: contig name and page index */
+	private static final class PageKey {
+
+		private final String contig;
+
+		private final long pageIdx;
+
+		PageKey(String contig, long pageIdx) {
+			this.contig = contig;
+			this.pageIdx = pageIdx;
+		}
+
+		@Override
+		public int hashCode() {
+			return 31 * contig.hashCode() + Long.hashCode(pageIdx);
+		}
+
+		@Override
+		public boolean equals(Object obj) {
+			if (this == obj)
+				return true;
+			if (!(obj instanceof PageKey))
+				return false;
+			final PageKey other = (PageKey) obj;
+			return pageIdx == other.pageIdx && contig.equals(other.contig);
+		}
+
+	}
+
+}
@@ -3,6 +3,7 @@ package de.charite.compbio.jannovar.htsjdk;
 import htsjdk.samtools.SAMSequenceRecord;
 import htsjdk.samtools.reference.IndexedFastaSequenceFile;
 import htsjdk.samtools.reference.ReferenceSequence;
+import htsjdk.samtools.reference.ReferenceSequenceFile;
 import de.charite.compbio.jannovar.UncheckedJannovarException;
 import de.charite.compbio.jannovar.data.JannovarData;
 import de.charite.compbio.jannovar.reference.GenomeInterval;
@@ -11,6 +12,8 @@ import de.charite.compbio.jannovar.reference.Strand;
 /**
  * Extract sequence for a {@link GenomeInterval} from a {@link IndexedFastaSequenceFile}.
  *
+ * Pass a {@link CachingReferenceSequenceFile} for answering neighbouring queries from cached pages of the sequence.
+ *
  * @author <a href="mailto:manuel.holtgrewe@bihealth.de">Manuel Holtgrewe</a>
  */
 public class GenomeRegionSequenceExtractor {
@@ -18,9 +21,9 @@ public class GenomeRegionSequenceExtractor {
 	/** Jannovar database for mapping between canonical name and name in FASTA */
 	final JannovarData jannovarData;
 	/** object to load sequences from */
-	IndexedFastaSequenceFile indexedFile;
+	ReferenceSequenceFile indexedFile;
 
-	public GenomeRegionSequenceExtractor(JannovarData jannovarData, IndexedFastaSequenceFile indexedFile) {
+	public GenomeRegionSequenceExtractor(JannovarData jannovarData, ReferenceSequenceFile indexedFile) {
 		super();
 		this.jannovarData = jannovarData;
 		this.indexedFile = indexedFile;
@@ -1,6 +1,5 @@
 package de.charite.compbio.jannovar.htsjdk;
 
-import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
@@ -11,14 +10,19 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import com.google.common.base.Joiner;
+import com.google.common.base.Supplier;
+import com.google.common.base.Suppliers;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.ImmutableSet;
 
 import de.charite.compbio.jannovar.annotation.Annotation;
+import de.charite.compbio.jannovar.annotation.AnnotationException;
 import de.charite.compbio.jannovar.annotation.AnnotationMessage;
 import de.charite.compbio.jannovar.annotation.VariantAnnotations;
+import de.charite.compbio.jannovar.annotation.VariantAnnotationsCache;
 import de.charite.compbio.jannovar.annotation.VariantAnnotator;
+import de.charite.compbio.jannovar.annotation.VariantEffect;
 import de.charite.compbio.jannovar.annotation.builders.AnnotationBuilderOptions;
 import de.charite.compbio.jannovar.data.Chromosome;
 import de.charite.compbio.jannovar.data.JannovarData;
@@ -163,12 +167,17 @@ public final class VariantContextAnnotator {
 	/** the {@link ReferenceDictionary} to use */
 	private final ReferenceDictionary refDict;
 	/** {@link Chromosome} map with the {@link TranscriptModel}s, probably from {@link JannovarData} */
-	private final ImmutableMap<Integer, Chromosome> chromosomeMap;
+	private final Supplier<ImmutableMap<Integer, Chromosome>> chromosomeMap;
 	/** configuration */
 	private final Options options;
 
 	/** implementation of the actual variant annotation */
 	private final VariantAnnotator annotator;
+	/** cache of annotation results, <code>null</code> if not caching */
+	private final VariantAnnotationsCache cache;
+
+	/** buffer for rendering the <code>ANN</code> field, one per thread */
+	private final ThreadLocal<StringBuilder> annBuilder = ThreadLocal.withInitial(() -> new StringBuilder(1024));
 
 	/**
 	 * Construct annotator with default options.
@@ -195,10 +204,56 @@ public final class VariantContextAnnotator {
 	public VariantContextAnnotator(ReferenceDictionary refDict, ImmutableMap<Integer, Chromosome> chromosomeMap,
 			Options options) {
 		this.refDict = refDict;
-		this.chromosomeMap = chromosomeMap;
+		this.chromosomeMap = Suppliers.ofInstance(chromosomeMap);
 		this.options = options;
 		this.annotator = new VariantAnnotator(refDict, chromosomeMap,
 				new AnnotationBuilderOptions(options.nt3PrimeShifting, false));
+		this.cache = null;
+	}
+
+	/**
+	 * Construct annotator with default options from a {@link JannovarData} object.
+	 *
+	 * @param jannovarData
+	 *            {@link JannovarData} with the transcripts to use
+	 */
+	public VariantContextAnnotator(JannovarData jannovarData) {
+		this(jannovarData, new Options());
+	}
+
+	/**
+	 * Construct annotator from a {@link JannovarData} object.
+	 *
+	 * The {@link Chromosome}s are looked up through {@link JannovarData#getChromosome(int)}, so lazily loaded data
+	 * only loads the contigs that variants are annotated on.
+	 *
+	 * @param jannovarData
+	 *            {@link JannovarData} with the transcripts to use
+	 * @param options
+	 *            configuration of the Annotator, for {@link #applyAnnotations}
+	 */
+	public VariantContextAnnotator(JannovarData jannovarData, Options options) {
+		this(jannovarData, options, null);
+	}
+
+	/**
+	 * Construct annotator from a {@link JannovarData} object, looking up annotation results in a cache first.
+	 *
+	 * @param jannovarData
+	 *            {@link JannovarData} with the transcripts to use
+	 * @param options
+	 *            configuration of the Annotator, for {@link #applyAnnotations}
+	 * @param cache
+	 *            {@link VariantAnnotationsCache} for the results of annotating with <code>jannovarData</code> and
+	 *            <code>options</code>, may be shared between annotators, <code>null</code> for not caching
+	 */
+	public VariantContextAnnotator(JannovarData jannovarData, Options options, VariantAnnotationsCache cache) {
+		this.refDict = jannovarData.getRefDict();
+		this.chromosomeMap = jannovarData::getChromosomes;
+		this.options = options;
+		this.annotator = new VariantAnnotator(jannovarData,
+				new AnnotationBuilderOptions(options.nt3PrimeShifting, false));
+		this.cache = cache;
 	}
 
 	/**
@@ -209,10 +264,10 @@ public final class VariantContextAnnotator {
 	}
 
 	/**
-	 * @return the chromosomal map
+	 * @return the chromosomal map, loads all contigs when constructed from lazily loaded {@link JannovarData}
 	 */
 	public ImmutableMap<Integer, Chromosome> getChromosomeMap() {
-		return chromosomeMap;
+		return chromosomeMap.get();
 	}
 
 	/**
@@ -229,6 +284,13 @@ public final class VariantContextAnnotator {
 		return annotator;
 	}
 
+	/**
+	 * @return the cache of annotation results, <code>null</code> if not caching
+	 */
+	public VariantAnnotationsCache getCache() {
+		return cache;
+	}
+
 	/**
 	 * Build a {@link GenomeVariant} from a {@link VariantContext} object.
 	 *
@@ -319,7 +381,7 @@ public final class VariantContextAnnotator {
 
 			// Build AnnotationList object for this allele.
 			try {
-				final VariantAnnotations lst = annotator.buildAnnotations(change);
+				final VariantAnnotations lst = buildAnnotations(change);
 				builder.add(lst);
 				LOGGER.trace("adding annotation list {}", new Object[] { lst });
 			} catch (Exception e) {
@@ -332,6 +394,28 @@ public final class VariantContextAnnotator {
 		return builder.build();
 	}
 
+	/**
+	 * Annotate a single {@link GenomeVariant}, using the cache of annotation results if any
+	 *
+	 * Errors are not cached.
+	 *
+	 * @param change
+	 *            the {@link GenomeVariant} to annotate
+	 * @return {@link VariantAnnotations} for <code>change</code>
+	 * @throws AnnotationException
+	 *             on problems building the annotation
+	 */
+	public VariantAnnotations buildAnnotations(GenomeVariant change) throws AnnotationException {
+		if (cache == null)
+			return annotator.buildAnnotations(change);
+		VariantAnnotations result = cache.get(change);
+		if (result == null) {
+			result = annotator.buildAnnotations(change);
+			cache.put(change, result);
+		}
+		return result;
+	}
+
 	/**
 	 * Write annotations from <code>annos</code> to <code>vc</code> l
 	 * 
@@ -345,38 +429,55 @@ public final class VariantContextAnnotator {
 		// Whether or not variant is off-target in all annotations
 		boolean offTargetInAll = true;
 
-		ArrayList<String> annotations = new ArrayList<String>();
+		// Render the annotations directly into the reused buffer
+		final StringBuilder builder = annBuilder.get();
+		builder.setLength(0);
+		boolean anyAnnotation = false;
 		for (int alleleID = 0; alleleID < vc.getAlternateAlleles().size(); ++alleleID) {
-			if (!annos.get(alleleID).getAnnotations().isEmpty()) {
-				for (Annotation ann : annos.get(alleleID).getAnnotations()) {
-					boolean offTargetInThis = ann.getEffects().stream()
-							.allMatch(e -> e.isOffExome(options.offTargetFilterUtrIsOffTarget,
-									options.offTargetFilterIntronicSpliceIsOffTarget));
-					offTargetInAll = offTargetInAll && offTargetInThis;
-
-					if (!options.oneAnnotationOnly || annotations.isEmpty()) {
-						final String alt = vc.getAlternateAllele(alleleID).getBaseString();
-						annotations.add(ann.toVCFAnnoString(alt, options.escapeAnnField, options.aminoAcidCode));
-					}
+			final List<Annotation> alleleAnnos = annos.get(alleleID).getAnnotations();
+			if (alleleAnnos.isEmpty())
+				continue;
+			final String alt = vc.getAlternateAllele(alleleID).getBaseString();
+			for (Annotation ann : alleleAnnos) {
+				if (options.offTargetFilterEnabled && offTargetInAll)
+					offTargetInAll = isOffTarget(ann);
+
+				if (!options.oneAnnotationOnly || !anyAnnotation) {
+					if (anyAnnotation)
+						builder.append(',');
+					ann.appendVCFAnnoString(builder, alt, options.escapeAnnField, options.aminoAcidCode);
+					anyAnnotation = true;
+				} else if (!options.offTargetFilterEnabled || !offTargetInAll) {
+					break; // nothing left to do for this allele
 				}
 			}
 		}
 
-		if (options.isOffTargetFilterEnabled() && (offTargetInAll && !annotations.isEmpty())) {
+		if (options.isOffTargetFilterEnabled() && (offTargetInAll && anyAnnotation)) {
 			Set<String> filters = new HashSet<>(vc.getFilters());
 			filters.add(VariantEffectHeaderExtender.FILTER_EFFECT_OFF_EXOME);
 			vc = new VariantContextBuilder(vc).filters(filters).make();
 		}
 
-		// If a VC builder is used before the attributes can be unmodifiable.
+		// If a VC builder is used before the attributes can be unmodifiable, and they can be shared with the VC the
+		// builder was constructed from.
 		Map<String, Object> attributes = new HashMap<>(vc.getAttributes());
-		if (!annotations.isEmpty())
-			attributes.put("ANN", Joiner.on(',').join(annotations));
+		if (anyAnnotation)
+			attributes.put("ANN", builder.toString());
 		vc.getCommonInfo().setAttributes(attributes);
 
 		return vc;
 	}
 
+	/** @return whether all effects of <code>ann</code> are off-target with the configured options */
+	private boolean isOffTarget(Annotation ann) {
+		for (VariantEffect effect : ann.getEffects())
+			if (!effect.isOffExome(options.offTargetFilterUtrIsOffTarget,
+					options.offTargetFilterIntronicSpliceIsOffTarget))
+				return false;
+		return true;
+	}
+
 	/**
 	 * @param change
 	 *            {@link GenomeVariant} to build error annotation for
@@ -7,7 +7,7 @@ import java.util.Map;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
 
-import de.charite.compbio.jannovar.impl.intervals.IntervalArray;
+import de.charite.compbio.jannovar.impl.intervals.IntervalIndex;
 
 /**
  * List of genes, accessible through an interval tree.
@@ -16,8 +16,8 @@ class GeneList {
 
 	/** overall gene list */
 	private final ImmutableList<Gene> genes;
-	/** map from numeric chromosome id to interval tree of genes */
-	private final ImmutableMap<Integer, IntervalArray<Gene>> gIntervalTree;
+	/** map from numeric chromosome id to interval index of genes */
+	private final ImmutableMap<Integer, IntervalIndex<Gene>> gIntervalTree;
 
 	public GeneList(ImmutableList<Gene> genes) {
 		this.genes = genes;
@@ -28,11 +28,11 @@ class GeneList {
 		return genes;
 	}
 
-	public ImmutableMap<Integer, IntervalArray<Gene>> getGeneIntervalTree() {
+	public ImmutableMap<Integer, IntervalIndex<Gene>> getGeneIntervalTree() {
 		return gIntervalTree;
 	}
 
-	private ImmutableMap<Integer, IntervalArray<Gene>> buildIntervalTree() {
+	private ImmutableMap<Integer, IntervalIndex<Gene>> buildIntervalTree() {
 		HashMap<Integer, ArrayList<Gene>> chrToGene = new HashMap<Integer, ArrayList<Gene>>();
 		for (Gene gene : genes) {
 			if (!chrToGene.containsKey(gene.getRegion().getChr()))
@@ -40,9 +40,9 @@ class GeneList {
 			chrToGene.get(gene.getRegion().getChr()).add(gene);
 		}
 
-		ImmutableMap.Builder<Integer, IntervalArray<Gene>> builder = new ImmutableMap.Builder<Integer, IntervalArray<Gene>>();
+		ImmutableMap.Builder<Integer, IntervalIndex<Gene>> builder = new ImmutableMap.Builder<Integer, IntervalIndex<Gene>>();
 		for (Map.Entry<Integer, ArrayList<Gene>> entry : chrToGene.entrySet())
-			builder.put(entry.getKey(), new IntervalArray<Gene>(entry.getValue(), new GeneIntervalEndExtractor()));
+			builder.put(entry.getKey(), new IntervalIndex<Gene>(entry.getValue(), new GeneIntervalEndExtractor()));
 		return builder.build();
 	}
 
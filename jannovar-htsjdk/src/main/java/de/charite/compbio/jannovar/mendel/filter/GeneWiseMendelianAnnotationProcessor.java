@@ -22,7 +22,8 @@ import de.charite.compbio.jannovar.data.Chromosome;
 import de.charite.compbio.jannovar.data.JannovarData;
 import de.charite.compbio.jannovar.data.ReferenceDictionary;
 import de.charite.compbio.jannovar.impl.intervals.Interval;
-import de.charite.compbio.jannovar.impl.intervals.IntervalArray;
+import de.charite.compbio.jannovar.impl.intervals.IntervalIndex;
+import de.charite.compbio.jannovar.impl.intervals.MutableQueryResult;
 import de.charite.compbio.jannovar.mendel.IncompatiblePedigreeException;
 import de.charite.compbio.jannovar.mendel.SubModeOfInheritance;
 import de.charite.compbio.jannovar.mendel.bridge.CannotAnnotateMendelianInheritance;
@@ -71,6 +72,9 @@ public class GeneWiseMendelianAnnotationProcessor implements VariantContextProce
 	/** List of genes, indexed by interval tree */
 	private final GeneList geneList;
 
+	/** Buffer for querying the interval index of {@link #geneList} */
+	private final MutableQueryResult<Gene> queryResult = new MutableQueryResult<>();
+
 	/**
 	 * Construct processor with the path to the PED file to use
 	 *
@@ -119,7 +123,7 @@ public class GeneWiseMendelianAnnotationProcessor implements VariantContextProce
 		final ReferenceDictionary refDict = jannovarData.getRefDict();
 		// The contig name may not be known to the
 		Optional<Integer> contigID = Optional.ofNullable(refDict.getContigNameToID().get(vc.getContig()));
-		Optional<IntervalArray<Gene>> iTree = contigID.map(x -> geneList.getGeneIntervalTree().get(x));
+		Optional<IntervalIndex<Gene>> iTree = contigID.map(x -> geneList.getGeneIntervalTree().get(x));
 		// Unknown contig or contig with annotation, simply write out
 		if (!iTree.isPresent()) {
 			LOGGER.trace("Unknown contig or contig without annotation in " + vc.getContig()
@@ -132,20 +136,17 @@ public class GeneWiseMendelianAnnotationProcessor implements VariantContextProce
 		// Consider this variant for each affected gene
 		Optional<GenomeInterval> changeInterval = contigID
 				.map(x -> new GenomeInterval(refDict, Strand.FWD, x, vc.getStart() - 1, vc.getEnd()));
-		Optional<IntervalArray<Gene>.QueryResult> qr = Optional.empty();
 		if (changeInterval.isPresent()) {
 			if (changeInterval.get().length() == 0)
-				qr = iTree.map(x -> x.findOverlappingWithPoint(changeInterval.get().getBeginPos()));
+				iTree.get().findOverlappingWithPoint(changeInterval.get().getBeginPos(), queryResult);
 			else
-				qr = iTree.map(x -> x.findOverlappingWithInterval(changeInterval.get().getBeginPos(),
-						changeInterval.get().getEndPos()));
-		}
+				iTree.get().findOverlappingWithInterval(changeInterval.get().getBeginPos(),
+						changeInterval.get().getEndPos(), queryResult);
 
-		if (qr.isPresent()) {
-			if (qr.get().getEntries().isEmpty()) {
+			if (queryResult.getEntries().isEmpty()) {
 				putVariantForGene(vc, null);
 			} else {
-				for (Gene gene : qr.get().getEntries())
+				for (Gene gene : queryResult.getEntries())
 					if (isGeneAffectedByChange(gene, vc))
 						putVariantForGene(vc, gene);
 			}
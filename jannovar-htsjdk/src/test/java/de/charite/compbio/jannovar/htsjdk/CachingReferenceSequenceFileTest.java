@@ -0,0 +1,121 @@
+package de.charite.compbio.jannovar.htsjdk;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Random;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import com.google.common.io.Files;
+
+import de.charite.compbio.jannovar.data.JannovarData;
+import de.charite.compbio.jannovar.data.JannovarDataSerializer;
+import de.charite.compbio.jannovar.reference.GenomeInterval;
+import de.charite.compbio.jannovar.reference.GenomePosition;
+import de.charite.compbio.jannovar.reference.Strand;
+import de.charite.compbio.jannovar.utils.ResourceUtils;
+import htsjdk.samtools.SAMException;
+import htsjdk.samtools.reference.IndexedFastaSequenceFile;
+
+public class CachingReferenceSequenceFileTest {
+
+	/** length of the contig "ref" in the test FASTA file */
+	static final int LENGTH = 500001;
+
+	/** path to FASTA file with sequence */
+	static String fastaPath;
+	/** path to Jannovar database file */
+	static String dbPath;
+	/** uncached reader for comparison */
+	IndexedFastaSequenceFile indexedFile;
+	/** cached reader with small pages for testing page boundaries */
+	CachingReferenceSequenceFile cachedFile;
+
+	@BeforeClass
+	public static void setUpClass() throws Exception {
+		File tmpDir = Files.createTempDir();
+		fastaPath = tmpDir + "/ref.fa";
+		ResourceUtils.copyResourceToFile("/ex_fbn1/ref.fa", new File(fastaPath));
+		ResourceUtils.copyResourceToFile("/ex_fbn1/ref.fa.fai", new File(tmpDir + "/ref.fa.fai"));
+		ResourceUtils.copyResourceToFile("/ex_fbn1/ref.dict", new File(tmpDir + "/ref.dict"));
+		dbPath = tmpDir + "/mini_fbn1.ser";
+		ResourceUtils.copyResourceToFile("/ex_fbn1/mini_fbn1.ser", new File(dbPath));
+	}
+
+	@Before
+	public void setUp() throws IOException {
+		this.indexedFile = new IndexedFastaSequenceFile(new File(fastaPath));
+		this.cachedFile = new CachingReferenceSequenceFile(new File(fastaPath), 100, 10 * 1000);
+	}
+
+	@After
+	public void tearDown() throws IOException {
+		this.indexedFile.close();
+		this.cachedFile.close();
+	}
+
+	@Test
+	public void testRandomSubsequences() {
+		Random rng = new Random(42);
+		for (int i = 0; i < 1000; ++i) {
+			final int start = 1 + rng.nextInt(LENGTH);
+			final int stop = Math.min(LENGTH, start - 1 + rng.nextInt(350));
+			Assert.assertEquals(new String(indexedFile.getSubsequenceAt("ref", start, stop).getBases()),
+					new String(cachedFile.getSubsequenceAt("ref", start, stop).getBases()));
+		}
+	}
+
+	@Test
+	public void testPageBoundariesAndContigEnd() {
+		for (int[] range : new int[][] { { 1, 1 }, { 100, 101 }, { 1, 300 }, { 99, 201 }, { 499901, 500001 },
+				{ 500001, 500001 } })
+			Assert.assertEquals(new String(indexedFile.getSubsequenceAt("ref", range[0], range[1]).getBases()),
+					new String(cachedFile.getSubsequenceAt("ref", range[0], range[1]).getBases()));
+		Assert.assertEquals(0, cachedFile.getSubsequenceAt("ref", 11, 10).length());
+	}
+
+	@Test
+	public void testGetBase() {
+		for (int pos : new int[] { 1, 99, 100, 101, 12345, LENGTH })
+			Assert.assertEquals(indexedFile.getSubsequenceAt("ref", pos, pos).getBases()[0],
+					cachedFile.getBase("ref", pos));
+	}
+
+	@Test
+	public void testCacheHits() {
+		cachedFile.getBase("ref", 1001);
+		cachedFile.getBase("ref", 1002);
+		cachedFile.getSubsequenceAt("ref", 1010, 1020);
+		Assert.assertEquals(1, cachedFile.stats().missCount());
+		Assert.assertEquals(2, cachedFile.stats().hitCount());
+	}
+
+	@Test(expected = SAMException.class)
+	public void testUnknownContig() {
+		cachedFile.getBase("chrUnknown", 1);
+	}
+
+	@Test(expected = SAMException.class)
+	public void testPastContigEnd() {
+		cachedFile.getSubsequenceAt("ref", LENGTH, LENGTH + 1);
+	}
+
+	@Test
+	public void testGetShared() throws IOException {
+		Assert.assertSame(CachingReferenceSequenceFile.getShared(fastaPath),
+				CachingReferenceSequenceFile.getShared(new File(fastaPath).getParent() + "/./ref.fa"));
+	}
+
+	@Test
+	public void testGenomeRegionSequenceExtractor() throws Exception {
+		JannovarData jannovarData = new JannovarDataSerializer(dbPath).load();
+		GenomeRegionSequenceExtractor extractor = new GenomeRegionSequenceExtractor(jannovarData, cachedFile);
+		GenomeInterval region = new GenomeInterval(new GenomePosition(jannovarData.getRefDict(), Strand.FWD, 1, 99), 51);
+		Assert.assertEquals("CTTTAGGCCTGGGAATCAGGAGTGCTATGACAATTTCCTCCAAAGTGGAGA", extractor.load(region));
+	}
+
+}
@@ -0,0 +1,526 @@
+package de.charite.compbio.jannovar.vardbs.af_store;
+
+import java.io.BufferedInputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Iterators;
+
+import de.charite.compbio.jannovar.vardbs.base.DatabaseVariantContextProvider;
+import de.charite.compbio.jannovar.vardbs.base.JannovarVarDBException;
+import de.charite.compbio.jannovar.vardbs.base.StreamingVCFVariantProvider;
+import htsjdk.samtools.util.CloseableIterator;
+import htsjdk.variant.variantcontext.Allele;
+import htsjdk.variant.variantcontext.VariantContext;
+import htsjdk.variant.variantcontext.VariantContextBuilder;
+import htsjdk.variant.vcf.VCFConstants;
+
+/**
+ * {@link DatabaseVariantContextProvider} reading an allele frequency store through memory mapping.
+ *
+ * Allele frequency stores are written by {@link AlleleFrequencyStoreWriter} from the VCF files of
+ * population databases (e.g., gnomAD, ExAC) and only keep the fields needed for annotation:
+ * position, ID, alleles, filters, and a selected set of INFO fields, usually the per-population
+ * counts. Querying does not need any decompression or text parsing and the file is shared between
+ * all threads through the page cache.
+ *
+ * The file starts with the magic bytes <code>"JVAF"</code>, the format version, and the offset of
+ * the meta section. The record heap follows with the records of each contig sorted by position,
+ * each record prefixed with its size. The meta section at the end has the source path, the
+ * INFO fields with their types, and for each contig the range of its records in the heap, the
+ * maximal record span, and a sparse index with the position and offset of every
+ * {@link #INDEX_INTERVAL}-th record. Within records, counts and lengths are stored with seven
+ * bits per byte. All other integers are stored big-endian.
+ *
+ * The query results are the same as for
+ * {@link de.charite.compbio.jannovar.vardbs.base.VCFReaderVariantProvider} on the original file,
+ * restricted to the stored INFO fields. With {@link #selectInfoKeys}, the values of all other
+ * stored fields are skipped when decoding the records. Reading is thread-safe, objects of this class only use
+ * absolute accessors on the underlying buffers.
+ */
+public final class AlleleFrequencyStoreVariantProvider implements DatabaseVariantContextProvider, Closeable {
+
+	/** magic bytes */
+	static final byte[] MAGIC_BYTES = { 'J', 'V', 'A', 'F' };
+
+	/** version of the binary layout */
+	static final int FORMAT_VERSION = 1;
+
+	/** number of records per entry in the sparse index */
+	static final int INDEX_INTERVAL = 128;
+
+	/** maximal size of one record in the heap, including its size prefix */
+	static final int MAX_RECORD_SIZE = 1 << 20;
+
+	/** type of flag INFO fields */
+	static final byte TYPE_FLAG = 0;
+	/** type of integer INFO fields, stored as numbers */
+	static final byte TYPE_INTEGER = 1;
+	/** type of all other INFO fields, stored as strings */
+	static final byte TYPE_STRING = 2;
+
+	/** the record heap is mapped in segments of <code>1 &lt;&lt; SEGMENT_BITS</code> bytes */
+	private static final int SEGMENT_BITS = 30;
+
+	/** mask for the offset into a segment */
+	private static final long SEGMENT_MASK = (1L << SEGMENT_BITS) - 1;
+
+	/** path to the file */
+	private final String filename;
+
+	/** file that is mapped */
+	private final RandomAccessFile file;
+
+	/**
+	 * mappings of the record heap, segment <code>i</code> starts at <code>i &lt;&lt; SEGMENT_BITS</code>
+	 * and overlaps the next one by {@link #MAX_RECORD_SIZE} such that each record lies within one
+	 * mapping
+	 */
+	private final MappedByteBuffer[] segments;
+
+	/** source the store was written from */
+	private final String source;
+
+	/** IDs of the stored INFO fields */
+	private final String[] infoKeys;
+
+	/** types of the stored INFO fields */
+	private final byte[] infoTypes;
+
+	/**
+	 * whether to decode each of the stored INFO fields, see {@link #selectInfoKeys},
+	 * <code>null</code> for all
+	 */
+	private volatile boolean[] selectedInfo = null;
+
+	/** contigs by name */
+	private final Map<String, Contig> contigs;
+
+	/**
+	 * Open the file at <code>filename</code>.
+	 *
+	 * @param filename
+	 *            path to the file to open
+	 * @throws JannovarVarDBException
+	 *             on problems opening or mapping the file
+	 */
+	public AlleleFrequencyStoreVariantProvider(String filename) throws JannovarVarDBException {
+		this.filename = filename;
+		try {
+			this.file = new RandomAccessFile(filename, "r");
+		} catch (IOException e) {
+			throw new JannovarVarDBException("Could not open " + filename, e);
+		}
+		try {
+			final FileChannel channel = file.getChannel();
+			final ByteBuffer header = ByteBuffer.allocate(MAGIC_BYTES.length + 4 + 8);
+			while (header.hasRemaining())
+				if (channel.read(header, header.position()) < 0)
+					throw new JannovarVarDBException(filename + " is truncated, cannot read header");
+			byte[] word = new byte[MAGIC_BYTES.length];
+			header.position(0);
+			header.get(word);
+			if (!Arrays.equals(word, MAGIC_BYTES))
+				throw new JannovarVarDBException(
+						filename + " does not look like an allele frequency store, magic number incorrect!");
+			final int formatVersion = header.getInt();
+			if (formatVersion != FORMAT_VERSION)
+				throw new JannovarVarDBException(
+						filename + " has format version " + formatVersion + " but we need " + FORMAT_VERSION);
+			final long metaOffset = header.getLong();
+
+			final int numSegments = (int) ((metaOffset + SEGMENT_MASK) >>> SEGMENT_BITS);
+			this.segments = new MappedByteBuffer[numSegments];
+			for (int i = 0; i < numSegments; ++i) {
+				final long begin = (long) i << SEGMENT_BITS;
+				final long size = Math.min(SEGMENT_MASK + 1 + MAX_RECORD_SIZE, metaOffset - begin);
+				segments[i] = channel.map(FileChannel.MapMode.READ_ONLY, begin, size);
+			}
+
+			channel.position(metaOffset);
+			final DataInputStream in = new DataInputStream(
+					new BufferedInputStream(Channels.newInputStream(channel)));
+			this.source = readString(in);
+			final int numKeys = in.readInt();
+			this.infoKeys = new String[numKeys];
+			this.infoTypes = new byte[numKeys];
+			for (int i = 0; i < numKeys; ++i) {
+				infoKeys[i] = readString(in);
+				infoTypes[i] = in.readByte();
+			}
+			final int numContigs = in.readInt();
+			this.contigs = new HashMap<>();
+			for (int i = 0; i < numContigs; ++i) {
+				final Contig contig = new Contig(in);
+				contigs.put(contig.name, contig);
+			}
+		} catch (IOException e) {
+			closeQuietly();
+			throw new JannovarVarDBException("Could not map " + filename, e);
+		} catch (JannovarVarDBException | RuntimeException e) {
+			closeQuietly();
+			throw e;
+		}
+	}
+
+	/**
+	 * @param path
+	 *            path to the file to check
+	 * @return whether the file at <code>path</code> starts with the magic bytes of an allele
+	 *         frequency store
+	 */
+	public static boolean isStoreFile(String path) {
+		if (!new File(path).isFile())
+			return false;
+		try (RandomAccessFile f = new RandomAccessFile(path, "r")) {
+			byte[] word = new byte[MAGIC_BYTES.length];
+			f.readFully(word);
+			return Arrays.equals(word, MAGIC_BYTES);
+		} catch (IOException e) {
+			return false;
+		}
+	}
+
+	/**
+	 * Open provider for a population database given as allele frequency store or VCF file.
+	 *
+	 * @param path
+	 *            path to the allele frequency store or the tabix-indexed VCF file
+	 * @return {@link AlleleFrequencyStoreVariantProvider} for allele frequency stores and a
+	 *         {@link StreamingVCFVariantProvider} otherwise
+	 * @throws JannovarVarDBException
+	 *             on problems opening the allele frequency store
+	 */
+	public static DatabaseVariantContextProvider open(String path) throws JannovarVarDBException {
+		if (isStoreFile(path))
+			return new AlleleFrequencyStoreVariantProvider(path);
+		else
+			return new StreamingVCFVariantProvider(path);
+	}
+
+	/** @return path to the mapped file */
+	public String getFilename() {
+		return filename;
+	}
+
+	/** @return source the store was written from */
+	public String getSource() {
+		return source;
+	}
+
+	/** @return IDs of the stored INFO fields */
+	public List<String> getInfoKeys() {
+		return ImmutableList.copyOf(infoKeys);
+	}
+
+	/** @return names of the contigs with records */
+	public List<String> getContigs() {
+		return ImmutableList.copyOf(contigs.keySet());
+	}
+
+	/** @return iterator over all records, contig by contig */
+	public Iterator<VariantContext> iterator() {
+		return Iterators.concat(Iterators.transform(getContigs().iterator(),
+				contig -> query(contig, 0, Integer.MAX_VALUE)));
+	}
+
+	/** @return number of records on <code>contig</code> */
+	public long getNumRecords(String contig) {
+		final Contig c = contigs.get(contig);
+		return (c == null) ? 0 : c.numRecords;
+	}
+
+	@Override
+	public void selectInfoKeys(Collection<String> infoKeys) {
+		if (infoKeys == null) {
+			this.selectedInfo = null;
+			return;
+		}
+		final Set<String> keys = new HashSet<>(infoKeys);
+		final boolean[] selected = new boolean[this.infoKeys.length];
+		for (int i = 0; i < selected.length; ++i)
+			selected[i] = keys.contains(this.infoKeys[i]);
+		this.selectedInfo = selected;
+	}
+
+	@Override
+	public CloseableIterator<VariantContext> query(String contig, int beginPos, int endPos) {
+		final Contig c = contigs.get(contig);
+		if (c == null || c.indexBegins.length == 0)
+			return new RecordIterator(contig, beginPos, endPos, 0, 0);
+		return new RecordIterator(contig, beginPos, endPos, c.scanBegin(beginPos), c.recordsEnd);
+	}
+
+	@Override
+	public void close() throws IOException {
+		file.close();
+	}
+
+	/** Close {@link #file}, used for cleaning up on errors in the constructor */
+	private void closeQuietly() {
+		try {
+			file.close();
+		} catch (IOException e) {
+			// swallow, nothing we can do
+		}
+	}
+
+	/** Read string with int length (-1 for <code>null</code>) and UTF-8 bytes */
+	private static String readString(DataInputStream in) throws IOException {
+		final int length = in.readInt();
+		if (length < 0)
+			return null;
+		final byte[] bytes = new byte[length];
+		in.readFully(bytes);
+		return new String(bytes, StandardCharsets.UTF_8);
+	}
+
+	/** Records of one contig in the heap, with sparse index */
+	private static final class Contig {
+
+		final String name;
+
+		/** offset of the first record in the file */
+		final long recordsBegin;
+
+		/** offset behind the last record in the file */
+		final long recordsEnd;
+
+		/** largest difference between end and begin position of the records */
+		final int maxSpan;
+
+		/** number of records */
+		final long numRecords;
+
+		/** begin position of every {@link #INDEX_INTERVAL}-th record */
+		final int[] indexBegins;
+
+		/** offset of every {@link #INDEX_INTERVAL}-th record */
+		final long[] indexOffsets;
+
+		Contig(DataInputStream in) throws IOException {
+			this.name = readString(in);
+			this.recordsBegin = in.readLong();
+			this.recordsEnd = in.readLong();
+			this.maxSpan = in.readInt();
+			this.numRecords = in.readLong();
+			final int numIndexEntries = in.readInt();
+			this.indexBegins = new int[numIndexEntries];
+			this.indexOffsets = new long[numIndexEntries];
+			for (int i = 0; i < numIndexEntries; ++i)
+				indexBegins[i] = in.readInt();
+			for (int i = 0; i < numIndexEntries; ++i)
+				indexOffsets[i] = in.readLong();
+		}
+
+		/**
+		 * @return offset to start scanning at for records overlapping with <code>beginPos</code>
+		 *         and behind
+		 */
+		long scanBegin(int beginPos) {
+			// Records before the last index entry starting left of (beginPos - maxSpan) cannot
+			// reach beginPos; records with the same begin position may precede an entry, thus the
+			// strict comparison
+			final long target = (long) beginPos - maxSpan;
+			int lo = 0;
+			int hi = indexBegins.length;
+			while (lo < hi) {
+				final int mid = (lo + hi) >>> 1;
+				if (indexBegins[mid] < target)
+					lo = mid + 1;
+				else
+					hi = mid;
+			}
+			return indexOffsets[Math.max(0, lo - 1)];
+		}
+
+	}
+
+	/** Iterator over the records of a query, decoding lazily */
+	private final class RecordIterator implements CloseableIterator<VariantContext> {
+
+		private final String contig;
+
+		private final int beginPos;
+
+		private final int endPos;
+
+		/** offset of the next record to look at */
+		private long offset;
+
+		/** offset behind the last record of the contig */
+		private final long end;
+
+		/** buffer of the current record */
+		private ByteBuffer buffer;
+
+		/** position in {@link #buffer} */
+		private int pos;
+
+		/** next record to return, <code>null</code> at the end */
+		private VariantContext next;
+
+		RecordIterator(String contig, int beginPos, int endPos, long offset, long end) {
+			this.contig = contig;
+			this.beginPos = beginPos;
+			this.endPos = endPos;
+			this.offset = offset;
+			this.end = end;
+			this.next = advance();
+		}
+
+		@Override
+		public boolean hasNext() {
+			return next != null;
+		}
+
+		@Override
+		public VariantContext next() {
+			if (next == null)
+				throw new NoSuchElementException();
+			final VariantContext result = next;
+			next = advance();
+			return result;
+		}
+
+		@Override
+		public void close() {
+		}
+
+		/** @return next record overlapping with the query, <code>null</code> at the end */
+		private VariantContext advance() {
+			while (offset < end) {
+				buffer = segments[(int) (offset >>> SEGMENT_BITS)];
+				pos = (int) (offset & SEGMENT_MASK);
+				final int size = (int) readVarLong();
+				offset += (pos - (offset & SEGMENT_MASK)) + size;
+
+				final int begin = buffer.getInt(pos);
+				pos += 4;
+				if (begin > endPos) {
+					offset = end;
+					return null;
+				}
+				final int stop = begin + unZigZag(readVarLong());
+				if (stop >= beginPos)
+					return decode(begin, stop);
+			}
+			return null;
+		}
+
+		/** Decode the rest of the current record */
+		private VariantContext decode(int begin, int stop) {
+			final String id = readString();
+			final int numAlleles = (int) readVarLong();
+			final List<Allele> alleles = new ArrayList<>(numAlleles);
+			for (int i = 0; i < numAlleles; ++i)
+				alleles.add(Allele.create(readString(), i == 0));
+
+			VariantContextBuilder builder = new VariantContextBuilder(filename, contig, begin, stop, alleles)
+					.id(id);
+			final int numFilters = (int) readVarLong();
+			if (numFilters == 0) {
+				builder.unfiltered();
+			} else if (numFilters == 1) {
+				builder.passFilters();
+			} else {
+				Set<String> filters = new HashSet<>();
+				for (int i = 1; i < numFilters; ++i)
+					filters.add(readString());
+				builder.filters(filters);
+			}
+
+			final boolean[] selected = selectedInfo;
+			Map<String, Object> attributes = new HashMap<>();
+			for (int i = 0; i < infoKeys.length; ++i) {
+				final int count = (int) readVarLong() - 1;
+				if (count < 0)
+					continue;
+				if (selected != null && !selected[i]) {
+					for (int j = 0; j < count; ++j)
+						skipValue(infoTypes[i]);
+					continue;
+				}
+				if (infoTypes[i] == TYPE_FLAG) {
+					attributes.put(infoKeys[i], Boolean.TRUE);
+					continue;
+				}
+				List<String> values = new ArrayList<>(count);
+				for (int j = 0; j < count; ++j)
+					values.add(readValue(infoTypes[i]));
+				// Same representation as VCFCodec, single values are not wrapped in a list
+				attributes.put(infoKeys[i], (count == 1) ? values.get(0) : values);
+			}
+			// VCFCodec takes the end position from the END field, which may not be stored
+			if (stop != begin + alleles.get(0).length() - 1 && !attributes.containsKey(VCFConstants.END_KEY))
+				attributes.put(VCFConstants.END_KEY, Integer.toString(stop));
+			return builder.attributes(attributes).make();
+		}
+
+		/** @return value of INFO field with the given type */
+		private String readValue(byte type) {
+			if (type == TYPE_STRING)
+				return readString();
+			final long value = readVarLong();
+			if (value == 0)
+				return VCFConstants.MISSING_VALUE_v4;
+			return Integer.toString(unZigZag(value - 1));
+		}
+
+		/** Skip value of INFO field with the given type */
+		private void skipValue(byte type) {
+			final long value = readVarLong();
+			if (type == TYPE_STRING)
+				pos += (int) value;
+		}
+
+		private String readString() {
+			final int length = (int) readVarLong();
+			if (length == 0)
+				return "";
+			final byte[] bytes = new byte[length];
+			for (int i = 0; i < length; ++i)
+				bytes[i] = buffer.get(pos + i);
+			pos += length;
+			return new String(bytes, StandardCharsets.UTF_8);
+		}
+
+		private long readVarLong() {
+			long result = 0;
+			int shift = 0;
+			while (true) {
+				final byte b = buffer.get(pos++);
+				result |= (long) (b & 0x7f) << shift;
+				if ((b & 0x80) == 0)
+					return result;
+				shift += 7;
+			}
+		}
+
+	}
+
+	/** Inverse of the zig-zag encoding in {@link AlleleFrequencyStoreWriter} */
+	private static int unZigZag(long value) {
+		return (int) ((value >>> 1) ^ -(value & 1));
+	}
+
+}
@@ -0,0 +1,337 @@
+package de.charite.compbio.jannovar.vardbs.af_store;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+import java.util.regex.Pattern;
+
+import com.google.common.io.CountingOutputStream;
+
+import de.charite.compbio.jannovar.vardbs.base.JannovarVarDBException;
+import htsjdk.variant.variantcontext.Allele;
+import htsjdk.variant.variantcontext.VariantContext;
+import htsjdk.variant.vcf.VCFConstants;
+import htsjdk.variant.vcf.VCFHeader;
+import htsjdk.variant.vcf.VCFHeaderLineType;
+import htsjdk.variant.vcf.VCFInfoHeaderLine;
+
+/**
+ * Write the records of a coordinate-sorted VCF file to an allele frequency store, to be read by
+ * {@link AlleleFrequencyStoreVariantProvider}.
+ *
+ * Only the INFO fields given on construction are written. The records must be sorted by position
+ * and the records of each contig must be contiguous, as in a tabix-indexed VCF file.
+ */
+public final class AlleleFrequencyStoreWriter {
+
+	/** Path to the file to write */
+	private final String filename;
+
+	/** The INFO fields to write */
+	private final List<VCFInfoHeaderLine> infoFields;
+
+	/** Type of each entry in {@link #infoFields} in the store */
+	private final byte[] infoTypes;
+
+	/** Buffer for encoding the current record */
+	private final RecordBuffer record = new RecordBuffer();
+
+	/**
+	 * Construct writer.
+	 *
+	 * @param filename
+	 *            path to the file to write
+	 * @param infoFields
+	 *            the INFO fields to write, e.g., from {@link #selectInfoFields}
+	 */
+	public AlleleFrequencyStoreWriter(String filename, List<VCFInfoHeaderLine> infoFields) {
+		this.filename = filename;
+		this.infoFields = new ArrayList<>(infoFields);
+		this.infoTypes = new byte[infoFields.size()];
+		for (int i = 0; i < infoTypes.length; ++i) {
+			final VCFInfoHeaderLine line = infoFields.get(i);
+			if (line.getType() == VCFHeaderLineType.Flag)
+				infoTypes[i] = AlleleFrequencyStoreVariantProvider.TYPE_FLAG;
+			else if (line.getType() == VCFHeaderLineType.Integer)
+				infoTypes[i] = AlleleFrequencyStoreVariantProvider.TYPE_INTEGER;
+			else
+				infoTypes[i] = AlleleFrequencyStoreVariantProvider.TYPE_STRING;
+		}
+	}
+
+	/**
+	 * Select the INFO fields to write from a VCF header.
+	 *
+	 * These are all fields of type <code>Integer</code> (the allele, chromosome, het., hom., and
+	 * hemi. counts in the population databases) and the fields with an ID matching
+	 * <code>extraFields</code> (e.g., <code>POPMAX</code>). Allele frequencies are not stored but
+	 * computed from the counts when annotating.
+	 *
+	 * @param header
+	 *            the header of the VCF file to write
+	 * @param extraFields
+	 *            pattern for the IDs of further fields to write
+	 * @return the selected INFO header lines, in the order of the header
+	 */
+	public static List<VCFInfoHeaderLine> selectInfoFields(VCFHeader header, Pattern extraFields) {
+		List<VCFInfoHeaderLine> result = new ArrayList<>();
+		for (VCFInfoHeaderLine line : header.getInfoHeaderLines())
+			if (line.getType() == VCFHeaderLineType.Integer || extraFields.matcher(line.getID()).matches())
+				result.add(line);
+		return result;
+	}
+
+	/**
+	 * Write the records to the file.
+	 *
+	 * @param source
+	 *            description of the source of the records, e.g., path to the VCF file
+	 * @param records
+	 *            the records to write, sorted by position
+	 * @return number of records written
+	 * @throws JannovarVarDBException
+	 *             on problems writing the file or unsorted input
+	 */
+	public long write(String source, Iterator<VariantContext> records) throws JannovarVarDBException {
+		final long metaOffset;
+		final List<ContigInfo> contigs = new ArrayList<>();
+		long numRecords = 0;
+		try (CountingOutputStream counting = new CountingOutputStream(
+				new BufferedOutputStream(new FileOutputStream(filename)));
+				DataOutputStream out = new DataOutputStream(counting)) {
+			out.write(AlleleFrequencyStoreVariantProvider.MAGIC_BYTES);
+			out.writeInt(AlleleFrequencyStoreVariantProvider.FORMAT_VERSION);
+			out.writeLong(0); // offset of the meta section, patched below
+
+			final Set<String> seenContigs = new HashSet<>();
+			ContigInfo contig = null;
+			while (records.hasNext()) {
+				final VariantContext vc = records.next();
+				if (contig == null || !contig.name.equals(vc.getContig())) {
+					if (!seenContigs.add(vc.getContig()))
+						throw new JannovarVarDBException("Records of contig " + vc.getContig()
+								+ " are not contiguous, is " + source + " sorted?");
+					if (contig != null)
+						contig.recordsEnd = counting.getCount();
+					contig = new ContigInfo(vc.getContig(), counting.getCount());
+					contigs.add(contig);
+				} else if (vc.getStart() < contig.lastBegin) {
+					throw new JannovarVarDBException("Record at " + vc.getContig() + ":" + vc.getStart()
+							+ " is behind the previous one, is " + source + " sorted?");
+				}
+
+				if (contig.numRecords % AlleleFrequencyStoreVariantProvider.INDEX_INTERVAL == 0)
+					contig.addIndexEntry(vc.getStart(), counting.getCount());
+				contig.lastBegin = vc.getStart();
+				contig.maxSpan = Math.max(contig.maxSpan, vc.getEnd() - vc.getStart());
+				contig.numRecords += 1;
+
+				encodeRecord(vc);
+				if (record.size > AlleleFrequencyStoreVariantProvider.MAX_RECORD_SIZE - 8)
+					throw new JannovarVarDBException("Record at " + vc.getContig() + ":" + vc.getStart()
+							+ " is too large for the allele frequency store");
+				writeVarLong(out, record.size);
+				out.write(record.data, 0, record.size);
+				numRecords += 1;
+			}
+			if (contig != null)
+				contig.recordsEnd = counting.getCount();
+
+			metaOffset = counting.getCount();
+			writeMeta(out, source, contigs);
+		} catch (IOException e) {
+			throw new JannovarVarDBException("Could not write " + filename, e);
+		}
+
+		try (RandomAccessFile file = new RandomAccessFile(filename, "rw")) {
+			file.seek(AlleleFrequencyStoreVariantProvider.MAGIC_BYTES.length + 4);
+			file.writeLong(metaOffset);
+		} catch (IOException e) {
+			throw new JannovarVarDBException("Could not write " + filename, e);
+		}
+		return numRecords;
+	}
+
+	/** Encode <code>vc</code> into {@link #record} */
+	private void encodeRecord(VariantContext vc) throws JannovarVarDBException {
+		record.size = 0;
+		record.putInt(vc.getStart());
+		record.putVarLong(zigZag(vc.getEnd() - vc.getStart()));
+		record.putString(vc.getID());
+
+		record.putVarLong(vc.getNAlleles());
+		for (Allele allele : vc.getAlleles())
+			record.putString(allele.getDisplayString());
+
+		if (!vc.filtersWereApplied()) {
+			record.putVarLong(0);
+		} else {
+			record.putVarLong(vc.getFilters().size() + 1);
+			for (String filter : vc.getFilters())
+				record.putString(filter);
+		}
+
+		for (int i = 0; i < infoTypes.length; ++i) {
+			final String key = infoFields.get(i).getID();
+			if (!vc.hasAttribute(key)) {
+				record.putVarLong(0);
+				continue;
+			}
+			if (infoTypes[i] == AlleleFrequencyStoreVariantProvider.TYPE_FLAG) {
+				record.putVarLong(1);
+				continue;
+			}
+			final List<String> values = vc.getAttributeAsStringList(key, VCFConstants.MISSING_VALUE_v4);
+			record.putVarLong(values.size() + 1);
+			for (String value : values) {
+				if (infoTypes[i] == AlleleFrequencyStoreVariantProvider.TYPE_STRING) {
+					record.putString(value);
+				} else if (VCFConstants.MISSING_VALUE_v4.equals(value)) {
+					record.putVarLong(0);
+				} else {
+					try {
+						record.putVarLong(zigZag(Integer.parseInt(value)) + 1);
+					} catch (NumberFormatException e) {
+						throw new JannovarVarDBException("Invalid value " + value + " for Integer field " + key
+								+ " at " + vc.getContig() + ":" + vc.getStart(), e);
+					}
+				}
+			}
+		}
+	}
+
+	/** Write meta section with header, INFO fields, and contigs with their index */
+	private void writeMeta(DataOutputStream out, String source, List<ContigInfo> contigs) throws IOException {
+		writeString(out, source);
+
+		out.writeInt(infoTypes.length);
+		for (int i = 0; i < infoTypes.length; ++i) {
+			writeString(out, infoFields.get(i).getID());
+			out.writeByte(infoTypes[i]);
+		}
+
+		out.writeInt(contigs.size());
+		for (ContigInfo contig : contigs) {
+			writeString(out, contig.name);
+			out.writeLong(contig.recordsBegin);
+			out.writeLong(contig.recordsEnd);
+			out.writeInt(contig.maxSpan);
+			out.writeLong(contig.numRecords);
+			out.writeInt(contig.numIndexEntries);
+			for (int i = 0; i < contig.numIndexEntries; ++i)
+				out.writeInt(contig.indexBegins[i]);
+			for (int i = 0; i < contig.numIndexEntries; ++i)
+				out.writeLong(contig.indexOffsets[i]);
+		}
+	}
+
+	/** Write string with int length (-1 for <code>null</code>) and UTF-8 bytes */
+	private static void writeString(DataOutputStream out, String s) throws IOException {
+		if (s == null) {
+			out.writeInt(-1);
+		} else {
+			final byte[] bytes = s.getBytes(StandardCharsets.UTF_8);
+			out.writeInt(bytes.length);
+			out.write(bytes);
+		}
+	}
+
+	/** Write non-negative <code>value</code> with 7 bits per byte, least significant first */
+	private static void writeVarLong(DataOutputStream out, long value) throws IOException {
+		while ((value & ~0x7fL) != 0) {
+			out.writeByte((int) ((value & 0x7f) | 0x80));
+			value >>>= 7;
+		}
+		out.writeByte((int) value);
+	}
+
+	/** @return <code>value</code> mapped to a non-negative number, small for small magnitudes */
+	private static long zigZag(int value) {
+		return ((long) value << 1) ^ ((long) value >> 63);
+	}
+
+	/** Growable buffer for encoding one record */
+	private static final class RecordBuffer {
+
+		byte[] data = new byte[1024];
+
+		int size = 0;
+
+		void putByte(int b) {
+			if (size == data.length)
+				data = Arrays.copyOf(data, 2 * data.length);
+			data[size++] = (byte) b;
+		}
+
+		void putInt(int value) {
+			putByte(value >>> 24);
+			putByte(value >>> 16);
+			putByte(value >>> 8);
+			putByte(value);
+		}
+
+		void putVarLong(long value) {
+			while ((value & ~0x7fL) != 0) {
+				putByte((int) ((value & 0x7f) | 0x80));
+				value >>>= 7;
+			}
+			putByte((int) value);
+		}
+
+		void putString(String s) {
+			final byte[] bytes = s.getBytes(StandardCharsets.UTF_8);
+			putVarLong(bytes.length);
+			for (byte b : bytes)
+				putByte(b);
+		}
+
+	}
+
+	/** Information about the records of one contig, collected while writing */
+	private static final class ContigInfo {
+
+		final String name;
+
+		final long recordsBegin;
+
+		long recordsEnd;
+
+		int maxSpan = 0;
+
+		long numRecords = 0;
+
+		int lastBegin = 0;
+
+		int numIndexEntries = 0;
+
+		int[] indexBegins = new int[16];
+
+		long[] indexOffsets = new long[16];
+
+		ContigInfo(String name, long recordsBegin) {
+			this.name = name;
+			this.recordsBegin = recordsBegin;
+		}
+
+		void addIndexEntry(int begin, long offset) {
+			if (numIndexEntries == indexBegins.length) {
+				indexBegins = Arrays.copyOf(indexBegins, 2 * numIndexEntries);
+				indexOffsets = Arrays.copyOf(indexOffsets, 2 * numIndexEntries);
+			}
+			indexBegins[numIndexEntries] = begin;
+			indexOffsets[numIndexEntries] = offset;
+			numIndexEntries += 1;
+		}
+
+	}
+
+}
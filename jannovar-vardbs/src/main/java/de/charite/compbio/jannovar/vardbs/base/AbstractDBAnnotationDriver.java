@@ -4,6 +4,7 @@ import htsjdk.samtools.util.CloseableIterator;
 import htsjdk.variant.variantcontext.VariantContext;
 import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.IdentityHashMap;
 import java.util.List;
 
 /**
@@ -21,10 +22,15 @@ public abstract class AbstractDBAnnotationDriver<RecordType> implements DBAnnota
 	protected final VariantContextToRecordConverter<RecordType> vcToRecord;
 	/** Configuration */
 	protected final DBAnnotationOptions options;
+	/** Filter for skipping queries of absent variants, <code>null</code> if not configured */
+	protected final DatabaseBloomFilter bloomFilter;
 
 	/**
 	 * Create annotation driver for a coordinate-sorted, bgzip-compressed, VCF file
 	 * 
+	 * The <code>variantProvider</code> only decodes the INFO fields read by
+	 * <code>vcToRecord</code>, see {@link VariantContextToRecordConverter#getInfoKeys()}.
+	 * 
 	 * @param variantProvider
 	 *            {@link DatabaseVariantContextProvider} for querying database for
 	 *            {@link VariantContext} objects describing annotations from database.
@@ -40,44 +46,82 @@ public abstract class AbstractDBAnnotationDriver<RecordType> implements DBAnnota
 	public AbstractDBAnnotationDriver(DatabaseVariantContextProvider variantProvider, String fastaPath,
 			DBAnnotationOptions options, VariantContextToRecordConverter<RecordType> vcToRecord)
 			throws JannovarVarDBException {
-		this.variantProvider = variantProvider;
-		this.matcher = new AlleleMatcher(fastaPath);
+		variantProvider.selectInfoKeys(vcToRecord.getInfoKeys());
+		if (options.getPrefetchWindow() > 0) // window plus the current variant
+			this.variantProvider = new PrefetchingVariantContextProvider(variantProvider,
+					options.getPrefetchWindow() + 1);
+		else
+			this.variantProvider = variantProvider;
+		this.matcher = new AlleleMatcher(fastaPath, options.getNormalizationIndexPath());
 		this.vcToRecord = vcToRecord;
 		this.options = options;
+		this.bloomFilter = (options.getBloomFilterPath() == null) ? null
+				: DatabaseBloomFilter.getShared(options.getBloomFilterPath());
+	}
+
+	@Override
+	public void prefetch(VariantContext vc) {
+		if (variantProvider instanceof PrefetchingVariantContextProvider && mightOverlap(vc))
+			((PrefetchingVariantContextProvider) variantProvider).prefetch(vc.getContig(), vc.getStart() - 1,
+					vc.getEnd());
 	}
 
 	@Override
 	public VariantContext annotateVariantContext(VariantContext obsVC) {
-		try (CloseableIterator<VariantContext> iter = variantProvider.query(obsVC.getContig(), obsVC.getStart() - 1,
-				obsVC.getEnd())) {
-			// Fetch all overlapping and matching genotypes from database and pair them with the
-			// correct allele from vc.
-			List<GenotypeMatch> genotypeMatches = new ArrayList<>();
-			List<GenotypeMatch> positionOverlaps = new ArrayList<>();
-			while (iter.hasNext()) {
-				final VariantContext dbVC = iter.next();
-				if (!options.isReportOverlappingAsMatching()) // unnecessary in this case
-					genotypeMatches.addAll(matcher.matchGenotypes(obsVC, dbVC));
-				if (options.isReportOverlapping() || options.isReportOverlappingAsMatching())
-					positionOverlaps.addAll(matcher.positionOverlaps(obsVC, dbVC));
+		AnnotatingVariantContextBuilder builder = new AnnotatingVariantContextBuilder(obsVC);
+		annotateVariantContext(builder);
+		return builder.make();
+	}
+
+	@Override
+	public void annotateVariantContext(AnnotatingVariantContextBuilder builder) {
+		final VariantContext obsVC = builder.getVariantContext();
+		// Fetch all overlapping and matching genotypes from database and pair them with the
+		// correct allele from vc, skipping the query if there is no database record for sure.
+		List<GenotypeMatch> genotypeMatches = new ArrayList<>();
+		List<GenotypeMatch> positionOverlaps = new ArrayList<>();
+		if (mightOverlap(obsVC)) {
+			try (CloseableIterator<VariantContext> iter = variantProvider.query(obsVC.getContig(),
+					obsVC.getStart() - 1, obsVC.getEnd())) {
+				List<VariantDescription> obsVars = null; // normalized lazily, only if there is a database record
+				while (iter.hasNext()) {
+					final VariantContext dbVC = iter.next();
+					if (obsVars == null)
+						obsVars = builder.getNormalizedAlleles(matcher);
+					if (!options.isReportOverlappingAsMatching()) // unnecessary in this case
+						genotypeMatches.addAll(matcher.matchGenotypes(obsVC, obsVars, dbVC));
+					if (options.isReportOverlapping() || options.isReportOverlappingAsMatching())
+						positionOverlaps.addAll(matcher.positionOverlaps(obsVC, obsVars, dbVC));
+				}
 			}
+		}
 
-			// Pick best record for each alternative allele
-			HashMap<Integer, AnnotatingRecord<RecordType>> dbRecordsMatch = buildAnnotatingDBRecordsWrapper(
-					genotypeMatches, true);
-			HashMap<Integer, AnnotatingRecord<RecordType>> dbRecordsOverlap = buildAnnotatingDBRecordsWrapper(
-					positionOverlaps, false);
-			HashMap<Integer, AnnotatingRecord<RecordType>> emptyMap = new HashMap<>();
+		// Pick best record for each alternative allele, converting each database record only once
+		IdentityHashMap<VariantContext, RecordType> dbRecords = new IdentityHashMap<>();
+		HashMap<Integer, AnnotatingRecord<RecordType>> dbRecordsMatch = buildAnnotatingDBRecordsWrapper(
+				genotypeMatches, dbRecords, true);
+		HashMap<Integer, AnnotatingRecord<RecordType>> dbRecordsOverlap = buildAnnotatingDBRecordsWrapper(
+				positionOverlaps, dbRecords, false);
+		HashMap<Integer, AnnotatingRecord<RecordType>> emptyMap = new HashMap<>();
 
-			// Use these records to annotate the variant call in obsVC (record-wise but also per
-			// alternative allele)
-			if (options.isReportOverlappingAsMatching())
-				return annotateWithDBRecords(obsVC, dbRecordsOverlap, emptyMap);
-			else if (options.isReportOverlapping())
-				return annotateWithDBRecords(obsVC, dbRecordsMatch, dbRecordsOverlap);
-			else
-				return annotateWithDBRecords(obsVC, dbRecordsMatch, emptyMap);
-		}
+		// Use these records to annotate the variant call in obsVC (record-wise but also per
+		// alternative allele)
+		if (options.isReportOverlappingAsMatching())
+			annotateWithDBRecords(obsVC, dbRecordsOverlap, emptyMap, builder);
+		else if (options.isReportOverlapping())
+			annotateWithDBRecords(obsVC, dbRecordsMatch, dbRecordsOverlap, builder);
+		else
+			annotateWithDBRecords(obsVC, dbRecordsMatch, emptyMap, builder);
+	}
+
+	/**
+	 * @param vc
+	 *            observed {@link VariantContext}
+	 * @return <code>false</code> if {@link #bloomFilter} rules out database records overlapping
+	 *         with <code>vc</code>
+	 */
+	private boolean mightOverlap(VariantContext vc) {
+		return bloomFilter == null || bloomFilter.mightOverlap(vc.getContig(), vc.getStart() - 1, vc.getEnd());
 	}
 
 	/**
@@ -90,6 +134,8 @@ public abstract class AbstractDBAnnotationDriver<RecordType> implements DBAnnota
 	 * @param genotypeMatches
 	 *            List of {@link GenotypeMatch} objects to build the annotating database records
 	 *            from
+	 * @param dbRecords
+	 *            database records converted so far, by {@link VariantContext}
 	 * @param isMatch
 	 *            whether or not to consider true matching alleles (<code>true</code>) or only
 	 *            position-based overlaps (<code>false</code>)
@@ -97,7 +143,8 @@ public abstract class AbstractDBAnnotationDriver<RecordType> implements DBAnnota
 	 *         record to use
 	 */
 	private HashMap<Integer, AnnotatingRecord<RecordType>> buildAnnotatingDBRecordsWrapper(
-			List<GenotypeMatch> genotypeMatches, boolean isMatch) {
+			List<GenotypeMatch> genotypeMatches, IdentityHashMap<VariantContext, RecordType> dbRecords,
+			boolean isMatch) {
 		// Collect annotating variants for each allele
 		HashMap<Integer, ArrayList<GenotypeMatch>> annotatingRecords = new HashMap<>();
 		HashMap<GenotypeMatch, AnnotatingRecord<RecordType>> matchToRecord = new HashMap<>();
@@ -106,8 +153,8 @@ public abstract class AbstractDBAnnotationDriver<RecordType> implements DBAnnota
 			annotatingRecords.putIfAbsent(alleleNo, new ArrayList<GenotypeMatch>());
 			annotatingRecords.get(alleleNo).add(match);
 			if (!matchToRecord.containsKey(match))
-				matchToRecord.put(match,
-						new AnnotatingRecord<RecordType>(vcToRecord.convert(match.getDBVC()), match.getDbAllele()));
+				matchToRecord.put(match, new AnnotatingRecord<RecordType>(
+						dbRecords.computeIfAbsent(match.getDBVC(), vcToRecord::convert), match.getDbAllele()));
 		}
 
 		return pickAnnotatingDBRecords(annotatingRecords, matchToRecord, isMatch);
@@ -143,9 +190,12 @@ public abstract class AbstractDBAnnotationDriver<RecordType> implements DBAnnota
 	 * @param dbRecordOverlaps
 	 *            Map from alternative allele index to annotating <code>RecordType</code> with
 	 *            overlapping positions
+	 * @param builder
+	 *            {@link AnnotatingVariantContextBuilder} to write the annotation into
 	 */
-	protected abstract VariantContext annotateWithDBRecords(VariantContext vc,
+	protected abstract void annotateWithDBRecords(VariantContext vc,
 			HashMap<Integer, AnnotatingRecord<RecordType>> dbRecordMatches,
-			HashMap<Integer, AnnotatingRecord<RecordType>> dbRecordOverlaps);
+			HashMap<Integer, AnnotatingRecord<RecordType>> dbRecordOverlaps,
+			AnnotatingVariantContextBuilder builder);
 
 }
\ No newline at end of file
@@ -1,5 +1,6 @@
 package de.charite.compbio.jannovar.vardbs.base;
 
+import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.List;
@@ -17,6 +18,8 @@ public final class AlleleMatcher {
 
 	/** Helper to use for indel normalization */
 	private final VariantNormalizer normalizer;
+	/** Normalized forms of the database alleles, <code>null</code> for normalizing them on each query */
+	private final NormalizedAlleleIndex index;
 
 	/**
 	 * Construct GenotypeMatcher
@@ -27,7 +30,38 @@ public final class AlleleMatcher {
 	 *             On problems with loading the FASTA/FAI file
 	 */
 	public AlleleMatcher(String pathFasta) throws JannovarVarDBException {
+		this(pathFasta, null);
+	}
+
+	/**
+	 * Construct GenotypeMatcher, looking up the normalized database alleles in an index
+	 * 
+	 * @param pathFasta
+	 *            Path to FAI-indexed FASTA file
+	 * @param pathIndex
+	 *            Path to the {@link NormalizedAlleleIndex} for the database file, <code>null</code>
+	 *            for normalizing the database alleles on each query
+	 * @throws JannovarVarDBException
+	 *             On problems with loading the FASTA/FAI file or the index, or if the index was written with a
+	 *             different FASTA file
+	 */
+	public AlleleMatcher(String pathFasta, String pathIndex) throws JannovarVarDBException {
 		this.normalizer = new VariantNormalizer(pathFasta);
+		if (pathIndex == null) {
+			this.index = null;
+		} else {
+			this.index = new NormalizedAlleleIndex(pathIndex);
+			try {
+				index.checkReference(pathFasta);
+			} catch (JannovarVarDBException e) {
+				try {
+					index.close();
+				} catch (IOException closeException) {
+					e.addSuppressed(closeException);
+				}
+				throw e;
+			}
+		}
 	}
 
 	/**
@@ -43,11 +77,27 @@ public final class AlleleMatcher {
 	 * @return {@link Collection} of {@link GenotypeMatch}es for the two variants
 	 */
 	public Collection<GenotypeMatch> matchGenotypes(VariantContext obsVC, VariantContext dbVC) {
+		return matchGenotypes(obsVC, ctxToVariants(obsVC), dbVC);
+	}
+
+	/**
+	 * Match genotypes of two {@link VariantContext}s, using already normalized observed alleles
+	 * 
+	 * @param obsVC
+	 *            {@link VariantContext} describing the observed variant
+	 * @param obsVars
+	 *            normalized alternative alleles of <code>obsVC</code>, as returned by
+	 *            {@link #normalizeAlleles}
+	 * @param dbVC
+	 *            {@link VariantContext} describing the database variant
+	 * @return {@link Collection} of {@link GenotypeMatch}es for the two variants
+	 */
+	public Collection<GenotypeMatch> matchGenotypes(VariantContext obsVC,
+			Collection<VariantDescription> obsVars, VariantContext dbVC) {
 		List<GenotypeMatch> result = new ArrayList<>();
 
-		// Get normalized description of all alternative observed and database alleles
-		Collection<VariantDescription> obsVars = ctxToVariants(obsVC);
-		Collection<VariantDescription> dbVars = ctxToVariants(dbVC);
+		// Get normalized description of all alternative database alleles
+		Collection<VariantDescription> dbVars = dbCtxToVariants(dbVC);
 
 		int i = 1; // excludes reference allele
 		for (VariantDescription obsVar : obsVars) {
@@ -78,11 +128,28 @@ public final class AlleleMatcher {
 	 * @return {@link Collection} of {@link GenotypeMatch}es for the two variants
 	 */
 	public Collection<GenotypeMatch> positionOverlaps(VariantContext obsVC, VariantContext dbVC) {
+		return positionOverlaps(obsVC, ctxToVariants(obsVC), dbVC);
+	}
+
+	/**
+	 * Pair genotypes of two {@link VariantContext}s based on their position, using already
+	 * normalized observed alleles
+	 * 
+	 * @param obsVC
+	 *            {@link VariantContext} describing the observed variant
+	 * @param obsVars
+	 *            normalized alternative alleles of <code>obsVC</code>, as returned by
+	 *            {@link #normalizeAlleles}
+	 * @param dbVC
+	 *            {@link VariantContext} describing the database variant
+	 * @return {@link Collection} of {@link GenotypeMatch}es for the two variants
+	 */
+	public Collection<GenotypeMatch> positionOverlaps(VariantContext obsVC,
+			Collection<VariantDescription> obsVars, VariantContext dbVC) {
 		List<GenotypeMatch> result = new ArrayList<>();
 
-		// Get normalized description of all alternative observed and database alleles
-		Collection<VariantDescription> obsVars = ctxToVariants(obsVC);
-		Collection<VariantDescription> dbVars = ctxToVariants(dbVC);
+		// Get normalized description of all alternative database alleles
+		Collection<VariantDescription> dbVars = dbCtxToVariants(dbVC);
 
 		int i = 1; // excludes reference allele
 		for (VariantDescription obsVar : obsVars) {
@@ -102,6 +169,42 @@ public final class AlleleMatcher {
 		return result;
 	}
 
+	/**
+	 * Normalize the alternative alleles of a {@link VariantContext}
+	 *
+	 * Callers matching one observed variant against many database variants can normalize it once
+	 * and pass the result to {@link #matchGenotypes(VariantContext, Collection, VariantContext)}
+	 * and {@link #positionOverlaps(VariantContext, Collection, VariantContext)}.
+	 *
+	 * @param vc
+	 *            {@link VariantContext} to normalize
+	 * @return A {@link List} with one {@link VariantDescription} for each alternative allele in
+	 *         <code>vc</code>
+	 */
+	public List<VariantDescription> normalizeAlleles(VariantContext vc) {
+		return ctxToVariants(vc);
+	}
+
+	/**
+	 * Convert a database {@link VariantContext} to a list of normalized variant descriptions,
+	 * using {@link #index} if any
+	 *
+	 * @param vc
+	 *            {@link VariantContext} from the database to convert
+	 * @return A {@link Collection} of {@link VariantDescription} objects corresponding to
+	 *         <code>vc</code>
+	 */
+	private List<VariantDescription> dbCtxToVariants(VariantContext vc) {
+		if (index == null || vc.getNAlleles() < 2)
+			return ctxToVariants(vc);
+
+		List<VariantDescription> vars = new ArrayList<>();
+		for (int i = 1; i < vc.getNAlleles(); ++i)
+			vars.add(index.lookup(new VariantDescription(vc.getContig(), vc.getStart() - 1,
+					vc.getAlleles().get(0).getBaseString(), vc.getAlleles().get(i).getBaseString())));
+		return vars;
+	}
+
 	/**
 	 * Convert a {@link VariantContext} to a list of normalized variant descriptions
 	 *
@@ -113,7 +216,7 @@ public final class AlleleMatcher {
 	 * @return A {@link Collection} of {@link VariantDescription} objects corresponding to
 	 *         <code>vc</code>
 	 */
-	private Collection<VariantDescription> ctxToVariants(VariantContext vc) {
+	private List<VariantDescription> ctxToVariants(VariantContext vc) {
 		// Short-circuit in the case that we see a "database only" allele, e.g., as created when
 		// using generic TSV annotation without REF/ALT columns. In this case, the position is
 		// enough.
@@ -0,0 +1,75 @@
+package de.charite.compbio.jannovar.vardbs.base;
+
+import java.util.List;
+
+import htsjdk.variant.variantcontext.VariantContext;
+import htsjdk.variant.variantcontext.VariantContextBuilder;
+import htsjdk.variant.vcf.VCFConstants;
+
+/**
+ * {@link VariantContextBuilder} for annotating one observed {@link VariantContext} with one or more databases
+ *
+ * All {@link DBAnnotationDriver}s annotating the same record write into one object of this class, such that the
+ * annotated {@link VariantContext} is only built once. In addition to the builder, the object provides the current ID
+ * (which {@link VariantContextBuilder} does not expose but drivers extend) and the normalized alternative alleles of
+ * the observed variant, computed on first use and then shared by all drivers.
+ *
+ * The drivers sharing an object must use the same reference FASTA file, which is always the case in Jannovar.
+ */
+public final class AnnotatingVariantContextBuilder extends VariantContextBuilder {
+
+	/** The observed variant that is annotated */
+	private final VariantContext vc;
+	/** The current value of the ID column */
+	private String id;
+	/** Normalized alternative alleles of {@link #vc}, <code>null</code> before first use */
+	private List<VariantDescription> normalizedAlleles = null;
+
+	/**
+	 * Construct builder, initialized from the observed variant
+	 *
+	 * @param vc
+	 *            the observed {@link VariantContext} to annotate
+	 */
+	public AnnotatingVariantContextBuilder(VariantContext vc) {
+		super(vc);
+		this.vc = vc;
+		this.id = vc.getID();
+	}
+
+	/** @return the observed {@link VariantContext} that is annotated */
+	public VariantContext getVariantContext() {
+		return vc;
+	}
+
+	/** @return the current value of the ID column, including IDs added by earlier drivers */
+	public String getID() {
+		return id;
+	}
+
+	/**
+	 * Return normalized alternative alleles of the observed variant, normalizing them on the first call
+	 *
+	 * @param matcher
+	 *            {@link AlleleMatcher} to use for the normalization on the first call
+	 * @return {@link List} of normalized {@link VariantDescription}s, one for each alternative allele
+	 */
+	public List<VariantDescription> getNormalizedAlleles(AlleleMatcher matcher) {
+		if (normalizedAlleles == null)
+			normalizedAlleles = matcher.normalizeAlleles(vc);
+		return normalizedAlleles;
+	}
+
+	@Override
+	public VariantContextBuilder id(String ID) {
+		this.id = ID;
+		return super.id(ID);
+	}
+
+	@Override
+	public VariantContextBuilder noID() {
+		this.id = VCFConstants.EMPTY_ID_FIELD;
+		return super.noID();
+	}
+
+}
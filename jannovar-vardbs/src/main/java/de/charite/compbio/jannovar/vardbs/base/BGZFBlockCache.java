@@ -0,0 +1,126 @@
+package de.charite.compbio.jannovar.vardbs.base;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheStats;
+import com.google.common.util.concurrent.UncheckedExecutionException;
+import java.io.IOException;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+
+/**
+ * Size-bounded LRU cache of decompressed BGZF blocks, keyed by file and block address.
+ *
+ * Neighbouring database queries usually fall into the same BGZF block. Readers using this cache
+ * through {@link CachingBlockCompressedInputStream} only inflate each block once as long as it
+ * stays in the cache, also when the same file is opened by several readers (e.g., one per
+ * annotation thread). The cache is bounded by the total size of the decompressed blocks.
+ *
+ * Objects of this class are thread-safe. The cached blocks must not be modified.
+ */
+public final class BGZFBlockCache {
+
+	/** Default maximal size of the decompressed blocks in the cache, in bytes */
+	public static final long DEFAULT_MAX_BYTES = 64L * 1024 * 1024;
+
+	/** Cache shared by all database readers */
+	private static final BGZFBlockCache SHARED = new BGZFBlockCache(DEFAULT_MAX_BYTES);
+
+	/** The cached blocks */
+	private final Cache<Key, Block> cache;
+
+	/**
+	 * Construct new cache.
+	 *
+	 * @param maxBytes
+	 *            maximal size of the decompressed blocks in the cache, in bytes
+	 */
+	public BGZFBlockCache(long maxBytes) {
+		this.cache = CacheBuilder.newBuilder().maximumWeight(maxBytes)
+				.weigher((Key key, Block block) -> block.data.length).recordStats().build();
+	}
+
+	/** @return cache shared by all database readers, with {@link #DEFAULT_MAX_BYTES} */
+	public static BGZFBlockCache getShared() {
+		return SHARED;
+	}
+
+	/** @return hit and miss statistics */
+	public CacheStats stats() {
+		return cache.stats();
+	}
+
+	/** Remove all blocks from the cache */
+	public void invalidateAll() {
+		cache.invalidateAll();
+	}
+
+	/**
+	 * Get block from cache, loading it on a miss.
+	 *
+	 * @param file
+	 *            canonical path of the BGZF file
+	 * @param address
+	 *            file offset of the compressed block
+	 * @param loader
+	 *            reads and inflates the block on a cache miss
+	 * @return the decompressed block
+	 * @throws IOException
+	 *             on problems loading the block
+	 */
+	Block get(String file, long address, Callable<Block> loader) throws IOException {
+		try {
+			return cache.get(new Key(file, address), loader);
+		} catch (ExecutionException | UncheckedExecutionException e) {
+			if (e.getCause() instanceof IOException)
+				throw (IOException) e.getCause();
+			throw new IOException("Problem reading block at " + address + " of " + file, e.getCause());
+		}
+	}
+
+	/** A decompressed BGZF block */
+	static final class Block {
+
+		/** Decompressed data */
+		final byte[] data;
+
+		/** Size of the compressed block in the file */
+		final int compressedSize;
+
+		Block(byte[] data, int compressedSize) {
+			this.data = data;
+			this.compressedSize = compressedSize;
+		}
+
+	}
+
+	/** Key of a block: file and block address */
+	private static final class Key {
+
+		private final String file;
+
+		private final long address;
+
+		Key(String file, long address) {
+			this.file = file;
+			this.address = address;
+		}
+
+		@Override
+		public int hashCode() {
+			return 31 * file.hashCode() + Long.hashCode(address);
+		}
+
+		@Override
+		public boolean equals(Object obj) {
+			if (this == obj)
+				return true;
+			if (!(obj instanceof Key))
+				return false;
+			final Key other = (Key) obj;
+			return address == other.address && file.equals(other.file);
+		}
+
+	}
+
+}
@@ -0,0 +1,135 @@
+package de.charite.compbio.jannovar.vardbs.base;
+
+import htsjdk.samtools.FileTruncatedException;
+import htsjdk.samtools.seekablestream.SeekableFileStream;
+import htsjdk.samtools.seekablestream.SeekableStream;
+import htsjdk.samtools.util.BlockCompressedInputStream;
+import htsjdk.samtools.util.BlockCompressedStreamConstants;
+import htsjdk.samtools.util.BlockGunzipper;
+import java.io.File;
+import java.io.IOException;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
+
+/**
+ * {@link BlockCompressedInputStream} that takes the decompressed BGZF blocks from a
+ * {@link BGZFBlockCache}.
+ *
+ * On a cache hit, the compressed block is neither read nor inflated, the underlying file is only
+ * positioned behind it. On a miss, the block is read and inflated here and put into the cache.
+ */
+public final class CachingBlockCompressedInputStream extends BlockCompressedInputStream {
+
+	/** The underlying file, also read by the super class */
+	private final SeekableStream stream;
+
+	/** Canonical path of the file, used as the cache key */
+	private final String fileKey;
+
+	/** The block cache to use */
+	private final BGZFBlockCache cache;
+
+	/** Inflater for cache misses */
+	private final Inflater inflater = BlockGunzipper.getDefaultInflaterFactory().makeInflater(true);
+
+	/** Buffer for the compressed blocks */
+	private final byte[] compressed = new byte[BlockCompressedStreamConstants.MAX_COMPRESSED_BLOCK_SIZE];
+
+	/**
+	 * Open BGZF file.
+	 *
+	 * @param file
+	 *            path to the BGZF file
+	 * @param cache
+	 *            block cache to use
+	 * @throws IOException
+	 *             on problems opening the file
+	 */
+	public CachingBlockCompressedInputStream(File file, BGZFBlockCache cache) throws IOException {
+		this(new SeekableFileStream(file), file.getCanonicalPath(), cache);
+	}
+
+	private CachingBlockCompressedInputStream(SeekableStream stream, String fileKey,
+			BGZFBlockCache cache) {
+		super(stream);
+		this.stream = stream;
+		this.fileKey = fileKey;
+		this.cache = cache;
+	}
+
+	@Override
+	protected DecompressedBlock nextBlock(byte[] bufferAvailableForReuse) {
+		long address = 0;
+		try {
+			address = stream.position();
+			final BGZFBlockCache.Block block = cache.get(fileKey, address, this::readBlock);
+			stream.seek(address + block.compressedSize);
+			// The cached data is shared, so bufferAvailableForReuse is not used at all
+			return new DecompressedBlock(address, block.data, block.compressedSize);
+		} catch (IOException e) {
+			return new DecompressedBlock(address, 0, e);
+		}
+	}
+
+	@Override
+	public void close() throws IOException {
+		super.close();
+		inflater.end();
+	}
+
+	/** Read and inflate the block at the current position of {@link #stream} */
+	private BGZFBlockCache.Block readBlock() throws IOException {
+		final int headerLength = BlockCompressedStreamConstants.BLOCK_HEADER_LENGTH;
+		final int count = readFully(compressed, 0, headerLength);
+		if (count == 0)
+			return new BGZFBlockCache.Block(new byte[0], 0); // EOF
+		if (count != headerLength)
+			throw new FileTruncatedException("Premature end of file: " + fileKey);
+		if (compressed[0] != BlockCompressedStreamConstants.GZIP_ID1
+				|| (compressed[1] & 0xff) != BlockCompressedStreamConstants.GZIP_ID2)
+			throw new IOException("Invalid GZIP header in " + fileKey);
+
+		final int blockLength = unpackInt16(compressed, BlockCompressedStreamConstants.BLOCK_LENGTH_OFFSET)
+				+ 1;
+		if (blockLength < headerLength + BlockCompressedStreamConstants.BLOCK_FOOTER_LENGTH
+				|| blockLength > compressed.length)
+			throw new IOException("Unexpected compressed block length " + blockLength + " in " + fileKey);
+		if (readFully(compressed, headerLength, blockLength - headerLength) != blockLength - headerLength)
+			throw new FileTruncatedException("Premature end of file: " + fileKey);
+
+		final int uncompressedLength = unpackInt32(compressed, blockLength - 4);
+		final byte[] data = new byte[uncompressedLength];
+		inflater.reset();
+		inflater.setInput(compressed, headerLength,
+				blockLength - headerLength - BlockCompressedStreamConstants.BLOCK_FOOTER_LENGTH);
+		try {
+			if (inflater.inflate(data) != uncompressedLength)
+				throw new IOException("Did not inflate expected amount in " + fileKey);
+		} catch (DataFormatException e) {
+			throw new IOException("Problem inflating block of " + fileKey, e);
+		}
+		return new BGZFBlockCache.Block(data, blockLength);
+	}
+
+	/** Read up to <code>length</code> bytes, fewer only at the end of the file */
+	private int readFully(byte[] buffer, int offset, int length) throws IOException {
+		int count = 0;
+		while (count < length) {
+			final int n = stream.read(buffer, offset + count, length - count);
+			if (n <= 0)
+				break;
+			count += n;
+		}
+		return count;
+	}
+
+	private static int unpackInt16(byte[] buffer, int offset) {
+		return (buffer[offset] & 0xff) | ((buffer[offset + 1] & 0xff) << 8);
+	}
+
+	private static int unpackInt32(byte[] buffer, int offset) {
+		return (buffer[offset] & 0xff) | ((buffer[offset + 1] & 0xff) << 8)
+				| ((buffer[offset + 2] & 0xff) << 16) | ((buffer[offset + 3] & 0xff) << 24);
+	}
+
+}
@@ -0,0 +1,246 @@
+package de.charite.compbio.jannovar.vardbs.base;
+
+import htsjdk.samtools.util.CloseableIterator;
+import htsjdk.tribble.index.Block;
+import htsjdk.tribble.index.tabix.TabixFormat;
+import htsjdk.tribble.index.tabix.TabixIndex;
+import htsjdk.tribble.readers.TabixReader;
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+/**
+ * Query the lines of a tabix-indexed file, reading through a {@link BGZFBlockCache}.
+ *
+ * The queries return the same lines as {@link TabixReader#query(String, int, int)}, but the
+ * BGZF blocks are taken from the cache where possible and a trailing carriage return is removed
+ * from the lines. Files with the generic and the VCF preset are supported.
+ *
+ * Objects of this class are not thread-safe, and there can only be one active query at a time.
+ */
+public final class CachingTabixReader implements Closeable {
+
+	/** Flag for zero-based, half-open coordinates in {@link TabixFormat#flags} */
+	private static final int FLAG_ZERO_BASED = 0x10000;
+
+	/** Mask for the preset in {@link TabixFormat#flags} */
+	private static final int PRESET_MASK = 0xffff;
+
+	/** Largest position covered by the binning index */
+	private static final int MAX_INDEX_POS = 1 << 29;
+
+	/** Path to the file */
+	private final String path;
+
+	/** The tabix index */
+	private final TabixIndex index;
+
+	/** Column specification from the index */
+	private final TabixFormat format;
+
+	/** Stream for reading the file */
+	private final CachingBlockCompressedInputStream stream;
+
+	/**
+	 * Open file with index at <code>path + ".tbi"</code>, using the shared cache.
+	 *
+	 * @param path
+	 *            path to the BGZF-compressed file
+	 * @throws IOException
+	 *             on problems opening the file or reading the index
+	 */
+	public CachingTabixReader(String path) throws IOException {
+		this(path, BGZFBlockCache.getShared());
+	}
+
+	/**
+	 * Open file with index at <code>path + ".tbi"</code>.
+	 *
+	 * @param path
+	 *            path to the BGZF-compressed file
+	 * @param cache
+	 *            block cache to use
+	 * @throws IOException
+	 *             on problems opening the file or reading the index
+	 */
+	public CachingTabixReader(String path, BGZFBlockCache cache) throws IOException {
+		this.path = path;
+		this.index = new TabixIndex(new File(path + ".tbi"));
+		this.format = index.getFormatSpec();
+		if ((format.flags & PRESET_MASK) == TabixFormat.SAM_FLAGS)
+			throw new IOException("SAM preset is not supported for " + path);
+		this.stream = new CachingBlockCompressedInputStream(new File(path), cache);
+	}
+
+	/**
+	 * Query for lines overlapping with a region.
+	 *
+	 * Coordinates are as for {@link TabixReader#query(String, int, int)}: zero-based begin and
+	 * exclusive end position.
+	 *
+	 * @param contig
+	 *            contig to query
+	 * @param beginPos
+	 *            zero-based begin position
+	 * @param endPos
+	 *            zero-based end position, exclusive
+	 * @return iterator over the overlapping lines, reading lazily; empty for empty regions
+	 */
+	public CloseableIterator<String> query(String contig, int beginPos, int endPos) {
+		final List<Block> blocks = (beginPos >= endPos) ? Collections.emptyList()
+				: index.getBlocks(contig, beginPos + 1, Math.min(MAX_INDEX_POS, endPos));
+		return new LineIterator(contig, beginPos, endPos, blocks.iterator());
+	}
+
+	@Override
+	public void close() throws IOException {
+		stream.close();
+	}
+
+	/** Iterator over the lines of a query */
+	private final class LineIterator implements CloseableIterator<String> {
+
+		private final String contig;
+
+		private final int beginPos;
+
+		private final int endPos;
+
+		/** Remaining chunks from the index */
+		private final Iterator<Block> blocks;
+
+		/** Virtual end offset of the current chunk */
+		private long chunkEnd = -1;
+
+		/** Next line to return, <code>null</code> at the end */
+		private String next;
+
+		/** Begin and end of the interval of the current line, filled by {@link #parseInterval} */
+		private int lineBegin;
+
+		private int lineEnd;
+
+		LineIterator(String contig, int beginPos, int endPos, Iterator<Block> blocks) {
+			this.contig = contig;
+			this.beginPos = beginPos;
+			this.endPos = endPos;
+			this.blocks = blocks;
+			this.next = advance();
+		}
+
+		@Override
+		public boolean hasNext() {
+			return next != null;
+		}
+
+		@Override
+		public String next() {
+			if (next == null)
+				throw new NoSuchElementException();
+			final String result = next;
+			next = advance();
+			return result;
+		}
+
+		@Override
+		public void close() {
+		}
+
+		/** @return next overlapping line, <code>null</code> at the end */
+		private String advance() {
+			try {
+				while (true) {
+					if (stream.getFilePointer() >= chunkEnd) {
+						if (!blocks.hasNext())
+							return null;
+						final Block block = blocks.next();
+						chunkEnd = block.getEndPosition();
+						if (stream.getFilePointer() != block.getStartPosition())
+							stream.seek(block.getStartPosition());
+						continue;
+					}
+
+					final String line = stream.readLine();
+					if (line == null)
+						return null;
+					if (line.isEmpty() || line.charAt(0) == format.metaCharacter)
+						continue;
+					if (!parseInterval(line) || lineBegin >= endPos)
+						return null; // on other contig or behind the region
+					if (lineEnd > beginPos)
+						return line;
+				}
+			} catch (IOException e) {
+				throw new UncheckedIOException("Problem reading from " + path, e);
+			}
+		}
+
+		/**
+		 * Fill {@link #lineBegin} and {@link #lineEnd} from <code>line</code>, in the same way as
+		 * {@link TabixReader}.
+		 *
+		 * @return whether the line is on {@link #contig}
+		 */
+		private boolean parseInterval(String line) {
+			final int preset = format.flags & PRESET_MASK;
+			boolean onContig = false;
+			int col = 1;
+			int colBegin = 0;
+			while (colBegin <= line.length()) {
+				int colEnd = line.indexOf('\t', colBegin);
+				if (colEnd == -1)
+					colEnd = line.length();
+
+				if (col == format.sequenceColumn) {
+					onContig = contig.regionMatches(0, line, colBegin, colEnd - colBegin)
+							&& contig.length() == colEnd - colBegin;
+					if (!onContig)
+						return false;
+				} else if (col == format.startPositionColumn) {
+					lineBegin = lineEnd = Integer.parseInt(line.substring(colBegin, colEnd));
+					if ((format.flags & FLAG_ZERO_BASED) != 0)
+						lineEnd += 1;
+					else
+						lineBegin -= 1;
+					if (lineBegin < 0)
+						lineBegin = 0;
+					if (lineEnd < 1)
+						lineEnd = 1;
+				} else if (preset == TabixFormat.GENERIC_FLAGS) {
+					if (col == format.endPositionColumn)
+						lineEnd = Integer.parseInt(line.substring(colBegin, colEnd));
+				} else if (preset == TabixFormat.VCF_FLAGS) {
+					if (col == 4 && colEnd > colBegin) {
+						lineEnd = lineBegin + colEnd - colBegin;
+					} else if (col == 8) {
+						final String info = line.substring(colBegin, colEnd);
+						int pos = -1;
+						if (info.startsWith("END=")) {
+							pos = 4;
+						} else {
+							final int idx = info.indexOf(";END=");
+							if (idx >= 0)
+								pos = idx + 5;
+						}
+						if (pos > 0) {
+							final int semicolon = info.indexOf(';', pos);
+							lineEnd = Integer.parseInt(semicolon > pos ? info.substring(pos, semicolon)
+									: info.substring(pos));
+						}
+					}
+				}
+
+				colBegin = colEnd + 1;
+				++col;
+			}
+			return onContig;
+		}
+
+	}
+
+}
@@ -1,6 +1,9 @@
 package de.charite.compbio.jannovar.vardbs.base;
 
+import java.util.Map;
+
 import htsjdk.variant.variantcontext.VariantContext;
+import htsjdk.variant.variantcontext.VariantContextBuilder;
 
 /**
  * Interface for annotation drivers by variant databases.
@@ -26,4 +29,39 @@ public interface DBAnnotationDriver {
 	 */
 	public VariantContext annotateVariantContext(VariantContext vc);
 
+	/**
+	 * Announce that <code>vc</code> will be annotated soon, such that the database can be queried for it in the
+	 * background.
+	 *
+	 * Variants must be announced in the order they are annotated in. The default implementation does nothing, drivers
+	 * using a {@link PrefetchingVariantContextProvider} pass the query on to it.
+	 *
+	 * @param vc
+	 *            {@link VariantContext} to annotate later
+	 */
+	public default void prefetch(VariantContext vc) {
+	}
+
+	/**
+	 * Annotate the variant of an {@link AnnotatingVariantContextBuilder} using the information in the database.
+	 *
+	 * In contrast to {@link #annotateVariantContext(VariantContext)}, the annotation is written into
+	 * <code>builder</code> which can be shared with other drivers, such that the annotated {@link VariantContext} is
+	 * built only once for all databases. The default implementation falls back to
+	 * {@link #annotateVariantContext(VariantContext)} and copies the result into <code>builder</code>.
+	 *
+	 * @param builder
+	 *            {@link AnnotatingVariantContextBuilder} to write the annotation into
+	 */
+	public default void annotateVariantContext(AnnotatingVariantContextBuilder builder) {
+		VariantContext vc = builder.getVariantContext();
+		if (!builder.getID().equals(vc.getID()))
+			vc = new VariantContextBuilder(vc).id(builder.getID()).make();
+		final VariantContext annotated = annotateVariantContext(vc);
+		for (Map.Entry<String, Object> entry : annotated.getAttributes().entrySet())
+			builder.attribute(entry.getKey(), entry.getValue());
+		if (!annotated.getID().equals(builder.getID()))
+			builder.id(annotated.getID());
+	}
+
 }
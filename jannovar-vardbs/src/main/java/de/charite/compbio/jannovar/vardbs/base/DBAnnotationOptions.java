@@ -33,6 +33,22 @@ public class DBAnnotationOptions {
 	private String identifierPrefix;
 	/** Behaviour on multiple matching annotations */
 	private MultipleMatchBehaviour multiMatchBehaviour;
+	/**
+	 * Number of upcoming variants to query the database for in the background, see
+	 * {@link PrefetchingVariantContextProvider} (default: 0, disabled)
+	 */
+	private int prefetchWindow = 0;
+	/**
+	 * Path to the {@link NormalizedAlleleIndex} of the database file, <code>null</code> for
+	 * normalizing the database alleles on each query (default: <code>null</code>)
+	 */
+	private String normalizationIndexPath = null;
+	/**
+	 * Path to the {@link DatabaseBloomFilter} of the database file for skipping queries of
+	 * variants absent from the database, <code>null</code> for querying for all variants (default:
+	 * <code>null</code>)
+	 */
+	private String bloomFilterPath = null;
 
 	public DBAnnotationOptions(boolean reportOverlapping, boolean reportOverlappingAsIdentical,
 			String identifierPrefix, MultipleMatchBehaviour multiMatchBehaviour) {
@@ -81,12 +97,38 @@ public class DBAnnotationOptions {
 		return identifierPrefix;
 	}
 
+	public int getPrefetchWindow() {
+		return prefetchWindow;
+	}
+
+	public void setPrefetchWindow(int prefetchWindow) {
+		this.prefetchWindow = prefetchWindow;
+	}
+
+	public String getNormalizationIndexPath() {
+		return normalizationIndexPath;
+	}
+
+	public void setNormalizationIndexPath(String normalizationIndexPath) {
+		this.normalizationIndexPath = normalizationIndexPath;
+	}
+
+	public String getBloomFilterPath() {
+		return bloomFilterPath;
+	}
+
+	public void setBloomFilterPath(String bloomFilterPath) {
+		this.bloomFilterPath = bloomFilterPath;
+	}
+
 	@Override
 	public String toString() {
 		return "DBAnnotationOptions [reportOverlapping=" + reportOverlapping
 				+ ", reportOverlappingAsMatching=" + reportOverlappingAsMatching
 				+ ", identifierPrefix=" + identifierPrefix + ", multiMatchBehaviour="
-				+ multiMatchBehaviour + "]";
+				+ multiMatchBehaviour + ", prefetchWindow=" + prefetchWindow
+				+ ", normalizationIndexPath=" + normalizationIndexPath + ", bloomFilterPath="
+				+ bloomFilterPath + "]";
 	}
 
 }
@@ -0,0 +1,301 @@
+package de.charite.compbio.jannovar.vardbs.base;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.concurrent.ConcurrentHashMap;
+
+import com.google.common.hash.BloomFilter;
+import com.google.common.hash.Funnels;
+import com.google.common.hash.Hashing;
+
+import htsjdk.variant.variantcontext.VariantContext;
+
+/**
+ * Bloom filter over the regions covered by the records of a variant database.
+ *
+ * Most observed variants are absent from sparse databases such as ClinVar or COSMIC, but the annotation drivers still
+ * query the database file for each of them. With a filter, the drivers skip the query when
+ * {@link #mightOverlap(String, int, int)} returns <code>false</code>, i.e., when the database has no record overlapping
+ * the queried region for sure.
+ *
+ * The filter is built over the regions of the records rather than over their alleles since the drivers also report
+ * database records overlapping with the observed variant, not only the matching ones. The regions are split into bins
+ * of <code>1 &lt;&lt; BIN_BITS</code> bp, records longer than {@link #MAX_SHORT_SPAN} bp (e.g., copy number variants in
+ * ClinVar) are added with bins of <code>1 &lt;&lt; LONG_BIN_BITS</code> bp instead such that they do not fill the
+ * filter.
+ *
+ * The file starts with the magic bytes <code>"JVBF"</code>, the format version, and the fingerprint of the database
+ * file (see {@link NormalizedAlleleIndex#fingerprint(String)}), followed by the filter in the serialization of
+ * {@link BloomFilter}.
+ *
+ * Lookups are thread-safe. Use {@link #getShared(String)} for sharing one loaded filter between all drivers of the
+ * same database file.
+ */
+public final class DatabaseBloomFilter {
+
+	/** magic bytes */
+	static final byte[] MAGIC_BYTES = { 'J', 'V', 'B', 'F' };
+
+	/** version of the binary layout */
+	static final int FORMAT_VERSION = 1;
+
+	/** file name extension of the filter next to the database file, see {@link #defaultPath} */
+	public static final String EXTENSION = ".jvbf";
+
+	/** bins of short records have a size of <code>1 &lt;&lt; BIN_BITS</code> */
+	static final int BIN_BITS = 4;
+
+	/** bins of long records have a size of <code>1 &lt;&lt; LONG_BIN_BITS</code> */
+	static final int LONG_BIN_BITS = 16;
+
+	/** records spanning more positions are added with the bins of long records */
+	static final int MAX_SHORT_SPAN = 4096;
+
+	/** Filters shared by all users, by canonical path of the filter file */
+	private static final ConcurrentHashMap<String, DatabaseBloomFilter> SHARED = new ConcurrentHashMap<>();
+
+	/** fingerprint of the database file the filter was built for */
+	private final long sourceFingerprint;
+
+	/** the filter over the bin keys, see {@link #key} */
+	private final BloomFilter<Long> filter;
+
+	private DatabaseBloomFilter(long sourceFingerprint, BloomFilter<Long> filter) {
+		this.sourceFingerprint = sourceFingerprint;
+		this.filter = filter;
+	}
+
+	/**
+	 * Build filter from the records of a database.
+	 *
+	 * The bin keys of all records are collected in memory first, using 8 bytes per bin, to size the filter for the
+	 * number of distinct bins.
+	 *
+	 * @param dbPath
+	 *            path to the database file the records are read from
+	 * @param records
+	 *            all records of the database file
+	 * @param fpp
+	 *            the desired false positive probability, between 0 and 1
+	 * @return the filter
+	 * @throws JannovarVarDBException
+	 *             on problems reading the database file
+	 */
+	public static DatabaseBloomFilter build(String dbPath, Iterator<VariantContext> records, double fpp)
+			throws JannovarVarDBException {
+		long[] keys = new long[1024];
+		int numKeys = 0;
+		String contig = null;
+		long contigHash = 0;
+		while (records.hasNext()) {
+			final VariantContext vc = records.next();
+			if (!vc.getContig().equals(contig)) {
+				contig = vc.getContig();
+				contigHash = contigHash(contig);
+			}
+			final boolean isLong = vc.getEnd() - vc.getStart() + 1 > MAX_SHORT_SPAN;
+			final int bits = isLong ? LONG_BIN_BITS : BIN_BITS;
+			for (int bin = vc.getStart() >> bits; bin <= (vc.getEnd() >> bits); ++bin) {
+				if (numKeys == keys.length) {
+					if (numKeys > Integer.MAX_VALUE / 4)
+						throw new JannovarVarDBException("Too many records for Bloom filter of " + dbPath);
+					keys = Arrays.copyOf(keys, 2 * numKeys);
+				}
+				keys[numKeys++] = key(contigHash, isLong, bin);
+			}
+		}
+
+		Arrays.sort(keys, 0, numKeys);
+		int numDistinct = 0;
+		for (int i = 0; i < numKeys; ++i)
+			if (i == 0 || keys[i] != keys[i - 1])
+				keys[numDistinct++] = keys[i];
+
+		BloomFilter<Long> filter = BloomFilter.create(Funnels.longFunnel(), Math.max(1, numDistinct), fpp);
+		for (int i = 0; i < numDistinct; ++i)
+			filter.put(keys[i]);
+		return new DatabaseBloomFilter(NormalizedAlleleIndex.fingerprint(dbPath), filter);
+	}
+
+	/**
+	 * Load filter from file.
+	 *
+	 * @param path
+	 *            path to the file written by {@link #save}
+	 * @return the filter
+	 * @throws JannovarVarDBException
+	 *             on problems reading the file
+	 */
+	public static DatabaseBloomFilter load(String path) throws JannovarVarDBException {
+		try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(path)))) {
+			final long sourceFingerprint = readHeader(in, path);
+			return new DatabaseBloomFilter(sourceFingerprint, BloomFilter.readFrom(in, Funnels.longFunnel()));
+		} catch (IOException e) {
+			throw new JannovarVarDBException("Could not read " + path, e);
+		}
+	}
+
+	/**
+	 * Return the filter shared by all users of the file at <code>path</code>, loading it on first use.
+	 *
+	 * @param path
+	 *            path to the file written by {@link #save}
+	 * @return shared {@link DatabaseBloomFilter} for <code>path</code>
+	 * @throws JannovarVarDBException
+	 *             on problems reading the file
+	 */
+	public static DatabaseBloomFilter getShared(String path) throws JannovarVarDBException {
+		final File file = new File(path);
+		String key;
+		try {
+			key = file.getCanonicalPath();
+		} catch (IOException e) {
+			key = file.getAbsolutePath();
+		}
+		final DatabaseBloomFilter existing = SHARED.get(key);
+		if (existing != null)
+			return existing;
+		final DatabaseBloomFilter loaded = load(path);
+		final DatabaseBloomFilter raced = SHARED.putIfAbsent(key, loaded);
+		return (raced != null) ? raced : loaded;
+	}
+
+	/**
+	 * Read and check magic bytes and format version.
+	 *
+	 * @return fingerprint of the database file the filter was built for
+	 */
+	private static long readHeader(DataInputStream in, String path) throws IOException, JannovarVarDBException {
+		byte[] word = new byte[MAGIC_BYTES.length];
+		in.readFully(word);
+		if (!Arrays.equals(word, MAGIC_BYTES))
+			throw new JannovarVarDBException(
+					path + " does not look like a database Bloom filter, magic number incorrect!");
+		final int formatVersion = in.readInt();
+		if (formatVersion != FORMAT_VERSION)
+			throw new JannovarVarDBException(
+					path + " has format version " + formatVersion + " but we need " + FORMAT_VERSION);
+		return in.readLong();
+	}
+
+	/**
+	 * Write filter to file.
+	 *
+	 * @param path
+	 *            path to the file to write
+	 * @throws JannovarVarDBException
+	 *             on problems writing the file
+	 */
+	public void save(String path) throws JannovarVarDBException {
+		try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(path)))) {
+			out.write(MAGIC_BYTES);
+			out.writeInt(FORMAT_VERSION);
+			out.writeLong(sourceFingerprint);
+			filter.writeTo(out);
+		} catch (IOException e) {
+			throw new JannovarVarDBException("Could not write " + path, e);
+		}
+	}
+
+	/**
+	 * @param dbPath
+	 *            path to the database file
+	 * @return path of the filter for the database file at <code>dbPath</code>, written by <code>db-bloom</code> by
+	 *         default
+	 */
+	public static String defaultPath(String dbPath) {
+		return dbPath + EXTENSION;
+	}
+
+	/**
+	 * Find filter next to a database file.
+	 *
+	 * Only the header of the filter is read for checking it against the database file.
+	 *
+	 * @param dbPath
+	 *            path to the database file
+	 * @return path to the filter at {@link #defaultPath}, <code>null</code> if there is no such file
+	 * @throws JannovarVarDBException
+	 *             if there is a filter but it was built for a different version of the database file
+	 */
+	public static String findFor(String dbPath) throws JannovarVarDBException {
+		final String path = defaultPath(dbPath);
+		if (!new File(path).isFile())
+			return null;
+		final long sourceFingerprint;
+		try (DataInputStream in = new DataInputStream(new FileInputStream(path))) {
+			sourceFingerprint = readHeader(in, path);
+		} catch (IOException e) {
+			throw new JannovarVarDBException("Could not read " + path, e);
+		}
+		checkSource(sourceFingerprint, dbPath);
+		return path;
+	}
+
+	/**
+	 * Check that the filter was built for the given database file.
+	 *
+	 * @param dbPath
+	 *            path to the database file
+	 * @throws JannovarVarDBException
+	 *             if the filter was built for a different file or on problems reading the file
+	 */
+	public void checkSource(String dbPath) throws JannovarVarDBException {
+		checkSource(sourceFingerprint, dbPath);
+	}
+
+	/** Check that <code>sourceFingerprint</code> is the fingerprint of the database file at <code>dbPath</code> */
+	private static void checkSource(long sourceFingerprint, String dbPath) throws JannovarVarDBException {
+		if (NormalizedAlleleIndex.fingerprint(dbPath) != sourceFingerprint)
+			throw new JannovarVarDBException("The Bloom filter " + defaultPath(dbPath)
+					+ " was built for a different version of " + dbPath + ", please re-run db-bloom");
+	}
+
+	/** @return estimated false positive probability of {@link #mightOverlap} for a single bin */
+	public double getExpectedFpp() {
+		return filter.expectedFpp();
+	}
+
+	/**
+	 * Check whether the database might have records overlapping with a region.
+	 *
+	 * @param contig
+	 *            name of the contig
+	 * @param beginPos
+	 *            begin position of the region, as passed to {@link DatabaseVariantContextProvider#query}
+	 * @param endPos
+	 *            end position of the region
+	 * @return <code>false</code> if the database has no record overlapping with the region for sure
+	 */
+	public boolean mightOverlap(String contig, int beginPos, int endPos) {
+		if (endPos - beginPos + 1 > MAX_SHORT_SPAN)
+			return true;
+		final long contigHash = contigHash(contig);
+		for (int bin = beginPos >> BIN_BITS; bin <= (endPos >> BIN_BITS); ++bin)
+			if (filter.mightContain(key(contigHash, false, bin)))
+				return true;
+		for (int bin = beginPos >> LONG_BIN_BITS; bin <= (endPos >> LONG_BIN_BITS); ++bin)
+			if (filter.mightContain(key(contigHash, true, bin)))
+				return true;
+		return false;
+	}
+
+	/** @return hash of the contig name for {@link #key} */
+	private static long contigHash(String contig) {
+		return Hashing.murmur3_128().hashUnencodedChars(contig).asLong();
+	}
+
+	/** @return key of a bin for the filter */
+	private static long key(long contigHash, boolean isLong, int bin) {
+		return contigHash + ((isLong ? 1L : 0L) << 32) + bin;
+	}
+
+}
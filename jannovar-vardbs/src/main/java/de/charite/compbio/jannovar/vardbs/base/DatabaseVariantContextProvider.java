@@ -2,6 +2,7 @@ package de.charite.compbio.jannovar.vardbs.base;
 
 import htsjdk.samtools.util.CloseableIterator;
 import htsjdk.variant.variantcontext.VariantContext;
+import java.util.Collection;
 
 /**
  * Allow to query database with contig, (1-based) begin, and end position to produce a
@@ -25,4 +26,19 @@ public interface DatabaseVariantContextProvider {
 	 */
 	CloseableIterator<VariantContext> query(String contig, int beginPos, int endPos);
 
+	/**
+	 * Restrict the INFO fields of the {@link VariantContext}s returned by {@link #query}.
+	 *
+	 * Providers decoding the records from text or binary data only decode the selected fields and
+	 * skip all others without parsing them. Must be called before the first query. The default
+	 * implementation ignores the selection, such that the returned records may have further
+	 * fields.
+	 *
+	 * @param infoKeys
+	 *            IDs of the INFO fields to decode, <code>null</code> for all fields
+	 */
+	default void selectInfoKeys(Collection<String> infoKeys) {
+		// nop
+	}
+
 }
@@ -0,0 +1,388 @@
+package de.charite.compbio.jannovar.vardbs.base;
+
+import java.io.BufferedInputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.zip.CRC32;
+
+/**
+ * Memory-mapped index with the normalized form of the alleles of a variant database.
+ *
+ * Matching observed variants against a database requires the normalized (left-shifted and trimmed) form of every
+ * database allele in the queried region. Without an index, {@link AlleleMatcher} normalizes the database alleles on
+ * each query, reading the reference FASTA file for every indel. The index is written once for a database file by
+ * {@link NormalizedAlleleIndexWriter}, after which the normalized form of a database allele is found by one probe into
+ * a hash table.
+ *
+ * The index is keyed by the database allele as written in the file (contig, 0-based position, reference and
+ * alternative allele) since the matcher also needs the normalized form of all database alleles overlapping with an
+ * observed variant for reporting overlaps, not only of the matching ones. Only alleles that are changed by the
+ * normalization are stored, in practice the indels, all other alleles are their own normalized form. Thus, the index is
+ * only valid for the exact database file and reference FASTA file it was written for, see {@link #checkSource} and {@link #checkReference}.
+ *
+ * The file starts with the magic bytes <code>"JVNI"</code>, the format version, and the offset of the meta section.
+ * The entries follow, each with the database allele and its normalized form, then the hash table with
+ * {@link #SLOT_SIZE} bytes per slot (64 bit hash of the key and the offset of the entry, zero for empty slots, using
+ * linear probing), and finally the meta section with the fingerprint of the database file, the path and fingerprint of
+ * the reference FASTA file, the number of entries, and the location of the hash table. Lengths of strings in the entries are stored
+ * with seven bits per byte, all other integers are stored big-endian.
+ *
+ * Lookups are thread-safe, objects of this class only use absolute accessors on the underlying buffers.
+ */
+public final class NormalizedAlleleIndex implements Closeable {
+
+	/** magic bytes */
+	static final byte[] MAGIC_BYTES = { 'J', 'V', 'N', 'I' };
+
+	/** version of the binary layout */
+	static final int FORMAT_VERSION = 1;
+
+	/** file name extension of the index next to the database file, see {@link #defaultPath} */
+	public static final String EXTENSION = ".jvni";
+
+	/** maximal size of one entry */
+	static final int MAX_ENTRY_SIZE = 1 << 20;
+
+	/** size of one slot of the hash table */
+	static final int SLOT_SIZE = 16;
+
+	/** number of bytes at the beginning and end of the database file that go into its fingerprint */
+	private static final int FINGERPRINT_BYTES = 64 * 1024;
+
+	/** the file is mapped in segments of <code>1 &lt;&lt; SEGMENT_BITS</code> bytes */
+	private static final int SEGMENT_BITS = 30;
+
+	/** mask for the offset into a segment */
+	private static final long SEGMENT_MASK = (1L << SEGMENT_BITS) - 1;
+
+	/** path to the file */
+	private final String filename;
+
+	/** file that is mapped */
+	private final RandomAccessFile file;
+
+	/**
+	 * mappings of entries and hash table, segment <code>i</code> starts at <code>i &lt;&lt; SEGMENT_BITS</code> and
+	 * overlaps the next one by {@link #MAX_ENTRY_SIZE} such that each entry and slot lies within one mapping
+	 */
+	private final MappedByteBuffer[] segments;
+
+	/** fingerprint of the database file the index was written for */
+	private final long sourceFingerprint;
+
+	/** path to the reference FASTA file the index was written with */
+	private final String fastaPath;
+
+	/** fingerprint of the reference FASTA file the index was written with */
+	private final long fastaFingerprint;
+
+	/** number of stored entries */
+	private final long numEntries;
+
+	/** offset of the hash table */
+	private final long tableOffset;
+
+	/** number of slots in the hash table, a power of two */
+	private final long numSlots;
+
+	/**
+	 * Open the file at <code>filename</code>.
+	 *
+	 * @param filename
+	 *            path to the file to open
+	 * @throws JannovarVarDBException
+	 *             on problems opening or mapping the file
+	 */
+	public NormalizedAlleleIndex(String filename) throws JannovarVarDBException {
+		this.filename = filename;
+		try {
+			this.file = new RandomAccessFile(filename, "r");
+		} catch (IOException e) {
+			throw new JannovarVarDBException("Could not open " + filename, e);
+		}
+		try {
+			final FileChannel channel = file.getChannel();
+			final ByteBuffer header = ByteBuffer.allocate(MAGIC_BYTES.length + 4 + 8);
+			while (header.hasRemaining())
+				if (channel.read(header, header.position()) < 0)
+					throw new JannovarVarDBException(filename + " is truncated, cannot read header");
+			byte[] word = new byte[MAGIC_BYTES.length];
+			header.position(0);
+			header.get(word);
+			if (!Arrays.equals(word, MAGIC_BYTES))
+				throw new JannovarVarDBException(
+						filename + " does not look like a normalized allele index, magic number incorrect!");
+			final int formatVersion = header.getInt();
+			if (formatVersion != FORMAT_VERSION)
+				throw new JannovarVarDBException(
+						filename + " has format version " + formatVersion + " but we need " + FORMAT_VERSION);
+			final long metaOffset = header.getLong();
+
+			channel.position(metaOffset);
+			final DataInputStream in = new DataInputStream(
+					new BufferedInputStream(Channels.newInputStream(channel)));
+			this.sourceFingerprint = in.readLong();
+			this.fastaPath = readString(in);
+			this.fastaFingerprint = in.readLong();
+			this.numEntries = in.readLong();
+			this.tableOffset = in.readLong();
+			this.numSlots = in.readLong();
+
+			final int numSegments = (int) ((metaOffset + SEGMENT_MASK) >>> SEGMENT_BITS);
+			this.segments = new MappedByteBuffer[numSegments];
+			for (int i = 0; i < numSegments; ++i) {
+				final long begin = (long) i << SEGMENT_BITS;
+				final long size = Math.min(SEGMENT_MASK + 1 + MAX_ENTRY_SIZE, metaOffset - begin);
+				segments[i] = channel.map(FileChannel.MapMode.READ_ONLY, begin, size);
+			}
+		} catch (IOException e) {
+			closeQuietly();
+			throw new JannovarVarDBException("Could not map " + filename, e);
+		} catch (JannovarVarDBException | RuntimeException e) {
+			closeQuietly();
+			throw e;
+		}
+	}
+
+	/**
+	 * @param dbPath
+	 *            path to the database file
+	 * @return path of the index for the database file at <code>dbPath</code>, written by <code>db-index</code> by
+	 *         default
+	 */
+	public static String defaultPath(String dbPath) {
+		return dbPath + EXTENSION;
+	}
+
+	/**
+	 * Find index next to a database file.
+	 *
+	 * @param dbPath
+	 *            path to the database file
+	 * @return path to the index at {@link #defaultPath}, <code>null</code> if there is no such file
+	 * @throws JannovarVarDBException
+	 *             if there is an index but it was written for a different version of the database file
+	 */
+	public static String findFor(String dbPath) throws JannovarVarDBException {
+		final String path = defaultPath(dbPath);
+		if (!new File(path).isFile())
+			return null;
+		try (NormalizedAlleleIndex index = new NormalizedAlleleIndex(path)) {
+			index.checkSource(dbPath);
+		} catch (IOException e) {
+			throw new JannovarVarDBException("Could not close " + path, e);
+		}
+		return path;
+	}
+
+	/**
+	 * Compute fingerprint of a database or FASTA file from its length and the bytes at its beginning and end.
+	 *
+	 * @param dbPath
+	 *            path to the database file
+	 * @return fingerprint of the file at <code>dbPath</code>
+	 * @throws JannovarVarDBException
+	 *             on problems reading the file
+	 */
+	public static long fingerprint(String dbPath) throws JannovarVarDBException {
+		try (RandomAccessFile f = new RandomAccessFile(dbPath, "r")) {
+			final long length = f.length();
+			final byte[] buffer = new byte[(int) Math.min(FINGERPRINT_BYTES, length)];
+			CRC32 crc = new CRC32();
+			f.readFully(buffer);
+			crc.update(buffer);
+			f.seek(length - buffer.length);
+			f.readFully(buffer);
+			crc.update(buffer);
+			return (length << 32) ^ crc.getValue();
+		} catch (IOException e) {
+			throw new JannovarVarDBException("Could not read " + dbPath, e);
+		}
+	}
+
+	/**
+	 * Check that the index was written for the given database file.
+	 *
+	 * @param dbPath
+	 *            path to the database file
+	 * @throws JannovarVarDBException
+	 *             if the index was written for a different file or on problems reading the file
+	 */
+	public void checkSource(String dbPath) throws JannovarVarDBException {
+		if (fingerprint(dbPath) != sourceFingerprint)
+			throw new JannovarVarDBException("The normalized allele index " + filename
+					+ " was written for a different version of " + dbPath + ", please re-run db-index");
+	}
+
+	/**
+	 * Check that the index was written with the given reference FASTA file.
+	 *
+	 * The normalized alleles depend on the reference sequence, so the index must not be used with a different FASTA
+	 * file. The file is compared by its fingerprint, not by path, such that the FASTA file may be moved.
+	 *
+	 * @param pathFasta
+	 *            path to the reference FASTA file
+	 * @throws JannovarVarDBException
+	 *             if the index was written with a different FASTA file or on problems reading the file
+	 */
+	public void checkReference(String pathFasta) throws JannovarVarDBException {
+		if (fingerprint(pathFasta) != fastaFingerprint)
+			throw new JannovarVarDBException("The normalized allele index " + filename + " was written with "
+					+ fastaPath + " but the reference is " + pathFasta + ", please re-run db-index");
+	}
+
+	/** @return path to the mapped file */
+	public String getFilename() {
+		return filename;
+	}
+
+	/** @return path to the reference FASTA file the index was written with */
+	public String getFastaPath() {
+		return fastaPath;
+	}
+
+	/** @return number of stored alleles */
+	public long getNumEntries() {
+		return numEntries;
+	}
+
+	/**
+	 * Look up the normalized form of a database allele.
+	 *
+	 * @param desc
+	 *            the allele as written in the database file, with 0-based position
+	 * @return normalized form of <code>desc</code>, <code>desc</code> itself if it is not changed by the normalization
+	 */
+	public VariantDescription lookup(VariantDescription desc) {
+		final long hash = hash(desc);
+		final long mask = numSlots - 1;
+		for (long slot = hash & mask;; slot = (slot + 1) & mask) {
+			final long slotOffset = tableOffset + slot * SLOT_SIZE;
+			final ByteBuffer buffer = segments[(int) (slotOffset >>> SEGMENT_BITS)];
+			final int pos = (int) (slotOffset & SEGMENT_MASK);
+			final long entryOffset = buffer.getLong(pos + 8);
+			if (entryOffset == 0)
+				return desc;
+			if (buffer.getLong(pos) == hash) {
+				final VariantDescription normalized = new EntryReader(entryOffset).readIfKey(desc);
+				if (normalized != null)
+					return normalized;
+			}
+		}
+	}
+
+	/**
+	 * Compute hash of the key of an entry, FNV-1a over contig, position, reference and alternative allele.
+	 *
+	 * @param desc
+	 *            database allele to compute hash for
+	 * @return 64 bit hash of <code>desc</code>
+	 */
+	static long hash(VariantDescription desc) {
+		long hash = 0xcbf29ce484222325L;
+		hash = hash(hash, desc.getChrom());
+		for (int shift = 24; shift >= 0; shift -= 8)
+			hash = (hash ^ ((desc.getPos() >>> shift) & 0xff)) * 0x100000001b3L;
+		hash = hash(hash, desc.getRef());
+		return hash(hash, desc.getAlt());
+	}
+
+	/** Continue FNV-1a <code>hash</code> with the characters of <code>s</code> and a separator */
+	private static long hash(long hash, String s) {
+		for (int i = 0; i < s.length(); ++i)
+			hash = (hash ^ s.charAt(i)) * 0x100000001b3L;
+		return (hash ^ 0xffff) * 0x100000001b3L;
+	}
+
+	@Override
+	public void close() throws IOException {
+		file.close();
+	}
+
+	/** Close {@link #file}, used for cleaning up on errors in the constructor */
+	private void closeQuietly() {
+		try {
+			file.close();
+		} catch (IOException e) {
+			// swallow, nothing we can do
+		}
+	}
+
+	/** Read string with int length (-1 for <code>null</code>) and UTF-8 bytes */
+	private static String readString(DataInputStream in) throws IOException {
+		final int length = in.readInt();
+		if (length < 0)
+			return null;
+		final byte[] bytes = new byte[length];
+		in.readFully(bytes);
+		return new String(bytes, StandardCharsets.UTF_8);
+	}
+
+	/** Decoding of one entry */
+	private final class EntryReader {
+
+		/** buffer of the entry */
+		private final ByteBuffer buffer;
+
+		/** position in {@link #buffer} */
+		private int pos;
+
+		EntryReader(long offset) {
+			this.buffer = segments[(int) (offset >>> SEGMENT_BITS)];
+			this.pos = (int) (offset & SEGMENT_MASK);
+		}
+
+		/**
+		 * @return normalized allele of the entry if its key equals <code>desc</code>, <code>null</code> otherwise
+		 */
+		VariantDescription readIfKey(VariantDescription desc) {
+			if (!readString().equals(desc.getChrom()) || readInt() != desc.getPos()
+					|| !readString().equals(desc.getRef()) || !readString().equals(desc.getAlt()))
+				return null;
+			final int normalizedPos = readInt();
+			final String normalizedRef = readString();
+			final String normalizedAlt = readString();
+			return new VariantDescription(desc.getChrom(), normalizedPos, normalizedRef, normalizedAlt);
+		}
+
+		private int readInt() {
+			final int result = buffer.getInt(pos);
+			pos += 4;
+			return result;
+		}
+
+		private String readString() {
+			final int length = (int) readVarLong();
+			if (length == 0)
+				return "";
+			final byte[] bytes = new byte[length];
+			for (int i = 0; i < length; ++i)
+				bytes[i] = buffer.get(pos + i);
+			pos += length;
+			return new String(bytes, StandardCharsets.UTF_8);
+		}
+
+		private long readVarLong() {
+			long result = 0;
+			int shift = 0;
+			while (true) {
+				final byte b = buffer.get(pos++);
+				result |= (long) (b & 0x7f) << shift;
+				if ((b & 0x80) == 0)
+					return result;
+				shift += 7;
+			}
+		}
+
+	}
+
+}
@@ -0,0 +1,225 @@
+package de.charite.compbio.jannovar.vardbs.base;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+
+import com.google.common.io.CountingOutputStream;
+
+import htsjdk.variant.variantcontext.VariantContext;
+
+/**
+ * Write the {@link NormalizedAlleleIndex} for the records of a variant database.
+ *
+ * The alleles are normalized with {@link AlleleMatcher#normalizeAlleles}, such that matching with the index yields the
+ * same results as without. The records do not have to be sorted. The hash table is built in memory, using up to 80
+ * bytes per indexed allele.
+ */
+public final class NormalizedAlleleIndexWriter {
+
+	/** Path to the file to write */
+	private final String filename;
+
+	/** Path to the reference FASTA file */
+	private final String fastaPath;
+
+	/** Matcher without index, for normalizing the alleles */
+	private final AlleleMatcher matcher;
+
+	/** Buffer for encoding the current entry */
+	private byte[] entry = new byte[1024];
+
+	/** Size of the current entry in {@link #entry} */
+	private int entrySize;
+
+	/** Hashes of the written entries */
+	private long[] hashes = new long[1024];
+
+	/** Offsets of the written entries */
+	private long[] offsets = new long[1024];
+
+	/** Number of written entries */
+	private int numEntries;
+
+	/** Number of records read */
+	private long numRecords;
+
+	/**
+	 * Construct writer.
+	 *
+	 * @param filename
+	 *            path to the file to write
+	 * @param fastaPath
+	 *            path to the FAI-indexed reference FASTA file, the same as used for annotation
+	 * @throws JannovarVarDBException
+	 *             on problems loading the FASTA/FAI file
+	 */
+	public NormalizedAlleleIndexWriter(String filename, String fastaPath) throws JannovarVarDBException {
+		this.filename = filename;
+		this.fastaPath = fastaPath;
+		this.matcher = new AlleleMatcher(fastaPath);
+	}
+
+	/** @return number of records read by {@link #write} */
+	public long getNumRecords() {
+		return numRecords;
+	}
+
+	/**
+	 * Write the index to the file.
+	 *
+	 * @param dbPath
+	 *            path to the database file the records are read from
+	 * @param records
+	 *            all records of the database file
+	 * @return number of alleles written to the index, the ones changed by normalization
+	 * @throws JannovarVarDBException
+	 *             on problems reading the database file or writing the index
+	 */
+	public long write(String dbPath, Iterator<VariantContext> records) throws JannovarVarDBException {
+		numEntries = 0;
+		numRecords = 0;
+		final long metaOffset;
+		try (CountingOutputStream counting = new CountingOutputStream(
+				new BufferedOutputStream(new FileOutputStream(filename)));
+				DataOutputStream out = new DataOutputStream(counting)) {
+			out.write(NormalizedAlleleIndex.MAGIC_BYTES);
+			out.writeInt(NormalizedAlleleIndex.FORMAT_VERSION);
+			out.writeLong(0); // offset of the meta section, patched below
+
+			while (records.hasNext()) {
+				final VariantContext vc = records.next();
+				numRecords += 1;
+				if (vc.getNAlleles() < 2)
+					continue;
+				final List<VariantDescription> normalized = matcher.normalizeAlleles(vc);
+				for (int i = 1; i < vc.getNAlleles(); ++i) {
+					final VariantDescription raw = new VariantDescription(vc.getContig(), vc.getStart() - 1,
+							vc.getReference().getBaseString(), vc.getAlternateAllele(i - 1).getBaseString());
+					if (raw.equals(normalized.get(i - 1)))
+						continue;
+					encodeEntry(raw, normalized.get(i - 1));
+					if (entrySize > NormalizedAlleleIndex.MAX_ENTRY_SIZE)
+						throw new JannovarVarDBException("Allele at " + vc.getContig() + ":" + vc.getStart()
+								+ " is too large for the normalized allele index");
+					addEntry(NormalizedAlleleIndex.hash(raw), counting.getCount());
+					out.write(entry, 0, entrySize);
+				}
+			}
+
+			final long tableOffset = counting.getCount();
+			final long numSlots = writeTable(out);
+			metaOffset = counting.getCount();
+			out.writeLong(NormalizedAlleleIndex.fingerprint(dbPath));
+			writeString(out, fastaPath);
+			out.writeLong(NormalizedAlleleIndex.fingerprint(fastaPath));
+			out.writeLong(numEntries);
+			out.writeLong(tableOffset);
+			out.writeLong(numSlots);
+		} catch (IOException e) {
+			throw new JannovarVarDBException("Could not write " + filename, e);
+		}
+
+		try (RandomAccessFile file = new RandomAccessFile(filename, "rw")) {
+			file.seek(NormalizedAlleleIndex.MAGIC_BYTES.length + 4);
+			file.writeLong(metaOffset);
+		} catch (IOException e) {
+			throw new JannovarVarDBException("Could not write " + filename, e);
+		}
+		return numEntries;
+	}
+
+	/** Remember hash and offset of an entry for the hash table */
+	private void addEntry(long hash, long offset) throws JannovarVarDBException {
+		if (numEntries == hashes.length) {
+			if (numEntries > Integer.MAX_VALUE / 4)
+				throw new JannovarVarDBException("Too many alleles for the normalized allele index");
+			hashes = Arrays.copyOf(hashes, 2 * numEntries);
+			offsets = Arrays.copyOf(offsets, 2 * numEntries);
+		}
+		hashes[numEntries] = hash;
+		offsets[numEntries] = offset;
+		numEntries += 1;
+	}
+
+	/**
+	 * Write hash table with linear probing, filled to at most one half.
+	 *
+	 * @return number of slots
+	 */
+	private long writeTable(DataOutputStream out) throws IOException {
+		int numSlots = 16;
+		while (numSlots < 2L * numEntries)
+			numSlots *= 2;
+		final int mask = numSlots - 1;
+		final long[] slotHashes = new long[numSlots];
+		final long[] slotOffsets = new long[numSlots];
+		for (int i = 0; i < numEntries; ++i) {
+			int slot = (int) (hashes[i] & mask);
+			while (slotOffsets[slot] != 0)
+				slot = (slot + 1) & mask;
+			slotHashes[slot] = hashes[i];
+			slotOffsets[slot] = offsets[i];
+		}
+		for (int slot = 0; slot < numSlots; ++slot) {
+			out.writeLong(slotHashes[slot]);
+			out.writeLong(slotOffsets[slot]);
+		}
+		return numSlots;
+	}
+
+	/** Encode database allele <code>raw</code> and its normalized form into {@link #entry} */
+	private void encodeEntry(VariantDescription raw, VariantDescription normalized) {
+		entrySize = 0;
+		putString(raw.getChrom());
+		putInt(raw.getPos());
+		putString(raw.getRef());
+		putString(raw.getAlt());
+		putInt(normalized.getPos());
+		putString(normalized.getRef());
+		putString(normalized.getAlt());
+	}
+
+	private void putByte(int b) {
+		if (entrySize == entry.length)
+			entry = Arrays.copyOf(entry, 2 * entry.length);
+		entry[entrySize++] = (byte) b;
+	}
+
+	private void putInt(int value) {
+		putByte(value >>> 24);
+		putByte(value >>> 16);
+		putByte(value >>> 8);
+		putByte(value);
+	}
+
+	private void putString(String s) {
+		final byte[] bytes = s.getBytes(StandardCharsets.UTF_8);
+		long value = bytes.length;
+		while ((value & ~0x7fL) != 0) {
+			putByte((int) ((value & 0x7f) | 0x80));
+			value >>>= 7;
+		}
+		putByte((int) value);
+		for (byte b : bytes)
+			putByte(b);
+	}
+
+	/** Write string with int length (-1 for <code>null</code>) and UTF-8 bytes */
+	private static void writeString(DataOutputStream out, String s) throws IOException {
+		if (s == null) {
+			out.writeInt(-1);
+		} else {
+			final byte[] bytes = s.getBytes(StandardCharsets.UTF_8);
+			out.writeInt(bytes.length);
+			out.write(bytes);
+		}
+	}
+
+}
@@ -0,0 +1,203 @@
+package de.charite.compbio.jannovar.vardbs.base;
+
+import java.io.Closeable;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+
+import htsjdk.samtools.util.CloseableIterator;
+import htsjdk.samtools.util.RuntimeIOException;
+import htsjdk.variant.variantcontext.VariantContext;
+
+/**
+ * Wrapper around a {@link DatabaseVariantContextProvider} that runs announced queries on a background thread.
+ *
+ * The annotation announces the queries for upcoming variants with {@link #prefetch(String, int, int)}, up to
+ * {@link #getMaxPending()} queries ahead. These are run in order on one background thread while the caller is still
+ * busy with the current variant, such that {@link #query(String, int, int)} only has to wait for the result if the
+ * database is slower than the rest of the annotation. This hides the latency of the database reads, e.g., on network
+ * file systems.
+ *
+ * All queries to the wrapped provider are run on the background thread, so it does not need to be thread-safe, and
+ * they are run in announcement order, so sorted queries stay sorted for {@link StreamingVCFVariantProvider}. Queries
+ * that were not announced are run on the background thread as well, after the pending ones. Announced queries that are
+ * skipped by the caller are discarded, either when a later announced query is run or when they are the oldest ones
+ * once there are {@link #getMaxPending()} announced queries.
+ *
+ * Objects of this class are not thread-safe, i.e., {@link #prefetch(String, int, int)} and
+ * {@link #query(String, int, int)} must be called from the same thread.
+ */
+public final class PrefetchingVariantContextProvider implements DatabaseVariantContextProvider, Closeable {
+
+	/** The wrapped provider, only used on the background thread */
+	private final DatabaseVariantContextProvider delegate;
+
+	/** Maximal number of announced queries waiting for being answered */
+	private final int maxPending;
+
+	/** Single background thread for the queries */
+	private final ExecutorService executor;
+
+	/** Announced queries in announcement order */
+	private final ArrayDeque<PendingQuery> pending = new ArrayDeque<>();
+
+	/**
+	 * Construct the wrapper
+	 *
+	 * @param delegate
+	 *            the {@link DatabaseVariantContextProvider} to wrap
+	 * @param maxPending
+	 *            maximal number of announced queries waiting for being answered, further announcements evict the
+	 *            oldest ones
+	 */
+	public PrefetchingVariantContextProvider(DatabaseVariantContextProvider delegate, int maxPending) {
+		if (maxPending < 1)
+			throw new IllegalArgumentException("Number of pending queries must be positive but was " + maxPending);
+		this.delegate = delegate;
+		this.maxPending = maxPending;
+		this.executor = Executors.newSingleThreadExecutor(
+				new ThreadFactoryBuilder().setNameFormat("vardbs-prefetch-%d").setDaemon(true).build());
+	}
+
+	/** @return the wrapped provider */
+	public DatabaseVariantContextProvider getDelegate() {
+		return delegate;
+	}
+
+	/** @return maximal number of announced queries waiting for being answered */
+	public int getMaxPending() {
+		return maxPending;
+	}
+
+	@Override
+	public void selectInfoKeys(Collection<String> infoKeys) {
+		delegate.selectInfoKeys(infoKeys);
+	}
+
+	/**
+	 * Announce an upcoming query, starting it in the background
+	 *
+	 * If there are already {@link #getMaxPending()} announced queries, the oldest one is discarded. Callers announce at
+	 * most that many queries ahead, so the oldest one was skipped by the caller.
+	 *
+	 * @param contig
+	 *            Name of the contig to perform query on.
+	 * @param beginPos
+	 *            1-based start position
+	 * @param endPos
+	 *            end position
+	 */
+	public void prefetch(String contig, int beginPos, int endPos) {
+		if (pending.size() >= maxPending)
+			pending.remove().future.cancel(false);
+		pending.add(new PendingQuery(contig, beginPos, endPos,
+				executor.submit(() -> fetch(contig, beginPos, endPos))));
+	}
+
+	@Override
+	public CloseableIterator<VariantContext> query(String contig, int beginPos, int endPos) {
+		// Take the first matching announced query, discarding the ones before it
+		Future<List<VariantContext>> future = null;
+		if (pending.stream().anyMatch(query -> query.matches(contig, beginPos, endPos))) {
+			while (future == null) {
+				final PendingQuery query = pending.remove();
+				if (query.matches(contig, beginPos, endPos))
+					future = query.future;
+				else
+					query.future.cancel(false);
+			}
+		} else {
+			future = executor.submit(() -> fetch(contig, beginPos, endPos));
+		}
+		return new ResultIterator(await(future));
+	}
+
+	/** Stop the background thread, pending queries are discarded */
+	@Override
+	public void close() {
+		pending.clear();
+		executor.shutdownNow();
+	}
+
+	/** Run query on the delegate and collect the results */
+	private List<VariantContext> fetch(String contig, int beginPos, int endPos) {
+		final List<VariantContext> result = new ArrayList<>();
+		try (CloseableIterator<VariantContext> it = delegate.query(contig, beginPos, endPos)) {
+			while (it.hasNext())
+				result.add(it.next());
+		}
+		return result;
+	}
+
+	/** Wait for the result of <code>future</code>, rethrowing exceptions from the background thread */
+	private static List<VariantContext> await(Future<List<VariantContext>> future) {
+		try {
+			return future.get();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new RuntimeIOException("Interrupted while waiting for database query", e);
+		} catch (ExecutionException e) {
+			if (e.getCause() instanceof RuntimeException)
+				throw (RuntimeException) e.getCause();
+			throw new RuntimeIOException("Problem querying database", e.getCause());
+		}
+	}
+
+	/** An announced query and its result */
+	private static final class PendingQuery {
+
+		private final String contig;
+
+		private final int beginPos;
+
+		private final int endPos;
+
+		private final Future<List<VariantContext>> future;
+
+		PendingQuery(String contig, int beginPos, int endPos, Future<List<VariantContext>> future) {
+			this.contig = contig;
+			this.beginPos = beginPos;
+			this.endPos = endPos;
+			this.future = future;
+		}
+
+		boolean matches(String contig, int beginPos, int endPos) {
+			return this.beginPos == beginPos && this.endPos == endPos && this.contig.equals(contig);
+		}
+
+	}
+
+	/** {@link CloseableIterator} over a {@link List} */
+	private static final class ResultIterator implements CloseableIterator<VariantContext> {
+
+		private final Iterator<VariantContext> it;
+
+		ResultIterator(List<VariantContext> list) {
+			this.it = list.iterator();
+		}
+
+		@Override
+		public boolean hasNext() {
+			return it.hasNext();
+		}
+
+		@Override
+		public VariantContext next() {
+			return it.next();
+		}
+
+		@Override
+		public void close() {
+		}
+
+	}
+
+}
@@ -0,0 +1,135 @@
+package de.charite.compbio.jannovar.vardbs.base;
+
+import htsjdk.samtools.util.CloseableIterator;
+import htsjdk.variant.variantcontext.VariantContext;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+
+/**
+ * VCF file--backed provider of {@link VariantContext}s that walks the database forward in
+ * lockstep with coordinate-sorted queries.
+ *
+ * Instead of an index query for each query, the database is read with one forward iterator per
+ * contig, keeping the records that can still overlap with the following queries in a window
+ * (sorted-merge join). Thus, each database record is only decompressed and parsed once. The
+ * result of {@link #query(String, int, int)} is the same as for {@link VCFReaderVariantProvider}.
+ *
+ * Queries that go back on the current contig or switch the contig re-seek using the index. So do
+ * queries starting more than {@link #maxGap} positions behind the end of the last query, as
+ * skipping all database records in between would be more expensive than using the index. Thus, unsorted queries are
+ * answered correctly but without the speedup.
+ *
+ * Objects of this class are not thread-safe.
+ */
+public class StreamingVCFVariantProvider extends VCFReaderVariantProvider {
+
+	/**
+	 * Default for {@link #maxGap}, the resolution of the linear tabix index; seeking to a position
+	 * reads from the beginning of its 16 kbp window anyway
+	 */
+	public static final int DEFAULT_MAX_GAP = 16 * 1024;
+
+	/** End position for the forward iterator, "some large number" */
+	private static final int ITERATOR_END = 1000 * 1000 * 1000;
+
+	/** Maximal distance of a query to the end of the last one for walking forward instead of seeking */
+	private final int maxGap;
+
+	/** Contig of the current forward iterator, <code>null</code> if none */
+	private String contig = null;
+
+	/** Begin position of the last query */
+	private int lastBegin = 0;
+
+	/** End position of the last query */
+	private int lastEnd = 0;
+
+	/** Forward iterator over the database records on {@link #contig} */
+	private CloseableIterator<VariantContext> iter = null;
+
+	/** Records read from {@link #iter} that may overlap with the current or following queries */
+	private final ArrayDeque<VariantContext> window = new ArrayDeque<>();
+
+	/**
+	 * Construct provider with {@link #DEFAULT_MAX_GAP}.
+	 *
+	 * @param vcfPath
+	 *            path to the indexed VCF file
+	 */
+	public StreamingVCFVariantProvider(String vcfPath) {
+		this(vcfPath, DEFAULT_MAX_GAP);
+	}
+
+	/**
+	 * Construct provider.
+	 *
+	 * @param vcfPath
+	 *            path to the indexed VCF file
+	 * @param maxGap
+	 *            maximal distance of a query to the end of the last one for walking forward instead of
+	 *            seeking using the index
+	 */
+	public StreamingVCFVariantProvider(String vcfPath, int maxGap) {
+		super(vcfPath);
+		this.maxGap = maxGap;
+	}
+
+	@Override
+	public CloseableIterator<VariantContext> query(String contig, int beginPos, int endPos) {
+		if (!contig.equals(this.contig) || beginPos < lastBegin || beginPos > lastEnd + maxGap)
+			seek(contig, beginPos);
+		lastBegin = beginPos;
+		lastEnd = endPos;
+
+		// Read records starting up to the end of the query; drop records ending before the
+		// beginning, they cannot overlap with the following queries either
+		while ((window.isEmpty() || window.getLast().getStart() <= endPos) && iter.hasNext())
+			window.add(iter.next());
+		window.removeIf(vc -> vc.getEnd() < beginPos);
+
+		final List<VariantContext> result = new ArrayList<>();
+		for (VariantContext vc : window) {
+			if (vc.getStart() > endPos)
+				break;
+			result.add(vc);
+		}
+		return new ResultIterator(result);
+	}
+
+	/** Start new forward iterator on <code>contig</code> at <code>beginPos</code> */
+	private void seek(String contig, int beginPos) {
+		if (iter != null)
+			iter.close();
+		window.clear();
+		this.contig = contig;
+		this.iter = super.query(contig, beginPos, ITERATOR_END);
+	}
+
+	/** {@link CloseableIterator} over a {@link List} */
+	private static final class ResultIterator implements CloseableIterator<VariantContext> {
+
+		private final Iterator<VariantContext> it;
+
+		ResultIterator(List<VariantContext> list) {
+			this.it = list.iterator();
+		}
+
+		@Override
+		public boolean hasNext() {
+			return it.hasNext();
+		}
+
+		@Override
+		public VariantContext next() {
+			return it.next();
+		}
+
+		@Override
+		public void close() {
+		}
+
+	}
+
+}
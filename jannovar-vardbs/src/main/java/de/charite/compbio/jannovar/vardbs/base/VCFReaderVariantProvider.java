@@ -1,13 +1,34 @@
 package de.charite.compbio.jannovar.vardbs.base;
 
+import com.google.common.collect.ImmutableSet;
+import de.charite.compbio.jannovar.UncheckedJannovarException;
+import htsjdk.samtools.util.BlockCompressedInputStream;
 import htsjdk.samtools.util.CloseableIterator;
+import htsjdk.tribble.Tribble;
+import htsjdk.tribble.readers.LineIteratorImpl;
+import htsjdk.tribble.readers.SynchronousLineReader;
 import htsjdk.variant.variantcontext.VariantContext;
+import htsjdk.variant.vcf.VCFCodec;
+import htsjdk.variant.vcf.VCFConstants;
 import htsjdk.variant.vcf.VCFFileReader;
 import java.io.File;
+import java.io.IOException;
+import java.util.Collection;
+import java.util.NoSuchElementException;
+import java.util.Set;
 
 /**
  * VCF file--backed provider of {@link VariantContext}s.
  *
+ * For tabix-indexed files, the queries read through the shared {@link BGZFBlockCache}, such that
+ * neighbouring queries do not inflate the same BGZF blocks again. Other files are queried using
+ * the {@link VCFFileReader}.
+ *
+ * With {@link #selectInfoKeys}, the INFO column of the lines from tabix-indexed files is cut down
+ * to the selected fields before decoding, such that the codec does not have to split and store the
+ * values of all other fields (e.g., the hundreds of per-population fields of gnomAD). The
+ * <code>END</code> field is always kept as the codec takes the end position of the record from it.
+ *
  * @author <a href="mailto:manuel.holtgrewe@bihealth.de">Manuel Holtgrewe</a>
  */
 public class VCFReaderVariantProvider implements DatabaseVariantContextProvider {
@@ -15,17 +36,158 @@ public class VCFReaderVariantProvider implements DatabaseVariantContextProvider
 	/** VCFReader to use for loading the VCF records */
 	private final VCFFileReader vcfReader;
 
+	/** Reader for the lines of tabix-indexed files, <code>null</code> for other files */
+	private final CachingTabixReader tabixReader;
+
+	/** Codec for decoding the lines from {@link #tabixReader} */
+	private final VCFCodec codec;
+
+	/** IDs of the INFO fields to decode, <code>null</code> for all fields */
+	private Set<String> infoKeys = null;
+
 	public VCFReaderVariantProvider(String vcfPath) {
-		this.vcfReader = new VCFFileReader(new File(vcfPath), true);
+		final File vcfFile = new File(vcfPath);
+		this.vcfReader = new VCFFileReader(vcfFile, true);
+		if (Tribble.tabixIndexFile(vcfFile).exists()) {
+			this.codec = new VCFCodec();
+			try (LineIteratorImpl lines = new LineIteratorImpl(
+					new SynchronousLineReader(new BlockCompressedInputStream(vcfFile)))) {
+				codec.readActualHeader(lines);
+				this.tabixReader = new CachingTabixReader(vcfPath);
+			} catch (IOException e) {
+				throw new UncheckedJannovarException("Could not open VCF file " + vcfPath, e);
+			}
+		} else {
+			this.codec = null;
+			this.tabixReader = null;
+		}
 	}
 
 	public VCFFileReader getVcfReader() {
 		return vcfReader;
 	}
 
+	@Override
+	public void selectInfoKeys(Collection<String> infoKeys) {
+		if (infoKeys == null)
+			this.infoKeys = null;
+		else
+			this.infoKeys = ImmutableSet.<String>builder().addAll(infoKeys).add(VCFConstants.END_KEY).build();
+	}
+
 	@Override
 	public CloseableIterator<VariantContext> query(String contig, int beginPos, int endPos) {
-		return vcfReader.query(contig, beginPos, endPos);
+		if (tabixReader == null)
+			return vcfReader.query(contig, beginPos, endPos);
+		else
+			return new DecodingIterator(tabixReader.query(contig, beginPos - 1, endPos), beginPos,
+					endPos);
+	}
+
+	/**
+	 * Decode the lines from {@link #tabixReader} and select the records overlapping with the query,
+	 * as done by {@link VCFFileReader#query(String, int, int)}.
+	 */
+	private final class DecodingIterator implements CloseableIterator<VariantContext> {
+
+		private final CloseableIterator<String> lines;
+
+		private final int beginPos;
+
+		private final int endPos;
+
+		private VariantContext next;
+
+		DecodingIterator(CloseableIterator<String> lines, int beginPos, int endPos) {
+			this.lines = lines;
+			this.beginPos = beginPos;
+			this.endPos = endPos;
+			this.next = advance();
+		}
+
+		@Override
+		public boolean hasNext() {
+			return next != null;
+		}
+
+		@Override
+		public VariantContext next() {
+			if (next == null)
+				throw new NoSuchElementException();
+			final VariantContext result = next;
+			next = advance();
+			return result;
+		}
+
+		@Override
+		public void close() {
+			lines.close();
+		}
+
+		private VariantContext advance() {
+			while (lines.hasNext()) {
+				final String line = lines.next();
+				final VariantContext vc = codec
+						.decode((infoKeys == null) ? line : selectInfoFields(line, infoKeys));
+				if (vc == null || vc.getEnd() < beginPos)
+					continue;
+				if (vc.getStart() > endPos)
+					return null;
+				return vc;
+			}
+			return null;
+		}
+
+	}
+
+	/**
+	 * Remove the INFO fields that are not in <code>infoKeys</code> from a VCF line, without parsing
+	 * the values.
+	 *
+	 * @param line
+	 *            the VCF line
+	 * @param infoKeys
+	 *            IDs of the INFO fields to keep
+	 * @return <code>line</code> with only the selected INFO fields, <code>"."</code> if there is none
+	 */
+	static String selectInfoFields(String line, Set<String> infoKeys) {
+		// Locate the INFO column, the eighth one; leave malformed lines to the codec
+		int begin = 0;
+		for (int i = 0; i < 7; ++i) {
+			begin = line.indexOf('\t', begin) + 1;
+			if (begin == 0)
+				return line;
+		}
+		int end = line.indexOf('\t', begin);
+		if (end < 0)
+			end = line.length();
+
+		StringBuilder result = new StringBuilder(line.length());
+		result.append(line, 0, begin);
+		boolean isEmpty = true;
+		int entryBegin = begin;
+		int keyEnd = -1;
+		for (int i = begin; i <= end; ++i) {
+			final char c = (i == end) ? ';' : line.charAt(i);
+			if (c == '=' && keyEnd < 0) {
+				keyEnd = i;
+			} else if (c == ';') {
+				if (keyEnd < 0)
+					keyEnd = i; // flag
+				if (i > entryBegin && infoKeys.contains(line.substring(entryBegin, keyEnd))) {
+					if (!isEmpty)
+						result.append(';');
+					result.append(line, entryBegin, i);
+					isEmpty = false;
+				}
+				entryBegin = i + 1;
+				keyEnd = -1;
+			}
+		}
+		if (isEmpty)
+			result.append(VCFConstants.EMPTY_INFO_FIELD);
+		result.append(line, end, line.length());
+		return result.toString();
 	}
 
 }
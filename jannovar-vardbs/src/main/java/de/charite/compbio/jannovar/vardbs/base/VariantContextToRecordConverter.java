@@ -1,6 +1,7 @@
 package de.charite.compbio.jannovar.vardbs.base;
 
 import htsjdk.variant.variantcontext.VariantContext;
+import java.util.Collection;
 
 /**
  * Conversion of {@link VariantContext} objects to record objects.
@@ -18,4 +19,10 @@ public interface VariantContextToRecordConverter<RecordType> {
 	 */
 	public RecordType convert(VariantContext vc);
 
+	/**
+	 * @return IDs of the INFO fields read by {@link #convert}, the database records only need to be
+	 *         decoded for these
+	 */
+	public Collection<String> getInfoKeys();
+
 }
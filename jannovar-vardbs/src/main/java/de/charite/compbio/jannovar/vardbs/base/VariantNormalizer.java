@@ -1,9 +1,8 @@
 package de.charite.compbio.jannovar.vardbs.base;
 
-import java.io.File;
 import java.io.FileNotFoundException;
 
-import htsjdk.samtools.reference.IndexedFastaSequenceFile;
+import de.charite.compbio.jannovar.htsjdk.CachingReferenceSequenceFile;
 
 /**
  * Helper class for normalizing two variants
@@ -14,14 +13,17 @@ import htsjdk.samtools.reference.IndexedFastaSequenceFile;
  * Tan, Adrian, Gonçalo R. Abecasis, and Hyun Min Kang. "Unified representation of genetic variants." Bioinformatics
  * (2015): btv112.
  *
+ * The reference sequence is read through {@link CachingReferenceSequenceFile#getShared(String)}, such that all
+ * normalizers for the same FASTA file share one open file and one page cache.
+ *
  * @author <a href="mailto:manuel.holtgrewe@bihealth.de">Manuel Holtgrewe</a>
  */
 public final class VariantNormalizer {
 
 	/** Path to indexed FASTA path to use */
 	final String fastaPath;
-	/** Random access in FASTA files using FAI */
-	final IndexedFastaSequenceFile fai;
+	/** Cached random access in FASTA files using FAI */
+	final CachingReferenceSequenceFile fai;
 
 	/**
 	 * Construct new variant normalizer object
@@ -34,7 +36,7 @@ public final class VariantNormalizer {
 	public VariantNormalizer(String fastaPath) throws JannovarVarDBException {
 		this.fastaPath = fastaPath;
 		try {
-			this.fai = new IndexedFastaSequenceFile(new File(fastaPath));
+			this.fai = CachingReferenceSequenceFile.getShared(fastaPath);
 		} catch (FileNotFoundException e) {
 			throw new JannovarVarDBException("Could not find FASTA/FAI file", e);
 		}
@@ -79,7 +81,7 @@ public final class VariantNormalizer {
 			}
 			// Extend alleles to the left if there is an empty allele
 			if (ref.length() == 0 || alt.length() == 0) {
-				char extension = (char) fai.getSubsequenceAt(desc.getChrom(), pos, pos).getBases()[0];
+				char extension = (char) fai.getBase(desc.getChrom(), pos);
 				ref = extension + ref;
 				alt = extension + alt;
 				pos -= 1;
@@ -1,20 +1,24 @@
 package de.charite.compbio.jannovar.vardbs.clinvar;
 
-import java.io.File;
 import java.io.UnsupportedEncodingException;
 import java.net.URLEncoder;
 import java.util.ArrayList;
+import java.util.IdentityHashMap;
 import java.util.List;
 
 import com.google.common.base.Joiner;
 import com.google.common.collect.ArrayListMultimap;
 
 import de.charite.compbio.jannovar.vardbs.base.AlleleMatcher;
+import de.charite.compbio.jannovar.vardbs.base.AnnotatingVariantContextBuilder;
 import de.charite.compbio.jannovar.vardbs.base.DBAnnotationDriver;
 import de.charite.compbio.jannovar.vardbs.base.DBAnnotationOptions;
+import de.charite.compbio.jannovar.vardbs.base.DatabaseBloomFilter;
 import de.charite.compbio.jannovar.vardbs.base.GenotypeMatch;
 import de.charite.compbio.jannovar.vardbs.base.JannovarVarDBException;
+import de.charite.compbio.jannovar.vardbs.base.StreamingVCFVariantProvider;
 import de.charite.compbio.jannovar.vardbs.base.VCFHeaderExtender;
+import de.charite.compbio.jannovar.vardbs.base.VariantDescription;
 import de.charite.compbio.jannovar.vardbs.base.VariantContextToRecordConverter;
 import htsjdk.samtools.util.CloseableIterator;
 import htsjdk.variant.variantcontext.VariantContext;
@@ -40,6 +44,10 @@ public class ClinVarAnnotationDriver implements DBAnnotationDriver {
 	protected final DBAnnotationOptions options;
 	/** VCFReader to use for loading the VCF records */
 	protected final VCFFileReader vcfReader;
+	/** Provider for the VCF records, walking forward through {@link #vcfReader} for sorted queries */
+	protected final StreamingVCFVariantProvider variantProvider;
+	/** Filter for skipping queries of absent variants, <code>null</code> if not configured */
+	protected final DatabaseBloomFilter bloomFilter;
 
 	/**
 	 * Create annotation driver for a coordinate-sorted, bgzip-compressed, VCF file
@@ -56,10 +64,14 @@ public class ClinVarAnnotationDriver implements DBAnnotationDriver {
 	public ClinVarAnnotationDriver(String vcfPath, String fastaPath, DBAnnotationOptions options)
 			throws JannovarVarDBException {
 		this.vcfPath = vcfPath;
-		this.matcher = new AlleleMatcher(fastaPath);
+		this.matcher = new AlleleMatcher(fastaPath, options.getNormalizationIndexPath());
 		this.vcToRecord = new ClinVarVariantContextToRecordConverter();
-		this.vcfReader = new VCFFileReader(new File(this.vcfPath), true);
+		this.variantProvider = new StreamingVCFVariantProvider(this.vcfPath);
+		this.variantProvider.selectInfoKeys(vcToRecord.getInfoKeys());
+		this.vcfReader = variantProvider.getVcfReader();
 		this.options = options;
+		this.bloomFilter = (options.getBloomFilterPath() == null) ? null
+				: DatabaseBloomFilter.getShared(options.getBloomFilterPath());
 	}
 
 	@Override
@@ -69,28 +81,42 @@ public class ClinVarAnnotationDriver implements DBAnnotationDriver {
 
 	@Override
 	public VariantContext annotateVariantContext(VariantContext obsVC) {
-		try (CloseableIterator<VariantContext> iter = vcfReader.query(obsVC.getContig(), obsVC.getStart(),
+		AnnotatingVariantContextBuilder builder = new AnnotatingVariantContextBuilder(obsVC);
+		annotateVariantContext(builder);
+		return builder.make();
+	}
+
+	@Override
+	public void annotateVariantContext(AnnotatingVariantContextBuilder builder) {
+		final VariantContext obsVC = builder.getVariantContext();
+		if (bloomFilter != null && !bloomFilter.mightOverlap(obsVC.getContig(), obsVC.getStart(), obsVC.getEnd())) {
+			// No database record, nothing to match
+			annotateWithDBRecords(obsVC, new ArrayList<>(), new ArrayList<>(), builder);
+			return;
+		}
+		try (CloseableIterator<VariantContext> iter = variantProvider.query(obsVC.getContig(), obsVC.getStart(),
 				obsVC.getEnd())) {
 			// Fetch all overlapping and matching genotypes from database and pair them with the correct allele from vc.
 			List<GenotypeMatch> genotypeMatches = new ArrayList<>();
 			List<GenotypeMatch> positionOverlaps = new ArrayList<>();
 			while (iter.hasNext()) {
 				final VariantContext dbVC = iter.next();
-				genotypeMatches.addAll(matcher.matchGenotypes(obsVC, dbVC));
+				final List<VariantDescription> obsVars = builder.getNormalizedAlleles(matcher);
+				genotypeMatches.addAll(matcher.matchGenotypes(obsVC, obsVars, dbVC));
 				// TODO: what to do about non-reference/non-alt ClinVar annotation "-1"?
 				if (options.isReportOverlapping() || options.isReportOverlappingAsMatching())
-					positionOverlaps.addAll(matcher.positionOverlaps(obsVC, dbVC));
+					positionOverlaps.addAll(matcher.positionOverlaps(obsVC, obsVars, dbVC));
 			}
 
 			List<GenotypeMatch> emptyList = new ArrayList<>();
 
 			// Use these records to annotate the variant call in obsVC (record-wise but also per alternative allele)
 			if (options.isReportOverlappingAsMatching())
-				return annotateWithDBRecords(obsVC, positionOverlaps, emptyList);
+				annotateWithDBRecords(obsVC, positionOverlaps, emptyList, builder);
 			else if (options.isReportOverlapping())
-				return annotateWithDBRecords(obsVC, genotypeMatches, positionOverlaps);
+				annotateWithDBRecords(obsVC, genotypeMatches, positionOverlaps, builder);
 			else
-				return annotateWithDBRecords(obsVC, genotypeMatches, emptyList);
+				annotateWithDBRecords(obsVC, genotypeMatches, emptyList, builder);
 		}
 	}
 
@@ -103,16 +129,17 @@ public class ClinVarAnnotationDriver implements DBAnnotationDriver {
 	 *            list of matches with genotypes
 	 * @param positionOverlaps
 	 *            list of matches with genotype overlaps only
-	 * @return annotated {@link VariantContext}
+	 * @param builder
+	 *            {@link VariantContextBuilder} to write the annotation into
 	 */
-	private VariantContext annotateWithDBRecords(VariantContext obsVC, List<GenotypeMatch> genotypeMatches,
-			List<GenotypeMatch> positionOverlaps) {
-		ClinVarVariantContextToRecordConverter converter = new ClinVarVariantContextToRecordConverter();
-		VariantContextBuilder builder = new VariantContextBuilder(obsVC);
+	private void annotateWithDBRecords(VariantContext obsVC, List<GenotypeMatch> genotypeMatches,
+			List<GenotypeMatch> positionOverlaps, VariantContextBuilder builder) {
+		// Convert each database record only once
+		IdentityHashMap<VariantContext, ClinVarRecord> dbRecords = new IdentityHashMap<>();
 
 		ArrayListMultimap<Integer, ClinVarAnnotation> matchMap = ArrayListMultimap.create();
 		for (GenotypeMatch m : genotypeMatches) {
-			final ClinVarRecord clinVarRecord = converter.convert(m.getDBVC());
+			final ClinVarRecord clinVarRecord = dbRecords.computeIfAbsent(m.getDBVC(), vcToRecord::convert);
 			matchMap.putAll(m.getObservedAllele(), clinVarRecord.getAnnotations().get(m.getDbAllele()));
 		}
 		annotateBuilder(builder, matchMap, "");
@@ -120,13 +147,11 @@ public class ClinVarAnnotationDriver implements DBAnnotationDriver {
 		if (options.isReportOverlapping() && !options.isReportOverlappingAsMatching()) {
 			ArrayListMultimap<Integer, ClinVarAnnotation> overlapMap = ArrayListMultimap.create();
 			for (GenotypeMatch m : positionOverlaps) {
-				final ClinVarRecord clinVarRecord = converter.convert(m.getDBVC());
+				final ClinVarRecord clinVarRecord = dbRecords.computeIfAbsent(m.getDBVC(), vcToRecord::convert);
 				overlapMap.putAll(m.getObservedAllele(), clinVarRecord.getAnnotations().get(m.getDbAllele()));
 			}
 			annotateBuilder(builder, matchMap, "OVL_");
 		}
-
-		return builder.make();
 	}
 
 	private void annotateBuilder(VariantContextBuilder builder, ArrayListMultimap<Integer, ClinVarAnnotation> matchMap,
@@ -1,6 +1,7 @@
 package de.charite.compbio.jannovar.vardbs.clinvar;
 
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Collections;
 import java.util.List;
 import java.util.TreeMap;
@@ -19,6 +20,11 @@ import htsjdk.variant.variantcontext.VariantContext;
  */
 final class ClinVarVariantContextToRecordConverter implements VariantContextToRecordConverter<ClinVarRecord> {
 
+	/** IDs of the INFO fields read by {@link #convert} */
+	private static final ImmutableList<String> INFO_KEYS =
+			ImmutableList.of("CLNALLE", "CLNHGVS", "CLNORIGIN", "CLNSRC", "CLNSRCID", "CLNSIG", "CLNDSDB",
+					"CLNDSDBID", "CLNDBN", "CLNREVSTAT", "CLNACC");
+
 	private static <T> T getFromList(List<T> lst, int idx, T defaultValue) {
 		if (idx >= lst.size())
 			return defaultValue;
@@ -134,4 +140,9 @@ final class ClinVarVariantContextToRecordConverter implements VariantContextToRe
 		return builder.build();
 	}
 
+	@Override
+	public Collection<String> getInfoKeys() {
+		return INFO_KEYS;
+	}
+
 }
@@ -4,11 +4,12 @@ import com.google.common.base.Joiner;
 import com.google.common.collect.Lists;
 import de.charite.compbio.jannovar.vardbs.base.AbstractDBAnnotationDriver;
 import de.charite.compbio.jannovar.vardbs.base.AnnotatingRecord;
+import de.charite.compbio.jannovar.vardbs.base.AnnotatingVariantContextBuilder;
 import de.charite.compbio.jannovar.vardbs.base.DBAnnotationOptions;
 import de.charite.compbio.jannovar.vardbs.base.GenotypeMatch;
 import de.charite.compbio.jannovar.vardbs.base.JannovarVarDBException;
+import de.charite.compbio.jannovar.vardbs.base.StreamingVCFVariantProvider;
 import de.charite.compbio.jannovar.vardbs.base.VCFHeaderExtender;
-import de.charite.compbio.jannovar.vardbs.base.VCFReaderVariantProvider;
 import htsjdk.variant.variantcontext.VariantContext;
 import htsjdk.variant.variantcontext.VariantContextBuilder;
 import java.util.ArrayList;
@@ -24,7 +25,7 @@ public class CosmicAnnotationDriver extends AbstractDBAnnotationDriver<CosmicRec
 
 	public CosmicAnnotationDriver(String vcfPath, String fastaPath, DBAnnotationOptions options)
 			throws JannovarVarDBException {
-		super(new VCFReaderVariantProvider(vcfPath), fastaPath, options, new CosmicVariantContextToRecordConverter());
+		super(new StreamingVCFVariantProvider(vcfPath), fastaPath, options, new CosmicVariantContextToRecordConverter());
 	}
 
 	@Override
@@ -55,11 +56,10 @@ public class CosmicAnnotationDriver extends AbstractDBAnnotationDriver<CosmicRec
 	}
 
 	@Override
-	protected VariantContext annotateWithDBRecords(VariantContext vc,
+	protected void annotateWithDBRecords(VariantContext vc,
 			HashMap<Integer, AnnotatingRecord<CosmicRecord>> matchRecords,
-			HashMap<Integer, AnnotatingRecord<CosmicRecord>> overlapRecords) {
-		VariantContextBuilder builder = new VariantContextBuilder(vc);
-
+			HashMap<Integer, AnnotatingRecord<CosmicRecord>> overlapRecords,
+			AnnotatingVariantContextBuilder builder) {
 		annotateIDs(vc, matchRecords, builder);
 
 		// Annotate with records with matching allele
@@ -73,13 +73,11 @@ public class CosmicAnnotationDriver extends AbstractDBAnnotationDriver<CosmicRec
 			annotateInfoSnp(vc, "OVL_", overlapRecords, builder);
 			annotateInfoID(vc, "OVL_", matchRecords, builder);
 		}
-
-		return builder.make();
 	}
 
 	private void annotateIDs(VariantContext vc, HashMap<Integer, AnnotatingRecord<CosmicRecord>> records,
-			VariantContextBuilder builder) {
-		ArrayList<String> idList = Lists.newArrayList(vc.getID().split(";"));
+			AnnotatingVariantContextBuilder builder) {
+		ArrayList<String> idList = Lists.newArrayList(builder.getID().split(";"));
 		for (int i = 1; i < vc.getNAlleles(); ++i) {
 			if (records.get(i) != null) {
 				CosmicRecord record = records.get(i).getRecord();
@@ -1,5 +1,9 @@
 package de.charite.compbio.jannovar.vardbs.cosmic;
 
+import java.util.Collection;
+
+import com.google.common.collect.ImmutableList;
+
 import de.charite.compbio.jannovar.vardbs.base.VariantContextToRecordConverter;
 import htsjdk.variant.variantcontext.Allele;
 import htsjdk.variant.variantcontext.VariantContext;
@@ -11,6 +15,9 @@ import htsjdk.variant.variantcontext.VariantContext;
  */
 final class CosmicVariantContextToRecordConverter implements VariantContextToRecordConverter<CosmicRecord> {
 
+	/** IDs of the INFO fields read by {@link #convert} */
+	private static final ImmutableList<String> INFO_KEYS = ImmutableList.of("SNP", "CNT");
+
 	@Override
 	public CosmicRecord convert(VariantContext vc) {
 		CosmicRecordBuilder builder = new CosmicRecordBuilder();
@@ -31,4 +38,9 @@ final class CosmicVariantContextToRecordConverter implements VariantContextToRec
 		return builder.build();
 	}
 
+	@Override
+	public Collection<String> getInfoKeys() {
+		return INFO_KEYS;
+	}
+
 }
@@ -9,9 +9,13 @@ import com.google.common.collect.Lists;
 
 import de.charite.compbio.jannovar.vardbs.base.AbstractDBAnnotationDriver;
 import de.charite.compbio.jannovar.vardbs.base.AnnotatingRecord;
+import de.charite.compbio.jannovar.vardbs.base.AnnotatingVariantContextBuilder;
 import de.charite.compbio.jannovar.vardbs.base.DBAnnotationOptions;
+import de.charite.compbio.jannovar.vardbs.base.DatabaseVariantContextProvider;
 import de.charite.compbio.jannovar.vardbs.base.GenotypeMatch;
 import de.charite.compbio.jannovar.vardbs.base.JannovarVarDBException;
+import de.charite.compbio.jannovar.vardbs.base.PrefetchingVariantContextProvider;
+import de.charite.compbio.jannovar.vardbs.base.StreamingVCFVariantProvider;
 import de.charite.compbio.jannovar.vardbs.base.VCFHeaderExtender;
 import de.charite.compbio.jannovar.vardbs.base.VCFReaderVariantProvider;
 import htsjdk.variant.variantcontext.VariantContext;
@@ -39,8 +43,11 @@ final public class DBSNPAnnotationDriver extends AbstractDBAnnotationDriver<DBSN
 	 */
 	public DBSNPAnnotationDriver(String vcfPath, String fastaPath, DBAnnotationOptions options)
 			throws JannovarVarDBException {
-		super(new VCFReaderVariantProvider(vcfPath), fastaPath, options, new DBSNPVariantContextToRecordConverter());
-		VCFReaderVariantProvider vcfProvider = (VCFReaderVariantProvider) this.variantProvider;
+		super(new StreamingVCFVariantProvider(vcfPath), fastaPath, options, new DBSNPVariantContextToRecordConverter());
+		DatabaseVariantContextProvider provider = this.variantProvider;
+		if (provider instanceof PrefetchingVariantContextProvider) // no queries yet, can use delegate
+			provider = ((PrefetchingVariantContextProvider) provider).getDelegate();
+		VCFReaderVariantProvider vcfProvider = (VCFReaderVariantProvider) provider;
 
 		this.dbSNPInfo = new DBSNPInfoFactory().build(vcfProvider.getVcfReader().getFileHeader());
 		if (dbSNPInfo.dbSNPBuildID != 147)
@@ -49,11 +56,10 @@ final public class DBSNPAnnotationDriver extends AbstractDBAnnotationDriver<DBSN
 	}
 
 	@Override
-	protected VariantContext annotateWithDBRecords(VariantContext vc,
+	protected void annotateWithDBRecords(VariantContext vc,
 			HashMap<Integer, AnnotatingRecord<DBSNPRecord>> matchRecords,
-			HashMap<Integer, AnnotatingRecord<DBSNPRecord>> overlapRecords) {
-		VariantContextBuilder builder = new VariantContextBuilder(vc);
-
+			HashMap<Integer, AnnotatingRecord<DBSNPRecord>> overlapRecords,
+			AnnotatingVariantContextBuilder builder) {
 		annotateIDs(vc, matchRecords, builder);
 
 		// Annotate with records with matching allele
@@ -73,8 +79,6 @@ final public class DBSNPAnnotationDriver extends AbstractDBAnnotationDriver<DBSN
 			annotateInfoIDs(vc, "OVL_", overlapRecords, builder);
 			annotateInfoOrigin(vc, "OVL_", overlapRecords, builder);
 		}
-
-		return builder.make();
 	}
 
 	private void annotateInfoG5A(VariantContext vc, String infix,
@@ -218,8 +222,8 @@ final public class DBSNPAnnotationDriver extends AbstractDBAnnotationDriver<DBSN
 	}
 
 	private void annotateIDs(VariantContext vc, HashMap<Integer, AnnotatingRecord<DBSNPRecord>> records,
-			VariantContextBuilder builder) {
-		ArrayList<String> idList = Lists.newArrayList(vc.getID().split(";"));
+			AnnotatingVariantContextBuilder builder) {
+		ArrayList<String> idList = Lists.newArrayList(builder.getID().split(";"));
 		for (int i = 1; i < vc.getNAlleles(); ++i) {
 			if (records.get(i) != null) {
 				DBSNPRecord record = records.get(i).getRecord();
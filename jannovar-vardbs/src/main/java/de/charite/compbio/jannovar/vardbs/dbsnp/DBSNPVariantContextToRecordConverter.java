@@ -1,9 +1,11 @@
 package de.charite.compbio.jannovar.vardbs.dbsnp;
 
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.stream.Collectors;
 
 import com.google.common.base.Splitter;
+import com.google.common.collect.ImmutableList;
 import com.google.common.collect.Lists;
 
 import de.charite.compbio.jannovar.vardbs.base.VariantContextToRecordConverter;
@@ -17,6 +19,13 @@ import htsjdk.variant.variantcontext.VariantContext;
  */
 final class DBSNPVariantContextToRecordConverter implements VariantContextToRecordConverter<DBSNPRecord> {
 
+	/** IDs of the INFO fields read by {@link #convert} */
+	private static final ImmutableList<String> INFO_KEYS =
+			ImmutableList.of("RS", "RSPOS", "RV", "GENEINFO", "dbSNPBuildID", "SAO", "SSR", "WGT", "VC", "PM", "TPA",
+					"PMC", "S3D", "SLO", "NSF", "NSM", "NSN", "REF", "U3", "U5", "ASS", "DSS", "INT", "R3",
+					"R5", "OTH", "ASP", "CFL", "MUT", "VLD", "G5A", "G5", "GNO", "KGPhase1", "GKPhase3",
+					"CDA", "LSD", "MTP", "OM", "NOC", "WTD", "NOV", "CAF", "COMMON", "OLD_VARIANT");
+
 	/**
 	 * Convert {@link VariantContext} to {@link DBSNPRecord}
 	 * 
@@ -137,4 +146,9 @@ final class DBSNPVariantContextToRecordConverter implements VariantContextToReco
 		return builder.build();
 	}
 
+	@Override
+	public Collection<String> getInfoKeys() {
+		return INFO_KEYS;
+	}
+
 }
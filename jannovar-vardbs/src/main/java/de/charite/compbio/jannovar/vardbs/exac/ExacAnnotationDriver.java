@@ -6,13 +6,14 @@ import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
 
+import de.charite.compbio.jannovar.vardbs.af_store.AlleleFrequencyStoreVariantProvider;
 import de.charite.compbio.jannovar.vardbs.base.AbstractDBAnnotationDriver;
 import de.charite.compbio.jannovar.vardbs.base.AnnotatingRecord;
+import de.charite.compbio.jannovar.vardbs.base.AnnotatingVariantContextBuilder;
 import de.charite.compbio.jannovar.vardbs.base.DBAnnotationOptions;
 import de.charite.compbio.jannovar.vardbs.base.GenotypeMatch;
 import de.charite.compbio.jannovar.vardbs.base.JannovarVarDBException;
 import de.charite.compbio.jannovar.vardbs.base.VCFHeaderExtender;
-import de.charite.compbio.jannovar.vardbs.base.VCFReaderVariantProvider;
 import htsjdk.variant.variantcontext.VariantContext;
 import htsjdk.variant.variantcontext.VariantContextBuilder;
 
@@ -27,7 +28,7 @@ public class ExacAnnotationDriver extends AbstractDBAnnotationDriver<ExacRecord>
 
 	public ExacAnnotationDriver(String vcfPath, String fastaPath, DBAnnotationOptions options)
 			throws JannovarVarDBException {
-		super(new VCFReaderVariantProvider(vcfPath), fastaPath, options, new ExacVariantContextToRecordConverter());
+		super(AlleleFrequencyStoreVariantProvider.open(vcfPath), fastaPath, options, new ExacVariantContextToRecordConverter());
 	}
 
 	@Override
@@ -61,13 +62,12 @@ public class ExacAnnotationDriver extends AbstractDBAnnotationDriver<ExacRecord>
 	}
 
 	@Override
-	protected VariantContext annotateWithDBRecords(VariantContext vc,
+	protected void annotateWithDBRecords(VariantContext vc,
 			HashMap<Integer, AnnotatingRecord<ExacRecord>> matchRecords,
-			HashMap<Integer, AnnotatingRecord<ExacRecord>> overlapRecords) {
+			HashMap<Integer, AnnotatingRecord<ExacRecord>> overlapRecords,
+			AnnotatingVariantContextBuilder builder) {
 		if (matchRecords.isEmpty())
-			return vc;
-
-		VariantContextBuilder builder = new VariantContextBuilder(vc);
+			return;
 
 		// Annotate with records with matching allele
 		annotateAlleleCounts(vc, "", matchRecords, builder);
@@ -88,8 +88,6 @@ public class ExacAnnotationDriver extends AbstractDBAnnotationDriver<ExacRecord>
 			annotateFrequencies(vc, "OVL_", overlapRecords, builder);
 			annotateBestAF(vc, "OVL_", overlapRecords, builder);
 		}
-
-		return builder.make();
 	}
 
 	private void annotateBestAF(VariantContext vc, String infix, HashMap<Integer, AnnotatingRecord<ExacRecord>> records,
@@ -1,9 +1,12 @@
 package de.charite.compbio.jannovar.vardbs.exac;
 
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
 import java.util.stream.Collectors;
 
+import com.google.common.collect.ImmutableList;
+
 import de.charite.compbio.jannovar.vardbs.base.VariantContextToRecordConverter;
 import htsjdk.variant.variantcontext.Allele;
 import htsjdk.variant.variantcontext.VariantContext;
@@ -15,6 +18,9 @@ import htsjdk.variant.variantcontext.VariantContext;
  */
 final class ExacVariantContextToRecordConverter implements VariantContextToRecordConverter<ExacRecord> {
 
+	/** IDs of the INFO fields read by {@link #convert} */
+	private static final ImmutableList<String> INFO_KEYS = buildInfoKeys();
+
 	@Override
 	public ExacRecord convert(VariantContext vc) {
 		ExacRecordBuilder builder = new ExacRecordBuilder();
@@ -105,4 +111,18 @@ final class ExacVariantContextToRecordConverter implements VariantContextToRecor
 		return builder.build();
 	}
 
+	@Override
+	public Collection<String> getInfoKeys() {
+		return INFO_KEYS;
+	}
+
+	/** @return IDs of the INFO fields read by {@link #convert} */
+	private static ImmutableList<String> buildInfoKeys() {
+		ImmutableList.Builder<String> builder = ImmutableList.builder();
+		for (ExacPopulation pop : ExacPopulation.values())
+			if (pop != ExacPopulation.ALL)
+				builder.add("AN_" + pop, "AC_" + pop, "Het_" + pop, "Hom_" + pop, "Hemi_" + pop);
+		return builder.build();
+	}
+
 }
@@ -0,0 +1,137 @@
+package de.charite.compbio.jannovar.vardbs.facade;
+
+import java.util.ArrayDeque;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+import com.google.common.collect.ImmutableList;
+
+import de.charite.compbio.jannovar.vardbs.base.AnnotatingVariantContextBuilder;
+import de.charite.compbio.jannovar.vardbs.base.DBAnnotationOptions;
+import htsjdk.variant.variantcontext.VariantContext;
+import htsjdk.variant.vcf.VCFHeader;
+
+/**
+ * Annotation of {@link VariantContext} objects with multiple databases in a single pass
+ *
+ * Chaining {@link DBVariantContextAnnotator#annotateVariantContext(VariantContext)} calls builds one intermediate
+ * {@link VariantContext} per database and normalizes the observed alleles once per database record. This class lets all
+ * annotators write into one {@link AnnotatingVariantContextBuilder}, such that the observed alleles are normalized at
+ * most once and the annotated {@link VariantContext} is built once. The result is the same as for chaining the
+ * annotators in the same order.
+ *
+ * Only consecutive annotation steps can be combined. In <code>annotate-vcf</code>, this class covers the built-in
+ * databases (dbSNP, ExAC, gnomAD, 1000 Genomes, UK10K, ClinVar, and COSMIC), which run before the variant effect
+ * annotation. The generic VCF and TSV annotators (including dbNSFP) stay separate steps since they run after the
+ * threshold and pedigree filters and the BED annotation. Combining them here would move them before the filters,
+ * which read the INFO fields of the databases by their prefixes and could then pick up generic annotations.
+ *
+ * As for {@link DBVariantContextAnnotator}, objects of this class are not thread-safe.
+ */
+public final class CombinedDBVariantContextAnnotator {
+
+	/** The annotators to use, in this order */
+	private final ImmutableList<DBVariantContextAnnotator> annotators;
+
+	/**
+	 * Initialize the annotator
+	 *
+	 * @param annotators
+	 *            {@link DBVariantContextAnnotator}s to use, in this order
+	 */
+	public CombinedDBVariantContextAnnotator(List<DBVariantContextAnnotator> annotators) {
+		this.annotators = ImmutableList.copyOf(annotators);
+	}
+
+	/** @return the annotators that are used, in this order */
+	public ImmutableList<DBVariantContextAnnotator> getAnnotators() {
+		return annotators;
+	}
+
+	/**
+	 * Extend VCF header with the header lines of all annotators
+	 *
+	 * @param vcfHeader
+	 *            Extend VCF header
+	 * @return The modified <code>vcfHeader</code>
+	 */
+	public VCFHeader extendHeader(VCFHeader vcfHeader) {
+		for (DBVariantContextAnnotator annotator : annotators)
+			annotator.extendHeader(vcfHeader);
+		return vcfHeader;
+	}
+
+	/**
+	 * Announce that <code>vc</code> will be annotated soon, see {@link DBVariantContextAnnotator#prefetch}
+	 *
+	 * @param vc
+	 *            {@link VariantContext} to annotate later
+	 */
+	public void prefetch(VariantContext vc) {
+		for (DBVariantContextAnnotator annotator : annotators)
+			annotator.prefetch(vc);
+	}
+
+	/**
+	 * Wrap <code>records</code> such that each record is announced with {@link #prefetch} when it is
+	 * <code>lookahead</code> records ahead of the one returned
+	 *
+	 * Annotating the returned records in order lets the databases be queried for the upcoming records while the
+	 * current one is annotated. This requires the annotators to be constructed with a prefetch window of at least
+	 * <code>lookahead</code>, see {@link DBAnnotationOptions#setPrefetchWindow(int)}.
+	 *
+	 * @param records
+	 *            {@link Iterator} of the records to annotate
+	 * @param lookahead
+	 *            number of records to read ahead
+	 * @return {@link Iterator} with the same records as <code>records</code>
+	 */
+	public Iterator<VariantContext> prefetchAhead(Iterator<VariantContext> records, int lookahead) {
+		return new Iterator<VariantContext>() {
+
+			/** Records that were read and announced but not returned yet */
+			private final ArrayDeque<VariantContext> buffer = new ArrayDeque<>();
+
+			@Override
+			public boolean hasNext() {
+				fill();
+				return !buffer.isEmpty();
+			}
+
+			@Override
+			public VariantContext next() {
+				fill();
+				if (buffer.isEmpty())
+					throw new NoSuchElementException();
+				return buffer.remove();
+			}
+
+			private void fill() {
+				while (buffer.size() <= lookahead && records.hasNext()) {
+					final VariantContext vc = records.next();
+					prefetch(vc);
+					buffer.add(vc);
+				}
+			}
+
+		};
+	}
+
+	/**
+	 * Annotate one {@link VariantContext} with information from all databases
+	 *
+	 * @param vc
+	 *            {@link VariantContext} to annotate
+	 * @return the annotated copy of <code>vc</code>, or <code>vc</code> itself if there are no annotators
+	 */
+	public VariantContext annotateVariantContext(VariantContext vc) {
+		if (annotators.isEmpty())
+			return vc;
+		final AnnotatingVariantContextBuilder builder = new AnnotatingVariantContextBuilder(vc);
+		for (DBVariantContextAnnotator annotator : annotators)
+			annotator.annotateVariantContext(builder);
+		return builder.make();
+	}
+
+}
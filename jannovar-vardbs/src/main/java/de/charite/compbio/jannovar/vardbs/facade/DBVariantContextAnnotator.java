@@ -2,6 +2,7 @@ package de.charite.compbio.jannovar.vardbs.facade;
 
 import java.util.Collection;
 
+import de.charite.compbio.jannovar.vardbs.base.AnnotatingVariantContextBuilder;
 import de.charite.compbio.jannovar.vardbs.base.DBAnnotationDriver;
 import de.charite.compbio.jannovar.vardbs.base.DBAnnotationOptions;
 import de.charite.compbio.jannovar.vardbs.base.VCFHeaderExtender;
@@ -53,6 +54,28 @@ final public class DBVariantContextAnnotator {
 		return driver.annotateVariantContext(vc);
 	}
 
+	/**
+	 * Announce that <code>vc</code> will be annotated soon, see {@link DBAnnotationDriver#prefetch(VariantContext)}
+	 *
+	 * @param vc
+	 *            {@link VariantContext} to annotate later
+	 */
+	public void prefetch(VariantContext vc) {
+		driver.prefetch(vc);
+	}
+
+	/**
+	 * Annotate one {@link VariantContext} with information from a database, writing into a builder that can be shared
+	 * with other annotators
+	 *
+	 * @param builder
+	 *            {@link AnnotatingVariantContextBuilder} to write the annotation into
+	 * @see CombinedDBVariantContextAnnotator
+	 */
+	public void annotateVariantContext(AnnotatingVariantContextBuilder builder) {
+		driver.annotateVariantContext(builder);
+	}
+
 	/**
 	 * Convenience method for bulk-annotating multiple {@link VariantContext} objects
 	 *
@@ -0,0 +1,175 @@
+package de.charite.compbio.jannovar.vardbs.facade;
+
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import com.google.common.collect.ImmutableList;
+
+import de.charite.compbio.jannovar.UncheckedJannovarException;
+import de.charite.compbio.jannovar.annotation.VariantAnnotations;
+import de.charite.compbio.jannovar.annotation.VariantAnnotationsCache;
+import de.charite.compbio.jannovar.data.JannovarData;
+import de.charite.compbio.jannovar.htsjdk.InvalidCoordinatesException;
+import de.charite.compbio.jannovar.htsjdk.VariantContextAnnotator;
+import de.charite.compbio.jannovar.htsjdk.VariantEffectHeaderExtender;
+import de.charite.compbio.jannovar.vardbs.base.AnnotatingVariantContextBuilder;
+import de.charite.compbio.jannovar.vardbs.base.JannovarVarDBException;
+import htsjdk.variant.variantcontext.VariantContext;
+import htsjdk.variant.vcf.VCFHeader;
+
+/**
+ * Thread-safe facade for annotating {@link VariantContext} objects with databases and variant effects
+ *
+ * One object of this class can be shared by all threads of a server. The {@link JannovarData} and the
+ * {@link VariantContextAnnotator} for the variant effects are shared by all threads. The database annotators hold
+ * readers for the database files and the reference FASTA file that must not be used by two threads at the same time.
+ * They are kept in a pool of sets of annotators, one from each {@link DBAnnotatorSupplier}. Each call borrows a set
+ * from the pool, creating a new one when all are in use, and returns it afterwards. Thus, the number of open readers
+ * grows with the number of concurrent calls rather than with the number of threads.
+ *
+ * The variant context is annotated with the databases in the order of the suppliers, and then with the variant
+ * effects.
+ */
+public final class ThreadSafeAnnotationEngine {
+
+	/**
+	 * Source of {@link DBVariantContextAnnotator}s, called once for each set of annotators in the pool
+	 */
+	@FunctionalInterface
+	public interface DBAnnotatorSupplier {
+
+		/**
+		 * @return a new {@link DBVariantContextAnnotator} with its own readers
+		 * @throws JannovarVarDBException
+		 *             on problems opening the database or reference files
+		 */
+		DBVariantContextAnnotator get() throws JannovarVarDBException;
+
+	}
+
+	/** Annotator for the variant effects, shared by all threads */
+	private final VariantContextAnnotator effectAnnotator;
+
+	/** Suppliers for the database annotators of each set */
+	private final ImmutableList<DBAnnotatorSupplier> dbAnnotatorSuppliers;
+
+	/** Sets of database annotators not in use at the moment */
+	private final ConcurrentLinkedQueue<ImmutableList<DBVariantContextAnnotator>> idleDBAnnotators = new ConcurrentLinkedQueue<>();
+
+	/** Number of sets of database annotators created so far */
+	private final AtomicInteger numDBAnnotatorSets = new AtomicInteger();
+
+	/**
+	 * Construct the engine and one set of database annotators, such that problems with the database files are
+	 * reported here and not on the first annotation.
+	 *
+	 * @param jannovarData
+	 *            {@link JannovarData} with the transcripts, shared by all threads
+	 * @param options
+	 *            configuration for the variant effect annotation
+	 * @param cache
+	 *            cache of annotation results shared by all threads, <code>null</code> for no cache
+	 * @param dbAnnotatorSuppliers
+	 *            suppliers for the database annotators, in the order of annotation
+	 * @throws JannovarVarDBException
+	 *             on problems opening the database or reference files
+	 */
+	public ThreadSafeAnnotationEngine(JannovarData jannovarData, VariantContextAnnotator.Options options,
+			VariantAnnotationsCache cache, List<DBAnnotatorSupplier> dbAnnotatorSuppliers)
+			throws JannovarVarDBException {
+		this.effectAnnotator = new VariantContextAnnotator(jannovarData, options, cache);
+		this.dbAnnotatorSuppliers = ImmutableList.copyOf(dbAnnotatorSuppliers);
+		this.idleDBAnnotators.add(buildDBAnnotators());
+	}
+
+	/** @return annotator for the variant effects, shared by all threads */
+	public VariantContextAnnotator getEffectAnnotator() {
+		return effectAnnotator;
+	}
+
+	/** @return number of sets of database annotators created so far, i.e., the number of open readers per database */
+	public int getNumDBAnnotatorSets() {
+		return numDBAnnotatorSets.get();
+	}
+
+	/**
+	 * Extend VCF header with the header lines of the database and variant effect annotation
+	 *
+	 * @param vcfHeader
+	 *            {@link VCFHeader} to extend
+	 * @return The modified <code>vcfHeader</code>
+	 */
+	public VCFHeader extendHeader(VCFHeader vcfHeader) {
+		final ImmutableList<DBVariantContextAnnotator> dbAnnotators = borrowDBAnnotators();
+		try {
+			for (DBVariantContextAnnotator dbAnnotator : dbAnnotators)
+				dbAnnotator.extendHeader(vcfHeader);
+		} finally {
+			idleDBAnnotators.add(dbAnnotators);
+		}
+		new VariantEffectHeaderExtender().addHeaders(vcfHeader);
+		return vcfHeader;
+	}
+
+	/**
+	 * Annotate one {@link VariantContext} with the databases and the variant effects
+	 *
+	 * @param vc
+	 *            {@link VariantContext} to annotate
+	 * @return the annotated {@link VariantContext}
+	 * @throws UncheckedJannovarException
+	 *             if a new set of database annotators is needed and opening the files failed
+	 */
+	public VariantContext annotateVariantContext(VariantContext vc) {
+		VariantContext result = vc;
+		if (!dbAnnotatorSuppliers.isEmpty()) {
+			final ImmutableList<DBVariantContextAnnotator> dbAnnotators = borrowDBAnnotators();
+			try {
+				// all databases write into one builder, see CombinedDBVariantContextAnnotator
+				final AnnotatingVariantContextBuilder builder = new AnnotatingVariantContextBuilder(vc);
+				for (DBVariantContextAnnotator dbAnnotator : dbAnnotators)
+					dbAnnotator.annotateVariantContext(builder);
+				result = builder.make();
+			} finally {
+				idleDBAnnotators.add(dbAnnotators);
+			}
+		}
+		return effectAnnotator.annotateVariantContext(result);
+	}
+
+	/**
+	 * Build the variant effect annotations of one {@link VariantContext} without the databases
+	 *
+	 * @param vc
+	 *            {@link VariantContext} to annotate
+	 * @return {@link VariantAnnotations} for each alternative allele
+	 * @throws InvalidCoordinatesException
+	 *             in case that the coordinates of <code>vc</code> are invalid
+	 */
+	public ImmutableList<VariantAnnotations> buildAnnotations(VariantContext vc) throws InvalidCoordinatesException {
+		return effectAnnotator.buildAnnotations(vc);
+	}
+
+	/** @return an idle set of database annotators, a new one if there is none */
+	private ImmutableList<DBVariantContextAnnotator> borrowDBAnnotators() {
+		final ImmutableList<DBVariantContextAnnotator> dbAnnotators = idleDBAnnotators.poll();
+		if (dbAnnotators != null)
+			return dbAnnotators;
+		try {
+			return buildDBAnnotators();
+		} catch (JannovarVarDBException e) {
+			throw new UncheckedJannovarException("Could not open database files for annotation", e);
+		}
+	}
+
+	/** @return a new set of database annotators */
+	private ImmutableList<DBVariantContextAnnotator> buildDBAnnotators() throws JannovarVarDBException {
+		final ImmutableList.Builder<DBVariantContextAnnotator> builder = new ImmutableList.Builder<>();
+		for (DBAnnotatorSupplier supplier : dbAnnotatorSuppliers)
+			builder.add(supplier.get());
+		numDBAnnotatorSets.incrementAndGet();
+		return builder.build();
+	}
+
+}
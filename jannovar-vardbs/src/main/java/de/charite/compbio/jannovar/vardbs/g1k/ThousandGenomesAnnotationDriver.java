@@ -6,13 +6,14 @@ import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
 
+import de.charite.compbio.jannovar.vardbs.af_store.AlleleFrequencyStoreVariantProvider;
 import de.charite.compbio.jannovar.vardbs.base.AbstractDBAnnotationDriver;
 import de.charite.compbio.jannovar.vardbs.base.AnnotatingRecord;
+import de.charite.compbio.jannovar.vardbs.base.AnnotatingVariantContextBuilder;
 import de.charite.compbio.jannovar.vardbs.base.DBAnnotationOptions;
 import de.charite.compbio.jannovar.vardbs.base.GenotypeMatch;
 import de.charite.compbio.jannovar.vardbs.base.JannovarVarDBException;
 import de.charite.compbio.jannovar.vardbs.base.VCFHeaderExtender;
-import de.charite.compbio.jannovar.vardbs.base.VCFReaderVariantProvider;
 import htsjdk.variant.variantcontext.VariantContext;
 import htsjdk.variant.variantcontext.VariantContextBuilder;
 
@@ -29,7 +30,7 @@ public class ThousandGenomesAnnotationDriver
 
 	public ThousandGenomesAnnotationDriver(String vcfPath, String fastaPath,
 			DBAnnotationOptions options) throws JannovarVarDBException {
-		super(new VCFReaderVariantProvider(vcfPath), fastaPath, options,
+		super(AlleleFrequencyStoreVariantProvider.open(vcfPath), fastaPath, options,
 				new ThousandGenomesVariantContextToRecordConverter());
 	}
 
@@ -70,13 +71,12 @@ public class ThousandGenomesAnnotationDriver
 	}
 
 	@Override
-	protected VariantContext annotateWithDBRecords(VariantContext vc,
+	protected void annotateWithDBRecords(VariantContext vc,
 			HashMap<Integer, AnnotatingRecord<ThousandGenomesRecord>> matchRecords,
-			HashMap<Integer, AnnotatingRecord<ThousandGenomesRecord>> overlapRecords) {
+			HashMap<Integer, AnnotatingRecord<ThousandGenomesRecord>> overlapRecords,
+			AnnotatingVariantContextBuilder builder) {
 		if (matchRecords.isEmpty())
-			return vc;
-
-		VariantContextBuilder builder = new VariantContextBuilder(vc);
+			return;
 
 		// Annotate with records with matching allele
 		boolean isMatch = !options.isReportOverlappingAsMatching();
@@ -98,8 +98,6 @@ public class ThousandGenomesAnnotationDriver
 			annotateFrequencies(vc, "OVL_", overlapRecords, builder, false);
 			annotatePopmax(vc, "OVL_", matchRecords, builder, false);
 		}
-
-		return builder.make();
 	}
 
 	private void annotateChromosomeCounts(VariantContext vc, String infix,
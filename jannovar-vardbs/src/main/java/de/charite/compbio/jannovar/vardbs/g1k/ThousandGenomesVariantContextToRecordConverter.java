@@ -1,6 +1,7 @@
 package de.charite.compbio.jannovar.vardbs.g1k;
 
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
 import java.util.stream.Collectors;
 
@@ -17,6 +18,9 @@ import htsjdk.variant.variantcontext.VariantContext;
  */
 final class ThousandGenomesVariantContextToRecordConverter implements VariantContextToRecordConverter<ThousandGenomesRecord> {
 
+	/** IDs of the INFO fields read by {@link #convert} */
+	private static final ImmutableList<String> INFO_KEYS = buildInfoKeys();
+
 	@Override
 	public ThousandGenomesRecord convert(VariantContext vc) {
 		ThousandGenomesRecordBuilder builder = new ThousandGenomesRecordBuilder();
@@ -119,4 +123,19 @@ final class ThousandGenomesVariantContextToRecordConverter implements VariantCon
 		return builder.build();
 	}
 
+	@Override
+	public Collection<String> getInfoKeys() {
+		return INFO_KEYS;
+	}
+
+	/** @return IDs of the INFO fields read by {@link #convert} */
+	private static ImmutableList<String> buildInfoKeys() {
+		ImmutableList.Builder<String> builder = ImmutableList.builder();
+		builder.add("POPMAX", "POPMAX_AN");
+		for (ThousandGenomesPopulation pop : ThousandGenomesPopulation.values())
+			if (pop != ThousandGenomesPopulation.ALL)
+				builder.add(pop + "_AN", pop + "_AC", pop + "_Hom", pop + "_Hemi", pop + "_Het");
+		return builder.build();
+	}
+
 }
@@ -1,11 +1,13 @@
 package de.charite.compbio.jannovar.vardbs.generic_tsv;
 
 import de.charite.compbio.jannovar.vardbs.base.AlleleMatcher;
+import de.charite.compbio.jannovar.vardbs.base.AnnotatingVariantContextBuilder;
 import de.charite.compbio.jannovar.vardbs.base.DBAnnotationDriver;
 import de.charite.compbio.jannovar.vardbs.base.DatabaseVariantContextProvider;
 import de.charite.compbio.jannovar.vardbs.base.GenotypeMatch;
 import de.charite.compbio.jannovar.vardbs.base.JannovarVarDBException;
 import de.charite.compbio.jannovar.vardbs.base.VCFHeaderExtender;
+import de.charite.compbio.jannovar.vardbs.base.VariantDescription;
 import htsjdk.samtools.util.CloseableIterator;
 import htsjdk.variant.variantcontext.VariantContext;
 import htsjdk.variant.variantcontext.VariantContextBuilder;
@@ -44,17 +46,24 @@ public final class GenericTSVAnnotationDriver implements DBAnnotationDriver {
 
 	@Override
 	public VariantContext annotateVariantContext(VariantContext vc) {
-		VariantContextBuilder builder = new VariantContextBuilder(vc);
+		AnnotatingVariantContextBuilder builder = new AnnotatingVariantContextBuilder(vc);
+		annotateVariantContext(builder);
+		return builder.make();
+	}
+
+	@Override
+	public void annotateVariantContext(AnnotatingVariantContextBuilder builder) {
+		final VariantContext vc = builder.getVariantContext();
 
 		// Matching and overlapping records for each allele. For the generic TSV annotation, we
 		// assume that only one allele is given for each database record.
 		Map<Integer, List<VariantContext>> dbRecordsMatch = null;
 		Map<Integer, List<VariantContext>> dbRecordsOverlap = null;
 		if (options.isReportOverlapping() && options.isReportOverlappingAsMatching()) {
-			dbRecordsMatch = pickDBRecords(vc, false);
+			dbRecordsMatch = pickDBRecords(builder, false);
 		} else {
-			dbRecordsMatch = pickDBRecords(vc, true);
-			dbRecordsOverlap = pickDBRecords(vc, false);
+			dbRecordsMatch = pickDBRecords(builder, true);
+			dbRecordsOverlap = pickDBRecords(builder, false);
 		}
 
 		// Annotate with records with genotype matches
@@ -80,15 +89,14 @@ public final class GenericTSVAnnotationDriver implements DBAnnotationDriver {
 				annotateWith(vc, "OVL_", dbRecordsOverlap, desc, refDesc, builder);
 			}
 		}
-
-		return builder.make();
 	}
 
 	/**
 	 * Pick database records for the given {@link VariantContext} <code>vc</code>.
 	 */
-	private Map<Integer, List<VariantContext>> pickDBRecords(VariantContext vc,
+	private Map<Integer, List<VariantContext>> pickDBRecords(AnnotatingVariantContextBuilder builder,
 			boolean requireGenotypeMatch) {
+		final VariantContext vc = builder.getVariantContext();
 		final Map<Integer, List<VariantContext>> result = new HashMap<>();
 		for (int i = 0; i < vc.getNAlleles(); ++i) {
 			result.put(i, new ArrayList<>());
@@ -98,12 +106,13 @@ public final class GenericTSVAnnotationDriver implements DBAnnotationDriver {
 				vc.getStart() - 1, vc.getEnd())) {
 			while (it.hasNext()) {
 				final VariantContext dbVC = it.next();
+				final List<VariantDescription> obsVars = builder.getNormalizedAlleles(matcher);
 				for (int i = 0; i < vc.getNAlleles(); ++i) {
 					final Collection<GenotypeMatch> matches;
 					if (requireGenotypeMatch) {
-						matches = matcher.matchGenotypes(vc, dbVC);
+						matches = matcher.matchGenotypes(vc, obsVars, dbVC);
 					} else {
-						matches = matcher.positionOverlaps(vc, dbVC);
+						matches = matcher.positionOverlaps(vc, obsVars, dbVC);
 					}
 					for (GenotypeMatch match : matches) {
 						result.get(match.getObservedAllele()).add(dbVC);
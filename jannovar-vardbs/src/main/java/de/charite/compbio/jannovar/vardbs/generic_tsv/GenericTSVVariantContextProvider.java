@@ -1,10 +1,9 @@
 package de.charite.compbio.jannovar.vardbs.generic_tsv;
 
 import com.google.common.collect.ImmutableList;
+import de.charite.compbio.jannovar.vardbs.base.CachingTabixReader;
 import de.charite.compbio.jannovar.vardbs.base.DatabaseVariantContextProvider;
 import htsjdk.samtools.util.CloseableIterator;
-import htsjdk.tribble.readers.TabixReader;
-import htsjdk.tribble.readers.TabixReader.Iterator;
 import htsjdk.variant.variantcontext.VariantContext;
 import htsjdk.variant.variantcontext.VariantContextBuilder;
 import java.io.IOException;
@@ -22,8 +21,8 @@ import java.util.stream.Collectors;
  * 
  * <p>
  * Note that there cannot be concurrent queries with the same
- * <code>GenericTSVVariantContextProvider</code> because we currently only shallowly wrap HTSJDK's
- * TabixReader.
+ * <code>GenericTSVVariantContextProvider</code> because we currently only shallowly wrap a
+ * {@link CachingTabixReader}.
  * </p>
  * 
  * @author <a href="mailto:manuel.holtgrewe@bihealth.de">Manuel Holtgrewe</a>
@@ -32,13 +31,13 @@ public class GenericTSVVariantContextProvider implements DatabaseVariantContextP
 
 	private final GenericTSVAnnotationOptions options;
 
-	private final TabixReader tabixReader;
+	private final CachingTabixReader tabixReader;
 
 	public GenericTSVVariantContextProvider(GenericTSVAnnotationOptions options) {
 		this.options = options;
 		final String tsvPath = this.options.getTsvFile().toString();
 		try {
-			this.tabixReader = new TabixReader(tsvPath, tsvPath + ".tbi");
+			this.tabixReader = new CachingTabixReader(tsvPath);
 		} catch (IOException e) {
 			throw new RuntimeException("Could not open TABIX file " + tsvPath, e);
 		}
@@ -50,39 +49,26 @@ public class GenericTSVVariantContextProvider implements DatabaseVariantContextP
 	}
 
 	/**
-	 * Wrapper for iterator from {@link TabixReader}.
+	 * Wrapper for iterator from {@link CachingTabixReader}.
 	 * 
 	 * @author <a href="mailto:manuel.holtgrewe@bihealth.de">Manuel Holtgrewe</a>
 	 */
 	private class TabixIteratorWrapper implements CloseableIterator<VariantContext> {
 
-		private final Iterator iter;
+		private final CloseableIterator<String> iter;
 
-		private String next;
-
-		public TabixIteratorWrapper(Iterator iter) {
+		public TabixIteratorWrapper(CloseableIterator<String> iter) {
 			this.iter = iter;
-			try {
-				this.next = iter.next();
-			} catch (IOException e) {
-				throw new RuntimeException("Problem reading from " + options.getTsvFile(), e);
-			}
 		}
 
 		@Override
 		public boolean hasNext() {
-			return this.next != null;
+			return iter.hasNext();
 		}
 
 		@Override
 		public VariantContext next() {
-			final String resultLine = next;
-			try {
-				next = iter.next();
-			} catch (IOException e) {
-				throw new RuntimeException("Problem reading from " + options.getTsvFile(), e);
-			}
-			return parseTabixLine(resultLine);
+			return parseTabixLine(iter.next());
 		}
 
 		private VariantContext parseTabixLine(String resultLine) {
@@ -279,7 +265,7 @@ public class GenericTSVVariantContextProvider implements DatabaseVariantContextP
 
 		@Override
 		public void close() {
-			/* nop */
+			iter.close();
 		}
 
 	}
@@ -2,6 +2,9 @@ package de.charite.compbio.jannovar.vardbs.generic_tsv;
 
 import de.charite.compbio.jannovar.vardbs.base.VariantContextToRecordConverter;
 import htsjdk.variant.variantcontext.VariantContext;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
 
 /**
  * Helper class for converting {@link VariantContext} to {@link GenericTSVRecord}.
@@ -50,4 +53,12 @@ final class GenericTSVVariantContextToRecordConverter
 		return builder.build();
 	}
 
+	@Override
+	public Collection<String> getInfoKeys() {
+		List<String> result = new ArrayList<>();
+		for (String colName : tsvOptions.getColumnNames())
+			result.add(tsvOptions.getValueColumnDescriptions().get(colName).getFieldName());
+		return result;
+	}
+
 }
@@ -2,10 +2,11 @@ package de.charite.compbio.jannovar.vardbs.generic_vcf;
 
 import de.charite.compbio.jannovar.vardbs.base.AbstractDBAnnotationDriver;
 import de.charite.compbio.jannovar.vardbs.base.AnnotatingRecord;
+import de.charite.compbio.jannovar.vardbs.base.AnnotatingVariantContextBuilder;
 import de.charite.compbio.jannovar.vardbs.base.GenotypeMatch;
 import de.charite.compbio.jannovar.vardbs.base.JannovarVarDBException;
+import de.charite.compbio.jannovar.vardbs.base.StreamingVCFVariantProvider;
 import de.charite.compbio.jannovar.vardbs.base.VCFHeaderExtender;
-import de.charite.compbio.jannovar.vardbs.base.VCFReaderVariantProvider;
 import htsjdk.variant.variantcontext.VariantContext;
 import htsjdk.variant.variantcontext.VariantContextBuilder;
 import htsjdk.variant.vcf.VCFHeaderLineCount;
@@ -26,8 +27,8 @@ public class GenericVCFAnnotationDriver extends AbstractDBAnnotationDriver<Varia
 
 	public GenericVCFAnnotationDriver(String vcfPath, String fastaPath, GenericVCFAnnotationOptions options)
 			throws JannovarVarDBException {
-		super(new VCFReaderVariantProvider(options.getPathVcfFile()), fastaPath, options,
-				new GenericVCFVariantContextToRecordConverter());
+		super(new StreamingVCFVariantProvider(options.getPathVcfFile()), fastaPath, options,
+				new GenericVCFVariantContextToRecordConverter(options));
 		this.genericVcfOptions = options;
 	}
 
@@ -67,11 +68,10 @@ public class GenericVCFAnnotationDriver extends AbstractDBAnnotationDriver<Varia
 	}
 
 	@Override
-	protected VariantContext annotateWithDBRecords(VariantContext vc,
+	protected void annotateWithDBRecords(VariantContext vc,
 			HashMap<Integer, AnnotatingRecord<VariantContext>> matchRecords,
-			HashMap<Integer, AnnotatingRecord<VariantContext>> overlapRecords) {
-		VariantContextBuilder builder = new VariantContextBuilder(vc);
-
+			HashMap<Integer, AnnotatingRecord<VariantContext>> overlapRecords,
+			AnnotatingVariantContextBuilder builder) {
 		// Annotate with records with matching allele
 		for (String fieldName : genericVcfOptions.getFieldNames()) {
 			annotate(vc, "", matchRecords, fieldName, builder);
@@ -83,8 +83,6 @@ public class GenericVCFAnnotationDriver extends AbstractDBAnnotationDriver<Varia
 				annotate(vc, "OVL_", overlapRecords, fieldName, builder);
 			}
 		}
-
-		return builder.make();
 	}
 
 	private void annotate(VariantContext vc, String infix, HashMap<Integer, AnnotatingRecord<VariantContext>> records,
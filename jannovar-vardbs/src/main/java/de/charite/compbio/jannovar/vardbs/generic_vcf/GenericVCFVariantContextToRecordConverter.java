@@ -2,6 +2,7 @@ package de.charite.compbio.jannovar.vardbs.generic_vcf;
 
 import de.charite.compbio.jannovar.vardbs.base.VariantContextToRecordConverter;
 import htsjdk.variant.variantcontext.VariantContext;
+import java.util.Collection;
 
 /**
  * Helper class for the conversion of {@link VariantContext} to {@link GenericVCFRecord} objects
@@ -10,9 +11,21 @@ import htsjdk.variant.variantcontext.VariantContext;
  */
 final class GenericVCFVariantContextToRecordConverter implements VariantContextToRecordConverter<VariantContext> {
 
+	/** Configuration, with the INFO fields to annotate with */
+	private final GenericVCFAnnotationOptions options;
+
+	public GenericVCFVariantContextToRecordConverter(GenericVCFAnnotationOptions options) {
+		this.options = options;
+	}
+
 	@Override
 	public VariantContext convert(VariantContext vc) {
 		return vc;
 	}
 
+	@Override
+	public Collection<String> getInfoKeys() {
+		return options.getFieldNames();
+	}
+
 }
@@ -1,6 +1,7 @@
 package de.charite.compbio.jannovar.vardbs.gnomad;
 
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
 import java.util.stream.Collectors;
 
@@ -17,6 +18,9 @@ import htsjdk.variant.variantcontext.VariantContext;
  */
 final class GnomadVariantContextToRecordConverter implements VariantContextToRecordConverter<GnomadRecord> {
 
+	/** IDs of the INFO fields read by {@link #convert} */
+	private static final ImmutableList<String> INFO_KEYS = buildInfoKeys();
+
 	@Override
 	public GnomadRecord convert(VariantContext vc) {
 		GnomadRecordBuilder builder = new GnomadRecordBuilder();
@@ -126,4 +130,19 @@ final class GnomadVariantContextToRecordConverter implements VariantContextToRec
 		return builder.build();
 	}
 
+	@Override
+	public Collection<String> getInfoKeys() {
+		return INFO_KEYS;
+	}
+
+	/** @return IDs of the INFO fields read by {@link #convert} */
+	private static ImmutableList<String> buildInfoKeys() {
+		ImmutableList.Builder<String> builder = ImmutableList.builder();
+		builder.add("POPMAX", "AN_POPMAX");
+		for (GnomadPopulation pop : GnomadPopulation.values())
+			if (pop != GnomadPopulation.ALL)
+				builder.add("AN_" + pop, "AC_" + pop, "Hom_" + pop, "Hemi_" + pop);
+		return builder.build();
+	}
+
 }
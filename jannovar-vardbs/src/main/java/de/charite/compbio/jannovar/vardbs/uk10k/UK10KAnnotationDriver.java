@@ -4,13 +4,14 @@ import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.Map.Entry;
 
+import de.charite.compbio.jannovar.vardbs.af_store.AlleleFrequencyStoreVariantProvider;
 import de.charite.compbio.jannovar.vardbs.base.AbstractDBAnnotationDriver;
 import de.charite.compbio.jannovar.vardbs.base.AnnotatingRecord;
+import de.charite.compbio.jannovar.vardbs.base.AnnotatingVariantContextBuilder;
 import de.charite.compbio.jannovar.vardbs.base.DBAnnotationOptions;
 import de.charite.compbio.jannovar.vardbs.base.GenotypeMatch;
 import de.charite.compbio.jannovar.vardbs.base.JannovarVarDBException;
 import de.charite.compbio.jannovar.vardbs.base.VCFHeaderExtender;
-import de.charite.compbio.jannovar.vardbs.base.VCFReaderVariantProvider;
 import htsjdk.variant.variantcontext.VariantContext;
 import htsjdk.variant.variantcontext.VariantContextBuilder;
 
@@ -23,7 +24,7 @@ public class UK10KAnnotationDriver extends AbstractDBAnnotationDriver<UK10KRecor
 
 	public UK10KAnnotationDriver(String vcfPath, String fastaPath, DBAnnotationOptions options)
 			throws JannovarVarDBException {
-		super(new VCFReaderVariantProvider(vcfPath), fastaPath, options, new UK10KVariantContextToRecordConverter());
+		super(AlleleFrequencyStoreVariantProvider.open(vcfPath), fastaPath, options, new UK10KVariantContextToRecordConverter());
 	}
 
 	@Override
@@ -59,11 +60,10 @@ public class UK10KAnnotationDriver extends AbstractDBAnnotationDriver<UK10KRecor
 	}
 
 	@Override
-	protected VariantContext annotateWithDBRecords(VariantContext vc,
+	protected void annotateWithDBRecords(VariantContext vc,
 			HashMap<Integer, AnnotatingRecord<UK10KRecord>> matchRecords,
-			HashMap<Integer, AnnotatingRecord<UK10KRecord>> overlapRecords) {
-		VariantContextBuilder builder = new VariantContextBuilder(vc);
-
+			HashMap<Integer, AnnotatingRecord<UK10KRecord>> overlapRecords,
+			AnnotatingVariantContextBuilder builder) {
 		// Annotate with records with matching allele
 		annotateAlleleCounts(vc, "", matchRecords, builder);
 		annotateChromosomeCounts(vc, "", matchRecords, builder);
@@ -75,8 +75,6 @@ public class UK10KAnnotationDriver extends AbstractDBAnnotationDriver<UK10KRecor
 			annotateChromosomeCounts(vc, "OVL_", overlapRecords, builder);
 			annotateFrequencies(vc, "OVL_", overlapRecords, builder);
 		}
-
-		return builder.make();
 	}
 
 	private void annotateChromosomeCounts(VariantContext vc, String infix,
@@ -1,8 +1,10 @@
 package de.charite.compbio.jannovar.vardbs.uk10k;
 
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.stream.Collectors;
 
+import com.google.common.collect.ImmutableList;
 import com.google.common.collect.Lists;
 
 import de.charite.compbio.jannovar.vardbs.base.VariantContextToRecordConverter;
@@ -16,6 +18,9 @@ import htsjdk.variant.variantcontext.VariantContext;
  */
 final class UK10KVariantContextToRecordConverter implements VariantContextToRecordConverter<UK10KRecord> {
 
+	/** IDs of the INFO fields read by {@link #convert} */
+	private static final ImmutableList<String> INFO_KEYS = ImmutableList.of("AN", "AC");
+
 	@Override
 	public UK10KRecord convert(VariantContext vc) {
 		UK10KRecordBuilder builder = new UK10KRecordBuilder();
@@ -47,4 +52,9 @@ final class UK10KVariantContextToRecordConverter implements VariantContextToReco
 		return builder.build();
 	}
 
+	@Override
+	public Collection<String> getInfoKeys() {
+		return INFO_KEYS;
+	}
+
 }
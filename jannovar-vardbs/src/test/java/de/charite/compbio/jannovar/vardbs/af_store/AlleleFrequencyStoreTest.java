@@ -0,0 +1,163 @@
+package de.charite.compbio.jannovar.vardbs.af_store;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.regex.Pattern;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Lists;
+import com.google.common.io.Files;
+
+import de.charite.compbio.jannovar.utils.ResourceUtils;
+import de.charite.compbio.jannovar.vardbs.base.DBAnnotationOptions;
+import de.charite.compbio.jannovar.vardbs.base.JannovarVarDBException;
+import de.charite.compbio.jannovar.vardbs.base.VCFReaderVariantProvider;
+import de.charite.compbio.jannovar.vardbs.gnomad.GnomadAnnotationDriver;
+import htsjdk.samtools.util.CloseableIterator;
+import htsjdk.variant.variantcontext.VariantContext;
+import htsjdk.variant.variantcontext.VariantContextBuilder;
+import htsjdk.variant.vcf.VCFFileReader;
+import htsjdk.variant.vcf.VCFInfoHeaderLine;
+
+/**
+ * Tests for {@link AlleleFrequencyStoreWriter} and {@link AlleleFrequencyStoreVariantProvider},
+ * comparing with the results on the original VCF file
+ */
+public class AlleleFrequencyStoreTest {
+
+	String vcfPath;
+
+	String storePath;
+
+	String fastaPath;
+
+	List<VCFInfoHeaderLine> infoFields;
+
+	@Before
+	public void setUp() throws Exception {
+		File tmpDir = Files.createTempDir();
+		vcfPath = tmpDir + "/gnomad.genomes.vcf.gz";
+		ResourceUtils.copyResourceToFile("/gnomad.genomes.r2.0.1.sites.head.vcf.gz", new File(vcfPath));
+		ResourceUtils.copyResourceToFile("/gnomad.genomes.r2.0.1.sites.head.vcf.gz.tbi",
+				new File(vcfPath + ".tbi"));
+		fastaPath = tmpDir + "/chr1.fasta";
+		ResourceUtils.copyResourceToFile("/chr1.fasta", new File(fastaPath));
+		ResourceUtils.copyResourceToFile("/chr1.fasta.fai", new File(fastaPath + ".fai"));
+
+		storePath = tmpDir + "/gnomad.genomes.afs";
+		try (VCFFileReader reader = new VCFFileReader(new File(vcfPath), false)) {
+			infoFields = AlleleFrequencyStoreWriter.selectInfoFields(reader.getFileHeader(),
+					Pattern.compile(".*POPMAX.*"));
+			Assert.assertEquals(241, new AlleleFrequencyStoreWriter(storePath, infoFields).write(vcfPath,
+					reader.iterator()));
+		}
+	}
+
+	/** @return string describing <code>vc</code> with the stored fields only */
+	private String describe(VariantContext vc) {
+		StringBuilder builder = new StringBuilder();
+		builder.append(vc.getContig()).append(':').append(vc.getStart()).append('-').append(vc.getEnd())
+				.append(' ').append(vc.getID()).append(' ').append(vc.getAlleles()).append(' ')
+				.append(vc.filtersWereApplied()).append(vc.getFilters());
+		for (VCFInfoHeaderLine line : infoFields)
+			builder.append(' ').append(line.getID()).append('=')
+					.append(vc.getAttributeAsStringList(line.getID(), "."));
+		return builder.toString();
+	}
+
+	private List<String> queryAll(CloseableIterator<VariantContext> iter) {
+		List<String> result = new ArrayList<>();
+		try {
+			iter.forEachRemaining(vc -> result.add(describe(vc)));
+		} finally {
+			iter.close();
+		}
+		return result;
+	}
+
+	@Test
+	public void testQueries() throws Exception {
+		VCFReaderVariantProvider expectedProvider = new VCFReaderVariantProvider(vcfPath);
+		Random rnd = new Random(42);
+		boolean foundAny = false;
+		try (AlleleFrequencyStoreVariantProvider provider = new AlleleFrequencyStoreVariantProvider(storePath)) {
+			Assert.assertEquals(241, provider.getNumRecords("1"));
+			Assert.assertTrue(provider.getInfoKeys().contains("AC_AFR"));
+			Assert.assertTrue(provider.getInfoKeys().contains("POPMAX"));
+			for (int i = 0; i < 200; ++i) {
+				final int begin = 9990 + rnd.nextInt(1020);
+				final int end = begin + rnd.nextInt(10);
+				for (String contig : new String[] { "1", "2" }) {
+					List<String> expected = queryAll(expectedProvider.query(contig, begin, end));
+					foundAny = foundAny || !expected.isEmpty();
+					Assert.assertEquals(expected, queryAll(provider.query(contig, begin, end)));
+				}
+			}
+		}
+		Assert.assertTrue(foundAny);
+	}
+
+	@Test
+	public void testSelectInfoKeys() throws Exception {
+		VCFReaderVariantProvider expectedProvider = new VCFReaderVariantProvider(vcfPath);
+		expectedProvider.selectInfoKeys(ImmutableList.of("AC_AFR", "AN_AFR", "POPMAX"));
+		try (AlleleFrequencyStoreVariantProvider provider = new AlleleFrequencyStoreVariantProvider(storePath)) {
+			provider.selectInfoKeys(ImmutableList.of("AC_AFR", "AN_AFR", "POPMAX"));
+			List<String> expected = queryAll(expectedProvider.query("1", 9990, 11010));
+			Assert.assertEquals(241, expected.size());
+			Assert.assertEquals(expected, queryAll(provider.query("1", 9990, 11010)));
+
+			try (CloseableIterator<VariantContext> iter = provider.query("1", 10334, 10334)) {
+				VariantContext vc = iter.next();
+				Assert.assertTrue(vc.hasAttribute("AC_AFR"));
+				Assert.assertFalse(vc.hasAttribute("AC_AMR"));
+			}
+		}
+	}
+
+	@Test
+	public void testOpen() throws Exception {
+		Assert.assertTrue(AlleleFrequencyStoreVariantProvider.isStoreFile(storePath));
+		Assert.assertFalse(AlleleFrequencyStoreVariantProvider.isStoreFile(vcfPath));
+		Assert.assertTrue(AlleleFrequencyStoreVariantProvider
+				.open(storePath) instanceof AlleleFrequencyStoreVariantProvider);
+		Assert.assertFalse(AlleleFrequencyStoreVariantProvider
+				.open(vcfPath) instanceof AlleleFrequencyStoreVariantProvider);
+	}
+
+	@Test
+	public void testGnomadAnnotation() throws Exception {
+		DBAnnotationOptions options = DBAnnotationOptions.createDefaults();
+		options.setIdentifierPrefix("GNOMAD_");
+		GnomadAnnotationDriver vcfDriver = new GnomadAnnotationDriver(vcfPath, fastaPath, options);
+		GnomadAnnotationDriver storeDriver = new GnomadAnnotationDriver(storePath, fastaPath, options);
+
+		String[][] variants = { { "10334", "T", "A", "C" }, { "10511", "G", "A", "C" },
+				{ "10611", "C", "A", "G", "T" } };
+		for (String[] variant : variants) {
+			final int pos = Integer.parseInt(variant[0]);
+			VariantContext vc = new VariantContextBuilder().chr("1").start(pos).stop(pos)
+					.alleles(Lists.newArrayList(variant).subList(1, variant.length)).make();
+			final String expected = vcfDriver.annotateVariantContext(vc).toStringDecodeGenotypes();
+			Assert.assertTrue(expected.contains("GNOMAD_AC_ALL"));
+			Assert.assertEquals(expected, storeDriver.annotateVariantContext(vc).toStringDecodeGenotypes());
+		}
+	}
+
+	@Test(expected = JannovarVarDBException.class)
+	public void testUnsortedInput() throws Exception {
+		List<VariantContext> records = new ArrayList<>();
+		records.add(new VariantContextBuilder().chr("1").start(200).stop(200)
+				.alleles(Lists.newArrayList("C", "A")).make());
+		records.add(new VariantContextBuilder().chr("1").start(100).stop(100)
+				.alleles(Lists.newArrayList("C", "A")).make());
+		new AlleleFrequencyStoreWriter(storePath + ".unsorted", infoFields).write("test", records.iterator());
+	}
+
+}
@@ -0,0 +1,121 @@
+package de.charite.compbio.jannovar.vardbs.base;
+
+import static de.charite.compbio.jannovar.vardbs.base.QueryTestUtils.randomQueries;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.google.common.io.Files;
+
+import de.charite.compbio.jannovar.utils.ResourceUtils;
+import htsjdk.samtools.util.CloseableIterator;
+import htsjdk.tribble.readers.TabixReader;
+import htsjdk.variant.variantcontext.VariantContext;
+import htsjdk.variant.vcf.VCFFileReader;
+
+/**
+ * Compare the results of {@link CachingTabixReader} with those of HTSJDK's {@link TabixReader}
+ */
+public class CachingTabixReaderTest {
+
+	String vcfPath;
+
+	String tsvPath;
+
+	@Before
+	public void setUp() throws Exception {
+		File tmpDir = Files.createTempDir();
+		vcfPath = tmpDir + "/gnomad.genomes.vcf.gz";
+		ResourceUtils.copyResourceToFile("/gnomad.genomes.r2.0.1.sites.head.vcf.gz", new File(vcfPath));
+		ResourceUtils.copyResourceToFile("/gnomad.genomes.r2.0.1.sites.head.vcf.gz.tbi",
+				new File(vcfPath + ".tbi"));
+		tsvPath = tmpDir + "/remm.tsv.gz";
+		ResourceUtils.copyResourceToFile("/ReMM.v0.3.1.head.tsv.gz", new File(tsvPath));
+		ResourceUtils.copyResourceToFile("/ReMM.v0.3.1.head.tsv.gz.tbi", new File(tsvPath + ".tbi"));
+	}
+
+	private List<String> expectedLines(TabixReader reader, String contig, int[] query) throws IOException {
+		List<String> result = new ArrayList<>();
+		TabixReader.Iterator iter = reader.query(contig, query[0], query[1]);
+		for (String line = iter.next(); line != null; line = iter.next())
+			result.add(line.replace("\r", "")); // CachingTabixReader removes the carriage return
+		return result;
+	}
+
+	private List<String> actualLines(CachingTabixReader reader, String contig, int[] query) {
+		List<String> result = new ArrayList<>();
+		try (CloseableIterator<String> iter = reader.query(contig, query[0], query[1])) {
+			iter.forEachRemaining(result::add);
+		}
+		return result;
+	}
+
+	private void compareResults(String path) throws IOException {
+		final BGZFBlockCache cache = new BGZFBlockCache(BGZFBlockCache.DEFAULT_MAX_BYTES);
+		final TabixReader expectedReader = new TabixReader(path, path + ".tbi");
+		boolean foundAny = false;
+		try (CachingTabixReader reader = new CachingTabixReader(path, cache)) {
+			for (int[] query : randomQueries(9990, 1020, false)) {
+				for (String contig : new String[] { "1", "2" }) {
+					List<String> expected = expectedLines(expectedReader, contig, query);
+					foundAny = foundAny || !expected.isEmpty();
+					Assert.assertEquals(expected, actualLines(reader, contig, query));
+				}
+			}
+		}
+		expectedReader.close();
+		Assert.assertTrue(foundAny);
+	}
+
+	@Test
+	public void testVCF() throws IOException {
+		compareResults(vcfPath);
+	}
+
+	@Test
+	public void testTSV() throws IOException {
+		compareResults(tsvPath);
+	}
+
+	@Test
+	public void testSharedCache() throws IOException {
+		final BGZFBlockCache cache = new BGZFBlockCache(BGZFBlockCache.DEFAULT_MAX_BYTES);
+		final int[] query = { 10000, 10100 };
+		try (CachingTabixReader first = new CachingTabixReader(vcfPath, cache);
+				CachingTabixReader second = new CachingTabixReader(vcfPath, cache)) {
+			final List<String> expected = actualLines(first, "1", query);
+			final long misses = cache.stats().missCount();
+			Assert.assertFalse(expected.isEmpty());
+			Assert.assertEquals(expected, actualLines(second, "1", query));
+			Assert.assertEquals(misses, cache.stats().missCount());
+		}
+	}
+
+	@Test
+	public void testVCFReaderVariantProvider() {
+		VCFReaderVariantProvider provider = new VCFReaderVariantProvider(vcfPath);
+		VCFFileReader vcfReader = new VCFFileReader(new File(vcfPath), true);
+		boolean foundAny = false;
+		for (int[] query : randomQueries(9990, 1020, false)) {
+			List<String> expected = new ArrayList<>();
+			try (CloseableIterator<VariantContext> iter = vcfReader.query("1", query[0], query[1])) {
+				iter.forEachRemaining(vc -> expected.add(vc.toStringDecodeGenotypes()));
+			}
+			List<String> actual = new ArrayList<>();
+			try (CloseableIterator<VariantContext> iter = provider.query("1", query[0], query[1])) {
+				iter.forEachRemaining(vc -> actual.add(vc.toStringDecodeGenotypes()));
+			}
+			foundAny = foundAny || !expected.isEmpty();
+			Assert.assertEquals(expected, actual);
+		}
+		vcfReader.close();
+		Assert.assertTrue(foundAny);
+	}
+
+}
@@ -0,0 +1,134 @@
+package de.charite.compbio.jannovar.vardbs.base;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.io.Files;
+
+import de.charite.compbio.jannovar.utils.ResourceUtils;
+import de.charite.compbio.jannovar.vardbs.facade.DBVariantContextAnnotator;
+import de.charite.compbio.jannovar.vardbs.facade.DBVariantContextAnnotatorFactory;
+import htsjdk.variant.variantcontext.VariantContext;
+import htsjdk.variant.variantcontext.VariantContextBuilder;
+import htsjdk.variant.vcf.VCFFileReader;
+
+/**
+ * Tests for {@link DatabaseBloomFilter}
+ */
+public class DatabaseBloomFilterTest {
+
+	String vcfPath;
+
+	String fastaPath;
+
+	List<VariantContext> records;
+
+	DatabaseBloomFilter filter;
+
+	@Before
+	public void setUp() throws Exception {
+		File tmpDir = Files.createTempDir();
+		vcfPath = tmpDir + "/cosmic.vcf.gz";
+		ResourceUtils.copyResourceToFile("/COSMIC.v72.fake.vcf.gz", new File(vcfPath));
+		ResourceUtils.copyResourceToFile("/COSMIC.v72.fake.vcf.gz.tbi", new File(vcfPath + ".tbi"));
+		fastaPath = tmpDir + "/chr1.fasta";
+		ResourceUtils.copyResourceToFile("/chr1.fasta", new File(fastaPath));
+		ResourceUtils.copyResourceToFile("/chr1.fasta.fai", new File(fastaPath + ".fai"));
+
+		records = new ArrayList<>();
+		try (VCFFileReader reader = new VCFFileReader(new File(vcfPath), false)) {
+			reader.iterator().forEachRemaining(records::add);
+		}
+		filter = DatabaseBloomFilter.build(vcfPath, records.iterator(), 0.01);
+	}
+
+	@Test
+	public void testRecordsAreNotRuledOut() {
+		for (VariantContext vc : records) {
+			Assert.assertTrue(filter.mightOverlap(vc.getContig(), vc.getStart() - 1, vc.getEnd()));
+			Assert.assertTrue(filter.mightOverlap(vc.getContig(), vc.getEnd(), vc.getEnd() + 10));
+		}
+	}
+
+	@Test
+	public void testAbsentRegionsAreRuledOut() {
+		Assert.assertFalse(filter.mightOverlap("1", 5000, 5001));
+		Assert.assertFalse(filter.mightOverlap("1", 100000, 100010));
+		Assert.assertFalse(filter.mightOverlap("2", 1231, 1231));
+		// Regions that are too long are never ruled out
+		Assert.assertTrue(filter.mightOverlap("1", 100000, 200000));
+	}
+
+	@Test
+	public void testLongRecords() throws JannovarVarDBException {
+		VariantContext longDeletion = new VariantContextBuilder().chr("1").start(100000).stop(200000)
+				.alleles("A", "<DEL>").make();
+		DatabaseBloomFilter longFilter = DatabaseBloomFilter.build(vcfPath, ImmutableList.of(longDeletion).iterator(),
+				0.01);
+		Assert.assertTrue(longFilter.mightOverlap("1", 150000, 150001));
+		Assert.assertTrue(longFilter.mightOverlap("1", 199999, 200001));
+		Assert.assertFalse(longFilter.mightOverlap("1", 300000, 300001));
+	}
+
+	@Test
+	public void testSaveAndLoad() throws JannovarVarDBException {
+		Assert.assertNull(DatabaseBloomFilter.findFor(vcfPath));
+		filter.save(DatabaseBloomFilter.defaultPath(vcfPath));
+		Assert.assertEquals(DatabaseBloomFilter.defaultPath(vcfPath), DatabaseBloomFilter.findFor(vcfPath));
+
+		DatabaseBloomFilter loaded = DatabaseBloomFilter.load(DatabaseBloomFilter.defaultPath(vcfPath));
+		for (int pos = 0; pos < 20000; pos += 7)
+			Assert.assertEquals(filter.mightOverlap("1", pos, pos + 1), loaded.mightOverlap("1", pos, pos + 1));
+	}
+
+	@Test(expected = JannovarVarDBException.class)
+	public void testCheckSourceOfDifferentFile() throws JannovarVarDBException {
+		filter.checkSource(fastaPath);
+	}
+
+	@Test(expected = JannovarVarDBException.class)
+	public void testFindForDifferentFile() throws JannovarVarDBException {
+		filter.save(DatabaseBloomFilter.defaultPath(fastaPath));
+		DatabaseBloomFilter.findFor(fastaPath);
+	}
+
+	@Test
+	public void testGetShared() throws JannovarVarDBException {
+		final String path = DatabaseBloomFilter.defaultPath(vcfPath);
+		filter.save(path);
+		DatabaseBloomFilter shared = DatabaseBloomFilter.getShared(path);
+		Assert.assertSame(shared, DatabaseBloomFilter.getShared(new File(path).getParent() + "/./cosmic.vcf.gz.jvbf"));
+		Assert.assertEquals(filter.mightOverlap("1", 1230, 1231), shared.mightOverlap("1", 1230, 1231));
+	}
+
+	@Test
+	public void testAnnotationSameAsWithoutFilter() throws JannovarVarDBException {
+		filter.save(DatabaseBloomFilter.defaultPath(vcfPath));
+		DBAnnotationOptions plainOptions = DBAnnotationOptions.createDefaults();
+		DBAnnotationOptions filteredOptions = DBAnnotationOptions.createDefaults();
+		filteredOptions.setBloomFilterPath(DatabaseBloomFilter.findFor(vcfPath));
+		DBVariantContextAnnotatorFactory factory = new DBVariantContextAnnotatorFactory();
+		DBVariantContextAnnotator plain = factory.constructCosmic(vcfPath, fastaPath, plainOptions);
+		DBVariantContextAnnotator filtered = factory.constructCosmic(vcfPath, fastaPath, filteredOptions);
+
+		List<VariantContext> vcs = ImmutableList.of(
+				new VariantContextBuilder().chr("1").start(1231).stop(1231).alleles("C", "T").make(),
+				new VariantContextBuilder().chr("1").start(5000).stop(5000).alleles("A", "C").make(),
+				new VariantContextBuilder().chr("1").start(12345).stop(12345).alleles("A", "C").make(),
+				new VariantContextBuilder().chr("1").start(12346).stop(12346).alleles("A", "G").make(),
+				new VariantContextBuilder().chr("1").start(15000).stop(15000).alleles("G", "A").make());
+		for (VariantContext vc : vcs) {
+			VariantContext expected = plain.annotateVariantContext(vc);
+			VariantContext actual = filtered.annotateVariantContext(vc);
+			Assert.assertEquals(expected.getID(), actual.getID());
+			Assert.assertEquals(expected.getAttributes(), actual.getAttributes());
+		}
+	}
+
+}
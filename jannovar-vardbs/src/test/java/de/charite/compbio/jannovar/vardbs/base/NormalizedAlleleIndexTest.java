@@ -0,0 +1,139 @@
+package de.charite.compbio.jannovar.vardbs.base;
+
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.google.common.io.Files;
+
+import de.charite.compbio.jannovar.utils.ResourceUtils;
+import de.charite.compbio.jannovar.vardbs.facade.DBVariantContextAnnotator;
+import de.charite.compbio.jannovar.vardbs.facade.DBVariantContextAnnotatorFactory;
+import htsjdk.variant.variantcontext.VariantContext;
+import htsjdk.variant.variantcontext.VariantContextBuilder;
+import htsjdk.variant.vcf.VCFFileReader;
+
+/**
+ * Tests for {@link NormalizedAlleleIndexWriter} and {@link NormalizedAlleleIndex}, comparing with
+ * the normalization on each query
+ */
+public class NormalizedAlleleIndexTest {
+
+	String vcfPath;
+
+	String fastaPath;
+
+	String indexPath;
+
+	List<VariantContext> records;
+
+	NormalizedAlleleIndex index;
+
+	@Before
+	public void setUp() throws Exception {
+		File tmpDir = Files.createTempDir();
+		vcfPath = tmpDir + "/dbsnp.vcf.gz";
+		ResourceUtils.copyResourceToFile("/dbSNP147.head.vcf.gz", new File(vcfPath));
+		ResourceUtils.copyResourceToFile("/dbSNP147.head.vcf.gz.tbi", new File(vcfPath + ".tbi"));
+		fastaPath = tmpDir + "/chr1.fasta";
+		ResourceUtils.copyResourceToFile("/chr1.fasta", new File(fastaPath));
+		ResourceUtils.copyResourceToFile("/chr1.fasta.fai", new File(fastaPath + ".fai"));
+
+		indexPath = NormalizedAlleleIndex.defaultPath(vcfPath);
+		NormalizedAlleleIndexWriter writer = new NormalizedAlleleIndexWriter(indexPath, fastaPath);
+		records = new ArrayList<>();
+		try (VCFFileReader reader = new VCFFileReader(new File(vcfPath), false)) {
+			reader.iterator().forEachRemaining(records::add);
+		}
+		Assert.assertEquals(16, writer.write(vcfPath, records.iterator()));
+		Assert.assertEquals(142, writer.getNumRecords());
+
+		index = new NormalizedAlleleIndex(indexPath);
+	}
+
+	@After
+	public void tearDown() throws IOException {
+		index.close();
+	}
+
+	@Test
+	public void testLookupSameAsNormalization() throws JannovarVarDBException {
+		AlleleMatcher matcher = new AlleleMatcher(fastaPath);
+		Assert.assertEquals(16, index.getNumEntries());
+		Assert.assertEquals(fastaPath, index.getFastaPath());
+		for (VariantContext vc : records) {
+			List<VariantDescription> expected = matcher.normalizeAlleles(vc);
+			for (int i = 1; i < vc.getNAlleles(); ++i)
+				Assert.assertEquals(expected.get(i - 1),
+						index.lookup(new VariantDescription(vc.getContig(), vc.getStart() - 1,
+								vc.getReference().getBaseString(), vc.getAlleles().get(i).getBaseString())));
+		}
+	}
+
+	@Test
+	public void testLookupOfUnknownAllele() {
+		VariantDescription desc = new VariantDescription("1", 10018, "TAA", "T");
+		Assert.assertSame(desc, index.lookup(desc));
+	}
+
+	@Test
+	public void testAnnotationSameAsWithoutIndex() throws JannovarVarDBException {
+		DBAnnotationOptions plainOptions = DBAnnotationOptions.createDefaults();
+		DBAnnotationOptions indexedOptions = DBAnnotationOptions.createDefaults();
+		indexedOptions.setNormalizationIndexPath(NormalizedAlleleIndex.findFor(vcfPath));
+		Assert.assertEquals(indexPath, indexedOptions.getNormalizationIndexPath());
+		DBVariantContextAnnotatorFactory factory = new DBVariantContextAnnotatorFactory();
+		DBVariantContextAnnotator plain = factory.constructDBSNP(vcfPath, fastaPath, plainOptions);
+		DBVariantContextAnnotator indexed = factory.constructDBSNP(vcfPath, fastaPath, indexedOptions);
+
+		// Annotate the database records themselves, matching and overlapping with other records
+		for (VariantContext record : records) {
+			VariantContext vc = new VariantContextBuilder(record).noID().attributes(null).make();
+			VariantContext expected = plain.annotateVariantContext(vc);
+			VariantContext actual = indexed.annotateVariantContext(vc);
+			Assert.assertEquals(expected.getID(), actual.getID());
+			Assert.assertEquals(expected.getAttributes(), actual.getAttributes());
+		}
+	}
+
+	@Test
+	public void testFindFor() throws Exception {
+		Assert.assertNull(NormalizedAlleleIndex.findFor(fastaPath));
+		index.checkSource(vcfPath);
+	}
+
+	@Test(expected = JannovarVarDBException.class)
+	public void testCheckSourceOfDifferentFile() throws JannovarVarDBException {
+		index.checkSource(fastaPath);
+	}
+
+	@Test
+	public void testCheckReference() throws JannovarVarDBException {
+		index.checkReference(fastaPath);
+		new AlleleMatcher(fastaPath, indexPath);
+	}
+
+	@Test(expected = JannovarVarDBException.class)
+	public void testAlleleMatcherWithDifferentReference() throws Exception {
+		File otherFasta = new File(fastaPath.replace("chr1.fasta", "other.fasta"));
+		Files.copy(new File(fastaPath), otherFasta);
+		Files.copy(new File(fastaPath + ".fai"), new File(otherFasta + ".fai"));
+		try (FileWriter writer = new FileWriter(otherFasta, true)) {
+			writer.write("\n");
+		}
+		new AlleleMatcher(otherFasta.getPath(), indexPath);
+	}
+
+	@Test(expected = JannovarVarDBException.class)
+	public void testNotAnIndex() throws JannovarVarDBException {
+		new NormalizedAlleleIndex(fastaPath);
+	}
+
+}
@@ -0,0 +1,154 @@
+package de.charite.compbio.jannovar.vardbs.base;
+
+import static de.charite.compbio.jannovar.vardbs.base.QueryTestUtils.query;
+import static de.charite.compbio.jannovar.vardbs.base.QueryTestUtils.randomQueries;
+
+import java.io.File;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.google.common.io.Files;
+
+import de.charite.compbio.jannovar.utils.ResourceUtils;
+import htsjdk.samtools.util.RuntimeIOException;
+
+/**
+ * Compare the results of {@link PrefetchingVariantContextProvider} with those of {@link VCFReaderVariantProvider}
+ */
+public class PrefetchingVariantContextProviderTest {
+
+	String vcfPath;
+
+	/** Names of the threads that the delegate was queried on */
+	List<String> queryThreads;
+
+	PrefetchingVariantContextProvider provider;
+
+	@Before
+	public void setUp() throws Exception {
+		File tmpDir = Files.createTempDir();
+		vcfPath = tmpDir + "/gnomad.genomes.vcf.gz";
+		ResourceUtils.copyResourceToFile("/gnomad.genomes.r2.0.1.sites.head.vcf.gz", new File(vcfPath));
+		ResourceUtils.copyResourceToFile("/gnomad.genomes.r2.0.1.sites.head.vcf.gz.tbi",
+				new File(tmpDir + "/gnomad.genomes.vcf.gz.tbi"));
+
+		queryThreads = new CopyOnWriteArrayList<>();
+		final StreamingVCFVariantProvider streaming = new StreamingVCFVariantProvider(vcfPath);
+		provider = new PrefetchingVariantContextProvider((contig, beginPos, endPos) -> {
+			queryThreads.add(Thread.currentThread().getName());
+			return streaming.query(contig, beginPos, endPos);
+		}, 4);
+	}
+
+	@After
+	public void tearDown() {
+		provider.close();
+	}
+
+	@Test
+	public void testPrefetchAhead() {
+		VCFReaderVariantProvider expectedProvider = new VCFReaderVariantProvider(vcfPath);
+		List<int[]> queries = randomQueries(10000, 700, true);
+		final int lookahead = 3;
+		for (int i = 0; i < lookahead && i < queries.size(); ++i)
+			provider.prefetch("1", queries.get(i)[0], queries.get(i)[1]);
+		for (int i = 0; i < queries.size(); ++i) {
+			if (i + lookahead < queries.size())
+				provider.prefetch("1", queries.get(i + lookahead)[0], queries.get(i + lookahead)[1]);
+			Assert.assertEquals(query(expectedProvider, "1", queries.get(i)),
+					query(provider, "1", queries.get(i)));
+		}
+
+		Assert.assertEquals(queries.size(), queryThreads.size());
+		for (String name : queryThreads)
+			Assert.assertTrue(name.startsWith("vardbs-prefetch-"));
+	}
+
+	@Test
+	public void testSkippedAndUnannouncedQueries() {
+		VCFReaderVariantProvider expectedProvider = new VCFReaderVariantProvider(vcfPath);
+		List<int[]> queries = randomQueries(10000, 700, true);
+		for (int i = 0; i < queries.size(); ++i) {
+			if (i % 3 == 0) // announce the next two, but only query the second one
+				for (int j = i; j < i + 2 && j < queries.size(); ++j)
+					provider.prefetch("1", queries.get(j)[0], queries.get(j)[1]);
+			if (i % 3 != 0)
+				Assert.assertEquals(query(expectedProvider, "1", queries.get(i)),
+					query(provider, "1", queries.get(i)));
+		}
+	}
+
+	@Test
+	public void testMaxPending() throws InterruptedException {
+		// Block the background thread in the first query such that the evicted ones are not started
+		final CountDownLatch latch = new CountDownLatch(1);
+		final List<Integer> queried = new CopyOnWriteArrayList<>();
+		try (PrefetchingVariantContextProvider blocked = new PrefetchingVariantContextProvider(
+				(contig, beginPos, endPos) -> {
+					queried.add(beginPos);
+					awaitUninterruptibly(latch);
+					return new VCFReaderVariantProvider(vcfPath).query(contig, beginPos, endPos);
+				}, 4)) {
+			blocked.prefetch("1", 10000, 10000);
+			for (int i = 0; i < 100 && queried.isEmpty(); ++i)
+				Thread.sleep(50);
+			for (int i = 1; i < 10; ++i)
+				blocked.prefetch("1", 10000 + i, 10000 + i);
+			latch.countDown();
+			// the oldest announcements are evicted by the ones beyond the fourth one
+			query(blocked, "1", new int[] { 10009, 10009 });
+			Assert.assertEquals(10000, (int) queried.get(0));
+			Assert.assertEquals(10009, (int) queried.get(queried.size() - 1));
+			for (int i = 1; i <= 5; ++i)
+				Assert.assertFalse(queried.contains(10000 + i));
+		}
+	}
+
+	@Test
+	public void testPrefetchAfterSkippingMoreThanMaxPending() throws InterruptedException {
+		VCFReaderVariantProvider expectedProvider = new VCFReaderVariantProvider(vcfPath);
+		final List<Integer> queried = new CopyOnWriteArrayList<>();
+		try (PrefetchingVariantContextProvider recording = new PrefetchingVariantContextProvider(
+				(contig, beginPos, endPos) -> {
+					queried.add(beginPos);
+					return new VCFReaderVariantProvider(vcfPath).query(contig, beginPos, endPos);
+				}, 4)) {
+			// announce ten queries that are never run
+			for (int i = 0; i < 10; ++i)
+				recording.prefetch("1", 10000 + i, 10000 + i);
+			// announcements are still run in the background without waiting for query()
+			recording.prefetch("1", 10100, 10110);
+			for (int i = 0; i < 100 && !queried.contains(10100); ++i)
+				Thread.sleep(50);
+			Assert.assertTrue(queried.contains(10100));
+			Assert.assertEquals(query(expectedProvider, "1", new int[] { 10100, 10110 }),
+					query(recording, "1", new int[] { 10100, 10110 }));
+		}
+	}
+
+	private static void awaitUninterruptibly(CountDownLatch latch) {
+		try {
+			latch.await();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+
+	@Test(expected = RuntimeIOException.class)
+	public void testExceptionIsRethrown() {
+		try (PrefetchingVariantContextProvider failing = new PrefetchingVariantContextProvider(
+				(contig, beginPos, endPos) -> {
+					throw new RuntimeIOException("failed");
+				}, 1)) {
+			failing.prefetch("1", 1, 1);
+			failing.query("1", 1, 1);
+		}
+	}
+
+}
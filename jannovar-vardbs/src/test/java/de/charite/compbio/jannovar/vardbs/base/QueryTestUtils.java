@@ -0,0 +1,58 @@
+package de.charite.compbio.jannovar.vardbs.base;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import htsjdk.samtools.util.CloseableIterator;
+import htsjdk.variant.variantcontext.VariantContext;
+
+/**
+ * Helper class with static methods for comparing the query results of database providers in tests
+ */
+public class QueryTestUtils {
+
+	/** Number of queries returned by {@link #randomQueries} */
+	public static final int NUM_QUERIES = 200;
+
+	/**
+	 * Generate random queries of up to ten positions with a fixed seed
+	 *
+	 * @param minBegin
+	 *            smallest begin position
+	 * @param range
+	 *            number of possible begin positions, starting at <code>minBegin</code>
+	 * @param sorted
+	 *            whether to sort the queries by begin position
+	 * @return {@link #NUM_QUERIES} queries as <code>(begin, end)</code> pairs
+	 */
+	public static List<int[]> randomQueries(int minBegin, int range, boolean sorted) {
+		Random rnd = new Random(42);
+		List<int[]> result = new ArrayList<>();
+		for (int i = 0; i < NUM_QUERIES; ++i) {
+			final int begin = minBegin + rnd.nextInt(range);
+			result.add(new int[] { begin, begin + rnd.nextInt(10) });
+		}
+		if (sorted)
+			Collections.sort(result, (lhs, rhs) -> Integer.compare(lhs[0], rhs[0]));
+		return result;
+	}
+
+	/**
+	 * Run query on <code>provider</code> and describe the resulting records
+	 *
+	 * @return position and alleles of the resulting records, in order
+	 */
+	public static List<String> query(DatabaseVariantContextProvider provider, String contig, int[] query) {
+		List<String> result = new ArrayList<>();
+		try (CloseableIterator<VariantContext> iter = provider.query(contig, query[0], query[1])) {
+			while (iter.hasNext()) {
+				VariantContext vc = iter.next();
+				result.add(vc.getContig() + ":" + vc.getStart() + "-" + vc.getEnd() + vc.getAlleles());
+			}
+		}
+		return result;
+	}
+
+}
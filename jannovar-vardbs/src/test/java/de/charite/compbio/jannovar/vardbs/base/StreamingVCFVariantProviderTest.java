@@ -0,0 +1,70 @@
+package de.charite.compbio.jannovar.vardbs.base;
+
+import static de.charite.compbio.jannovar.vardbs.base.QueryTestUtils.query;
+import static de.charite.compbio.jannovar.vardbs.base.QueryTestUtils.randomQueries;
+
+import java.io.File;
+import java.util.List;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.google.common.io.Files;
+
+import de.charite.compbio.jannovar.utils.ResourceUtils;
+
+/**
+ * Compare the results of {@link StreamingVCFVariantProvider} with those of {@link VCFReaderVariantProvider}
+ */
+public class StreamingVCFVariantProviderTest {
+
+	String vcfPath;
+
+	@Before
+	public void setUp() throws Exception {
+		File tmpDir = Files.createTempDir();
+		vcfPath = tmpDir + "/gnomad.genomes.vcf.gz";
+		ResourceUtils.copyResourceToFile("/gnomad.genomes.r2.0.1.sites.head.vcf.gz", new File(vcfPath));
+		ResourceUtils.copyResourceToFile("/gnomad.genomes.r2.0.1.sites.head.vcf.gz.tbi",
+				new File(tmpDir + "/gnomad.genomes.vcf.gz.tbi"));
+	}
+
+	private void compareResults(List<int[]> queries, int maxGap) {
+		VCFReaderVariantProvider expectedProvider = new VCFReaderVariantProvider(vcfPath);
+		StreamingVCFVariantProvider provider = new StreamingVCFVariantProvider(vcfPath, maxGap);
+		boolean foundAny = false;
+		for (int[] query : queries) {
+			List<String> expected = query(expectedProvider, "1", query);
+			foundAny = foundAny || !expected.isEmpty();
+			Assert.assertEquals(expected, query(provider, "1", query));
+		}
+		Assert.assertTrue(foundAny);
+	}
+
+	@Test
+	public void testSortedQueries() {
+		compareResults(randomQueries(10000, 700, true), StreamingVCFVariantProvider.DEFAULT_MAX_GAP);
+	}
+
+	@Test
+	public void testSortedQueriesSmallGap() {
+		compareResults(randomQueries(10000, 700, true), 5);
+	}
+
+	@Test
+	public void testUnsortedQueries() {
+		compareResults(randomQueries(10000, 700, false), StreamingVCFVariantProvider.DEFAULT_MAX_GAP);
+	}
+
+	@Test
+	public void testSwitchContig() {
+		StreamingVCFVariantProvider provider = new StreamingVCFVariantProvider(vcfPath);
+		final int[] query = new int[] { 10000, 10700 };
+		final int count = query(provider, "1", query).size();
+		Assert.assertTrue(count > 0);
+		Assert.assertEquals(0, query(provider, "2", query).size());
+		Assert.assertEquals(count, query(provider, "1", query).size());
+	}
+
+}
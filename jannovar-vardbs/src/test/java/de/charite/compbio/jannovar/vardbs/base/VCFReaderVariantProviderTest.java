@@ -0,0 +1,71 @@
+package de.charite.compbio.jannovar.vardbs.base;
+
+import java.io.File;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.io.Files;
+
+import de.charite.compbio.jannovar.utils.ResourceUtils;
+import htsjdk.samtools.util.CloseableIterator;
+import htsjdk.variant.variantcontext.VariantContext;
+
+/**
+ * Tests for the selection of INFO fields in {@link VCFReaderVariantProvider}
+ */
+public class VCFReaderVariantProviderTest {
+
+	String vcfPath;
+
+	@Before
+	public void setUp() throws Exception {
+		File tmpDir = Files.createTempDir();
+		vcfPath = tmpDir + "/gnomad.genomes.vcf.gz";
+		ResourceUtils.copyResourceToFile("/gnomad.genomes.r2.0.1.sites.head.vcf.gz", new File(vcfPath));
+		ResourceUtils.copyResourceToFile("/gnomad.genomes.r2.0.1.sites.head.vcf.gz.tbi",
+				new File(vcfPath + ".tbi"));
+	}
+
+	@Test
+	public void testSelectInfoFields() {
+		final String prefix = "1\t100\t.\tA\tC\t.\tPASS\t";
+		ImmutableSet<String> keys = ImmutableSet.of("AC", "DB", "END");
+		Assert.assertEquals(prefix + "AC=1,2;DB",
+				VCFReaderVariantProvider.selectInfoFields(prefix + "AC=1,2;AN=10;DB;CSQ=A|B|C", keys));
+		Assert.assertEquals(prefix + "DB;END=200\tGT\t0/1",
+				VCFReaderVariantProvider.selectInfoFields(prefix + "AN=10;DB;AC_AFR=3;END=200\tGT\t0/1", keys));
+		Assert.assertEquals(prefix + ".", VCFReaderVariantProvider.selectInfoFields(prefix + "AN=10;ACX=1", keys));
+		Assert.assertEquals(prefix + ".", VCFReaderVariantProvider.selectInfoFields(prefix + ".", keys));
+		Assert.assertEquals("1\t100\t.\tA", VCFReaderVariantProvider.selectInfoFields("1\t100\t.\tA", keys));
+	}
+
+	@Test
+	public void testSelectInfoKeys() {
+		VCFReaderVariantProvider fullProvider = new VCFReaderVariantProvider(vcfPath);
+		VCFReaderVariantProvider provider = new VCFReaderVariantProvider(vcfPath);
+		provider.selectInfoKeys(ImmutableList.of("AC_AFR", "AN_AFR"));
+
+		int count = 0;
+		try (CloseableIterator<VariantContext> expectedIter = fullProvider.query("1", 9990, 11010);
+				CloseableIterator<VariantContext> iter = provider.query("1", 9990, 11010)) {
+			while (expectedIter.hasNext()) {
+				final VariantContext expected = expectedIter.next();
+				final VariantContext actual = iter.next();
+				Assert.assertEquals(expected.getStart(), actual.getStart());
+				Assert.assertEquals(expected.getEnd(), actual.getEnd());
+				Assert.assertEquals(expected.getAlleles(), actual.getAlleles());
+				Assert.assertEquals(ImmutableSet.of("AC_AFR", "AN_AFR"), actual.getAttributes().keySet());
+				Assert.assertEquals(expected.getAttribute("AC_AFR"), actual.getAttribute("AC_AFR"));
+				Assert.assertEquals(expected.getAttribute("AN_AFR"), actual.getAttribute("AN_AFR"));
+				count += 1;
+			}
+			Assert.assertFalse(iter.hasNext());
+		}
+		Assert.assertEquals(241, count);
+	}
+
+}
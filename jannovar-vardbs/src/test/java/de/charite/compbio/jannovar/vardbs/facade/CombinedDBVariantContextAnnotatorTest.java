@@ -0,0 +1,167 @@
+package de.charite.compbio.jannovar.vardbs.facade;
+
+import java.io.File;
+import java.util.Iterator;
+import java.util.List;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.io.Files;
+
+import de.charite.compbio.jannovar.utils.ResourceUtils;
+import de.charite.compbio.jannovar.vardbs.base.DBAnnotationOptions;
+import de.charite.compbio.jannovar.vardbs.base.JannovarVarDBException;
+import htsjdk.samtools.SAMSequenceDictionary;
+import htsjdk.samtools.SAMSequenceRecord;
+import htsjdk.variant.variantcontext.VariantContext;
+import htsjdk.variant.variantcontext.VariantContextBuilder;
+import htsjdk.variant.variantcontext.writer.Options;
+import htsjdk.variant.variantcontext.writer.VariantContextWriter;
+import htsjdk.variant.variantcontext.writer.VariantContextWriterBuilder;
+import htsjdk.variant.vcf.VCFFileReader;
+import htsjdk.variant.vcf.VCFHeader;
+
+/**
+ * Tests for {@link CombinedDBVariantContextAnnotator}
+ */
+public class CombinedDBVariantContextAnnotatorTest {
+
+	String pathDBSNP;
+	String pathCosmic;
+	String pathExac;
+	String pathRefFASTA;
+
+	@Before
+	public void setUp() throws Exception {
+		File tmpDir = Files.createTempDir();
+		pathDBSNP = tmpDir + "/dbsnp.vcf.gz";
+		ResourceUtils.copyResourceToFile("/dbSNP147.head.vcf.gz", new File(pathDBSNP));
+		ResourceUtils.copyResourceToFile("/dbSNP147.head.vcf.gz.tbi", new File(pathDBSNP + ".tbi"));
+		pathExac = tmpDir + "/exac.vcf.gz";
+		ResourceUtils.copyResourceToFile("/ExAC.r0.3.sites.vep.head.vcf.gz", new File(pathExac));
+		ResourceUtils.copyResourceToFile("/ExAC.r0.3.sites.vep.head.vcf.gz.tbi", new File(pathExac + ".tbi"));
+
+		pathRefFASTA = tmpDir + "/chr1.fasta";
+		ResourceUtils.copyResourceToFile("/chr1.fasta", new File(pathRefFASTA));
+		ResourceUtils.copyResourceToFile("/chr1.fasta.fai", new File(pathRefFASTA + ".fai"));
+
+		// COSMIC file with the records of the fake COSMIC file and one record that is also in dbSNP
+		String pathFakeCosmic = tmpDir + "/cosmic_fake.vcf.gz";
+		ResourceUtils.copyResourceToFile("/COSMIC.v72.fake.vcf.gz", new File(pathFakeCosmic));
+		ResourceUtils.copyResourceToFile("/COSMIC.v72.fake.vcf.gz.tbi", new File(pathFakeCosmic + ".tbi"));
+		pathCosmic = tmpDir + "/cosmic.vcf.gz";
+		SAMSequenceDictionary dict = new SAMSequenceDictionary(ImmutableList.of(new SAMSequenceRecord("1", 249250621)));
+		try (VCFFileReader reader = new VCFFileReader(new File(pathFakeCosmic));
+				VariantContextWriter writer = new VariantContextWriterBuilder().setOutputFile(pathCosmic)
+						.setReferenceDictionary(dict).setOption(Options.INDEX_ON_THE_FLY).build()) {
+			writer.writeHeader(reader.getFileHeader());
+			VariantContext extra = new VariantContextBuilder().chr("1").start(10108).stop(10108).id("COSM10108")
+					.alleles("C", "T").attribute("CNT", 3).make();
+			for (VariantContext vc : reader) {
+				if (extra != null && vc.getStart() > extra.getStart()) {
+					writer.add(extra);
+					extra = null;
+				}
+				writer.add(vc);
+			}
+		}
+	}
+
+	private List<DBVariantContextAnnotator> buildAnnotators() throws JannovarVarDBException {
+		return buildAnnotators(0);
+	}
+
+	private List<DBVariantContextAnnotator> buildAnnotators(int prefetchWindow) throws JannovarVarDBException {
+		DBAnnotationOptions dbSNPOptions = DBAnnotationOptions.createDefaults();
+		dbSNPOptions.setIdentifierPrefix("DBSNP_");
+		dbSNPOptions.setPrefetchWindow(prefetchWindow);
+		DBAnnotationOptions cosmicOptions = DBAnnotationOptions.createDefaults();
+		cosmicOptions.setIdentifierPrefix("COSMIC_");
+		cosmicOptions.setPrefetchWindow(prefetchWindow);
+		DBAnnotationOptions exacOptions = DBAnnotationOptions.createDefaults();
+		exacOptions.setIdentifierPrefix("EXAC_");
+		exacOptions.setPrefetchWindow(prefetchWindow);
+		DBVariantContextAnnotatorFactory factory = new DBVariantContextAnnotatorFactory();
+		return ImmutableList.of(factory.constructDBSNP(pathDBSNP, pathRefFASTA, dbSNPOptions),
+				factory.constructCosmic(pathCosmic, pathRefFASTA, cosmicOptions),
+				factory.constructExac(pathExac, pathRefFASTA, exacOptions));
+	}
+
+	/** @return test variants, sorted by coordinate */
+	private static List<VariantContext> buildVariantContexts() {
+		return ImmutableList.of(
+				new VariantContextBuilder().chr("1").start(10019).stop(10020).alleles("TA", "T").make(),
+				new VariantContextBuilder().chr("1").start(10108).stop(10108).id("myID").alleles("C", "T").make(),
+				new VariantContextBuilder().chr("1").start(11022).stop(11022).alleles("G", "A").make(),
+				new VariantContextBuilder().chr("1").start(12345).stop(12345).alleles("A", "C").make(),
+				new VariantContextBuilder().chr("1").start(13404).stop(13404).alleles("G", "A", "T").make());
+	}
+
+	@Test
+	public void testExtendHeader() throws JannovarVarDBException {
+		VCFHeader header = new CombinedDBVariantContextAnnotator(buildAnnotators()).extendHeader(new VCFHeader());
+		Assert.assertNotNull(header.getInfoHeaderLine("DBSNP_CAF"));
+		Assert.assertNotNull(header.getInfoHeaderLine("COSMIC_CNT"));
+		Assert.assertNotNull(header.getInfoHeaderLine("EXAC_AF_ALL"));
+	}
+
+	@Test
+	public void testSameAsChained() throws JannovarVarDBException {
+		List<DBVariantContextAnnotator> chained = buildAnnotators();
+		CombinedDBVariantContextAnnotator combined = new CombinedDBVariantContextAnnotator(buildAnnotators());
+
+		for (VariantContext vc : buildVariantContexts()) {
+			VariantContext expected = vc;
+			for (DBVariantContextAnnotator annotator : chained)
+				expected = annotator.annotateVariantContext(expected);
+			VariantContext actual = combined.annotateVariantContext(vc);
+
+			Assert.assertEquals(expected.getID(), actual.getID());
+			Assert.assertEquals(expected.getAttributes(), actual.getAttributes());
+		}
+	}
+
+	@Test
+	public void testPrefetchAhead() throws JannovarVarDBException {
+		CombinedDBVariantContextAnnotator plain = new CombinedDBVariantContextAnnotator(buildAnnotators());
+		CombinedDBVariantContextAnnotator prefetching = new CombinedDBVariantContextAnnotator(buildAnnotators(2));
+
+		List<VariantContext> vcs = buildVariantContexts();
+		Iterator<VariantContext> it = prefetching.prefetchAhead(vcs.iterator(), 2);
+		for (VariantContext vc : vcs) {
+			Assert.assertTrue(it.hasNext());
+			VariantContext next = it.next();
+			Assert.assertSame(vc, next);
+			VariantContext expected = plain.annotateVariantContext(vc);
+			VariantContext actual = prefetching.annotateVariantContext(next);
+			Assert.assertEquals(expected.getID(), actual.getID());
+			Assert.assertEquals(expected.getAttributes(), actual.getAttributes());
+		}
+		Assert.assertFalse(it.hasNext());
+	}
+
+	@Test
+	public void testAnnotateFromAllDatabases() throws JannovarVarDBException {
+		CombinedDBVariantContextAnnotator combined = new CombinedDBVariantContextAnnotator(buildAnnotators());
+		List<VariantContext> vcs = buildVariantContexts();
+
+		VariantContext inBoth = combined.annotateVariantContext(vcs.get(1));
+		Assert.assertEquals("myID;rs62651026;COSM10108", inBoth.getID());
+		Assert.assertEquals("3", inBoth.getAttributeAsString("COSMIC_CNT", null));
+		Assert.assertEquals(ImmutableList.of("rs62651026"), inBoth.getAttribute("DBSNP_IDS"));
+
+		VariantContext inCosmic = combined.annotateVariantContext(vcs.get(3));
+		Assert.assertEquals("COSM12345", inCosmic.getID());
+		Assert.assertFalse(inCosmic.hasAttribute("DBSNP_IDS"));
+	}
+
+	@Test
+	public void testNoAnnotators() {
+		VariantContext vc = buildVariantContexts().get(0);
+		Assert.assertSame(vc, new CombinedDBVariantContextAnnotator(ImmutableList.of()).annotateVariantContext(vc));
+	}
+
+}
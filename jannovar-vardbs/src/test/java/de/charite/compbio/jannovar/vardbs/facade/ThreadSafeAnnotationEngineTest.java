@@ -0,0 +1,126 @@
+package de.charite.compbio.jannovar.vardbs.facade;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.io.Files;
+
+import de.charite.compbio.jannovar.data.JannovarData;
+import de.charite.compbio.jannovar.data.ReferenceDictionary;
+import de.charite.compbio.jannovar.htsjdk.VariantContextAnnotator;
+import de.charite.compbio.jannovar.reference.GenomeInterval;
+import de.charite.compbio.jannovar.reference.HG19RefDictBuilder;
+import de.charite.compbio.jannovar.reference.Strand;
+import de.charite.compbio.jannovar.reference.TranscriptModelBuilder;
+import de.charite.compbio.jannovar.utils.ResourceUtils;
+import de.charite.compbio.jannovar.vardbs.base.DBAnnotationOptions;
+import de.charite.compbio.jannovar.vardbs.base.JannovarVarDBException;
+import htsjdk.variant.variantcontext.VariantContext;
+import htsjdk.variant.variantcontext.VariantContextBuilder;
+import htsjdk.variant.vcf.VCFHeader;
+
+/**
+ * Tests for {@link ThreadSafeAnnotationEngine}
+ */
+public class ThreadSafeAnnotationEngineTest {
+
+	String pathDBVCF;
+	String pathRefFASTA;
+	JannovarData jannovarData;
+
+	@Before
+	public void setUp() throws Exception {
+		File tmpDir = Files.createTempDir();
+		pathDBVCF = tmpDir + "/dbsnp.vcf.gz";
+		ResourceUtils.copyResourceToFile("/dbSNP147.head.vcf.gz", new File(pathDBVCF));
+		String pathDBTBI = tmpDir + "/dbsnp.vcf.gz.tbi";
+		ResourceUtils.copyResourceToFile("/dbSNP147.head.vcf.gz.tbi", new File(pathDBTBI));
+
+		pathRefFASTA = tmpDir + "/chr1.fasta";
+		ResourceUtils.copyResourceToFile("/chr1.fasta", new File(pathRefFASTA));
+		String pathRefFAI = tmpDir + "/chr1.fasta.fai";
+		ResourceUtils.copyResourceToFile("/chr1.fasta.fai", new File(pathRefFAI));
+
+		// Non-coding transcript with one exon on chr1:11001-12000
+		ReferenceDictionary refDict = HG19RefDictBuilder.build();
+		TranscriptModelBuilder builder = new TranscriptModelBuilder();
+		builder.setAccession("NR_TEST.1");
+		builder.setGeneSymbol("TEST");
+		builder.setStrand(Strand.FWD);
+		builder.setTXRegion(new GenomeInterval(refDict, Strand.FWD, 1, 11000, 12000));
+		builder.setCDSRegion(new GenomeInterval(refDict, Strand.FWD, 1, 12000, 12000));
+		builder.addExonRegion(new GenomeInterval(refDict, Strand.FWD, 1, 11000, 12000));
+		StringBuilder seq = new StringBuilder();
+		for (int i = 0; i < 1000; ++i)
+			seq.append('A');
+		builder.setSequence(seq.toString());
+		jannovarData = new JannovarData(refDict, ImmutableList.of(builder.build()));
+	}
+
+	private ThreadSafeAnnotationEngine buildEngine() throws JannovarVarDBException {
+		return new ThreadSafeAnnotationEngine(jannovarData, new VariantContextAnnotator.Options(), null,
+				ImmutableList.of(() -> new DBVariantContextAnnotatorFactory().constructDBSNP(pathDBVCF,
+						pathRefFASTA, DBAnnotationOptions.createDefaults())));
+	}
+
+	/** @return new {@link VariantContext} for the <code>i</code>-th test variant */
+	private static VariantContext buildVariantContext(int i) {
+		final int[] positions = { 10019, 10108, 11022, 13110 };
+		final String[] refs = { "TA", "C", "G", "G" };
+		final String[] alts = { "T", "T", "A", "A" };
+		final int k = i % positions.length;
+		return new VariantContextBuilder().chr("1").start(positions[k])
+				.stop(positions[k] + refs[k].length() - 1).alleles(refs[k], alts[k]).make();
+	}
+
+	@Test
+	public void testExtendHeader() throws JannovarVarDBException {
+		VCFHeader header = buildEngine().extendHeader(new VCFHeader());
+		Assert.assertNotNull(header.getInfoHeaderLine("ANN"));
+		Assert.assertNotNull(header.getInfoHeaderLine("CAF"));
+	}
+
+	@Test
+	public void testAnnotateConcurrently() throws Exception {
+		final ThreadSafeAnnotationEngine engine = buildEngine();
+
+		// Expected results from one thread
+		List<String> expected = new ArrayList<>();
+		for (int i = 0; i < 4; ++i) {
+			VariantContext vc = engine.annotateVariantContext(buildVariantContext(i));
+			expected.add(vc.getID() + " " + vc.getAttributes());
+		}
+		Assert.assertTrue(expected.get(2).contains("NR_TEST.1"));
+		Assert.assertTrue(expected.get(1).startsWith("rs62651026"));
+
+		final int numThreads = 8;
+		ExecutorService executor = Executors.newFixedThreadPool(numThreads);
+		try {
+			List<Future<String>> futures = new ArrayList<>();
+			for (int i = 0; i < 800; ++i) {
+				final int k = i;
+				futures.add(executor.submit(() -> {
+					VariantContext vc = engine.annotateVariantContext(buildVariantContext(k));
+					return vc.getID() + " " + vc.getAttributes();
+				}));
+			}
+			for (int i = 0; i < futures.size(); ++i)
+				Assert.assertEquals(expected.get(i % 4), futures.get(i).get());
+		} finally {
+			executor.shutdown();
+		}
+
+		Assert.assertTrue(engine.getNumDBAnnotatorSets() >= 1);
+		Assert.assertTrue(engine.getNumDBAnnotatorSets() <= numThreads + 1);
+	}
+
+}
@@ -9,6 +9,8 @@ import org.junit.Test;
 import com.google.common.io.Files;
 
 import de.charite.compbio.jannovar.utils.ResourceUtils;
+import de.charite.compbio.jannovar.vardbs.base.VCFReaderVariantProvider;
+import htsjdk.samtools.util.CloseableIterator;
 import htsjdk.variant.variantcontext.VariantContext;
 import htsjdk.variant.vcf.VCFFileReader;
 
@@ -46,4 +48,19 @@ public class GnomadExomesVariantContextToRecordConverterTest {
 				+ "NFE=[0.0], OTH=[0.0], SAS=[0.0], POPMAX=[0.0], ALL=[0.0]}]", record.toString());
 	}
 
+	@Test
+	public void testSelectedInfoKeys() {
+		GnomadVariantContextToRecordConverter converter = new GnomadVariantContextToRecordConverter();
+		VCFReaderVariantProvider provider = new VCFReaderVariantProvider(vcfPath);
+		provider.selectInfoKeys(converter.getInfoKeys());
+
+		try (CloseableIterator<VariantContext> expectedIter = vcfReader.iterator();
+				CloseableIterator<VariantContext> iter = provider.query("1", 1, 100000000)) {
+			while (expectedIter.hasNext())
+				Assert.assertEquals(converter.convert(expectedIter.next()).toString(),
+						converter.convert(iter.next()).toString());
+			Assert.assertFalse(iter.hasNext());
+		}
+	}
+
 }